@@ -0,0 +1,272 @@
+package com.germer.starit;
+
+import com.germer.starit.parser.Shard;
+import com.germer.starit.parser.TokenizerMode;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * The options accepted by the application on the command line. Options are given as <code>--name=value</code> and
+ * may appear anywhere, any other argument is taken as a source for the favorite things. A single source file is either
+ * a text file or a snapshot written through <code>--write-snapshot</code>, while several text files can be given as
+ * several arguments, directories or globs, see {@link SourcePaths}.
+ */
+@Getter
+@ToString
+public class CommandLineOptions {
+
+    public static final String USAGE = "Usage: starit [--tokenizer=regex|scanner] [--mmap] [--threads=N] " +
+            "[--storage=sorted|columnar|bulk|offheap|streaming|sketch] [--spill-dir=DIR] [--sketch-file=FILE] " +
+            "[--top-k=N] [--approximate-dedup=N] [--checkpoint=FILE] " +
+            "[--write-snapshot=FILE] [--serve=PORT] [--max-errors=N] [--metrics] [--metrics-json=FILE] " +
+            "[--slow-line-millis=N] [--pipeline=N] [--batch-size=BYTES] [--ignore-category-case] " +
+            "[--shards=N] [--shard=I/N] " +
+            "[favorite-things-file|snapshot-file|directory|glob]...";
+
+    /**
+     * How the favorite things of each category are stored, see {@link com.germer.starit.model.FavoriteThingStore}.
+     */
+    public enum Storage {
+        SORTED, COLUMNAR, BULK, OFFHEAP, STREAMING, SKETCH
+    }
+
+    private final List<String> arguments = new ArrayList<>();
+    private final List<String> sourceFiles = new ArrayList<>();
+    private TokenizerMode tokenizerMode = TokenizerMode.REGEX;
+    private boolean memoryMapped;
+    private int threads = 1;
+    private Storage storage = Storage.SORTED;
+    private int topK = 1;
+    private long approximateDedup;
+    private String spillDirectory;
+    private String sketchFile;
+    private String checkpointFile;
+    private String snapshotOutputFile;
+    private int servePort;
+    private int maxErrors;
+    private boolean metricsPrinted;
+    private String metricsOutputFile;
+    private int slowLineMillis;
+    private int pipelineThreads;
+    private int batchSize;
+    private boolean ignoreCategoryCase;
+    private int shards;
+    private Shard shard;
+
+    /**
+     * @return The first source, which is the only one unless several are given, or null when none is given.
+     */
+    public String getSourceFile() {
+        return sourceFiles.isEmpty() ? null : sourceFiles.get(0);
+    }
+
+    public List<String> getSourceFiles() {
+        return Collections.unmodifiableList(sourceFiles);
+    }
+
+    /**
+     * @return The program arguments the options were parsed from, as given.
+     */
+    public List<String> getArguments() {
+        return Collections.unmodifiableList(arguments);
+    }
+
+    /**
+     * @return Whether the source file should be parsed through the memory-mapped path, which is always the case when
+     * it's parsed by more than one thread.
+     */
+    public boolean isMemoryMapped() {
+        return memoryMapped || threads > 1;
+    }
+
+    /**
+     * @return Whether the run should be instrumented, which is the case when its metrics are printed or exported.
+     */
+    public boolean isMetricsEnabled() {
+        return metricsPrinted || metricsOutputFile != null;
+    }
+
+    /**
+     * @return The options used when none is given, reading from the sample favorite things resource.
+     */
+    public static CommandLineOptions defaults() {
+        return new CommandLineOptions();
+    }
+
+    /**
+     * @param args The program arguments.
+     * @return The parsed options.
+     * @throws IllegalArgumentException in case of unknown options, invalid values or options which don't apply to
+     *                                  several sources given along with them.
+     */
+    public static CommandLineOptions parse(String... args) {
+        CommandLineOptions options = new CommandLineOptions();
+        options.arguments.addAll(Arrays.asList(args));
+        for (String arg : args) {
+            if (arg.startsWith("--")) {
+                options.parseOption(arg);
+            } else {
+                options.sourceFiles.add(arg);
+            }
+        }
+        options.validate();
+        return options;
+    }
+
+    private void parseOption(String arg) {
+        int separator = arg.indexOf('=');
+        String name = separator < 0 ? arg.substring(2) : arg.substring(2, separator);
+        String value = separator < 0 ? null : arg.substring(separator + 1);
+
+        if ("tokenizer".equals(name)) {
+            tokenizerMode = parseEnum(TokenizerMode.class, name, value);
+        } else if ("mmap".equals(name)) {
+            memoryMapped = parseFlag(name, value);
+        } else if ("threads".equals(name)) {
+            threads = parsePositiveInt(name, value);
+        } else if ("storage".equals(name)) {
+            storage = parseEnum(Storage.class, name, value);
+        } else if ("top-k".equals(name)) {
+            topK = parsePositiveInt(name, value);
+        } else if ("approximate-dedup".equals(name)) {
+            approximateDedup = parsePositiveInt(name, value);
+        } else if ("spill-dir".equals(name)) {
+            spillDirectory = requireValue(name, value);
+        } else if ("sketch-file".equals(name)) {
+            sketchFile = requireValue(name, value);
+        } else if ("checkpoint".equals(name)) {
+            checkpointFile = requireValue(name, value);
+        } else if ("write-snapshot".equals(name)) {
+            snapshotOutputFile = requireValue(name, value);
+        } else if ("serve".equals(name)) {
+            servePort = parsePositiveInt(name, value);
+        } else if ("max-errors".equals(name)) {
+            maxErrors = parsePositiveInt(name, value);
+        } else if ("metrics".equals(name)) {
+            metricsPrinted = parseFlag(name, value);
+        } else if ("metrics-json".equals(name)) {
+            metricsOutputFile = requireValue(name, value);
+        } else if ("slow-line-millis".equals(name)) {
+            slowLineMillis = parsePositiveInt(name, value);
+        } else if ("pipeline".equals(name)) {
+            pipelineThreads = parsePositiveInt(name, value);
+        } else if ("batch-size".equals(name)) {
+            batchSize = parsePositiveInt(name, value);
+        } else if ("ignore-category-case".equals(name)) {
+            ignoreCategoryCase = parseFlag(name, value);
+        } else if ("shards".equals(name)) {
+            shards = parsePositiveInt(name, value);
+        } else if ("shard".equals(name)) {
+            shard = parseShard(name, value);
+        } else {
+            throw new IllegalArgumentException(String.format("Unknown option '%s'.", arg));
+        }
+    }
+
+    private void validate() {
+        if (servePort > 0 && sourceFiles.isEmpty()) {
+            throw new IllegalArgumentException("The option '--serve' requires a source file.");
+        }
+        if (checkpointFile != null && sourceFiles.isEmpty()) {
+            throw new IllegalArgumentException("The option '--checkpoint' requires a source file.");
+        }
+        if (sourceFiles.size() > 1 && (servePort > 0 || checkpointFile != null || pipelineThreads > 0)) {
+            throw new IllegalArgumentException(String.format("The option '--%s' requires a single source file.",
+                    servePort > 0 ? "serve" : checkpointFile != null ? "checkpoint" : "pipeline"));
+        }
+        if (pipelineThreads > 0 && (memoryMapped || threads > 1 || checkpointFile != null)) {
+            throw new IllegalArgumentException("The option '--pipeline' can't be used along with '--mmap', " +
+                    "'--threads' or '--checkpoint', which parse the file through other paths.");
+        }
+        if (batchSize > 0 && pipelineThreads == 0) {
+            throw new IllegalArgumentException("The option '--batch-size' requires '--pipeline'.");
+        }
+        if (slowLineMillis > 0 && !isMetricsEnabled()) {
+            throw new IllegalArgumentException("The option '--slow-line-millis' requires '--metrics' or " +
+                    "'--metrics-json'.");
+        }
+        if (shards > 0 && shard != null) {
+            throw new IllegalArgumentException("The options '--shards' and '--shard' can't be used together.");
+        }
+        if ((shards > 0 || shard != null) && (servePort > 0 || checkpointFile != null || snapshotOutputFile != null
+                || maxErrors > 0 || isMetricsEnabled())) {
+            throw new IllegalArgumentException("The options '--shards' and '--shard' can't be used along with " +
+                    "'--serve', '--checkpoint', '--write-snapshot', '--max-errors' or the metrics, which need all " +
+                    "the categories and errors in a single process.");
+        }
+        if (checkpointFile != null && storage == Storage.STREAMING) {
+            throw new IllegalArgumentException("The option '--checkpoint' can't be used along with " +
+                    "'--storage=streaming', which doesn't keep all the favorite things.");
+        }
+        if (spillDirectory != null && storage != Storage.OFFHEAP) {
+            throw new IllegalArgumentException("The option '--spill-dir' requires '--storage=offheap'.");
+        }
+        if (sketchFile != null && storage != Storage.SKETCH) {
+            throw new IllegalArgumentException("The option '--sketch-file' requires '--storage=sketch'.");
+        }
+        if (storage == Storage.SKETCH && (servePort > 0 || checkpointFile != null || snapshotOutputFile != null
+                || shards > 0 || shard != null)) {
+            throw new IllegalArgumentException("The option '--storage=sketch' can't be used along with '--serve', " +
+                    "'--checkpoint', '--write-snapshot', '--shards' or '--shard', which need the favorite things " +
+                    "themselves.");
+        }
+    }
+
+    private static <E extends Enum<E>> E parseEnum(Class<E> type, String name, String value) {
+        requireValue(name, value);
+        try {
+            return Enum.valueOf(type, value.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException(String.format("Invalid value '%s' for option '--%s'.", value, name), e);
+        }
+    }
+
+    private static int parsePositiveInt(String name, String value) {
+        requireValue(name, value);
+        try {
+            int parsed = Integer.parseInt(value);
+            if (parsed > 0) {
+                return parsed;
+            }
+        } catch (NumberFormatException e) {
+            // reported below
+        }
+        throw new IllegalArgumentException(String.format("Invalid value '%s' for option '--%s', a positive " +
+                "integer is expected.", value, name));
+    }
+
+    private static Shard parseShard(String name, String value) {
+        requireValue(name, value);
+        int separator = value.indexOf('/');
+        try {
+            if (separator > 0) {
+                return Shard.of(Integer.parseInt(value.substring(0, separator)),
+                        Integer.parseInt(value.substring(separator + 1)));
+            }
+        } catch (IllegalArgumentException e) {
+            // reported below, NumberFormatException included
+        }
+        throw new IllegalArgumentException(String.format("Invalid value '%s' for option '--%s', a shard index " +
+                "lower than the amount of shards is expected, such as 0/4.", value, name));
+    }
+
+    private static boolean parseFlag(String name, String value) {
+        if (value != null) {
+            throw new IllegalArgumentException(String.format("The option '--%s' doesn't accept a value.", name));
+        }
+        return true;
+    }
+
+    private static String requireValue(String name, String value) {
+        if (value == null || value.isEmpty()) {
+            throw new IllegalArgumentException(String.format("The option '--%s' requires a value.", name));
+        }
+        return value;
+    }
+}
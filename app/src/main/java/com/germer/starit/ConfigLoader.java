@@ -1,6 +1,6 @@
 package com.germer.starit;
 
-import org.apache.commons.lang3.StringUtils;
+import com.germer.starit.parser.CategoryTable;
 
 import java.io.BufferedReader;
 import java.io.IOException;
@@ -18,6 +18,14 @@ public class ConfigLoader {
 
     public static final String CATEGORIES_CONF_FILE = "categories.conf";
 
+    /**
+     * @param ignoreCase Whether the categories should be matched ignoring case.
+     * @return The valid categories compiled into a {@link CategoryTable}, which finds them straight from the lines.
+     */
+    public static CategoryTable loadCategoryTable(boolean ignoreCase) {
+        return CategoryTable.of(loadValidCategoryNames(), ignoreCase);
+    }
+
     public static Set<String> loadValidCategoryNames() {
         InputStream categoriesConf = ClassLoader.getSystemResourceAsStream(CATEGORIES_CONF_FILE);
 
@@ -32,7 +40,7 @@ public class ConfigLoader {
             return reader.lines()
                     .flatMap(line -> Arrays.stream(line.split(":")))
                     .map(String::trim)
-                    .filter(StringUtils::isNotEmpty)
+                    .filter(name -> !name.isEmpty())
                     .collect(Collectors.toSet());
 
         } catch (IOException e) {
@@ -1,12 +1,41 @@
 package com.germer.starit;
 
+import com.germer.starit.metrics.RunMetrics;
+import com.germer.starit.model.BulkLoadFavoriteThingStore;
 import com.germer.starit.model.Category;
+import com.germer.starit.model.ColumnarFavoriteThingStore;
 import com.germer.starit.model.FavoriteThing;
+import com.germer.starit.model.OffHeapFavoriteThingStore;
+import com.germer.starit.model.SketchFavoriteThingStore;
+import com.germer.starit.model.StreamingFavoriteThingStore;
+import com.germer.starit.offheap.OffHeapArena;
+import com.germer.starit.parser.CategoryTable;
+import com.germer.starit.parser.Compression;
 import com.germer.starit.parser.FavoriteThingsParser;
+import com.germer.starit.parser.PartialResult;
+import com.germer.starit.parser.ParsingError;
+import com.germer.starit.parser.ParsingErrorLog;
+import com.germer.starit.parser.ParsingErrorWriter;
+import com.germer.starit.parser.ParsingStatistics;
+import com.germer.starit.snapshot.CategorySnapshot;
+import com.germer.starit.server.FavoriteThingsServer;
+import com.germer.starit.sketch.CategorySketch;
+import com.germer.starit.snapshot.CategorySnapshotWriter;
 
+import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.function.Supplier;
+import java.util.stream.Collectors;
 
 /**
  * This class centralizes the business logic for the Favorite Things highest-rating listing features. It will
@@ -18,40 +47,160 @@ import java.util.function.Supplier;
  * Category with highest sum: Foods; sum was 63
  * </pre>
  * <p>
- * Any parsing errors detected by the parser will be sent to the default error output, but the application will be
- * lenient and evaluate the results based on the data that was possible to be parsed, if any.
+ * Any parsing errors detected by the parser will be sent to the default error output as they are found, followed by
+ * their counters once the parsing is over, but the application will be lenient and evaluate the results based on the
+ * data that was possible to be parsed, if any.
+ * <p>
+ * A source file which is a {@link CategorySnapshot} is queried directly for the same results instead of being parsed.
+ * Several source files, directories or globs are parsed together into the same categories, see
+ * {@link FavoriteThingsParser#parse(List)}.
+ * <p>
+ * The run can be instrumented, reporting the time of each stage and the throughput of the parsing once it's over,
+ * see {@link RunMetrics}.
+ * <p>
+ * The parsing can also be split across several worker processes, each one keeping a shard of the categories, see
+ * {@link ShardCoordinator} and {@link #runShard(OutputStream)}.
+ * <p>
+ * With the sketch storage, the results are followed by an approximate summary of each category, which may combine
+ * the sketches of previous runs saved on a sketch file, see {@link CategorySketch}.
  */
 public class FavoriteThingsRunner {
 
     private static final int EXIT_ERROR = 1;
     private static final int EXIT_SUCCESS = 0;
+    private static final int SERVER_THREADS = Math.max(4, Runtime.getRuntime().availableProcessors() * 2);
+    private static final int DEFAULT_SLOW_LINE_MILLIS = 10;
+    private static final String PARSE_STAGE = "parse";
+    private static final int DEFAULT_BATCH_SIZE = 1 << 20;
+    private static final int REPORTED_MOST_MENTIONED = 5;
 
     private final Supplier<InputStream> inputStreamSupplier;
+    private final CommandLineOptions options;
+    private final RunMetrics metrics;
+    /**
+     * The stores of the sketched categories, by name, filled as the parser creates them.
+     */
+    private final Map<String, SketchFavoriteThingStore> sketchStoreByName = new ConcurrentHashMap<>();
+    private ParsingErrorWriter errorWriter;
+    /**
+     * The arena of the off-heap categories of the last parse, closed once a new parse replaces them.
+     */
+    private OffHeapArena offHeapArena;
 
     public FavoriteThingsRunner(Supplier<InputStream> inputStreamSupplier) {
+        this(inputStreamSupplier, CommandLineOptions.defaults());
+    }
+
+    public FavoriteThingsRunner(Supplier<InputStream> inputStreamSupplier, CommandLineOptions options) {
         this.inputStreamSupplier = inputStreamSupplier;
+        this.options = options;
+        this.metrics = options.isMetricsEnabled() ? RunMetrics.enabled() : RunMetrics.disabled();
     }
 
     public int run() {
         try {
-            FavoriteThingsParser favoriteThingsParser = parseSuppliedInputStream();
+            if (options.getSourceFiles().size() == 1 && !SourcePaths.isMultiple(options.getSourceFile())
+                    && CategorySnapshot.isSnapshot(Paths.get(options.getSourceFile()))) {
+                try (RunMetrics.Stage stage = metrics.startStage("query-snapshot")) {
+                    displayResults(CategorySnapshot.open(Paths.get(options.getSourceFile())));
+                }
+                reportMetrics();
+                return EXIT_SUCCESS;
+            }
 
-            if (favoriteThingsParser.hasErrors()) {
-                List<String> parsingErrors = favoriteThingsParser.getParsingErrors();
-                System.err.printf("A total of %d error(s) occurred while parsing: %n", parsingErrors.size());
-                parsingErrors.forEach(System.err::println);
-                System.err.println();
+            if (options.getShards() > 0) {
+                PartialResult result = new ShardCoordinator(options.getArguments(), options.getShards())
+                        .run(isMultipleSources() ? sourceNames() : null);
+                if (!result.getErrors().isEmpty()) {
+                    printParsingErrors(result.getErrors().stream()
+                            .map(ParsingError::getMessage)
+                            .collect(Collectors.toList()));
+                }
+                displayResults(result);
+                return EXIT_SUCCESS;
             }
 
+            FavoriteThingsParser favoriteThingsParser = parseSuppliedInputStream();
             Collection<Category> parsedCategories = favoriteThingsParser.getParsedCategories();
+            metrics.recordParsing(PARSE_STAGE, favoriteThingsParser.getStatistics(),
+                    favoriteThingsParser.getErrorLog(), parsedCategories);
 
-            if (parsedCategories.isEmpty()) {
-                System.out.println("No favorite things found in any category, nothing to see here.");
-            } else {
-                displayHighestRatingThing(parsedCategories);
-                displayHighestRatingCategory(parsedCategories);
+            try (RunMetrics.Stage stage = metrics.startStage("report-errors")) {
+                if (errorWriter != null) {
+                    errorWriter.flush();
+                    printErrorSummary(favoriteThingsParser.getErrorLog());
+                } else if (favoriteThingsParser.hasErrors()) {
+                    printParsingErrors(favoriteThingsParser.getParsingErrors());
+                }
+            }
+
+            if (options.getSnapshotOutputFile() != null) {
+                try (RunMetrics.Stage stage = metrics.startStage("write-snapshot")) {
+                    CategorySnapshotWriter.write(parsedCategories, Paths.get(options.getSnapshotOutputFile()));
+                }
+            }
+
+            try (RunMetrics.Stage stage = metrics.startStage("compute-results")) {
+                if (parsedCategories.isEmpty()) {
+                    System.out.println("No favorite things found in any category, nothing to see here.");
+                } else {
+                    displayHighestRatingThing(parsedCategories);
+                    displayHighestRatingCategory(parsedCategories);
+                }
             }
 
+            if (options.getStorage() == CommandLineOptions.Storage.SKETCH) {
+                try (RunMetrics.Stage stage = metrics.startStage("report-sketches")) {
+                    displaySketches(combineSketches());
+                }
+            }
+
+            reportMetrics();
+            return EXIT_SUCCESS;
+        } catch (Exception e) {
+            System.err.printf("A fatal error has occurred:%n%s", e.getMessage());
+            return EXIT_ERROR;
+        }
+    }
+
+    /**
+     * Parses the shard of the categories given by the options, as a worker of a {@link ShardCoordinator}, and writes
+     * its {@link PartialResult} to the given stream instead of displaying any results.
+     *
+     * @return {@value EXIT_SUCCESS} once the partial result is written, or {@value EXIT_ERROR} in case of a fatal
+     * error.
+     */
+    public int runShard(OutputStream partialResultOutput) {
+        try {
+            if (options.getSourceFiles().size() == 1 && !SourcePaths.isMultiple(options.getSourceFile())
+                    && CategorySnapshot.isSnapshot(Paths.get(options.getSourceFile()))) {
+                throw new IllegalArgumentException(String.format("The snapshot %s can't be parsed by shards.",
+                        options.getSourceFile()));
+            }
+            // The errors are kept, for the coordinator to merge them back in order.
+            FavoriteThingsParser favoriteThingsParser = parseSuppliedInputStream(null);
+            PartialResult.of(favoriteThingsParser.getParsedCategories(), favoriteThingsParser.getErrorLog())
+                    .writeTo(partialResultOutput);
+            return EXIT_SUCCESS;
+        } catch (Exception e) {
+            System.err.printf("A fatal error has occurred:%n%s", e.getMessage());
+            return EXIT_ERROR;
+        }
+    }
+
+    /**
+     * Starts serving queries over the favorite things of the source file, which keep being served by the server
+     * threads after this method returns, folding in the changes to the file. See {@link FavoriteThingsServer}.
+     *
+     * @return {@value EXIT_SUCCESS} once the server is started, or {@value EXIT_ERROR} in case it couldn't be.
+     */
+    public int serve() {
+        try {
+            Path sourcePath = Paths.get(options.getSourceFile());
+            FavoriteThingsServer server = new FavoriteThingsServer(categoriesLoader(sourcePath), sourcePath);
+            int port = server.start(options.getServePort(), SERVER_THREADS);
+            Runtime.getRuntime().addShutdownHook(new Thread(server::close));
+            System.out.printf("Serving the favorite things of %s on http://localhost:%d/%n", sourcePath, port);
             return EXIT_SUCCESS;
         } catch (Exception e) {
             System.err.printf("A fatal error has occurred:%n%s", e.getMessage());
@@ -59,33 +208,310 @@ public class FavoriteThingsRunner {
         }
     }
 
+    /**
+     * @return Loads the categories from a snapshot, or parses them from the text file resuming from a checkpoint
+     * (a temporary one unless given) when the storage allows it and the file isn't compressed, so that only appended
+     * lines are parsed on reloads.
+     */
+    private Supplier<Collection<Category>> categoriesLoader(Path sourcePath) throws IOException {
+        if (CategorySnapshot.isSnapshot(sourcePath)) {
+            return () -> CategorySnapshot.open(sourcePath).loadCategories();
+        }
+
+        Path checkpointPath = null;
+        if (options.getStorage() != CommandLineOptions.Storage.STREAMING && !isCompressed(sourcePath)) {
+            if (options.getCheckpointFile() != null) {
+                checkpointPath = Paths.get(options.getCheckpointFile());
+            } else {
+                checkpointPath = Files.createTempFile("favorite-things", ".checkpoint");
+                checkpointPath.toFile().deleteOnExit();
+            }
+        }
+        Path incrementalCheckpointPath = checkpointPath;
+        return () -> {
+            FavoriteThingsParser favoriteThingsParser = newParser(null);
+            if (incrementalCheckpointPath != null) {
+                favoriteThingsParser.parseIncrementally(sourcePath, incrementalCheckpointPath);
+            } else {
+                favoriteThingsParser.parse(sourcePath);
+            }
+            // The categories are queried by the server threads from now on, so they are frozen beforehand.
+            Category.freezeAll(favoriteThingsParser.getParsedCategories());
+            System.out.printf("Loaded %d categories from %s with %d parsing error(s).%n",
+                    favoriteThingsParser.getParsedCategories().size(), sourcePath,
+                    favoriteThingsParser.getErrorLog().getErrorCount());
+            return favoriteThingsParser.getParsedCategories();
+        };
+    }
+
     protected FavoriteThingsParser parseSuppliedInputStream(){
-        Set<String> validCategoryNames = ConfigLoader.loadValidCategoryNames();
-        FavoriteThingsParser favoriteThingsParser = new FavoriteThingsParser(validCategoryNames);
-        favoriteThingsParser.parse(inputStreamSupplier.get());
+        // The errors are written as they are found instead of being kept until the parsing is over.
+        errorWriter = new ParsingErrorWriter(System.err);
+        return parseSuppliedInputStream(errorWriter);
+    }
+
+    /**
+     * @param errorSink Receives the errors as they are found instead of keeping them, or null.
+     */
+    private FavoriteThingsParser parseSuppliedInputStream(Consumer<ParsingError> errorSink) {
+        FavoriteThingsParser favoriteThingsParser;
+        try (RunMetrics.Stage stage = metrics.startStage("load-config")) {
+            favoriteThingsParser = newParser(errorSink);
+        }
+        if (metrics.isEnabled()) {
+            int slowLineMillis = options.getSlowLineMillis() > 0 ? options.getSlowLineMillis()
+                    : DEFAULT_SLOW_LINE_MILLIS;
+            favoriteThingsParser.setStatistics(new ParsingStatistics(TimeUnit.MILLISECONDS.toNanos(slowLineMillis)));
+        }
+
+        try (RunMetrics.Stage stage = metrics.startStage(PARSE_STAGE)) {
+            parse(favoriteThingsParser);
+        }
+        if (options.getStorage() == CommandLineOptions.Storage.BULK) {
+            try (RunMetrics.Stage stage = metrics.startStage("freeze")) {
+                Category.freezeAll(favoriteThingsParser.getParsedCategories());
+            }
+        }
         return favoriteThingsParser;
     }
 
+    private void parse(FavoriteThingsParser favoriteThingsParser) {
+        if (options.getCheckpointFile() != null) {
+            Path checkpointPath = Paths.get(options.getCheckpointFile());
+            boolean hasCheckpoint = Files.exists(checkpointPath);
+            if (!favoriteThingsParser.parseIncrementally(Paths.get(options.getSourceFile()), checkpointPath)
+                    && hasCheckpoint) {
+                System.err.printf("The checkpoint %s doesn't match the source file anymore, the whole file was " +
+                        "parsed again.%n", checkpointPath);
+            }
+        } else if (isMultipleSources()) {
+            favoriteThingsParser.parse(SourcePaths.resolve(options.getSourceFiles()));
+        } else if (options.getPipelineThreads() > 0) {
+            favoriteThingsParser.parsePipelined(inputStreamSupplier.get(), options.getPipelineThreads(),
+                    options.getBatchSize() > 0 ? options.getBatchSize() : DEFAULT_BATCH_SIZE);
+        } else if (options.getSourceFile() != null
+                && (options.isMemoryMapped() || isCompressed(Paths.get(options.getSourceFile())))) {
+            // Compressed files are parsed from their path so that their gzip members can be inflated in parallel.
+            favoriteThingsParser.parse(Paths.get(options.getSourceFile()));
+        } else {
+            favoriteThingsParser.parse(inputStreamSupplier.get());
+        }
+    }
+
+    private boolean isMultipleSources() {
+        return options.getSourceFiles().size() > 1 || options.getSourceFile() != null
+                && SourcePaths.isMultiple(options.getSourceFile());
+    }
+
+    /**
+     * @return The names the errors of several sources are reported with, in the order they are parsed.
+     */
+    private List<String> sourceNames() {
+        return SourcePaths.resolve(options.getSourceFiles()).stream()
+                .map(Path::toString)
+                .collect(Collectors.toList());
+    }
+
+    private void reportMetrics() throws IOException {
+        if (options.isMetricsPrinted()) {
+            metrics.printSummary(System.err);
+        }
+        if (options.getMetricsOutputFile() != null) {
+            metrics.writeJson(Paths.get(options.getMetricsOutputFile()));
+        }
+    }
+
+    private static boolean isCompressed(Path path) {
+        return Files.isRegularFile(path) && Compression.of(path) != Compression.NONE;
+    }
+
+    /**
+     * @param errorSink Receives the errors as they are found instead of keeping them, or null.
+     */
+    private FavoriteThingsParser newParser(Consumer<ParsingError> errorSink) {
+        CategoryTable categoryTable = ConfigLoader.loadCategoryTable(options.isIgnoreCategoryCase());
+        FavoriteThingsParser favoriteThingsParser =
+                new FavoriteThingsParser(categoryTable, options.getTokenizerMode());
+        favoriteThingsParser.setParallelism(options.getThreads());
+        favoriteThingsParser.setCategoryFactory(categoryFactory());
+        if (options.getShard() != null) {
+            favoriteThingsParser.setShard(options.getShard());
+        }
+        if (options.getMaxErrors() > 0 || errorSink != null) {
+            favoriteThingsParser.setErrorLog(new ParsingErrorLog(options.getMaxErrors() > 0 ? options.getMaxErrors()
+                    : ParsingErrorLog.UNLIMITED, errorSink));
+        }
+        return favoriteThingsParser;
+    }
+
+    private Function<String, Category> categoryFactory() {
+        if (options.getStorage() == CommandLineOptions.Storage.SKETCH) {
+            return name -> {
+                SketchFavoriteThingStore store = new SketchFavoriteThingStore(name);
+                sketchStoreByName.put(name, store);
+                return new Category(name, store);
+            };
+        }
+        if (options.getStorage() == CommandLineOptions.Storage.STREAMING) {
+            int topK = options.getTopK();
+            long approximateDedup = options.getApproximateDedup();
+            return name -> new Category(name, approximateDedup > 0
+                    ? new StreamingFavoriteThingStore(name, topK, approximateDedup)
+                    : new StreamingFavoriteThingStore(name, topK));
+        }
+        if (options.getStorage() == CommandLineOptions.Storage.COLUMNAR) {
+            return name -> new Category(name, new ColumnarFavoriteThingStore(name));
+        }
+        if (options.getStorage() == CommandLineOptions.Storage.OFFHEAP) {
+            OffHeapArena arena = newOffHeapArena();
+            return name -> new Category(name, new OffHeapFavoriteThingStore(name, arena));
+        }
+        if (options.getStorage() == CommandLineOptions.Storage.BULK) {
+            return name -> new Category(name, new BulkLoadFavoriteThingStore());
+        }
+        return Category::new;
+    }
+
+    /**
+     * @return A new arena for the off-heap categories of a parse, mapped from a scratch file of the spill directory
+     * when one is given. The categories still being queried keep their memory, as closing an arena doesn't free it.
+     */
+    private synchronized OffHeapArena newOffHeapArena() {
+        try {
+            if (offHeapArena != null) {
+                offHeapArena.close();
+            }
+            offHeapArena = options.getSpillDirectory() != null
+                    ? OffHeapArena.mapped(Paths.get(options.getSpillDirectory()))
+                    : OffHeapArena.direct();
+            return offHeapArena;
+        } catch (IOException e) {
+            throw new UncheckedIOException(String.format("Couldn't create an off-heap scratch file in %s.",
+                    options.getSpillDirectory()), e);
+        }
+    }
+
     private void displayHighestRatingThing(Collection<Category> parsedCategories) {
         parsedCategories.stream()
                 .map(Category::getHighestRatingFavoriteItem)
                 .filter(Optional::isPresent)
                 .map(Optional::get)
                 .max(Comparator.comparing(FavoriteThing::getRating))
-                .ifPresent(highestRatingFavoriteThing ->
-                        System.out.printf("Highest rating category: %s; thing: %s; rating: %d%n",
-                                highestRatingFavoriteThing.getCategoryName(),
-                                highestRatingFavoriteThing.getName(),
-                                highestRatingFavoriteThing.getRating())
-                );
+                .ifPresent(FavoriteThingsRunner::printHighestRatingThing);
     }
 
     private void displayHighestRatingCategory(Collection<Category> parsedCategories) {
         parsedCategories.stream()
                 .max(Comparator.comparing(Category::getTotalScore))
-                .ifPresent(highestRatingCategory ->
-                        System.out.printf("Category with highest sum: %s; sum was %d%n",
-                                highestRatingCategory.getName(), highestRatingCategory.getTotalScore())
-                );
+                .ifPresent(highestRatingCategory -> printHighestRatingCategory(highestRatingCategory.getName(),
+                        highestRatingCategory.getTotalScore()));
+    }
+
+    /**
+     * Displays the same results straight from a snapshot, whose categories are not loaded.
+     */
+    private void displayResults(CategorySnapshot snapshot) {
+        if (snapshot.getCategoryCount() == 0) {
+            System.out.println("No favorite things found in any category, nothing to see here.");
+            return;
+        }
+        snapshot.getHighestRatingFavoriteThing().ifPresent(FavoriteThingsRunner::printHighestRatingThing);
+        snapshot.getHighestTotalScoreCategory().ifPresent(highestRatingCategory -> printHighestRatingCategory(
+                snapshot.getCategoryName(highestRatingCategory), snapshot.getTotalScore(highestRatingCategory)));
+    }
+
+    /**
+     * Displays the same results from the summaries of the categories parsed by shards.
+     */
+    private void displayResults(PartialResult result) {
+        if (result.getCategoryCount() == 0) {
+            System.out.println("No favorite things found in any category, nothing to see here.");
+            return;
+        }
+        result.getHighestRatingFavoriteThing().ifPresent(FavoriteThingsRunner::printHighestRatingThing);
+        result.getHighestTotalScoreCategory().ifPresent(highestRatingCategory -> printHighestRatingCategory(
+                highestRatingCategory.getName(), highestRatingCategory.getTotalScore()));
+    }
+
+    /**
+     * @return The sketches of this run, merged into those saved on the sketch file when given, which is then
+     * rewritten with the combined sketches.
+     */
+    private Collection<CategorySketch> combineSketches() throws IOException {
+        if (options.getSketchFile() == null) {
+            return sketchStoreByName.values().stream()
+                    .map(SketchFavoriteThingStore::getSketch)
+                    .collect(Collectors.toList());
+        }
+        Path sketchPath = Paths.get(options.getSketchFile());
+        Map<String, CategorySketch> sketchByName = CategorySketch.readAll(sketchPath);
+        for (SketchFavoriteThingStore store : sketchStoreByName.values()) {
+            CategorySketch previousSketch = sketchByName.putIfAbsent(store.getSketch().getName(), store.getSketch());
+            if (previousSketch != null) {
+                previousSketch.merge(store.getSketch());
+            }
+        }
+        CategorySketch.writeAll(sketchByName.values(), sketchPath);
+        return sketchByName.values();
+    }
+
+    private static void displaySketches(Collection<CategorySketch> sketches) {
+        if (sketches.isEmpty()) {
+            return;
+        }
+        System.out.println("Approximate summary by category:");
+        sketches.stream()
+                .sorted(Comparator.comparing(CategorySketch::getName))
+                .forEach(sketch -> {
+                    StringJoiner mostMentioned = new StringJoiner(", ");
+                    for (Map.Entry<String, Long> mentions : sketch.getMostMentioned(REPORTED_MOST_MENTIONED)) {
+                        mostMentioned.add(String.format("%s (%d)", mentions.getKey(), mentions.getValue()));
+                    }
+                    System.out.printf(Locale.ROOT, "%s: ~%d distinct thing(s) in %d mention(s); most mentioned: " +
+                                    "%s; rating p50 ~%.1f, p90 ~%.1f, p99 ~%.1f%n", sketch.getName(),
+                            sketch.getDistinctCount(), sketch.getMentionCount(), mostMentioned,
+                            sketch.getRatingQuantile(0.5), sketch.getRatingQuantile(0.9),
+                            sketch.getRatingQuantile(0.99));
+                });
+    }
+
+    private static void printParsingErrors(List<String> parsingErrors) {
+        System.err.printf("A total of %d error(s) occurred while parsing: %n", parsingErrors.size());
+        parsingErrors.forEach(System.err::println);
+        System.err.println();
+    }
+
+    /**
+     * Prints the counters of the errors, which were already written as they were found.
+     */
+    private static void printErrorSummary(ParsingErrorLog errorLog) {
+        if (errorLog.getErrorCount() == 0) {
+            return;
+        }
+        StringJoiner countsByType = new StringJoiner(", ");
+        for (ParsingError.Type type : ParsingError.Type.values()) {
+            if (errorLog.getErrorCount(type) > 0) {
+                countsByType.add(String.format("%d %s(s)", errorLog.getErrorCount(type),
+                        type.name().toLowerCase(Locale.ROOT).replace('_', ' ')));
+            }
+        }
+        System.err.printf("A total of %d error(s) occurred while parsing: %s.%n", errorLog.getErrorCount(),
+                countsByType);
+        if (errorLog.getSuppressedCount() > 0) {
+            System.err.printf("%d more error(s) were suppressed, only the first %d were reported.%n",
+                    errorLog.getSuppressedCount(), errorLog.getMaxKeptErrors());
+        }
+        System.err.println();
+    }
+
+    private static void printHighestRatingThing(FavoriteThing highestRatingFavoriteThing) {
+        System.out.printf("Highest rating category: %s; thing: %s; rating: %d%n",
+                highestRatingFavoriteThing.getCategoryName(),
+                highestRatingFavoriteThing.getName(),
+                highestRatingFavoriteThing.getRating());
+    }
+
+    private static void printHighestRatingCategory(String categoryName, int totalScore) {
+        System.out.printf("Category with highest sum: %s; sum was %d%n", categoryName, totalScore);
     }
 }
@@ -0,0 +1,28 @@
+package com.germer.starit;
+
+/**
+ * The little JSON support needed by the hand-written JSON outputs of the application.
+ */
+public final class Json {
+
+    private Json() {
+    }
+
+    /**
+     * @return The value as a JSON string, escaping the quotes, backslashes and control characters.
+     */
+    public static String quote(String value) {
+        StringBuilder quoted = new StringBuilder(value.length() + 2).append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                quoted.append('\\').append(c);
+            } else if (c < 0x20) {
+                quoted.append(String.format("\\u%04x", (int) c));
+            } else {
+                quoted.append(c);
+            }
+        }
+        return quoted.append('"').toString();
+    }
+}
@@ -4,19 +4,50 @@ import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.PrintStream;
 
 public class Main {
 
     private static final String FAVORITE_THINGS_RESOURCE = "favorite-things.txt";
 
+    private static final int EXIT_INVALID_ARGUMENTS = 2;
+
     public static void main(String[] args) {
 
+        CommandLineOptions options;
+        try {
+            options = CommandLineOptions.parse(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println(CommandLineOptions.USAGE);
+            System.exit(EXIT_INVALID_ARGUMENTS);
+            return;
+        }
+
         FavoriteThingsRunner favoriteThingsRunner;
-        if (args.length == 0) {
-            System.out.println("No favorite things source file specified, using sample one.");
-            favoriteThingsRunner = new FavoriteThingsRunner(Main::readFromResources);
+        if (options.getSourceFile() == null) {
+            if (options.getShard() == null) {
+                System.out.println("No favorite things source file specified, using sample one.");
+            }
+            favoriteThingsRunner = new FavoriteThingsRunner(Main::readFromResources, options);
         } else {
-            favoriteThingsRunner = new FavoriteThingsRunner(() -> readFromFile(args[0]));
+            favoriteThingsRunner = new FavoriteThingsRunner(() -> readFromFile(options.getSourceFile()), options);
+        }
+
+        if (options.getShard() != null) {
+            // The standard output of a shard worker is the pipe of its partial result, anything else is diverted.
+            PrintStream partialResultOutput = System.out;
+            System.setOut(System.err);
+            System.exit(favoriteThingsRunner.runShard(partialResultOutput));
+        }
+
+        if (options.getServePort() > 0) {
+            int exitCode = favoriteThingsRunner.serve();
+            if (exitCode != 0) {
+                System.exit(exitCode);
+            }
+            // The server threads keep the application running until it's stopped.
+            return;
         }
 
         System.exit(favoriteThingsRunner.run());
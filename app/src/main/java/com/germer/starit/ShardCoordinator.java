@@ -0,0 +1,142 @@
+package com.germer.starit;
+
+import com.germer.starit.parser.PartialResult;
+import com.germer.starit.parser.Shard;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+
+/**
+ * Parses the sources on several local worker processes, each one a JVM running this application on a {@link Shard}
+ * of the categories, so that no single heap ever holds the favorite things of all the categories. Every worker
+ * parses the same sources with the same options, skipping the lines of the categories of the other shards, and
+ * writes its {@link PartialResult} to the pipe of its standard output, which the coordinator reads and merges into
+ * the results of a single parsing.
+ * <p>
+ * The workers are started with the same Java runtime, classpath and heap options of the coordinator, so the maximum
+ * heap given to it applies to each worker. Their error output goes to the error output of the coordinator. So the
+ * coordinator must itself run on the JVM launcher, not as the native executable, which has neither a Java runtime nor
+ * a classpath to start the workers with.
+ */
+final class ShardCoordinator {
+
+    private static final String SHARDS_OPTION = "--shards";
+    private static final String SHARD_OPTION = "--shard=";
+
+    private final List<String> arguments;
+    private final int shardCount;
+
+    /**
+     * @param arguments  The command line arguments of the coordinator, which are given to the workers but for
+     *                   <code>--shards</code>.
+     * @param shardCount The amount of workers.
+     */
+    ShardCoordinator(List<String> arguments, int shardCount) {
+        this.arguments = arguments;
+        this.shardCount = shardCount;
+    }
+
+    /**
+     * @param sourceNames The names of the sources the errors are reported with, or null in case of a single source.
+     * @return The partial results of all the workers, merged.
+     * @throws IllegalStateException in case a worker can't be started or fails, or in case the coordinator isn't
+     *                               running on a JVM.
+     */
+    PartialResult run(List<String> sourceNames) {
+        checkJvmLauncher(System.getProperty("java.home"), System.getProperty("java.class.path"));
+        List<Process> workers = new ArrayList<>(shardCount);
+        ExecutorService readers = Executors.newFixedThreadPool(shardCount, runnable -> {
+            Thread thread = new Thread(runnable, "shard-reader");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            // The pipes are read while the workers run, so that none of them blocks on a full pipe.
+            List<Future<PartialResult>> partialResults = new ArrayList<>(shardCount);
+            for (int index = 0; index < shardCount; index++) {
+                Shard shard = Shard.of(index, shardCount);
+                Process worker = new ProcessBuilder(workerCommand(shard))
+                        .redirectError(ProcessBuilder.Redirect.INHERIT)
+                        .start();
+                workers.add(worker);
+                partialResults.add(readers.submit(() -> readPartialResult(worker, shard)));
+            }
+
+            List<PartialResult> results = new ArrayList<>(shardCount);
+            for (Future<PartialResult> partialResult : partialResults) {
+                results.add(partialResult.get());
+            }
+            return PartialResult.merge(results, sourceNames);
+        } catch (IOException e) {
+            throw new IllegalStateException(String.format("Failed to start a shard worker: %s", e.getMessage()), e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the shard workers.", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause().getMessage(), e.getCause());
+        } finally {
+            readers.shutdownNow();
+            // Only stops the workers still running after one of them failed.
+            workers.forEach(Process::destroy);
+        }
+    }
+
+    /**
+     * @throws IllegalStateException in case the Java runtime or the classpath the workers are started with are
+     *                               unknown, as in the native executable.
+     */
+    static void checkJvmLauncher(String javaHome, String classPath) {
+        if (javaHome == null || classPath == null) {
+            throw new IllegalStateException("The option '--shards' requires running the application on a JVM, the " +
+                    "native executable can't start the shard workers.");
+        }
+    }
+
+    private List<String> workerCommand(Shard shard) {
+        List<String> command = new ArrayList<>();
+        command.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+        for (String jvmArgument : ManagementFactory.getRuntimeMXBean().getInputArguments()) {
+            if (jvmArgument.startsWith("-Xm")) {
+                command.add(jvmArgument);
+            }
+        }
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add(Main.class.getName());
+        for (String argument : arguments) {
+            if (!argument.equals(SHARDS_OPTION) && !argument.startsWith(SHARDS_OPTION + "=")) {
+                command.add(argument);
+            }
+        }
+        command.add(SHARD_OPTION + shard);
+        return command;
+    }
+
+    private static PartialResult readPartialResult(Process worker, Shard shard) throws InterruptedException {
+        PartialResult partialResult = null;
+        Exception failure = null;
+        try (InputStream inputStream = worker.getInputStream()) {
+            partialResult = PartialResult.readFrom(inputStream);
+        } catch (IOException | IllegalArgumentException e) {
+            failure = e;
+        }
+        int exitCode = worker.waitFor();
+        if (exitCode != 0) {
+            throw new IllegalStateException(String.format("The worker of shard %s failed with exit code %d.", shard,
+                    exitCode));
+        }
+        if (failure != null) {
+            throw new IllegalStateException(String.format("Failed to read the partial result of shard %s: %s",
+                    shard, failure.getMessage()), failure);
+        }
+        return partialResult;
+    }
+}
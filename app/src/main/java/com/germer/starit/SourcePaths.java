@@ -0,0 +1,100 @@
+package com.germer.starit;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.*;
+import java.util.*;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Resolves the source arguments given on the command line to the files to be parsed, in a well defined order, which
+ * decides which favorite thing is kept among duplicates. Each argument is either:
+ * <ul>
+ *     <li>a file, taken as is;</li>
+ *     <li>a directory, standing for all the regular files under it, recursively;</li>
+ *     <li>a glob such as <code>shards/2021-*&#47;*.txt</code>, standing for the regular files whose path matches it,
+ *     which are looked for under the directory made of its leading parts without any glob character.</li>
+ * </ul>
+ * The files of the arguments come in the order of the arguments, the files of a directory or a glob being sorted by
+ * their path. A file given more than once is only taken the first time.
+ */
+public final class SourcePaths {
+
+    private static final String GLOB_CHARACTERS = "*?[{";
+
+    private SourcePaths() {
+    }
+
+    /**
+     * @return Whether the argument stands for several files, being a directory or a glob.
+     */
+    public static boolean isMultiple(String source) {
+        return isGlob(source) || Files.isDirectory(Paths.get(source));
+    }
+
+    /**
+     * @throws IllegalArgumentException in case an argument doesn't match any file or a directory can't be read.
+     */
+    public static List<Path> resolve(List<String> sources) {
+        Set<Path> paths = new LinkedHashSet<>();
+        for (String source : sources) {
+            List<Path> sourcePaths = isGlob(source) ? resolveGlob(source) : resolvePath(Paths.get(source));
+            if (sourcePaths.isEmpty()) {
+                throw new IllegalArgumentException(String.format("No favorite things file matches %s.", source));
+            }
+            paths.addAll(sourcePaths);
+        }
+        return new ArrayList<>(paths);
+    }
+
+    private static boolean isGlob(String source) {
+        return indexOfGlobCharacter(source) >= 0;
+    }
+
+    private static int indexOfGlobCharacter(String source) {
+        for (int i = 0; i < source.length(); i++) {
+            if (GLOB_CHARACTERS.indexOf(source.charAt(i)) >= 0) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static List<Path> resolvePath(Path path) {
+        return Files.isDirectory(path) ? walk(path, file -> true) : Collections.singletonList(path);
+    }
+
+    private static List<Path> resolveGlob(String glob) {
+        String prefix = glob.substring(0, indexOfGlobCharacter(glob));
+        int lastSeparator = Math.max(prefix.lastIndexOf('/'), prefix.lastIndexOf(File.separatorChar));
+        Path baseDirectory = Paths.get(prefix.substring(0, lastSeparator + 1));
+        PathMatcher matcher = FileSystems.getDefault().getPathMatcher("glob:" + glob);
+        return Files.isDirectory(baseDirectory.toString().isEmpty() ? Paths.get(".") : baseDirectory)
+                ? walk(baseDirectory, matcher::matches)
+                : Collections.emptyList();
+    }
+
+    /**
+     * @param directory The directory to walk, the current one when empty.
+     * @return The regular files under the directory accepted by the filter, sorted by path. Their paths start with
+     * the directory as given, so that globs match the paths as they were written.
+     */
+    private static List<Path> walk(Path directory, Predicate<Path> filter) {
+        boolean currentDirectory = directory.toString().isEmpty();
+        Path start = currentDirectory ? Paths.get(".") : directory;
+        try (Stream<Path> files = Files.walk(start, FileVisitOption.FOLLOW_LINKS)) {
+            return files
+                    .filter(Files::isRegularFile)
+                    .map(file -> currentDirectory ? start.relativize(file) : file)
+                    .filter(filter)
+                    .sorted()
+                    .collect(Collectors.toList());
+        } catch (IOException | UncheckedIOException e) {
+            throw new IllegalArgumentException(String.format("Failed to list the favorite things files under %s: %s",
+                    start, e.getMessage()), e);
+        }
+    }
+}
@@ -0,0 +1,182 @@
+package com.germer.starit.metrics;
+
+import com.germer.starit.Json;
+import com.germer.starit.model.Category;
+import com.germer.starit.parser.ParsingError;
+import com.germer.starit.parser.ParsingErrorLog;
+import com.germer.starit.parser.ParsingStatistics;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Where the time of a run goes: the wall time of each stage, in the order they ran, along with the throughput of the
+ * parsing, the errors by type, the largest categories and the slow lines. The metrics can be printed as a summary or
+ * exported as JSON.
+ * <p>
+ * Disabled metrics measure nothing, their stages being a shared no-op, so that an uninstrumented run costs no more
+ * than a few calls. Each stage is also recorded as a {@link StageEvent} by the Flight Recorder, with the metrics
+ * enabled or not, when it's recording with this event enabled.
+ */
+public final class RunMetrics {
+
+    public static final int LARGEST_CATEGORIES = 10;
+
+    private static final RunMetrics DISABLED = new RunMetrics(false);
+    private static final Stage NO_STAGE = () -> {
+    };
+    private static final double NANOS_PER_MILLI = 1e6;
+    private static final double NANOS_PER_SECOND = 1e9;
+
+    /**
+     * A stage being timed, until it's closed.
+     */
+    public interface Stage extends AutoCloseable {
+
+        @Override
+        void close();
+    }
+
+    private final boolean enabled;
+    private final Map<String, Long> nanosByStage = new LinkedHashMap<>();
+    private String parseStage;
+    private ParsingStatistics statistics;
+    private ParsingErrorLog errors;
+    private List<Category> largestCategories = Collections.emptyList();
+
+    private RunMetrics(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public static RunMetrics enabled() {
+        return new RunMetrics(true);
+    }
+
+    public static RunMetrics disabled() {
+        return DISABLED;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * @param name The name of the stage, whose times add up in case it's run several times.
+     * @return The stage, which is timed until it's closed.
+     */
+    public Stage startStage(String name) {
+        StageEvent event = new StageEvent(name);
+        boolean recorded = event.isEnabled();
+        if (!enabled && !recorded) {
+            return NO_STAGE;
+        }
+        event.begin();
+        long start = System.nanoTime();
+        return () -> {
+            if (enabled) {
+                nanosByStage.merge(name, System.nanoTime() - start, Long::sum);
+            }
+            if (recorded) {
+                event.end();
+                if (event.shouldCommit()) {
+                    event.commit();
+                }
+            }
+        };
+    }
+
+    /**
+     * @param parseStage The stage whose time the parsing throughput is computed with.
+     * @param categories The parsed categories, whose sizes are taken as they are now, which is their peak as the
+     *                   parsing only adds favorite things.
+     */
+    public void recordParsing(String parseStage, ParsingStatistics statistics, ParsingErrorLog errors,
+                              Collection<Category> categories) {
+        if (!enabled) {
+            return;
+        }
+        this.parseStage = parseStage;
+        this.statistics = statistics;
+        this.errors = errors;
+        this.largestCategories = categories.stream()
+                .sorted(Comparator.comparingInt(Category::size).reversed().thenComparing(Category::getName))
+                .limit(LARGEST_CATEGORIES)
+                .collect(Collectors.toList());
+    }
+
+    public void printSummary(PrintStream out) {
+        out.println("Metrics:");
+        nanosByStage.forEach((stage, nanos) -> out.printf("  %s: %.3f ms%n", stage, nanos / NANOS_PER_MILLI));
+        if (statistics == null) {
+            return;
+        }
+        double seconds = parseSeconds();
+        out.printf("  Parsed %d bytes, %d lines and %d favorite things: %.1f MB/s, %.0f lines/s, %.0f things/s%n",
+                statistics.getByteCount(), statistics.getLineCount(), statistics.getItemCount(),
+                statistics.getByteCount() / seconds / 1e6, statistics.getLineCount() / seconds,
+                statistics.getItemCount() / seconds);
+        out.printf("  Errors: %d (%s)%n", errors.getErrorCount(), Arrays.stream(ParsingError.Type.values())
+                .map(type -> type + "=" + errors.getErrorCount(type))
+                .collect(Collectors.joining(", ")));
+        out.printf("  Largest categories: %s%n", largestCategories.stream()
+                .map(category -> category.getName() + "=" + category.size())
+                .collect(Collectors.joining(", ")));
+        if (statistics.isTrackingSlowLines()) {
+            out.printf("  Slow lines over %.3f ms: %d%s%n", statistics.getSlowLineThresholdNanos() / NANOS_PER_MILLI,
+                    statistics.getSlowLineCount(), statistics.getSlowLines().stream()
+                            .map(slowLine -> String.format(", line %d took %.3f ms", slowLine.getLineNumber(),
+                                    slowLine.getNanos() / NANOS_PER_MILLI))
+                            .collect(Collectors.joining()));
+        }
+    }
+
+    public String toJson() {
+        StringJoiner stages = new StringJoiner(",", "{", "}");
+        nanosByStage.forEach((stage, nanos) -> stages.add(Json.quote(stage) + ":" + nanos));
+        StringJoiner json = new StringJoiner(",", "{", "}");
+        json.add("\"stageNanos\":" + stages);
+        if (statistics != null) {
+            double seconds = parseSeconds();
+            json.add(String.format(Locale.ROOT, "\"bytes\":%d,\"lines\":%d,\"things\":%d,\"bytesPerSecond\":%.0f," +
+                            "\"linesPerSecond\":%.0f,\"thingsPerSecond\":%.0f", statistics.getByteCount(),
+                    statistics.getLineCount(), statistics.getItemCount(), statistics.getByteCount() / seconds,
+                    statistics.getLineCount() / seconds, statistics.getItemCount() / seconds));
+
+            StringJoiner errorCounts = new StringJoiner(",", "{", "}");
+            for (ParsingError.Type type : ParsingError.Type.values()) {
+                errorCounts.add(Json.quote(type.name()) + ":" + errors.getErrorCount(type));
+            }
+            json.add("\"errors\":" + errorCounts);
+
+            StringJoiner categorySizes = new StringJoiner(",", "{", "}");
+            largestCategories.forEach(category -> categorySizes.add(Json.quote(category.getName()) + ":"
+                    + category.size()));
+            json.add("\"largestCategories\":" + categorySizes);
+
+            if (statistics.isTrackingSlowLines()) {
+                StringJoiner slowLines = new StringJoiner(",", "[", "]");
+                statistics.getSlowLines().forEach(slowLine -> slowLines.add(String.format(
+                        "{\"line\":%d,\"nanos\":%d}", slowLine.getLineNumber(), slowLine.getNanos())));
+                json.add(String.format("\"slowLineThresholdNanos\":%d,\"slowLineCount\":%d,\"slowLines\":%s",
+                        statistics.getSlowLineThresholdNanos(), statistics.getSlowLineCount(), slowLines));
+            }
+        }
+        return json.toString();
+    }
+
+    public void writeJson(Path path) throws IOException {
+        Files.write(path, toJson().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @return The time of the parse stage, never 0 so that the throughput stays finite.
+     */
+    private double parseSeconds() {
+        return Math.max(1, nanosByStage.getOrDefault(parseStage, 0L)) / NANOS_PER_SECOND;
+    }
+}
@@ -0,0 +1,22 @@
+package com.germer.starit.metrics;
+
+import jdk.jfr.*;
+
+/**
+ * The Flight Recorder event of a stage of a run, lasting as long as the stage, which is recorded whether the metrics
+ * are enabled or not, in case the Flight Recorder is recording with this event enabled.
+ */
+@Name("com.germer.starit.Stage")
+@Label("Stage")
+@Category("Starit")
+@Description("A stage of a run, from its start to its end")
+@StackTrace(false)
+final class StageEvent extends Event {
+
+    @Label("Stage")
+    final String stage;
+
+    StageEvent(String stage) {
+        this.stage = stage;
+    }
+}
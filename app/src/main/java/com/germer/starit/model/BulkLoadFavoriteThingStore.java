@@ -0,0 +1,252 @@
+package com.germer.starit.model;
+
+import java.util.*;
+
+/**
+ * A {@link FavoriteThingStore} for categories that are loaded first and only queried afterwards, as on a cold parse.
+ * While loading, the favorite things are appended to a flat array, indexed by name on an open-addressing table of
+ * positions for detecting the duplicates, without any ordering being kept. {@link #freeze()} then orders them by
+ * rating with a single {@link Arrays#parallelSort(long[])}, where the {@link SortedFavoriteThingStore} pays a
+ * rebalancing of its tree on every addition, and renumbers the name table to the positions by rating, so that ranks
+ * are found in constant time.
+ * <p>
+ * Once frozen, the store is read-only: favorite things can't be added anymore, and they can never be removed. The
+ * queries by rating freeze the store in case it isn't yet. As in the other stores, among equally rated favorite
+ * things the first added ranks higher.
+ */
+public class BulkLoadFavoriteThingStore implements FavoriteThingStore {
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    /**
+     * In the order they were added while loading, and in rating order once frozen.
+     */
+    private FavoriteThing[] favoriteThings = new FavoriteThing[INITIAL_CAPACITY];
+    /**
+     * Open-addressing (linear probing) table of <code>position + 1</code>, 0 being an empty slot.
+     */
+    private int[] positionTable = new int[INITIAL_CAPACITY * 2];
+    private int size;
+    private int totalScore;
+    private FavoriteThing highestRated;
+    /**
+     * The sums of the ratings of the first favorite things by rating, built when frozen.
+     */
+    private long[] ratingSums;
+    private boolean frozen;
+
+    /**
+     * @throws IllegalStateException in case the store is frozen.
+     */
+    @Override
+    public boolean add(FavoriteThing favoriteThing) {
+        if (frozen) {
+            throw new IllegalStateException("Favorite things can't be added to a frozen Category.");
+        }
+        int slot = slotOf(favoriteThing.getName());
+        if (positionTable[slot] != 0) {
+            return false;
+        }
+
+        if (size == favoriteThings.length) {
+            favoriteThings = Arrays.copyOf(favoriteThings, size + (size >> 1));
+        }
+        favoriteThings[size] = favoriteThing;
+        positionTable[slot] = ++size;
+        totalScore += favoriteThing.getRating();
+        if (highestRated == null || favoriteThing.getRating() > highestRated.getRating()) {
+            highestRated = favoriteThing;
+        }
+        if (size > positionTable.length * 3 / 4) {
+            rebuildPositionTable(positionTable.length * 2);
+        }
+        return true;
+    }
+
+    /**
+     * @throws UnsupportedOperationException always, as the store is only appended to.
+     */
+    @Override
+    public FavoriteThing remove(String name) {
+        throw new UnsupportedOperationException("Favorite things can't be removed from a bulk-loaded Category.");
+    }
+
+    @Override
+    public FavoriteThing get(String name) {
+        int position = positionTable[slotOf(name)] - 1;
+        return position < 0 ? null : favoriteThings[position];
+    }
+
+    /**
+     * Orders the favorite things by rating, after which the store is read-only. Freezing a frozen store does
+     * nothing.
+     */
+    @Override
+    public void freeze() {
+        if (frozen) {
+            return;
+        }
+        long[] sortKeys = new long[size];
+        for (int index = 0; index < size; index++) {
+            // The complement of the rating sorts the higher ratings first, the index breaks the ties.
+            sortKeys[index] = (long) ~favoriteThings[index].getRating() << 32 | index;
+        }
+        Arrays.parallelSort(sortKeys);
+
+        FavoriteThing[] ordered = new FavoriteThing[size];
+        int[] positionByIndex = new int[size];
+        long[] sums = new long[size + 1];
+        for (int position = 0; position < size; position++) {
+            int index = (int) sortKeys[position];
+            ordered[position] = favoriteThings[index];
+            positionByIndex[index] = position;
+            sums[position + 1] = sums[position] + ordered[position].getRating();
+        }
+        for (int slot = 0; slot < positionTable.length; slot++) {
+            if (positionTable[slot] != 0) {
+                positionTable[slot] = positionByIndex[positionTable[slot] - 1] + 1;
+            }
+        }
+        favoriteThings = ordered;
+        ratingSums = sums;
+        frozen = true;
+    }
+
+    public boolean isFrozen() {
+        return frozen;
+    }
+
+    @Override
+    public Iterable<FavoriteThing> getOrderedByRating() {
+        freeze();
+        return Collections.unmodifiableList(Arrays.asList(favoriteThings).subList(0, size));
+    }
+
+    /**
+     * @return A read-only view of the favorite things in the order they were added, or by rating once frozen, either
+     * way without freezing the store.
+     */
+    @Override
+    public Iterable<FavoriteThing> getAll() {
+        return Collections.unmodifiableList(Arrays.asList(favoriteThings).subList(0, size));
+    }
+
+    @Override
+    public Iterator<FavoriteThing> iterateByRating(int from, boolean lowestFirst) {
+        freeze();
+        return new Iterator<FavoriteThing>() {
+            private int index = Math.max(from, 0);
+
+            @Override
+            public boolean hasNext() {
+                return index < size;
+            }
+
+            @Override
+            public FavoriteThing next() {
+                if (index >= size) {
+                    throw new NoSuchElementException();
+                }
+                int position = index++;
+                return favoriteThings[lowestFirst ? size - 1 - position : position];
+            }
+        };
+    }
+
+    @Override
+    public List<FavoriteThing> getTopRated(int count) {
+        freeze();
+        return new ArrayList<>(Arrays.asList(favoriteThings).subList(0, Math.min(Math.max(count, 0), size)));
+    }
+
+    @Override
+    public int getRank(String name) {
+        freeze();
+        return positionTable[slotOf(name)];
+    }
+
+    @Override
+    public FavoriteThing getByRank(int rank) {
+        freeze();
+        return rank < 1 || rank > size ? null : favoriteThings[rank - 1];
+    }
+
+    @Override
+    public int countByRating(int minRating, int maxRating) {
+        if (minRating > maxRating) {
+            return 0;
+        }
+        return countAtLeast(minRating) - (maxRating == Integer.MAX_VALUE ? 0 : countAtLeast(maxRating + 1));
+    }
+
+    @Override
+    public long sumByRating(int minRating, int maxRating) {
+        if (minRating > maxRating) {
+            return 0;
+        }
+        int ratedAtLeastMin = countAtLeast(minRating);
+        int ratedAboveMax = maxRating == Integer.MAX_VALUE ? 0 : countAtLeast(maxRating + 1);
+        return ratingSums[ratedAtLeastMin] - ratingSums[ratedAboveMax];
+    }
+
+    /**
+     * @return The first added among the highest rated favorite things, without freezing the store.
+     */
+    @Override
+    public FavoriteThing getHighestRating() {
+        return highestRated;
+    }
+
+    @Override
+    public int getTotalScore() {
+        return totalScore;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return The amount of favorite things rated at least the given rating, which lead the frozen order.
+     */
+    private int countAtLeast(int rating) {
+        freeze();
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (favoriteThings[middle].getRating() >= rating) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private void rebuildPositionTable(int capacity) {
+        positionTable = new int[capacity];
+        int mask = capacity - 1;
+        for (int index = 0; index < size; index++) {
+            int slot = spread(favoriteThings[index].getName().hashCode()) & mask;
+            while (positionTable[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            positionTable[slot] = index + 1;
+        }
+    }
+
+    private int slotOf(String name) {
+        int mask = positionTable.length - 1;
+        int slot = spread(name.hashCode()) & mask;
+        while (positionTable[slot] != 0 && !favoriteThings[positionTable[slot] - 1].getName().equals(name)) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private static int spread(int hash) {
+        return (hash ^ (hash >>> 16)) * 0x9E3779B9;
+    }
+}
@@ -8,7 +8,11 @@ import java.util.*;
 
 /**
  * A Category represents a group of {@link FavoriteThing}s. This class offers convenience methods to query existing
- * {@link FavoriteThing}s by name and to efficiently access the {@link FavoriteThing}s ordered by their ratings.
+ * {@link FavoriteThing}s by name and to efficiently access the {@link FavoriteThing}s ordered by their ratings, by
+ * rank and by rating range, from which percentiles and histograms of the ratings are derived.
+ * <p>
+ * The {@link FavoriteThing}s are kept by a {@link FavoriteThingStore}, which is a {@link SortedFavoriteThingStore}
+ * keeping all of them unless another one is given.
  */
 @ToString
 @EqualsAndHashCode
@@ -16,13 +20,15 @@ public class Category {
 
     @Getter
     private final String name;
-    @Getter
-    private int totalScore = 0;
-    private final Set<FavoriteThing> favoriteThings = new TreeSet<>(Comparator.reverseOrder());
-    private final Map<String, FavoriteThing> favoriteThingByName = new HashMap<>();
+    private final FavoriteThingStore store;
 
     public Category(String name) {
+        this(name, new SortedFavoriteThingStore());
+    }
+
+    public Category(String name, FavoriteThingStore store) {
         this.name = name;
+        this.store = store;
     }
 
     /**
@@ -41,15 +47,21 @@ public class Category {
      *                                  present in this {@link Category}.
      */
     protected void addFavoriteThing(FavoriteThing favoriteThing) {
-        if (favoriteThingByName.containsKey(favoriteThing.getName())) {
+        if (!store.add(favoriteThing)) {
             throw new IllegalArgumentException(String.format(
                     "This Category already contains a FavoriteThing named '%s'.", favoriteThing.getName()
             ));
         }
+    }
 
-        favoriteThingByName.put(favoriteThing.getName(), favoriteThing);
-        favoriteThings.add(favoriteThing);
-        totalScore += favoriteThing.getRating();
+    /**
+     * @param name   Name of the new {@link FavoriteThing} to be added.
+     * @param rating Rating of the new {@link FavoriteThing} to be added.
+     * @return <code>false</code>, leaving this {@link Category} untouched, in case a {@link FavoriteThing} with the
+     * same name is already present.
+     */
+    public boolean addFavoriteThingIfAbsent(String name, int rating) {
+        return store.add(FavoriteThing.of(this.getName(), name, rating));
     }
 
     /**
@@ -57,24 +69,149 @@ public class Category {
      * @return The removed {@link FavoriteThing}, or null in case it didn't exist.
      */
     public FavoriteThing removeFavoriteThingByName(String name) {
-        FavoriteThing removedItem = favoriteThingByName.remove(name);
-        if (removedItem != null) {
-            favoriteThings.remove(removedItem);
-            totalScore -= removedItem.getRating();
-        }
-        return removedItem;
+        return store.remove(name);
     }
 
     public Optional<FavoriteThing> getFavoriteThingByName(String name) {
-        return Optional.ofNullable(favoriteThingByName.get(name));
+        return Optional.ofNullable(store.get(name));
     }
 
     /**
      * @return An {@link Iterable} of {@link FavoriteThing}s ordered by rating, from the highest to
-     * the lowest one.
+     * the lowest one. Equally rated {@link FavoriteThing}s are ordered as they were added.
      */
     public Iterable<FavoriteThing> getFavoriteThingsOrderedByRating() {
-        return Collections.unmodifiableSet(favoriteThings);
+        return store.getOrderedByRating();
+    }
+
+    /**
+     * @return All the {@link FavoriteThing}s, in an order which builds the same {@link Category} when they are added
+     * back in it, without freezing it.
+     * @see FavoriteThingStore#getAll()
+     */
+    public Iterable<FavoriteThing> getFavoriteThings() {
+        return store.getAll();
+    }
+
+    /**
+     * @param from        The zero-based position to start from on the chosen order.
+     * @param lowestFirst Whether to iterate from the lowest to the highest rating instead, in the exact reverse order.
+     * @return A lazy {@link Iterator} over {@link #getFavoriteThingsOrderedByRating()} or its reverse.
+     * @throws UnsupportedOperationException in case the {@link FavoriteThingStore} doesn't keep the lowest rated
+     *                                       {@link FavoriteThing}s.
+     */
+    public Iterator<FavoriteThing> iterateFavoriteThingsByRating(int from, boolean lowestFirst) {
+        return store.iterateByRating(from, lowestFirst);
+    }
+
+    /**
+     * @param count The maximum amount of {@link FavoriteThing}s to be returned.
+     * @return The <code>count</code> highest rated {@link FavoriteThing}s, from the highest to the lowest one.
+     * @see #getFavoriteThingsOrderedByRating()
+     */
+    public List<FavoriteThing> getTopRatedFavoriteThings(int count) {
+        return store.getTopRated(count);
+    }
+
+    /**
+     * @param name The name of the {@link FavoriteThing}, case-sensitive.
+     * @return The one-based position of the {@link FavoriteThing} when ordered by rating, or empty in case it doesn't
+     * exist.
+     * @see #getFavoriteThingsOrderedByRating()
+     */
+    public OptionalInt getRankByName(String name) {
+        int rank = store.getRank(name);
+        return rank == 0 ? OptionalInt.empty() : OptionalInt.of(rank);
+    }
+
+    /**
+     * @param rank The one-based position when ordered by rating.
+     * @return The {@link FavoriteThing} at the given position, or empty in case there's none.
+     * @see #getFavoriteThingsOrderedByRating()
+     */
+    public Optional<FavoriteThing> getFavoriteThingByRank(int rank) {
+        return Optional.ofNullable(store.getByRank(rank));
+    }
+
+    /**
+     * @return The amount of {@link FavoriteThing}s rated from <code>minRating</code> to <code>maxRating</code>, both
+     * included, such as <code>(threshold + 1, Integer.MAX_VALUE)</code> for those rated above a threshold.
+     * @throws UnsupportedOperationException in case the {@link FavoriteThingStore} doesn't keep all the ratings.
+     */
+    public int countFavoriteThingsByRating(int minRating, int maxRating) {
+        return store.countByRating(minRating, maxRating);
+    }
+
+    /**
+     * @return The sum of the ratings of the {@link FavoriteThing}s rated from <code>minRating</code> to
+     * <code>maxRating</code>, both included.
+     * @throws UnsupportedOperationException in case the {@link FavoriteThingStore} doesn't keep all the ratings.
+     */
+    public long getTotalScoreByRating(int minRating, int maxRating) {
+        return store.sumByRating(minRating, maxRating);
+    }
+
+    /**
+     * @param percentile The percentage of the {@link FavoriteThing}s rated at most the returned rating, greater than
+     *                   0 and up to 100, such as 50 for the median.
+     * @return The rating at the given percentile by the nearest-rank method, or empty in case this {@link Category} is
+     * empty.
+     * @throws IllegalArgumentException     in case the percentile is out of range.
+     * @throws UnsupportedOperationException in case the {@link FavoriteThingStore} doesn't keep the lowest rated
+     *                                       {@link FavoriteThing}s.
+     */
+    public OptionalInt getRatingPercentile(double percentile) {
+        if (!(percentile > 0 && percentile <= 100)) {
+            throw new IllegalArgumentException(String.format("Invalid percentile %s, it must be greater than 0 and " +
+                    "up to 100.", percentile));
+        }
+        int size = store.size();
+        if (size == 0) {
+            return OptionalInt.empty();
+        }
+        int rankFromLowest = Math.max(1, (int) Math.ceil(percentile / 100 * size));
+        return OptionalInt.of(store.getByRank(size - rankFromLowest + 1).getRating());
+    }
+
+    /**
+     * @param minRating   The lowest rating of the first bucket.
+     * @param bucketWidth The amount of ratings covered by each bucket.
+     * @param bucketCount The amount of buckets.
+     * @return The amount of {@link FavoriteThing}s rated within each bucket, the bucket <code>i</code> covering the
+     * ratings from <code>minRating + i * bucketWidth</code> to the next bucket, excluded. The ratings out of all the
+     * buckets are not counted.
+     * @throws UnsupportedOperationException in case the {@link FavoriteThingStore} doesn't keep all the ratings.
+     */
+    public int[] getRatingHistogram(int minRating, int bucketWidth, int bucketCount) {
+        if (bucketWidth < 1 || bucketCount < 0) {
+            throw new IllegalArgumentException(String.format("Invalid histogram of %d buckets %d ratings wide, the " +
+                    "width must be at least 1.", bucketCount, bucketWidth));
+        }
+        int[] counts = new int[bucketCount];
+        for (int bucket = 0; bucket < bucketCount; bucket++) {
+            long bucketMin = minRating + (long) bucket * bucketWidth;
+            if (bucketMin > Integer.MAX_VALUE) {
+                break;
+            }
+            long bucketMax = Math.min(bucketMin + bucketWidth - 1, Integer.MAX_VALUE);
+            counts[bucket] = store.countByRating((int) bucketMin, (int) bucketMax);
+        }
+        return counts;
+    }
+
+    /**
+     * Ends the loading of this {@link Category}, after which a {@link BulkLoadFavoriteThingStore} builds its ordering
+     * and becomes read-only. Does nothing for the other stores.
+     */
+    public void freeze() {
+        store.freeze();
+    }
+
+    /**
+     * Freezes all the given categories in parallel, see {@link #freeze()}.
+     */
+    public static void freezeAll(Collection<Category> categories) {
+        categories.parallelStream().forEach(Category::freeze);
     }
 
     /**
@@ -82,13 +219,17 @@ public class Category {
      * @see #getFavoriteThingsOrderedByRating()
      */
     public Optional<FavoriteThing> getHighestRatingFavoriteItem() {
-        return favoriteThings.stream().findFirst();
+        return Optional.ofNullable(store.getHighestRating());
+    }
+
+    public int getTotalScore() {
+        return store.getTotalScore();
     }
 
     /**
      * @return The amount of {@link FavoriteThing}s linked to this {@link Category}
      */
     public int size() {
-        return favoriteThings.size();
+        return store.size();
     }
 }
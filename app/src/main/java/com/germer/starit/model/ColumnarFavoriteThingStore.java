@@ -0,0 +1,421 @@
+package com.germer.starit.model;
+
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * A compact {@link FavoriteThingStore}, keeping the favorite things in columns instead of objects. Every favorite
+ * thing gets an id, in the order they are added, which indexes:
+ * <ul>
+ *     <li>its name, interned as UTF-8 bytes on a single byte arena, delimited by an int offset;</li>
+ *     <li>its rating and the hash code of its name, on int arrays;</li>
+ * </ul>
+ * and an open-addressing table of ids indexes them by name. That takes about 20 bytes per favorite thing besides the
+ * bytes of its name, against the 150 and more of a {@link FavoriteThing} object, its name String and the entries of
+ * the {@link SortedFavoriteThingStore}. {@link FavoriteThing} objects are only created on demand when read.
+ * <p>
+ * The ordering by rating is built lazily, by sorting the ids the first time it's needed after the store changed, along
+ * with the running sums of their ratings, which then answer the rating range queries by binary search. So this store
+ * fits categories that are loaded first and queried afterwards. As in the other stores, among equally
+ * rated favorite things the first added ranks higher. The names of a single store can't take more than 2GB.
+ */
+public class ColumnarFavoriteThingStore implements FavoriteThingStore {
+
+    private static final int INITIAL_CAPACITY = 16;
+    private static final int NO_ID = -1;
+
+    private final String categoryName;
+
+    private byte[] nameBytes = new byte[INITIAL_CAPACITY * 8];
+    private int[] nameOffsets = new int[INITIAL_CAPACITY + 1];
+    private int[] nameHashes = new int[INITIAL_CAPACITY];
+    private int[] ratings = new int[INITIAL_CAPACITY];
+    private BitSet removedIds = new BitSet();
+    private int nextId;
+
+    /**
+     * Open-addressing (linear probing) table of <code>id + 1</code>, 0 being an empty slot.
+     */
+    private int[] idTable = new int[INITIAL_CAPACITY * 2];
+
+    private int size;
+    private int totalScore;
+    private int highestRatedId = NO_ID;
+    private int[] orderedIds;
+    /**
+     * The sums of the ratings of the first ids of {@link #orderedIds}, built along with them.
+     */
+    private long[] ratingSums;
+
+    /**
+     * @param categoryName The name of the {@link Category} backed by this store.
+     */
+    public ColumnarFavoriteThingStore(String categoryName) {
+        this.categoryName = categoryName;
+    }
+
+    @Override
+    public boolean add(FavoriteThing favoriteThing) {
+        String name = favoriteThing.getName();
+        int hash = name.hashCode();
+        int slot = slotOf(name, hash);
+        if (idTable[slot] != 0) {
+            return false;
+        }
+
+        int id = appendName(name, hash, favoriteThing.getRating());
+        idTable[slot] = id + 1;
+        totalScore += favoriteThing.getRating();
+        if (size == 0 || highestRatedId != NO_ID && favoriteThing.getRating() > ratings[highestRatedId]) {
+            highestRatedId = id;
+        }
+        orderedIds = null;
+        if (++size > idTable.length * 3 / 4) {
+            rebuildIdTable(idTable.length * 2);
+        }
+        return true;
+    }
+
+    @Override
+    public FavoriteThing remove(String name) {
+        int slot = slotOf(name, name.hashCode());
+        int id = idTable[slot] - 1;
+        if (id == NO_ID) {
+            return null;
+        }
+
+        FavoriteThing removedItem = toFavoriteThing(id);
+        removeSlot(slot);
+        removedIds.set(id);
+        totalScore -= removedItem.getRating();
+        if (id == highestRatedId) {
+            highestRatedId = NO_ID;
+        }
+        orderedIds = null;
+        if (--size < (nextId - size) && nextId > INITIAL_CAPACITY) {
+            compact();
+        }
+        return removedItem;
+    }
+
+    @Override
+    public FavoriteThing get(String name) {
+        int id = idTable[slotOf(name, name.hashCode())] - 1;
+        return id == NO_ID ? null : toFavoriteThing(id);
+    }
+
+    /**
+     * @return A read-only view of the favorite things ordered by rating, sorting them in case they changed since the
+     * last time.
+     */
+    @Override
+    public Iterable<FavoriteThing> getOrderedByRating() {
+        return new AbstractList<FavoriteThing>() {
+            @Override
+            public FavoriteThing get(int index) {
+                return toFavoriteThing(orderedIds()[index]);
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    /**
+     * @return An iterator over the sorted ids, sorting them in case they changed since the last time.
+     */
+    @Override
+    public Iterator<FavoriteThing> iterateByRating(int from, boolean lowestFirst) {
+        int[] ids = orderedIds();
+        return new Iterator<FavoriteThing>() {
+            private int index = Math.max(from, 0);
+
+            @Override
+            public boolean hasNext() {
+                return index < ids.length;
+            }
+
+            @Override
+            public FavoriteThing next() {
+                if (index >= ids.length) {
+                    throw new NoSuchElementException();
+                }
+                int position = index++;
+                return toFavoriteThing(ids[lowestFirst ? ids.length - 1 - position : position]);
+            }
+        };
+    }
+
+    @Override
+    public List<FavoriteThing> getTopRated(int count) {
+        int[] ids = orderedIds();
+        List<FavoriteThing> topRated = new ArrayList<>(Math.min(Math.max(count, 0), ids.length));
+        for (int index = 0; index < ids.length && index < count; index++) {
+            topRated.add(toFavoriteThing(ids[index]));
+        }
+        return topRated;
+    }
+
+    @Override
+    public int getRank(String name) {
+        int id = idTable[slotOf(name, name.hashCode())] - 1;
+        if (id == NO_ID) {
+            return 0;
+        }
+
+        int[] ids = orderedIds();
+        int low = 0;
+        int high = ids.length - 1;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (ranksHigher(ids[middle], id)) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low + 1;
+    }
+
+    @Override
+    public FavoriteThing getByRank(int rank) {
+        return rank < 1 || rank > size ? null : toFavoriteThing(orderedIds()[rank - 1]);
+    }
+
+    @Override
+    public int countByRating(int minRating, int maxRating) {
+        if (minRating > maxRating) {
+            return 0;
+        }
+        return countAtLeast(minRating) - (maxRating == Integer.MAX_VALUE ? 0 : countAtLeast(maxRating + 1));
+    }
+
+    @Override
+    public long sumByRating(int minRating, int maxRating) {
+        if (minRating > maxRating) {
+            return 0;
+        }
+        int ratedAtLeastMin = countAtLeast(minRating);
+        int ratedAboveMax = maxRating == Integer.MAX_VALUE ? 0 : countAtLeast(maxRating + 1);
+        return ratingSums[ratedAtLeastMin] - ratingSums[ratedAboveMax];
+    }
+
+    @Override
+    public FavoriteThing getHighestRating() {
+        if (size == 0) {
+            return null;
+        }
+        if (highestRatedId == NO_ID) {
+            highestRatedId = orderedIds != null ? orderedIds[0] : findHighestRatedId();
+        }
+        return toFavoriteThing(highestRatedId);
+    }
+
+    @Override
+    public int getTotalScore() {
+        return totalScore;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    private FavoriteThing toFavoriteThing(int id) {
+        int offset = nameOffsets[id];
+        String name = new String(nameBytes, offset, nameOffsets[id + 1] - offset, StandardCharsets.UTF_8);
+        return FavoriteThing.of(categoryName, name, ratings[id]);
+    }
+
+    /**
+     * Higher ratings first and, among equal ratings, the first added first, which is the lower id.
+     */
+    private boolean ranksHigher(int id, int otherId) {
+        return ratings[id] > ratings[otherId] || ratings[id] == ratings[otherId] && id < otherId;
+    }
+
+    /**
+     * @return The amount of favorite things rated at least the given rating, which lead the sorted ids.
+     */
+    private int countAtLeast(int rating) {
+        int[] ids = orderedIds();
+        int low = 0;
+        int high = ids.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (ratings[ids[middle]] >= rating) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private int findHighestRatedId() {
+        int highestId = NO_ID;
+        for (int id = removedIds.nextClearBit(0); id < nextId; id = removedIds.nextClearBit(id + 1)) {
+            if (highestId == NO_ID || ratings[id] > ratings[highestId]) {
+                highestId = id;
+            }
+        }
+        return highestId;
+    }
+
+    /**
+     * Sorts the ids by packing every one with its rating into a long, so that a primitive sort orders them without
+     * any comparator nor boxing.
+     */
+    private int[] orderedIds() {
+        if (orderedIds == null) {
+            long[] sortKeys = new long[size];
+            int index = 0;
+            for (int id = removedIds.nextClearBit(0); id < nextId; id = removedIds.nextClearBit(id + 1)) {
+                // The complement of the rating sorts the higher ratings first, the id breaks the ties.
+                sortKeys[index++] = (long) ~ratings[id] << 32 | id;
+            }
+            Arrays.sort(sortKeys);
+            int[] ids = new int[size];
+            long[] sums = new long[size + 1];
+            for (index = 0; index < size; index++) {
+                ids[index] = (int) sortKeys[index];
+                sums[index + 1] = sums[index] + ratings[ids[index]];
+            }
+            ratingSums = sums;
+            orderedIds = ids;
+        }
+        return orderedIds;
+    }
+
+    private int appendName(String name, int hash, int rating) {
+        byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+        int offset = nameOffsets[nextId];
+        if (bytes.length > nameBytes.length - offset) {
+            nameBytes = Arrays.copyOf(nameBytes, grownCapacity(nameBytes.length, offset + (long) bytes.length));
+        }
+        System.arraycopy(bytes, 0, nameBytes, offset, bytes.length);
+
+        int id = nextId++;
+        if (nextId == ratings.length) {
+            int capacity = grownCapacity(ratings.length, nextId + 1L);
+            nameOffsets = Arrays.copyOf(nameOffsets, capacity + 1);
+            nameHashes = Arrays.copyOf(nameHashes, capacity);
+            ratings = Arrays.copyOf(ratings, capacity);
+        }
+        nameOffsets[nextId] = offset + bytes.length;
+        nameHashes[id] = hash;
+        ratings[id] = rating;
+        return id;
+    }
+
+    private static int grownCapacity(int capacity, long minimumCapacity) {
+        long grownCapacity = Math.max(capacity + (capacity >> 1), minimumCapacity);
+        if (minimumCapacity > Integer.MAX_VALUE - 8) {
+            throw new IllegalStateException("The names of this Category exceed the capacity of a columnar store.");
+        }
+        return (int) Math.min(grownCapacity, Integer.MAX_VALUE - 8);
+    }
+
+    /**
+     * Drops the removed favorite things from the columns, renumbering the remaining ones in the same order.
+     */
+    private void compact() {
+        int id = 0;
+        int offset = 0;
+        for (int oldId = removedIds.nextClearBit(0); oldId < nextId; oldId = removedIds.nextClearBit(oldId + 1)) {
+            int oldOffset = nameOffsets[oldId];
+            int length = nameOffsets[oldId + 1] - oldOffset;
+            System.arraycopy(nameBytes, oldOffset, nameBytes, offset, length);
+            nameOffsets[id] = offset;
+            nameHashes[id] = nameHashes[oldId];
+            ratings[id] = ratings[oldId];
+            if (oldId == highestRatedId) {
+                highestRatedId = id;
+            }
+            offset += length;
+            id++;
+        }
+        nameOffsets[id] = offset;
+        nextId = id;
+        removedIds = new BitSet();
+        rebuildIdTable(idTable.length);
+    }
+
+    private void rebuildIdTable(int capacity) {
+        idTable = new int[capacity];
+        int mask = capacity - 1;
+        for (int id = removedIds.nextClearBit(0); id < nextId; id = removedIds.nextClearBit(id + 1)) {
+            int slot = spread(nameHashes[id]) & mask;
+            while (idTable[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            idTable[slot] = id + 1;
+        }
+    }
+
+    private int slotOf(String name, int hash) {
+        int mask = idTable.length - 1;
+        int slot = spread(hash) & mask;
+        int existingId;
+        while ((existingId = idTable[slot] - 1) != NO_ID
+                && (nameHashes[existingId] != hash || !nameEquals(existingId, name))) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    /**
+     * Backward-shift deletion, so that no tombstones are needed to keep the probe sequences unbroken.
+     */
+    private void removeSlot(int slot) {
+        int mask = idTable.length - 1;
+        int hole = slot;
+        for (int next = (hole + 1) & mask; idTable[next] != 0; next = (next + 1) & mask) {
+            int home = spread(nameHashes[idTable[next] - 1]) & mask;
+            if (((next - home) & mask) >= ((next - hole) & mask)) {
+                idTable[hole] = idTable[next];
+                hole = next;
+            }
+        }
+        idTable[hole] = 0;
+    }
+
+    /**
+     * Compares an interned name with a String, char by char while it's ASCII to avoid encoding it.
+     */
+    private boolean nameEquals(int id, String name) {
+        int offset = nameOffsets[id];
+        int length = nameOffsets[id + 1] - offset;
+        if (length < name.length()) {
+            return false;
+        }
+        for (int index = 0; index < name.length(); index++) {
+            char c = name.charAt(index);
+            if (c >= 0x80) {
+                return utf8Equals(offset, length, name.getBytes(StandardCharsets.UTF_8));
+            }
+            if (nameBytes[offset + index] != c) {
+                return false;
+            }
+        }
+        return length == name.length();
+    }
+
+    private boolean utf8Equals(int offset, int length, byte[] bytes) {
+        if (length != bytes.length) {
+            return false;
+        }
+        for (int index = 0; index < length; index++) {
+            if (nameBytes[offset + index] != bytes[index]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int spread(int hash) {
+        return (hash ^ (hash >>> 16)) * 0x9E3779B9;
+    }
+}
@@ -0,0 +1,175 @@
+package com.germer.starit.model;
+
+import com.google.common.collect.Iterables;
+import com.google.common.collect.Iterators;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A thread-safe {@link FavoriteThingStore}, which any amount of threads can add to, remove from and read at once
+ * without locking. The favorite things are indexed by name on a concurrent hash map, where the first thread adding
+ * a name wins, and sorted by rating on a concurrent skip list. The totals are kept by striped {@link LongAdder}s, so
+ * threads adding to the same store don't contend on a single counter.
+ * <p>
+ * Equally rated favorite things are ranked in the order they were added, which between threads adding at the same
+ * time is the order they were given their sequence. Reads made while other threads write are weakly consistent: they
+ * reflect each favorite thing either before or after it was added or removed, and the totals are exact once the
+ * writes complete. Ranks and rating ranges are counted by walking the skip list, so {@link #getRank(String)},
+ * {@link #getByRank(int)} and the rating range queries take linear time.
+ */
+public class ConcurrentFavoriteThingStore implements FavoriteThingStore {
+
+    private final ConcurrentMap<String, Entry> entryByName = new ConcurrentHashMap<>();
+    private final ConcurrentSkipListSet<Entry> favoriteThings = new ConcurrentSkipListSet<>();
+    private final AtomicLong nextSequence = new AtomicLong();
+    private final LongAdder totalScore = new LongAdder();
+    private final LongAdder size = new LongAdder();
+
+    @Override
+    public boolean add(FavoriteThing favoriteThing) {
+        Entry entry = new Entry(favoriteThing, nextSequence.getAndIncrement());
+        if (entryByName.putIfAbsent(favoriteThing.getName(), entry) != null) {
+            return false;
+        }
+
+        favoriteThings.add(entry);
+        // A thread removing the name meanwhile may have missed the entry on the skip list, see remove().
+        if (entry.removed) {
+            favoriteThings.remove(entry);
+        }
+        totalScore.add(favoriteThing.getRating());
+        size.increment();
+        return true;
+    }
+
+    @Override
+    public FavoriteThing remove(String name) {
+        Entry removedEntry = entryByName.remove(name);
+        if (removedEntry == null) {
+            return null;
+        }
+
+        removedEntry.removed = true;
+        favoriteThings.remove(removedEntry);
+        totalScore.add(-removedEntry.favoriteThing.getRating());
+        size.decrement();
+        return removedEntry.favoriteThing;
+    }
+
+    @Override
+    public FavoriteThing get(String name) {
+        Entry entry = entryByName.get(name);
+        return entry == null ? null : entry.favoriteThing;
+    }
+
+    @Override
+    public Iterable<FavoriteThing> getOrderedByRating() {
+        return Iterables.transform(favoriteThings, entry -> entry.favoriteThing);
+    }
+
+    /**
+     * @return An iterator positioned by skipping the first favorite things, as the skip list has no positional access.
+     */
+    @Override
+    public Iterator<FavoriteThing> iterateByRating(int from, boolean lowestFirst) {
+        Iterator<Entry> entries = lowestFirst ? favoriteThings.descendingIterator() : favoriteThings.iterator();
+        Iterators.advance(entries, Math.max(from, 0));
+        return Iterators.transform(entries, entry -> entry.favoriteThing);
+    }
+
+    @Override
+    public List<FavoriteThing> getTopRated(int count) {
+        List<FavoriteThing> topRated = new ArrayList<>(Math.min(count, 1024));
+        Iterator<Entry> entries = favoriteThings.iterator();
+        while (topRated.size() < count && entries.hasNext()) {
+            topRated.add(entries.next().favoriteThing);
+        }
+        return topRated;
+    }
+
+    @Override
+    public int getRank(String name) {
+        Entry entry = entryByName.get(name);
+        return entry == null ? 0 : favoriteThings.headSet(entry).size() + 1;
+    }
+
+    @Override
+    public FavoriteThing getByRank(int rank) {
+        if (rank < 1) {
+            return null;
+        }
+        Iterator<Entry> entries = favoriteThings.iterator();
+        Iterators.advance(entries, rank - 1);
+        return entries.hasNext() ? entries.next().favoriteThing : null;
+    }
+
+    @Override
+    public int countByRating(int minRating, int maxRating) {
+        return minRating > maxRating ? 0 : rangeOf(minRating, maxRating).size();
+    }
+
+    @Override
+    public long sumByRating(int minRating, int maxRating) {
+        if (minRating > maxRating) {
+            return 0;
+        }
+        long sum = 0;
+        for (Entry entry : rangeOf(minRating, maxRating)) {
+            sum += entry.favoriteThing.getRating();
+        }
+        return sum;
+    }
+
+    @Override
+    public FavoriteThing getHighestRating() {
+        Iterator<Entry> entries = favoriteThings.iterator();
+        return entries.hasNext() ? entries.next().favoriteThing : null;
+    }
+
+    @Override
+    public int getTotalScore() {
+        // Wraps around as the int totals of the other stores do.
+        return (int) totalScore.sum();
+    }
+
+    @Override
+    public int size() {
+        return (int) size.sum();
+    }
+
+    /**
+     * @return The entries rated from <code>minRating</code> to <code>maxRating</code>, between bounds ranking before
+     * and after any entry of the same rating.
+     */
+    private NavigableSet<Entry> rangeOf(int minRating, int maxRating) {
+        return favoriteThings.subSet(new Entry(FavoriteThing.of(null, null, maxRating), Long.MIN_VALUE), true,
+                new Entry(FavoriteThing.of(null, null, minRating), Long.MAX_VALUE), true);
+    }
+
+    private static final class Entry implements Comparable<Entry> {
+
+        private final FavoriteThing favoriteThing;
+        private final long sequence;
+        /**
+         * Set before the entry is taken off the skip list and read after it's put on it, so that either the removing
+         * thread finds the entry there or the adding thread sees it was removed.
+         */
+        private volatile boolean removed;
+
+        private Entry(FavoriteThing favoriteThing, long sequence) {
+            this.favoriteThing = favoriteThing;
+            this.sequence = sequence;
+        }
+
+        @Override
+        public int compareTo(Entry other) {
+            int byRating = Integer.compare(other.favoriteThing.getRating(), favoriteThing.getRating());
+            return byRating != 0 ? byRating : Long.compare(sequence, other.sequence);
+        }
+    }
+}
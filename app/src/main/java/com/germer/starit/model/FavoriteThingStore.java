@@ -0,0 +1,105 @@
+package com.germer.starit.model;
+
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * The storage behind a {@link Category}, holding its {@link FavoriteThing}s and their total score. Implementations
+ * decide how much of the favorite things they keep and how they are indexed, the {@link Category} API being the same
+ * on top of any of them.
+ */
+public interface FavoriteThingStore {
+
+    /**
+     * @param favoriteThing The {@link FavoriteThing} to be added.
+     * @return <code>false</code>, leaving the store untouched, in case a {@link FavoriteThing} with the same name is
+     * already present.
+     */
+    boolean add(FavoriteThing favoriteThing);
+
+    /**
+     * @param name The name of the {@link FavoriteThing} to be removed, case-sensitive.
+     * @return The removed {@link FavoriteThing}, or null in case it didn't exist.
+     */
+    FavoriteThing remove(String name);
+
+    /**
+     * @param name The name of the {@link FavoriteThing}, case-sensitive.
+     * @return The {@link FavoriteThing} with the given name, or null in case it doesn't exist or the store can't tell.
+     */
+    FavoriteThing get(String name);
+
+    /**
+     * @return The {@link FavoriteThing}s kept by this store, from the highest to the lowest rating.
+     */
+    Iterable<FavoriteThing> getOrderedByRating();
+
+    /**
+     * @return The {@link FavoriteThing}s kept by this store, in an order which builds the same store when they are
+     * added back in it, and without ending its loading as {@link #freeze()} does. By default, ordered by rating.
+     */
+    default Iterable<FavoriteThing> getAll() {
+        return getOrderedByRating();
+    }
+
+    /**
+     * @param from        The zero-based position to start from on the chosen order.
+     * @param lowestFirst Whether to iterate from the lowest to the highest rating instead, which is the exact reverse
+     *                    of {@link #getOrderedByRating()}: among equally rated ones, the last added first.
+     * @return A lazy iterator over {@link #getOrderedByRating()} or its reverse, from the given position on.
+     */
+    Iterator<FavoriteThing> iterateByRating(int from, boolean lowestFirst);
+
+    /**
+     * @param count The maximum amount of {@link FavoriteThing}s to be returned.
+     * @return The first <code>count</code> {@link FavoriteThing}s of {@link #getOrderedByRating()}.
+     */
+    List<FavoriteThing> getTopRated(int count);
+
+    /**
+     * @param name The name of the {@link FavoriteThing}, case-sensitive.
+     * @return The one-based position of the {@link FavoriteThing} on {@link #getOrderedByRating()}, or 0 in case it
+     * doesn't exist.
+     */
+    int getRank(String name);
+
+    /**
+     * @param rank The one-based position on {@link #getOrderedByRating()}.
+     * @return The {@link FavoriteThing} at the given position, or null in case there's none.
+     */
+    FavoriteThing getByRank(int rank);
+
+    /**
+     * @return The amount of {@link FavoriteThing}s rated from <code>minRating</code> to <code>maxRating</code>, both
+     * included.
+     */
+    int countByRating(int minRating, int maxRating);
+
+    /**
+     * @return The sum of the ratings of the {@link FavoriteThing}s rated from <code>minRating</code> to
+     * <code>maxRating</code>, both included.
+     */
+    long sumByRating(int minRating, int maxRating);
+
+    /**
+     * Ends the loading of the favorite things, which stores that defer their ordering take as the time to build it.
+     * Does nothing by default.
+     */
+    default void freeze() {
+    }
+
+    /**
+     * @return The highest rated {@link FavoriteThing}, or null in case the store is empty.
+     */
+    FavoriteThing getHighestRating();
+
+    /**
+     * @return The sum of the ratings of all the {@link FavoriteThing}s added and not removed.
+     */
+    int getTotalScore();
+
+    /**
+     * @return The amount of {@link FavoriteThing}s added and not removed.
+     */
+    int size();
+}
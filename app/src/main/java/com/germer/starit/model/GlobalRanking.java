@@ -0,0 +1,257 @@
+package com.germer.starit.model;
+
+import lombok.Getter;
+
+import java.util.*;
+
+/**
+ * The ranking of the {@link FavoriteThing}s of several {@link Category}s as a whole, from the highest to the lowest
+ * rating or the other way around. The ranking is never built: the ordered views of the categories are merged lazily
+ * through a heap holding the next {@link FavoriteThing} of each one, so that once the C categories are positioned, the
+ * first K favorite things take O(K log C) time and O(C) memory, no matter how many favorite things the categories
+ * hold.
+ * <p>
+ * Among equally rated favorite things, those of the category given first rank higher and, within a category, the
+ * order of the category applies. The ranking from the lowest rating is the exact reverse of the one from the highest.
+ * <p>
+ * The ranking can be paged through with a {@link Cursor}, which holds the position reached on every category rather
+ * than on the whole ranking, so that resuming from a cursor doesn't go through the favorite things already returned.
+ * A cursor is only meaningful for the same categories, given in the same order, and doesn't account for changes made
+ * to them meanwhile.
+ */
+public final class GlobalRanking {
+
+    private final List<Category> categories;
+
+    public GlobalRanking(Collection<Category> categories) {
+        this.categories = new ArrayList<>(categories);
+    }
+
+    /**
+     * @return A lazy {@link Iterator} from the highest to the lowest rated {@link FavoriteThing}.
+     */
+    public Iterator<FavoriteThing> iterateHighestFirst() {
+        return new MergingIterator(Cursor.highestFirst());
+    }
+
+    /**
+     * @return A lazy {@link Iterator} from the lowest to the highest rated {@link FavoriteThing}.
+     * @throws UnsupportedOperationException in case a {@link Category} doesn't keep its lowest rated favorite things.
+     */
+    public Iterator<FavoriteThing> iterateLowestFirst() {
+        return new MergingIterator(Cursor.lowestFirst());
+    }
+
+    /**
+     * @param count The maximum amount of {@link FavoriteThing}s to be returned.
+     * @return The <code>count</code> highest rated {@link FavoriteThing}s, from the highest to the lowest one.
+     */
+    public List<FavoriteThing> getTop(int count) {
+        return getPage(Cursor.highestFirst(), count).getFavoriteThings();
+    }
+
+    /**
+     * @param count The maximum amount of {@link FavoriteThing}s to be returned.
+     * @return The <code>count</code> lowest rated {@link FavoriteThing}s, from the lowest to the highest one.
+     * @throws UnsupportedOperationException in case a {@link Category} doesn't keep its lowest rated favorite things.
+     */
+    public List<FavoriteThing> getBottom(int count) {
+        return getPage(Cursor.lowestFirst(), count).getFavoriteThings();
+    }
+
+    /**
+     * @param cursor Where the page starts, either the first one of an order or the next one of a previous page.
+     * @param size   The maximum amount of {@link FavoriteThing}s on the page.
+     * @return The page, whose next cursor is null once the ranking is exhausted.
+     * @throws IllegalArgumentException in case the cursor refers to more categories than this ranking has.
+     */
+    public Page getPage(Cursor cursor, int size) {
+        MergingIterator iterator = new MergingIterator(cursor);
+        List<FavoriteThing> favoriteThings = new ArrayList<>(Math.min(Math.max(size, 0), 1024));
+        while (favoriteThings.size() < size && iterator.hasNext()) {
+            favoriteThings.add(iterator.next());
+        }
+        return new Page(favoriteThings, iterator.hasNext() ? iterator.cursor() : null);
+    }
+
+    /**
+     * @param text A cursor as given by {@link Cursor#toString()}.
+     * @throws IllegalArgumentException in case the text isn't a cursor of this ranking.
+     */
+    public Cursor parseCursor(String text) {
+        if (text.isEmpty() || text.charAt(0) != Cursor.HIGHEST_FIRST_PREFIX
+                && text.charAt(0) != Cursor.LOWEST_FIRST_PREFIX) {
+            throw new IllegalArgumentException(String.format("Invalid cursor '%s'.", text));
+        }
+        int[] positions = new int[categories.size()];
+        try {
+            for (String entry : text.substring(1).split("\\.")) {
+                if (entry.isEmpty()) {
+                    continue;
+                }
+                int separator = entry.indexOf('-');
+                int category = Integer.parseInt(entry.substring(0, separator));
+                int position = Integer.parseInt(entry.substring(separator + 1));
+                if (category < 0 || category >= positions.length || position < 0) {
+                    throw new IllegalArgumentException(String.format("Invalid cursor '%s'.", text));
+                }
+                positions[category] = position;
+            }
+        } catch (NumberFormatException | StringIndexOutOfBoundsException e) {
+            throw new IllegalArgumentException(String.format("Invalid cursor '%s'.", text), e);
+        }
+        return new Cursor(text.charAt(0) == Cursor.LOWEST_FIRST_PREFIX, positions);
+    }
+
+    @Getter
+    public static final class Page {
+
+        private final List<FavoriteThing> favoriteThings;
+        /**
+         * The cursor of the next page, or null in case there's none.
+         */
+        private final Cursor next;
+
+        private Page(List<FavoriteThing> favoriteThings, Cursor next) {
+            this.favoriteThings = Collections.unmodifiableList(favoriteThings);
+            this.next = next;
+        }
+    }
+
+    /**
+     * A position on a ranking, as the amount of favorite things already gone through on every category. Cursors are
+     * immutable and can be exchanged as text, through {@link #toString()} and
+     * {@link GlobalRanking#parseCursor(String)}, where only the categories with favorite things gone through are
+     * written.
+     */
+    @Getter
+    public static final class Cursor {
+
+        private static final Cursor HIGHEST_FIRST = new Cursor(false, new int[0]);
+        private static final Cursor LOWEST_FIRST = new Cursor(true, new int[0]);
+        private static final char HIGHEST_FIRST_PREFIX = 'h';
+        private static final char LOWEST_FIRST_PREFIX = 'l';
+
+        private final boolean lowestFirst;
+        private final int[] positions;
+
+        private Cursor(boolean lowestFirst, int[] positions) {
+            this.lowestFirst = lowestFirst;
+            this.positions = positions;
+        }
+
+        /**
+         * @return The cursor of the first page from the highest rating.
+         */
+        public static Cursor highestFirst() {
+            return HIGHEST_FIRST;
+        }
+
+        /**
+         * @return The cursor of the first page from the lowest rating.
+         */
+        public static Cursor lowestFirst() {
+            return LOWEST_FIRST;
+        }
+
+        public int[] getPositions() {
+            return positions.clone();
+        }
+
+        /**
+         * @return The cursor as text, such as <code>h.0-3.5-1</code> for 3 favorite things gone through on the first
+         * category and 1 on the sixth one, from the highest rating.
+         */
+        @Override
+        public String toString() {
+            StringBuilder text = new StringBuilder().append(lowestFirst ? LOWEST_FIRST_PREFIX : HIGHEST_FIRST_PREFIX);
+            for (int category = 0; category < positions.length; category++) {
+                if (positions[category] > 0) {
+                    text.append('.').append(category).append('-').append(positions[category]);
+                }
+            }
+            return text.toString();
+        }
+    }
+
+    /**
+     * Merges the ordered views of the categories, starting from the positions of a cursor, through a heap of their
+     * next favorite things.
+     */
+    private final class MergingIterator implements Iterator<FavoriteThing> {
+
+        private final boolean lowestFirst;
+        private final int[] positions;
+        private final PriorityQueue<Head> heads;
+
+        private MergingIterator(Cursor cursor) {
+            if (cursor.positions.length > categories.size()) {
+                throw new IllegalArgumentException(String.format("The cursor refers to %d categories, while the " +
+                        "ranking has %d.", cursor.positions.length, categories.size()));
+            }
+            lowestFirst = cursor.lowestFirst;
+            positions = Arrays.copyOf(cursor.positions, categories.size());
+            List<Head> firstHeads = new ArrayList<>(categories.size());
+            for (int category = 0; category < categories.size(); category++) {
+                Iterator<FavoriteThing> iterator = categories.get(category)
+                        .iterateFavoriteThingsByRating(positions[category], lowestFirst);
+                if (iterator.hasNext()) {
+                    firstHeads.add(new Head(category, iterator));
+                }
+            }
+            // Heapified at once, in linear time.
+            heads = new PriorityQueue<>(firstHeads);
+        }
+
+        @Override
+        public boolean hasNext() {
+            return !heads.isEmpty();
+        }
+
+        @Override
+        public FavoriteThing next() {
+            Head head = heads.poll();
+            if (head == null) {
+                throw new NoSuchElementException();
+            }
+            FavoriteThing favoriteThing = head.favoriteThing;
+            positions[head.category]++;
+            if (head.iterator.hasNext()) {
+                head.favoriteThing = head.iterator.next();
+                heads.add(head);
+            }
+            return favoriteThing;
+        }
+
+        private Cursor cursor() {
+            return new Cursor(lowestFirst, positions.clone());
+        }
+
+        /**
+         * The next favorite thing of a category, along with the iterator of the ones after it.
+         */
+        private final class Head implements Comparable<Head> {
+
+            private final int category;
+            private final Iterator<FavoriteThing> iterator;
+            private FavoriteThing favoriteThing;
+
+            private Head(int category, Iterator<FavoriteThing> iterator) {
+                this.category = category;
+                this.iterator = iterator;
+                this.favoriteThing = iterator.next();
+            }
+
+            /**
+             * Higher ratings first and, among equal ratings, the first category first, both reversed from the lowest
+             * rating.
+             */
+            @Override
+            public int compareTo(Head other) {
+                int byRating = Integer.compare(other.favoriteThing.getRating(), favoriteThing.getRating());
+                int order = byRating != 0 ? byRating : Integer.compare(category, other.category);
+                return lowestFirst ? -order : order;
+            }
+        }
+    }
+}
@@ -0,0 +1,490 @@
+package com.germer.starit.model;
+
+import com.germer.starit.offheap.OffHeapArena;
+import com.germer.starit.offheap.OffHeapRegion;
+
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * A {@link FavoriteThingStore} for very large categories, keeping the favorite things outside of the Java heap on the
+ * regions of an {@link OffHeapArena}, so that the garbage collector has nothing to trace nor copy whatever their
+ * amount. Every favorite thing gets an id, in the order they are added, which indexes a 16 bytes record of the address
+ * and length of its name, interned as UTF-8 bytes on a region of names, and of its rating. An open-addressing table of
+ * ids, along with the hash codes of their names, indexes them by name, and {@link FavoriteThing} objects are only
+ * created on demand when read.
+ * <p>
+ * As in the {@link ColumnarFavoriteThingStore}, the ordering by rating is built lazily, the first time it's needed after
+ * the store changed, or when frozen. The ids are sorted off-heap too, through a radix sort of their ratings, along with
+ * the running sums of their ratings which then answer the rating range queries by binary search. Among equally rated
+ * favorite things the first added ranks higher. The bytes of removed favorite things aren't reclaimed, and a name
+ * can't take more than a segment of the arena. The table of ids starts with a few slots and doubles as it fills up,
+ * and the regions of a small store share the segments of the arena with other stores, so that many small categories
+ * don't take a segment each.
+ * <p>
+ * Once frozen and until it changes, the store can be read by several threads at once.
+ */
+public class OffHeapFavoriteThingStore implements FavoriteThingStore {
+
+    private static final int NO_ID = -1;
+    private static final int RECORD_BYTES = 16;
+    private static final int RECORD_LENGTH_OFFSET = 8;
+    private static final int RECORD_RATING_OFFSET = 12;
+    private static final int REMOVED_LENGTH = -1;
+    /**
+     * A slot of the table holds <code>id + 1</code>, 0 being an empty slot, then the hash code of the name.
+     */
+    private static final int SLOT_BYTES = 8;
+    private static final int INITIAL_ID_TABLE_CAPACITY = 8;
+    private static final int RADIX_BITS = 8;
+
+    private final String categoryName;
+    private final OffHeapArena arena;
+
+    private final OffHeapRegion names;
+    private long namesEnd;
+    private final OffHeapRegion records;
+    private int nextId;
+    private OffHeapRegion idTable;
+    private int idTableCapacity;
+
+    private int size;
+    private int totalScore;
+    private int highestRatedId = NO_ID;
+    private final OffHeapRegion orderedIds;
+    /**
+     * The sums of the ratings of the first ids of {@link #orderedIds}, built along with them.
+     */
+    private final OffHeapRegion ratingSums;
+    private boolean ordered;
+
+    /**
+     * @param categoryName The name of the {@link Category} backed by this store.
+     * @param arena        The arena the regions of the store are allocated from, which may be shared among stores.
+     */
+    public OffHeapFavoriteThingStore(String categoryName, OffHeapArena arena) {
+        this.categoryName = categoryName;
+        this.arena = arena;
+        this.names = arena.newRegion();
+        this.records = arena.newRegion();
+        this.orderedIds = arena.newRegion();
+        this.ratingSums = arena.newRegion();
+        this.idTableCapacity = INITIAL_ID_TABLE_CAPACITY;
+        this.idTable = arena.newRegion();
+        this.idTable.ensureCapacity((long) idTableCapacity * SLOT_BYTES);
+    }
+
+    /**
+     * @throws IllegalArgumentException in case the name takes more than a segment of the arena.
+     */
+    @Override
+    public boolean add(FavoriteThing favoriteThing) {
+        String name = favoriteThing.getName();
+        int hash = name.hashCode();
+        long slotAddress = slotAddressOf(name, hash);
+        if (idTable.getInt(slotAddress) != 0) {
+            return false;
+        }
+
+        int id = appendRecord(name, favoriteThing.getRating());
+        idTable.putInt(slotAddress, id + 1);
+        idTable.putInt(slotAddress + Integer.BYTES, hash);
+        totalScore += favoriteThing.getRating();
+        if (size == 0 || highestRatedId != NO_ID && favoriteThing.getRating() > ratingOf(highestRatedId)) {
+            highestRatedId = id;
+        }
+        ordered = false;
+        if (++size > idTableCapacity / 4 * 3) {
+            rebuildIdTable(idTableCapacity * 2);
+        }
+        return true;
+    }
+
+    @Override
+    public FavoriteThing remove(String name) {
+        long slotAddress = slotAddressOf(name, name.hashCode());
+        int id = idTable.getInt(slotAddress) - 1;
+        if (id == NO_ID) {
+            return null;
+        }
+
+        FavoriteThing removedItem = toFavoriteThing(id);
+        removeSlot(slotAddress);
+        records.putInt(recordAddress(id) + RECORD_LENGTH_OFFSET, REMOVED_LENGTH);
+        totalScore -= removedItem.getRating();
+        if (id == highestRatedId) {
+            highestRatedId = NO_ID;
+        }
+        ordered = false;
+        size--;
+        return removedItem;
+    }
+
+    @Override
+    public FavoriteThing get(String name) {
+        int id = idTable.getInt(slotAddressOf(name, name.hashCode())) - 1;
+        return id == NO_ID ? null : toFavoriteThing(id);
+    }
+
+    /**
+     * Builds the ordering by rating, so that the store can then be read by several threads at once.
+     */
+    @Override
+    public void freeze() {
+        order();
+        getHighestRating();
+    }
+
+    /**
+     * @return A read-only view of the favorite things ordered by rating, sorting them in case they changed since the
+     * last time.
+     */
+    @Override
+    public Iterable<FavoriteThing> getOrderedByRating() {
+        return new AbstractList<FavoriteThing>() {
+            @Override
+            public FavoriteThing get(int index) {
+                return toFavoriteThing(orderedId(index));
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    @Override
+    public Iterator<FavoriteThing> iterateByRating(int from, boolean lowestFirst) {
+        order();
+        return new Iterator<FavoriteThing>() {
+            private int index = Math.max(from, 0);
+
+            @Override
+            public boolean hasNext() {
+                return index < size;
+            }
+
+            @Override
+            public FavoriteThing next() {
+                if (index >= size) {
+                    throw new NoSuchElementException();
+                }
+                int position = index++;
+                return toFavoriteThing(orderedId(lowestFirst ? size - 1 - position : position));
+            }
+        };
+    }
+
+    @Override
+    public List<FavoriteThing> getTopRated(int count) {
+        List<FavoriteThing> topRated = new ArrayList<>(Math.min(Math.max(count, 0), size));
+        for (int index = 0; index < size && index < count; index++) {
+            topRated.add(toFavoriteThing(orderedId(index)));
+        }
+        return topRated;
+    }
+
+    @Override
+    public int getRank(String name) {
+        int id = idTable.getInt(slotAddressOf(name, name.hashCode())) - 1;
+        if (id == NO_ID) {
+            return 0;
+        }
+
+        int low = 0;
+        int high = size - 1;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (ranksHigher(orderedId(middle), id)) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low + 1;
+    }
+
+    @Override
+    public FavoriteThing getByRank(int rank) {
+        return rank < 1 || rank > size ? null : toFavoriteThing(orderedId(rank - 1));
+    }
+
+    @Override
+    public int countByRating(int minRating, int maxRating) {
+        if (minRating > maxRating) {
+            return 0;
+        }
+        return countAtLeast(minRating) - (maxRating == Integer.MAX_VALUE ? 0 : countAtLeast(maxRating + 1));
+    }
+
+    @Override
+    public long sumByRating(int minRating, int maxRating) {
+        if (minRating > maxRating) {
+            return 0;
+        }
+        int ratedAtLeastMin = countAtLeast(minRating);
+        int ratedAboveMax = maxRating == Integer.MAX_VALUE ? 0 : countAtLeast(maxRating + 1);
+        return ratingSums.getLong((long) ratedAtLeastMin * Long.BYTES)
+                - ratingSums.getLong((long) ratedAboveMax * Long.BYTES);
+    }
+
+    @Override
+    public FavoriteThing getHighestRating() {
+        if (size == 0) {
+            return null;
+        }
+        if (highestRatedId == NO_ID) {
+            highestRatedId = ordered ? orderedId(0) : findHighestRatedId();
+        }
+        return toFavoriteThing(highestRatedId);
+    }
+
+    @Override
+    public int getTotalScore() {
+        return totalScore;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    private static long recordAddress(int id) {
+        return (long) id * RECORD_BYTES;
+    }
+
+    private int ratingOf(int id) {
+        return records.getInt(recordAddress(id) + RECORD_RATING_OFFSET);
+    }
+
+    private boolean isRemoved(int id) {
+        return records.getInt(recordAddress(id) + RECORD_LENGTH_OFFSET) == REMOVED_LENGTH;
+    }
+
+    private FavoriteThing toFavoriteThing(int id) {
+        long address = recordAddress(id);
+        byte[] nameBytes = names.getBytes(records.getLong(address), records.getInt(address + RECORD_LENGTH_OFFSET));
+        return FavoriteThing.of(categoryName, new String(nameBytes, StandardCharsets.UTF_8),
+                records.getInt(address + RECORD_RATING_OFFSET));
+    }
+
+    /**
+     * Higher ratings first and, among equal ratings, the first added first, which is the lower id.
+     */
+    private boolean ranksHigher(int id, int otherId) {
+        int rating = ratingOf(id);
+        int otherRating = ratingOf(otherId);
+        return rating > otherRating || rating == otherRating && id < otherId;
+    }
+
+    /**
+     * @return The id at the given position by rating, sorting the ids in case they changed since the last time.
+     */
+    private int orderedId(int position) {
+        order();
+        return orderedIds.getInt((long) position * Integer.BYTES);
+    }
+
+    /**
+     * @return The amount of favorite things rated at least the given rating, which lead the sorted ids.
+     */
+    private int countAtLeast(int rating) {
+        order();
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (ratingOf(orderedId(middle)) >= rating) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private int findHighestRatedId() {
+        int highestId = NO_ID;
+        for (int id = 0; id < nextId; id++) {
+            if (!isRemoved(id) && (highestId == NO_ID || ratingOf(id) > ratingOf(highestId))) {
+                highestId = id;
+            }
+        }
+        return highestId;
+    }
+
+    /**
+     * Sorts the ids by a least significant digit radix sort of longs packing each id with its rating, made unsigned
+     * and complemented so that the higher ratings come first. Being stable, the sort keeps the equally rated ids in
+     * the order they were added. The passes over the bytes that all the ratings share are skipped.
+     */
+    private void order() {
+        if (ordered) {
+            return;
+        }
+        OffHeapRegion keys = arena.newRegion();
+        OffHeapRegion sortedKeys = arena.newRegion();
+        keys.ensureCapacity((long) size * Long.BYTES);
+        sortedKeys.ensureCapacity((long) size * Long.BYTES);
+        long position = 0;
+        for (int id = 0; id < nextId; id++) {
+            if (!isRemoved(id)) {
+                long ratingKey = (~ratingOf(id) ^ Integer.MIN_VALUE) & 0xFFFFFFFFL;
+                keys.putLong(position, ratingKey << Integer.SIZE | id);
+                position += Long.BYTES;
+            }
+        }
+
+        for (int shift = Integer.SIZE; shift < Long.SIZE; shift += RADIX_BITS) {
+            if (sortByDigit(keys, sortedKeys, shift)) {
+                OffHeapRegion swapped = keys;
+                keys = sortedKeys;
+                sortedKeys = swapped;
+            }
+        }
+
+        orderedIds.ensureCapacity((long) size * Integer.BYTES);
+        ratingSums.ensureCapacity((size + 1L) * Long.BYTES);
+        long sum = 0;
+        for (int index = 0; index < size; index++) {
+            int id = (int) keys.getLong((long) index * Long.BYTES);
+            orderedIds.putInt((long) index * Integer.BYTES, id);
+            sum += ratingOf(id);
+            ratingSums.putLong((index + 1L) * Long.BYTES, sum);
+        }
+        keys.release();
+        sortedKeys.release();
+        ordered = true;
+    }
+
+    /**
+     * @return Whether the keys were distributed into the target by the digit at the given shift, which is only
+     * needed when they don't all share it.
+     */
+    private boolean sortByDigit(OffHeapRegion keys, OffHeapRegion target, int shift) {
+        int digits = 1 << RADIX_BITS;
+        int digitMask = digits - 1;
+        long[] positions = new long[digits];
+        for (int index = 0; index < size; index++) {
+            positions[(int) (keys.getLong((long) index * Long.BYTES) >>> shift) & digitMask]++;
+        }
+        long start = 0;
+        for (int digit = 0; digit < digits; digit++) {
+            if (positions[digit] == size) {
+                return false;
+            }
+            long count = positions[digit];
+            positions[digit] = start;
+            start += count;
+        }
+        for (int index = 0; index < size; index++) {
+            long key = keys.getLong((long) index * Long.BYTES);
+            target.putLong(positions[(int) (key >>> shift) & digitMask]++ * Long.BYTES, key);
+        }
+        return true;
+    }
+
+    private int appendRecord(String name, int rating) {
+        byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+        int segmentSize = names.getSegmentSize();
+        if (bytes.length > segmentSize) {
+            throw new IllegalArgumentException(String.format("The name of a favorite thing can't take more than %d " +
+                    "bytes off-heap.", segmentSize));
+        }
+        long address = namesEnd;
+        if ((address & (segmentSize - 1)) + bytes.length > segmentSize) {
+            // Skips to the next segment, so that the name doesn't straddle two.
+            address = (address | (segmentSize - 1)) + 1;
+        }
+        names.ensureCapacity(address + bytes.length);
+        names.putBytes(address, bytes);
+        namesEnd = address + bytes.length;
+
+        int id = nextId++;
+        long recordAddress = recordAddress(id);
+        records.ensureCapacity(recordAddress + RECORD_BYTES);
+        records.putLong(recordAddress, address);
+        records.putInt(recordAddress + RECORD_LENGTH_OFFSET, bytes.length);
+        records.putInt(recordAddress + RECORD_RATING_OFFSET, rating);
+        return id;
+    }
+
+    private void rebuildIdTable(int capacity) {
+        OffHeapRegion rebuiltIdTable = arena.newRegion();
+        rebuiltIdTable.ensureCapacity((long) capacity * SLOT_BYTES);
+        int mask = capacity - 1;
+        for (long slotAddress = 0; slotAddress < (long) idTableCapacity * SLOT_BYTES; slotAddress += SLOT_BYTES) {
+            int idPlusOne = idTable.getInt(slotAddress);
+            if (idPlusOne != 0) {
+                int hash = idTable.getInt(slotAddress + Integer.BYTES);
+                int slot = spread(hash) & mask;
+                while (rebuiltIdTable.getInt((long) slot * SLOT_BYTES) != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                rebuiltIdTable.putInt((long) slot * SLOT_BYTES, idPlusOne);
+                rebuiltIdTable.putInt((long) slot * SLOT_BYTES + Integer.BYTES, hash);
+            }
+        }
+        idTable.release();
+        idTable = rebuiltIdTable;
+        idTableCapacity = capacity;
+    }
+
+    private long slotAddressOf(String name, int hash) {
+        int mask = idTableCapacity - 1;
+        int slot = spread(hash) & mask;
+        int existingId;
+        while ((existingId = idTable.getInt((long) slot * SLOT_BYTES) - 1) != NO_ID
+                && (idTable.getInt((long) slot * SLOT_BYTES + Integer.BYTES) != hash
+                || !nameEquals(existingId, name))) {
+            slot = (slot + 1) & mask;
+        }
+        return (long) slot * SLOT_BYTES;
+    }
+
+    /**
+     * Backward-shift deletion, so that no tombstones are needed to keep the probe sequences unbroken.
+     */
+    private void removeSlot(long slotAddress) {
+        int mask = idTableCapacity - 1;
+        int hole = (int) (slotAddress / SLOT_BYTES);
+        for (int next = (hole + 1) & mask; idTable.getInt((long) next * SLOT_BYTES) != 0; next = (next + 1) & mask) {
+            int home = spread(idTable.getInt((long) next * SLOT_BYTES + Integer.BYTES)) & mask;
+            if (((next - home) & mask) >= ((next - hole) & mask)) {
+                idTable.putInt((long) hole * SLOT_BYTES, idTable.getInt((long) next * SLOT_BYTES));
+                idTable.putInt((long) hole * SLOT_BYTES + Integer.BYTES,
+                        idTable.getInt((long) next * SLOT_BYTES + Integer.BYTES));
+                hole = next;
+            }
+        }
+        idTable.putInt((long) hole * SLOT_BYTES, 0);
+        idTable.putInt((long) hole * SLOT_BYTES + Integer.BYTES, 0);
+    }
+
+    /**
+     * Compares an interned name with a String, char by char while it's ASCII to avoid encoding it.
+     */
+    private boolean nameEquals(int id, String name) {
+        long address = recordAddress(id);
+        long nameAddress = records.getLong(address);
+        int length = records.getInt(address + RECORD_LENGTH_OFFSET);
+        if (length < name.length()) {
+            return false;
+        }
+        for (int index = 0; index < name.length(); index++) {
+            char c = name.charAt(index);
+            if (c >= 0x80) {
+                return Arrays.equals(names.getBytes(nameAddress, length), name.getBytes(StandardCharsets.UTF_8));
+            }
+            if (names.getByte(nameAddress + index) != c) {
+                return false;
+            }
+        }
+        return length == name.length();
+    }
+
+    private static int spread(int hash) {
+        return (hash ^ (hash >>> 16)) * 0x9E3779B9;
+    }
+}
@@ -0,0 +1,344 @@
+package com.germer.starit.model;
+
+import java.util.*;
+
+/**
+ * An order statistic index of {@link FavoriteThing}s, from the highest to the lowest rating and, among equally rated
+ * favorite things, from the first to the last added. It's a treap with the subtree sizes and rating sums on every
+ * node, so that insertions, removals, rank and positional lookups, as well as counting and summing the ratings within
+ * a range, take O(log n) expected time, while the highest rated favorite thing is cached for O(1) access.
+ * <p>
+ * The priority of every node is derived from its insertion sequence, so that the shape of the tree depends only on
+ * its content, and the index is a read-only {@link List} view with the usual {@link List#equals(Object)} semantics.
+ */
+final class RatingIndex extends AbstractList<FavoriteThing> {
+
+    private Entry root;
+    private Entry first;
+    private long nextSequence;
+
+    /**
+     * @return The new {@link Entry} of the given {@link FavoriteThing}, needed to remove or rank it later on.
+     */
+    Entry insert(FavoriteThing favoriteThing) {
+        Entry entry = new Entry(favoriteThing, nextSequence++);
+        root = insert(root, entry);
+        if (first == null || compare(entry, first) < 0) {
+            first = entry;
+        }
+        modCount++;
+        return entry;
+    }
+
+    /**
+     * @param entry An {@link Entry} returned by {@link #insert(FavoriteThing)} and not removed yet.
+     */
+    void remove(Entry entry) {
+        root = remove(root, entry);
+        if (entry == first) {
+            first = leftmost(root);
+        }
+        modCount++;
+    }
+
+    /**
+     * @return The zero-based position of the given {@link Entry}, from the highest rated {@link FavoriteThing}.
+     */
+    int indexOf(Entry entry) {
+        int index = 0;
+        Entry node = root;
+        while (node != entry) {
+            if (compare(entry, node) < 0) {
+                node = node.left;
+            } else {
+                index += sizeOf(node.left) + 1;
+                node = node.right;
+            }
+        }
+        return index + sizeOf(node.left);
+    }
+
+    /**
+     * @return The amount of {@link FavoriteThing}s rated at least the given rating.
+     */
+    int countAtLeast(int rating) {
+        int count = 0;
+        Entry node = root;
+        while (node != null) {
+            if (node.favoriteThing.getRating() >= rating) {
+                // The node and all the higher rated ones on its left.
+                count += sizeOf(node.left) + 1;
+                node = node.right;
+            } else {
+                node = node.left;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * @return The sum of the ratings of the {@link FavoriteThing}s rated at least the given rating.
+     */
+    long sumAtLeast(int rating) {
+        long sum = 0;
+        Entry node = root;
+        while (node != null) {
+            if (node.favoriteThing.getRating() >= rating) {
+                sum += sumOf(node.left) + node.favoriteThing.getRating();
+                node = node.right;
+            } else {
+                node = node.left;
+            }
+        }
+        return sum;
+    }
+
+    /**
+     * @return The highest rated {@link FavoriteThing}, or null in case the index is empty.
+     */
+    FavoriteThing first() {
+        return first == null ? null : first.favoriteThing;
+    }
+
+    /**
+     * @return A copy of the first <code>count</code> {@link FavoriteThing}s, or all of them if there are less.
+     */
+    List<FavoriteThing> head(int count) {
+        int headSize = Math.min(Math.max(count, 0), size());
+        List<FavoriteThing> head = new ArrayList<>(headSize);
+        Iterator<FavoriteThing> iterator = iterator();
+        while (head.size() < headSize) {
+            head.add(iterator.next());
+        }
+        return head;
+    }
+
+    @Override
+    public FavoriteThing get(int index) {
+        if (index < 0 || index >= size()) {
+            throw new IndexOutOfBoundsException(String.format("Index: %d, Size: %d", index, size()));
+        }
+        Entry node = root;
+        while (true) {
+            int leftSize = sizeOf(node.left);
+            if (index < leftSize) {
+                node = node.left;
+            } else if (index > leftSize) {
+                index -= leftSize + 1;
+                node = node.right;
+            } else {
+                return node.favoriteThing;
+            }
+        }
+    }
+
+    @Override
+    public int size() {
+        return sizeOf(root);
+    }
+
+    @Override
+    public Iterator<FavoriteThing> iterator() {
+        return new InOrderIterator(0, false);
+    }
+
+    /**
+     * @param from     The zero-based position to start from, counted from the lowest rated favorite thing when
+     *                 reversed.
+     * @param reversed Whether to iterate from the lowest to the highest rating, in the exact reverse order.
+     * @return An iterator positioned in O(log n) time, rather than by skipping the first favorite things.
+     */
+    Iterator<FavoriteThing> iterator(int from, boolean reversed) {
+        return new InOrderIterator(from, reversed);
+    }
+
+    private static Entry insert(Entry node, Entry entry) {
+        if (node == null) {
+            return entry;
+        }
+        node.size++;
+        node.sum += entry.favoriteThing.getRating();
+        if (compare(entry, node) < 0) {
+            node.left = insert(node.left, entry);
+            return node.left.priority > node.priority ? rotateRight(node) : node;
+        }
+        node.right = insert(node.right, entry);
+        return node.right.priority > node.priority ? rotateLeft(node) : node;
+    }
+
+    private static Entry remove(Entry node, Entry entry) {
+        if (node == entry) {
+            return merge(node.left, node.right);
+        }
+        node.size--;
+        node.sum -= entry.favoriteThing.getRating();
+        if (compare(entry, node) < 0) {
+            node.left = remove(node.left, entry);
+        } else {
+            node.right = remove(node.right, entry);
+        }
+        return node;
+    }
+
+    /**
+     * Merges two treaps, every entry on the left one ranking higher than every entry on the right one.
+     */
+    private static Entry merge(Entry left, Entry right) {
+        if (left == null) {
+            return right;
+        }
+        if (right == null) {
+            return left;
+        }
+        if (left.priority > right.priority) {
+            left.right = merge(left.right, right);
+            update(left);
+            return left;
+        }
+        right.left = merge(left, right.left);
+        update(right);
+        return right;
+    }
+
+    private static Entry rotateRight(Entry node) {
+        Entry pivot = node.left;
+        node.left = pivot.right;
+        pivot.right = node;
+        pivot.size = node.size;
+        pivot.sum = node.sum;
+        update(node);
+        return pivot;
+    }
+
+    private static Entry rotateLeft(Entry node) {
+        Entry pivot = node.right;
+        node.right = pivot.left;
+        pivot.left = node;
+        pivot.size = node.size;
+        pivot.sum = node.sum;
+        update(node);
+        return pivot;
+    }
+
+    private static Entry leftmost(Entry node) {
+        if (node != null) {
+            while (node.left != null) {
+                node = node.left;
+            }
+        }
+        return node;
+    }
+
+    /**
+     * Recomputes the subtree size and rating sum of a node from its children.
+     */
+    private static void update(Entry node) {
+        node.size = sizeOf(node.left) + sizeOf(node.right) + 1;
+        node.sum = sumOf(node.left) + sumOf(node.right) + node.favoriteThing.getRating();
+    }
+
+    private static int sizeOf(Entry node) {
+        return node == null ? 0 : node.size;
+    }
+
+    private static long sumOf(Entry node) {
+        return node == null ? 0 : node.sum;
+    }
+
+    /**
+     * Higher ratings first and, among equal ratings, the first added first.
+     */
+    private static int compare(Entry entry, Entry other) {
+        int byRating = Integer.compare(other.favoriteThing.getRating(), entry.favoriteThing.getRating());
+        return byRating != 0 ? byRating : Long.compare(entry.sequence, other.sequence);
+    }
+
+    static final class Entry {
+
+        private final FavoriteThing favoriteThing;
+        private final long sequence;
+        private final int priority;
+        private Entry left;
+        private Entry right;
+        private int size = 1;
+        private long sum;
+
+        private Entry(FavoriteThing favoriteThing, long sequence) {
+            this.favoriteThing = favoriteThing;
+            this.sequence = sequence;
+            this.priority = mix(sequence);
+            this.sum = favoriteThing.getRating();
+        }
+
+        FavoriteThing getFavoriteThing() {
+            return favoriteThing;
+        }
+
+        /**
+         * The finalizer of MurmurHash3, spreading consecutive sequences into well distributed priorities.
+         */
+        private static int mix(long sequence) {
+            long hash = sequence;
+            hash ^= hash >>> 33;
+            hash *= 0xff51afd7ed558ccdL;
+            hash ^= hash >>> 33;
+            hash *= 0xc4ceb9fe1a85ec53L;
+            hash ^= hash >>> 33;
+            return (int) hash;
+        }
+    }
+
+    private final class InOrderIterator implements Iterator<FavoriteThing> {
+
+        private final Deque<Entry> path = new ArrayDeque<>();
+        private final boolean reversed;
+        private final int expectedModCount = modCount;
+
+        /**
+         * Walks down to the entry at the given position, keeping the path of the entries still to come after it.
+         */
+        private InOrderIterator(int from, boolean reversed) {
+            this.reversed = reversed;
+            int index = Math.max(from, 0);
+            Entry node = root;
+            while (node != null) {
+                int beforeSize = sizeOf(before(node));
+                if (index <= beforeSize) {
+                    path.push(node);
+                    node = index == beforeSize ? null : before(node);
+                } else {
+                    index -= beforeSize + 1;
+                    node = after(node);
+                }
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return !path.isEmpty();
+        }
+
+        @Override
+        public FavoriteThing next() {
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            if (path.isEmpty()) {
+                throw new NoSuchElementException();
+            }
+            Entry entry = path.pop();
+            for (Entry node = after(entry); node != null; node = before(node)) {
+                path.push(node);
+            }
+            return entry.favoriteThing;
+        }
+
+        private Entry before(Entry node) {
+            return reversed ? node.right : node.left;
+        }
+
+        private Entry after(Entry node) {
+            return reversed ? node.left : node.right;
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package com.germer.starit.model;
+
+import com.germer.starit.sketch.CategorySketch;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * A {@link FavoriteThingStore} for exploratory runs over unbounded feeds, which doesn't keep any {@link FavoriteThing}
+ * but a {@link CategorySketch} of them, in a fixed amount of memory. As duplicates can't be detected in a fixed
+ * amount of memory, every favorite thing added is accepted, and the total score and size count every mention.
+ * <p>
+ * Only the highest rated {@link FavoriteThing} is known, none being listed by {@link #getOrderedByRating()}, and
+ * favorite things can't be removed, ranked nor counted by rating.
+ */
+public class SketchFavoriteThingStore implements FavoriteThingStore {
+
+    private final CategorySketch sketch;
+
+    /**
+     * @param categoryName The name of the {@link Category} backed by this store.
+     */
+    public SketchFavoriteThingStore(String categoryName) {
+        this.sketch = new CategorySketch(categoryName);
+    }
+
+    public CategorySketch getSketch() {
+        return sketch;
+    }
+
+    /**
+     * @return <code>true</code> always, duplicates being counted as further mentions.
+     */
+    @Override
+    public boolean add(FavoriteThing favoriteThing) {
+        sketch.add(favoriteThing.getName(), favoriteThing.getRating());
+        return true;
+    }
+
+    /**
+     * @throws UnsupportedOperationException always, as the favorite things aren't retained.
+     */
+    @Override
+    public FavoriteThing remove(String name) {
+        throw new UnsupportedOperationException("Favorite things can't be removed from a sketched Category.");
+    }
+
+    /**
+     * @return Always null, as the favorite things aren't retained.
+     */
+    @Override
+    public FavoriteThing get(String name) {
+        return null;
+    }
+
+    /**
+     * @return None of the favorite things, as they aren't retained.
+     */
+    @Override
+    public Iterable<FavoriteThing> getOrderedByRating() {
+        return Collections.emptyList();
+    }
+
+    @Override
+    public Iterator<FavoriteThing> iterateByRating(int from, boolean lowestFirst) {
+        return Collections.emptyIterator();
+    }
+
+    @Override
+    public List<FavoriteThing> getTopRated(int count) {
+        return Collections.emptyList();
+    }
+
+    /**
+     * @throws UnsupportedOperationException always, as the favorite things aren't retained.
+     */
+    @Override
+    public int getRank(String name) {
+        throw new UnsupportedOperationException("Favorite things can't be ranked on a sketched Category.");
+    }
+
+    /**
+     * @throws UnsupportedOperationException for any rank of a favorite thing, as they aren't retained.
+     */
+    @Override
+    public FavoriteThing getByRank(int rank) {
+        if (rank >= 1 && rank <= size()) {
+            throw new UnsupportedOperationException("Favorite things can't be ranked on a sketched Category.");
+        }
+        return null;
+    }
+
+    /**
+     * @throws UnsupportedOperationException always, as the ratings are only sketched.
+     */
+    @Override
+    public int countByRating(int minRating, int maxRating) {
+        throw new UnsupportedOperationException("Favorite things can't be counted by rating on a sketched Category.");
+    }
+
+    /**
+     * @throws UnsupportedOperationException always, as the ratings are only sketched.
+     */
+    @Override
+    public long sumByRating(int minRating, int maxRating) {
+        throw new UnsupportedOperationException("Ratings can't be summed by range on a sketched Category.");
+    }
+
+    @Override
+    public FavoriteThing getHighestRating() {
+        return sketch.getHighestRatingFavoriteThing().orElse(null);
+    }
+
+    /**
+     * @return The sum of the ratings of every mention.
+     */
+    @Override
+    public int getTotalScore() {
+        return (int) sketch.getTotalScore();
+    }
+
+    /**
+     * @return The amount of mentions.
+     */
+    @Override
+    public int size() {
+        return (int) sketch.getMentionCount();
+    }
+}
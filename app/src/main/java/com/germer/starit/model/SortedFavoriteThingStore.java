@@ -0,0 +1,109 @@
+package com.germer.starit.model;
+
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
+
+import java.util.*;
+
+/**
+ * The default {@link FavoriteThingStore}, keeping every {@link FavoriteThing} both indexed by name and sorted by
+ * rating. Equally rated favorite things are ranked in the order they were added.
+ */
+@ToString
+@EqualsAndHashCode
+public class SortedFavoriteThingStore implements FavoriteThingStore {
+
+    private int totalScore = 0;
+    private final RatingIndex favoriteThings = new RatingIndex();
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    private final Map<String, RatingIndex.Entry> entryByName = new HashMap<>();
+
+    @Override
+    public boolean add(FavoriteThing favoriteThing) {
+        if (entryByName.containsKey(favoriteThing.getName())) {
+            return false;
+        }
+
+        entryByName.put(favoriteThing.getName(), favoriteThings.insert(favoriteThing));
+        totalScore += favoriteThing.getRating();
+        return true;
+    }
+
+    @Override
+    public FavoriteThing remove(String name) {
+        RatingIndex.Entry removedEntry = entryByName.remove(name);
+        if (removedEntry == null) {
+            return null;
+        }
+
+        favoriteThings.remove(removedEntry);
+        totalScore -= removedEntry.getFavoriteThing().getRating();
+        return removedEntry.getFavoriteThing();
+    }
+
+    @Override
+    public FavoriteThing get(String name) {
+        RatingIndex.Entry entry = entryByName.get(name);
+        return entry == null ? null : entry.getFavoriteThing();
+    }
+
+    @Override
+    public Iterable<FavoriteThing> getOrderedByRating() {
+        return favoriteThings;
+    }
+
+    @Override
+    public Iterator<FavoriteThing> iterateByRating(int from, boolean lowestFirst) {
+        return favoriteThings.iterator(from, lowestFirst);
+    }
+
+    @Override
+    public List<FavoriteThing> getTopRated(int count) {
+        return favoriteThings.head(count);
+    }
+
+    @Override
+    public int getRank(String name) {
+        RatingIndex.Entry entry = entryByName.get(name);
+        return entry == null ? 0 : favoriteThings.indexOf(entry) + 1;
+    }
+
+    @Override
+    public FavoriteThing getByRank(int rank) {
+        return rank < 1 || rank > favoriteThings.size() ? null : favoriteThings.get(rank - 1);
+    }
+
+    @Override
+    public int countByRating(int minRating, int maxRating) {
+        if (minRating > maxRating) {
+            return 0;
+        }
+        return favoriteThings.countAtLeast(minRating)
+                - (maxRating == Integer.MAX_VALUE ? 0 : favoriteThings.countAtLeast(maxRating + 1));
+    }
+
+    @Override
+    public long sumByRating(int minRating, int maxRating) {
+        if (minRating > maxRating) {
+            return 0;
+        }
+        return favoriteThings.sumAtLeast(minRating)
+                - (maxRating == Integer.MAX_VALUE ? 0 : favoriteThings.sumAtLeast(maxRating + 1));
+    }
+
+    @Override
+    public FavoriteThing getHighestRating() {
+        return favoriteThings.first();
+    }
+
+    @Override
+    public int getTotalScore() {
+        return totalScore;
+    }
+
+    @Override
+    public int size() {
+        return favoriteThings.size();
+    }
+}
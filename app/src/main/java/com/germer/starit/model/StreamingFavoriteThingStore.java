@@ -0,0 +1,229 @@
+package com.germer.starit.model;
+
+import com.google.common.hash.BloomFilter;
+import com.google.common.hash.Funnels;
+
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * A {@link FavoriteThingStore} for streaming aggregation, which doesn't keep every {@link FavoriteThing} but only the
+ * total score, the amount of favorite things and a bounded heap with the top-K rated ones. Only the retained top-K
+ * {@link FavoriteThing}s are listed by {@link #getOrderedByRating()}, and favorite things can't be removed.
+ * <p>
+ * Duplicated names are detected either exactly, through a compact name to rating table, or approximately, through a
+ * bloom filter of a fixed size. In the approximate mode a small share of the new favorite things (given by the false
+ * positive probability) is wrongly taken as a duplicate, and the rating of a duplicate can't be told, but the memory
+ * used by the store is constant no matter how many favorite things are added.
+ * <p>
+ * As in {@link SortedFavoriteThingStore}, among equally rated favorite things the first added ranks higher.
+ */
+public class StreamingFavoriteThingStore implements FavoriteThingStore {
+
+    private static final double BLOOM_FILTER_FALSE_POSITIVE_PROBABILITY = 0.001;
+
+    private final String categoryName;
+    private final int topK;
+    private final StringIntMap ratingByName;
+    private final BloomFilter<CharSequence> namesFilter;
+    private final PriorityQueue<RankedThing> topRated;
+    private RankedThing highestRated;
+    private int totalScore;
+    private int size;
+
+    /**
+     * Creates a store with exact duplicate detection.
+     *
+     * @param categoryName The name of the {@link Category} backed by this store.
+     * @param topK         The amount of highest rated {@link FavoriteThing}s to be retained.
+     */
+    public StreamingFavoriteThingStore(String categoryName, int topK) {
+        this(categoryName, topK, new StringIntMap(), null);
+    }
+
+    /**
+     * Creates a store with approximate duplicate detection, backed by a bloom filter sized for the expected amount
+     * of distinct favorite things with a false positive probability of 0.1%.
+     *
+     * @param categoryName          The name of the {@link Category} backed by this store.
+     * @param topK                  The amount of highest rated {@link FavoriteThing}s to be retained.
+     * @param expectedFavoriteThings The expected amount of distinct {@link FavoriteThing}s on the {@link Category}.
+     */
+    public StreamingFavoriteThingStore(String categoryName, int topK, long expectedFavoriteThings) {
+        this(categoryName, topK, null, BloomFilter.create(Funnels.stringFunnel(StandardCharsets.UTF_8),
+                expectedFavoriteThings, BLOOM_FILTER_FALSE_POSITIVE_PROBABILITY));
+    }
+
+    private StreamingFavoriteThingStore(String categoryName, int topK, StringIntMap ratingByName,
+                                        BloomFilter<CharSequence> namesFilter) {
+        if (topK < 1) {
+            throw new IllegalArgumentException(String.format("Invalid top-K %d, it must be at least 1.", topK));
+        }
+        this.categoryName = categoryName;
+        this.topK = topK;
+        this.ratingByName = ratingByName;
+        this.namesFilter = namesFilter;
+        this.topRated = new PriorityQueue<>(Math.min(topK, 1024) + 1, RankedThing.LOWEST_FIRST);
+    }
+
+    @Override
+    public boolean add(FavoriteThing favoriteThing) {
+        String name = favoriteThing.getName();
+        int rating = favoriteThing.getRating();
+
+        if (namesFilter != null) {
+            if (!namesFilter.put(name)) {
+                return false;
+            }
+        } else if (!ratingByName.putIfAbsent(name, rating)) {
+            return false;
+        }
+
+        RankedThing rankedThing = new RankedThing(name, rating, size++);
+        totalScore += rating;
+        if (highestRated == null || rating > highestRated.rating) {
+            highestRated = rankedThing;
+        }
+        if (topRated.size() < topK) {
+            topRated.add(rankedThing);
+        } else if (rating > topRated.peek().rating) {
+            topRated.poll();
+            topRated.add(rankedThing);
+        }
+        return true;
+    }
+
+    /**
+     * @throws UnsupportedOperationException always, as the next highest rated favorite things may not be retained.
+     */
+    @Override
+    public FavoriteThing remove(String name) {
+        throw new UnsupportedOperationException("Favorite things can't be removed from a streaming Category.");
+    }
+
+    /**
+     * @return The {@link FavoriteThing} with the given name, or always null when duplicates are detected approximately.
+     */
+    @Override
+    public FavoriteThing get(String name) {
+        if (ratingByName == null || !ratingByName.containsKey(name)) {
+            return null;
+        }
+        return FavoriteThing.of(categoryName, name, ratingByName.get(name, 0));
+    }
+
+    /**
+     * @return Only the retained top-K {@link FavoriteThing}s, from the highest to the lowest rating.
+     */
+    @Override
+    public Iterable<FavoriteThing> getOrderedByRating() {
+        return Collections.unmodifiableList(getTopRated(topK));
+    }
+
+    /**
+     * @throws UnsupportedOperationException when iterating from the lowest rating, as the lowest rated favorite things
+     *                                       aren't retained.
+     */
+    @Override
+    public Iterator<FavoriteThing> iterateByRating(int from, boolean lowestFirst) {
+        if (lowestFirst) {
+            throw new UnsupportedOperationException("The lowest rated favorite things aren't retained on a streaming " +
+                    "Category.");
+        }
+        List<FavoriteThing> retained = getTopRated(topK);
+        return retained.subList(Math.min(Math.max(from, 0), retained.size()), retained.size()).iterator();
+    }
+
+    /**
+     * @return Up to <code>count</code> of the retained top-K {@link FavoriteThing}s.
+     */
+    @Override
+    public List<FavoriteThing> getTopRated(int count) {
+        List<RankedThing> rankedThings = new ArrayList<>(topRated);
+        rankedThings.sort(RankedThing.LOWEST_FIRST.reversed());
+        List<FavoriteThing> favoriteThings = new ArrayList<>(Math.min(Math.max(count, 0), rankedThings.size()));
+        for (RankedThing rankedThing : rankedThings) {
+            if (favoriteThings.size() >= count) {
+                break;
+            }
+            favoriteThings.add(rankedThing.toFavoriteThing(categoryName));
+        }
+        return favoriteThings;
+    }
+
+    /**
+     * @throws UnsupportedOperationException always, as the ratings of the favorite things aren't all retained.
+     */
+    @Override
+    public int getRank(String name) {
+        throw new UnsupportedOperationException("Favorite things can't be ranked on a streaming Category.");
+    }
+
+    /**
+     * @throws UnsupportedOperationException for a rank beyond the retained top-K favorite things.
+     */
+    @Override
+    public FavoriteThing getByRank(int rank) {
+        if (rank > topK && rank <= size) {
+            throw new UnsupportedOperationException(String.format("Only the %d highest rated favorite things are " +
+                    "retained on a streaming Category.", topK));
+        }
+        List<FavoriteThing> retained = getTopRated(rank);
+        return rank < 1 || rank > retained.size() ? null : retained.get(rank - 1);
+    }
+
+    /**
+     * @throws UnsupportedOperationException always, as the ratings of the favorite things aren't all retained.
+     */
+    @Override
+    public int countByRating(int minRating, int maxRating) {
+        throw new UnsupportedOperationException("Favorite things can't be counted by rating on a streaming Category.");
+    }
+
+    /**
+     * @throws UnsupportedOperationException always, as the ratings of the favorite things aren't all retained.
+     */
+    @Override
+    public long sumByRating(int minRating, int maxRating) {
+        throw new UnsupportedOperationException("Ratings can't be summed by range on a streaming Category.");
+    }
+
+    @Override
+    public FavoriteThing getHighestRating() {
+        return highestRated == null ? null : highestRated.toFavoriteThing(categoryName);
+    }
+
+    @Override
+    public int getTotalScore() {
+        return totalScore;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    private static final class RankedThing {
+
+        /**
+         * Lower ratings first and, among equal ratings, the last added first.
+         */
+        private static final Comparator<RankedThing> LOWEST_FIRST = Comparator
+                .comparingInt((RankedThing rankedThing) -> rankedThing.rating)
+                .thenComparing(Comparator.comparingLong((RankedThing rankedThing) -> rankedThing.sequence).reversed());
+
+        private final String name;
+        private final int rating;
+        private final long sequence;
+
+        private RankedThing(String name, int rating, long sequence) {
+            this.name = name;
+            this.rating = rating;
+            this.sequence = sequence;
+        }
+
+        private FavoriteThing toFavoriteThing(String categoryName) {
+            return FavoriteThing.of(categoryName, name, rating);
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.germer.starit.model;
+
+/**
+ * A compact, open-addressing (linear probing) map from String keys to primitive int values, taking two array slots
+ * per entry instead of the entry, node and boxed value objects of a {@link java.util.HashMap}.
+ */
+final class StringIntMap {
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    private String[] keys = new String[INITIAL_CAPACITY];
+    private int[] values = new int[INITIAL_CAPACITY];
+    private int size;
+
+    /**
+     * @return The value mapped to the key, or the given default value in case there's none.
+     */
+    int get(String key, int defaultValue) {
+        int slot = slotOf(key);
+        return keys[slot] == null ? defaultValue : values[slot];
+    }
+
+    boolean containsKey(String key) {
+        return keys[slotOf(key)] != null;
+    }
+
+    /**
+     * @return <code>false</code>, leaving the map untouched, in case the key is already mapped.
+     */
+    boolean putIfAbsent(String key, int value) {
+        int slot = slotOf(key);
+        if (keys[slot] != null) {
+            return false;
+        }
+
+        keys[slot] = key;
+        values[slot] = value;
+        if (++size > keys.length * 3 / 4) {
+            resize(keys.length * 2);
+        }
+        return true;
+    }
+
+    /**
+     * @return <code>false</code> in case the key wasn't mapped.
+     */
+    boolean remove(String key) {
+        int slot = slotOf(key);
+        if (keys[slot] == null) {
+            return false;
+        }
+
+        // Backward-shift deletion, so that no tombstones are needed to keep the probe sequences unbroken.
+        int mask = keys.length - 1;
+        int hole = slot;
+        for (int next = (hole + 1) & mask; keys[next] != null; next = (next + 1) & mask) {
+            int home = spread(keys[next].hashCode()) & mask;
+            if (((next - home) & mask) >= ((next - hole) & mask)) {
+                keys[hole] = keys[next];
+                values[hole] = values[next];
+                hole = next;
+            }
+        }
+        keys[hole] = null;
+        size--;
+        return true;
+    }
+
+    int size() {
+        return size;
+    }
+
+    private int slotOf(String key) {
+        int mask = keys.length - 1;
+        int slot = spread(key.hashCode()) & mask;
+        String existingKey;
+        while ((existingKey = keys[slot]) != null && !existingKey.equals(key)) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void resize(int capacity) {
+        String[] oldKeys = keys;
+        int[] oldValues = values;
+        keys = new String[capacity];
+        values = new int[capacity];
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != null) {
+                int slot = slotOf(oldKeys[i]);
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+
+    private static int spread(int hash) {
+        return (hash ^ (hash >>> 16)) * 0x9E3779B9;
+    }
+}
@@ -0,0 +1,223 @@
+package com.germer.starit.offheap;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Hands out fixed-size segments of memory outside of the Java heap to {@link OffHeapRegion}s, so that the data they
+ * hold is never traced nor copied by the garbage collector, which only sees one small buffer object per segment.
+ * The segments are either direct buffers, bounded by <code>-XX:MaxDirectMemorySize</code> (by default as much as the
+ * heap), or mapped from a scratch file, in which case the data can outgrow the heap and even the physical memory,
+ * the operating system paging it in and out of its page cache.
+ * <p>
+ * Regions start with a block of a segment, a power of two from {@value MIN_BLOCK_SIZE} bytes to half a segment, which
+ * they replace with a twice larger block as they grow, and then with whole segments, so that many small regions share
+ * the same segments. The blocks are cut from a shared segment one after the other, and what's left of it once a block
+ * doesn't fit anymore is split into smaller blocks for the next requests.
+ * <p>
+ * The segments and blocks released by a region are kept for the next ones instead of being given back, and are
+ * cleared before being handed out again. The memory is freed once the buffers of the segments are garbage collected, as direct and
+ * mapped buffers can't be freed explicitly, so closing the arena only closes and deletes its scratch file, the
+ * mappings staying valid while they are in use. Segments can be allocated by several threads at once.
+ */
+public final class OffHeapArena implements Closeable {
+
+    public static final int DEFAULT_DIRECT_SEGMENT_SIZE = 1 << 20;
+    /**
+     * Larger, so that the amount of mappings stays far below the limit of the operating system per process (65530 by
+     * default on Linux) even for files of hundreds of gigabytes.
+     */
+    public static final int DEFAULT_MAPPED_SEGMENT_SIZE = 1 << 26;
+    private static final int MIN_SEGMENT_SIZE = 1 << 6;
+    /**
+     * A multiple of the size of a long, so that the blocks cut from a segment one after the other stay aligned.
+     */
+    static final int MIN_BLOCK_SIZE = 1 << 6;
+
+    private final int segmentSize;
+    private final FileChannel spillChannel;
+    private final Deque<ByteBuffer> releasedSegments = new ArrayDeque<>();
+    /**
+     * The released blocks, by the power of two of their size over {@value MIN_BLOCK_SIZE}.
+     */
+    private final List<Deque<ByteBuffer>> releasedBlocks = new ArrayList<>();
+    private ByteBuffer blockSegment;
+    private int blockSegmentEnd;
+    private long spillFileSize;
+    private long allocatedBytes;
+
+    private OffHeapArena(int segmentSize, FileChannel spillChannel) {
+        if (segmentSize < MIN_SEGMENT_SIZE || Integer.bitCount(segmentSize) != 1) {
+            throw new IllegalArgumentException(String.format("Invalid segment size %d, it must be a power of two " +
+                    "of at least %d bytes.", segmentSize, MIN_SEGMENT_SIZE));
+        }
+        this.segmentSize = segmentSize;
+        this.spillChannel = spillChannel;
+        for (int blockSize = MIN_BLOCK_SIZE; blockSize <= getMaxBlockSize(); blockSize <<= 1) {
+            releasedBlocks.add(new ArrayDeque<>());
+        }
+    }
+
+    /**
+     * @return An arena of direct buffers of {@value DEFAULT_DIRECT_SEGMENT_SIZE} bytes.
+     */
+    public static OffHeapArena direct() {
+        return direct(DEFAULT_DIRECT_SEGMENT_SIZE);
+    }
+
+    /**
+     * @param segmentSize The size of the segments, a power of two.
+     */
+    public static OffHeapArena direct(int segmentSize) {
+        return new OffHeapArena(segmentSize, null);
+    }
+
+    /**
+     * @param spillDirectory The directory of the scratch file, which should be on a local disk.
+     * @return An arena of segments of {@value DEFAULT_MAPPED_SEGMENT_SIZE} bytes mapped from a new scratch file.
+     */
+    public static OffHeapArena mapped(Path spillDirectory) throws IOException {
+        return mapped(spillDirectory, DEFAULT_MAPPED_SEGMENT_SIZE);
+    }
+
+    /**
+     * The scratch file is deleted as soon as it's open where the file system allows it, so that it can't outlive the
+     * process, and on exit otherwise.
+     *
+     * @param segmentSize The size of the segments, a power of two.
+     */
+    public static OffHeapArena mapped(Path spillDirectory, int segmentSize) throws IOException {
+        Path spillFile = Files.createTempFile(spillDirectory, "favorite-things", ".offheap");
+        FileChannel spillChannel = FileChannel.open(spillFile, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            Files.delete(spillFile);
+        } catch (IOException e) {
+            spillFile.toFile().deleteOnExit();
+        }
+        return new OffHeapArena(segmentSize, spillChannel);
+    }
+
+    public int getSegmentSize() {
+        return segmentSize;
+    }
+
+    /**
+     * @return The size of the largest blocks, half a segment, smaller than {@value MIN_BLOCK_SIZE} bytes in case the
+     * segments are too small to be shared.
+     */
+    public int getMaxBlockSize() {
+        return segmentSize / 2;
+    }
+
+    public boolean isMapped() {
+        return spillChannel != null;
+    }
+
+    /**
+     * @return The amount of bytes of all the segments handed out so far, released ones included.
+     */
+    public synchronized long getAllocatedBytes() {
+        return allocatedBytes;
+    }
+
+    public OffHeapRegion newRegion() {
+        return new OffHeapRegion(this);
+    }
+
+    /**
+     * @return A zeroed segment in native byte order.
+     */
+    synchronized ByteBuffer allocateSegment() {
+        ByteBuffer segment = releasedSegments.poll();
+        if (segment != null) {
+            clear(segment);
+            return segment;
+        }
+
+        if (spillChannel == null) {
+            segment = ByteBuffer.allocateDirect(segmentSize);
+        } else {
+            try {
+                // Mapped past its end, the file grows sparsely, its new bytes reading as zeros.
+                segment = spillChannel.map(FileChannel.MapMode.READ_WRITE, spillFileSize, segmentSize);
+                spillFileSize += segmentSize;
+            } catch (IOException e) {
+                throw new UncheckedIOException("Couldn't extend the off-heap scratch file.", e);
+            }
+        }
+        allocatedBytes += segmentSize;
+        return segment.order(ByteOrder.nativeOrder());
+    }
+
+    synchronized void releaseSegment(ByteBuffer segment) {
+        releasedSegments.push(segment);
+    }
+
+    /**
+     * @param size The size of the block, a power of two from {@value MIN_BLOCK_SIZE} bytes to the maximum block size.
+     * @return A zeroed block in native byte order, sharing a segment with other blocks.
+     */
+    synchronized ByteBuffer allocateBlock(int size) {
+        ByteBuffer block = releasedBlocks.get(blockIndex(size)).poll();
+        if (block != null) {
+            clear(block);
+            return block;
+        }
+
+        if (blockSegment == null || blockSegmentEnd + size > segmentSize) {
+            if (blockSegment != null) {
+                for (int rest = segmentSize - blockSegmentEnd; rest >= MIN_BLOCK_SIZE; ) {
+                    int restBlockSize = Integer.highestOneBit(Math.min(rest, getMaxBlockSize()));
+                    releasedBlocks.get(blockIndex(restBlockSize)).push(cutBlock(restBlockSize));
+                    rest -= restBlockSize;
+                }
+            }
+            blockSegment = allocateSegment();
+            blockSegmentEnd = 0;
+        }
+        return cutBlock(size);
+    }
+
+    synchronized void releaseBlock(ByteBuffer block) {
+        releasedBlocks.get(blockIndex(block.capacity())).push(block);
+    }
+
+    private ByteBuffer cutBlock(int size) {
+        ByteBuffer block = blockSegment.duplicate();
+        block.position(blockSegmentEnd);
+        block.limit(blockSegmentEnd + size);
+        blockSegmentEnd += size;
+        return block.slice().order(ByteOrder.nativeOrder());
+    }
+
+    private static int blockIndex(int size) {
+        return Integer.numberOfTrailingZeros(size) - Integer.numberOfTrailingZeros(MIN_BLOCK_SIZE);
+    }
+
+    private static void clear(ByteBuffer segment) {
+        for (int index = 0; index < segment.capacity(); index += Long.BYTES) {
+            segment.putLong(index, 0);
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        releasedSegments.clear();
+        releasedBlocks.forEach(Deque::clear);
+        blockSegment = null;
+        if (spillChannel != null) {
+            spillChannel.close();
+        }
+    }
+}
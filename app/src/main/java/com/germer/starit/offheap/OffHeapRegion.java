@@ -0,0 +1,140 @@
+package com.germer.starit.offheap;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * A growable span of off-heap memory, addressed by long offsets and made of the segments of an
+ * {@link OffHeapArena}. Ints and longs must be aligned to their size, and any other span of bytes must fit within a
+ * segment, so that no value ever straddles two segments. New bytes read as zeros.
+ * <p>
+ * As long as it holds no more than the maximum block size of the arena, the region is made of a single block shared
+ * with other regions instead, which is copied to a twice larger one as the region grows, so that small regions don't
+ * take a whole segment each.
+ * <p>
+ * Reads are absolute and can be done by several threads at once, as long as no thread writes nor grows the region.
+ */
+public final class OffHeapRegion {
+
+    private final OffHeapArena arena;
+    private final int segmentShift;
+    private final int segmentMask;
+    private ByteBuffer[] segments = new ByteBuffer[4];
+    private int segmentCount;
+    /**
+     * The size of the block which is the only segment of the region, or 0 once it's made of whole segments.
+     */
+    private int blockSize;
+
+    OffHeapRegion(OffHeapArena arena) {
+        this.arena = arena;
+        this.segmentShift = Integer.numberOfTrailingZeros(arena.getSegmentSize());
+        this.segmentMask = arena.getSegmentSize() - 1;
+    }
+
+    public int getSegmentSize() {
+        return segmentMask + 1;
+    }
+
+    public long getCapacity() {
+        return blockSize > 0 ? blockSize : (long) segmentCount << segmentShift;
+    }
+
+    /**
+     * Moves the region to a larger block, or adds segments, until it holds at least the given amount of bytes.
+     */
+    public void ensureCapacity(long capacity) {
+        if (getCapacity() >= capacity) {
+            return;
+        }
+        if (capacity <= arena.getMaxBlockSize() && segmentCount == 0 || blockSize > 0) {
+            long newBlockSize = Math.max(OffHeapArena.MIN_BLOCK_SIZE, Long.highestOneBit(capacity - 1) << 1);
+            ByteBuffer newSegment = newBlockSize <= arena.getMaxBlockSize()
+                    ? arena.allocateBlock((int) newBlockSize) : arena.allocateSegment();
+            if (blockSize > 0) {
+                ByteBuffer block = segments[0];
+                for (int index = 0; index < blockSize; index += Long.BYTES) {
+                    newSegment.putLong(index, block.getLong(index));
+                }
+                arena.releaseBlock(block);
+            }
+            segments[0] = newSegment;
+            segmentCount = 1;
+            blockSize = newBlockSize <= arena.getMaxBlockSize() ? (int) newBlockSize : 0;
+        }
+        while (getCapacity() < capacity) {
+            if (segmentCount == segments.length) {
+                segments = Arrays.copyOf(segments, segmentCount * 2);
+            }
+            segments[segmentCount++] = arena.allocateSegment();
+        }
+    }
+
+    /**
+     * Gives all the segments back to the arena, leaving the region empty.
+     */
+    public void release() {
+        for (int segment = 0; segment < segmentCount; segment++) {
+            if (blockSize > 0) {
+                arena.releaseBlock(segments[segment]);
+            } else {
+                arena.releaseSegment(segments[segment]);
+            }
+            segments[segment] = null;
+        }
+        segmentCount = 0;
+        blockSize = 0;
+    }
+
+    public byte getByte(long address) {
+        return segment(address).get(offset(address));
+    }
+
+    public int getInt(long address) {
+        return segment(address).getInt(offset(address));
+    }
+
+    public void putInt(long address, int value) {
+        segment(address).putInt(offset(address), value);
+    }
+
+    public long getLong(long address) {
+        return segment(address).getLong(offset(address));
+    }
+
+    public void putLong(long address, long value) {
+        segment(address).putLong(offset(address), value);
+    }
+
+    /**
+     * @param length The amount of bytes to read, which must all be within the segment of the address.
+     */
+    public byte[] getBytes(long address, int length) {
+        ByteBuffer segment = segment(address);
+        int offset = offset(address);
+        byte[] bytes = new byte[length];
+        for (int index = 0; index < length; index++) {
+            bytes[index] = segment.get(offset + index);
+        }
+        return bytes;
+    }
+
+    /**
+     * @param bytes The bytes to write, which must all fit within the segment of the address.
+     */
+    public void putBytes(long address, byte[] bytes) {
+        ByteBuffer segment = segment(address);
+        int offset = offset(address);
+        for (int index = 0; index < bytes.length; index++) {
+            segment.put(offset + index, bytes[index]);
+        }
+    }
+
+    private ByteBuffer segment(long address) {
+        return segments[(int) (address >>> segmentShift)];
+    }
+
+    private int offset(long address) {
+        return (int) address & segmentMask;
+    }
+}
@@ -0,0 +1,199 @@
+package com.germer.starit.parser;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * Tokenizer for UTF-8 encoded Favorite-Things contents, working straight on the bytes of a (usually memory-mapped)
+ * {@link ByteBuffer}. It makes a single pass over each line looking for the line terminators and the ':' and ','
+ * delimiters, which can't be part of any multi-byte UTF-8 sequence, and reads the ratings straight into an int. The
+ * delimiters are searched through {@link DelimiterSearch}, several bytes at a time on recent JVMs.
+ * Favorite thing names are pooled, so a {@link String} is only created the first time a name appears, while category
+ * names are looked up straight from the bytes on a {@link CategoryTable}, only the unknown ones being pooled.
+ * <p>
+ * Lines are terminated by '\n', '\r' or "\r\n" as in {@link java.io.BufferedReader#readLine()}, and the accepted
+ * syntax and reported errors are the same of {@link LineScanner}.
+ */
+final class ByteScanner {
+
+    private static final int STREAM_BUFFER_SIZE = 1 << 20;
+
+    private final FavoriteThingsHandler handler;
+    private final CategoryTable categoryTable;
+    private final NamePool unknownCategoryNames = new NamePool();
+    private final NamePool thingNames = new NamePool();
+    private int lineNumber;
+
+    ByteScanner(FavoriteThingsHandler handler, CategoryTable categoryTable) {
+        this(handler, categoryTable, 0);
+    }
+
+    /**
+     * @param lineNumber The number of lines before the scanned contents, when resuming after them.
+     */
+    ByteScanner(FavoriteThingsHandler handler, CategoryTable categoryTable, int lineNumber) {
+        this.handler = handler;
+        this.categoryTable = categoryTable;
+        this.lineNumber = lineNumber;
+    }
+
+    /**
+     * Scans all the complete lines from the beginning of the buffer up to its limit. In case this isn't the end of
+     * the input, the trailing unterminated line (if any) is left to be scanned with the contents that follow it.
+     *
+     * @param buffer     The bytes to be scanned, from index 0 up to the buffer's limit.
+     * @param endOfInput Whether there are no more contents after this buffer.
+     * @return The amount of bytes consumed from the beginning of the buffer.
+     */
+    int scan(ByteBuffer buffer, boolean endOfInput) {
+        int end = endOfInput ? buffer.limit() : endOfLastLine(buffer);
+
+        int position = 0;
+        while (position < end) {
+            position = scanLine(buffer, position, end);
+            if (position < end) {
+                byte terminator = buffer.get(position++);
+                if (terminator == '\r' && position < end && buffer.get(position) == '\n') {
+                    position++;
+                }
+            }
+        }
+        return end;
+    }
+
+    /**
+     * Scans all the lines of the stream, read in batches through a buffer which grows to hold the longest line.
+     */
+    void scan(InputStream inputStream) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(STREAM_BUFFER_SIZE);
+        int read;
+        while ((read = inputStream.read(buffer.array(), buffer.position(), buffer.remaining())) >= 0) {
+            buffer.position(buffer.position() + read);
+            if (!buffer.hasRemaining()) {
+                buffer.flip();
+                int consumed = scan(buffer, false);
+                if (consumed == 0) {
+                    buffer = ByteBuffer.allocate(buffer.capacity() * 2).put(buffer);
+                } else {
+                    buffer.position(consumed);
+                    buffer.compact();
+                }
+            }
+        }
+        buffer.flip();
+        scan(buffer, true);
+    }
+
+    int getLineNumber() {
+        return lineNumber;
+    }
+
+    /**
+     * @return The index right after the last line terminator of the buffer, making sure a "\r\n" pair is never split,
+     * or 0 in case there's no complete line.
+     */
+    static int endOfLastLine(ByteBuffer buffer) {
+        int i = buffer.limit() - 1;
+        if (i >= 0 && buffer.get(i) == '\r') {
+            i--;
+        }
+        for (; i >= 0; i--) {
+            byte b = buffer.get(i);
+            if (b == '\n' || b == '\r') {
+                return i + 1;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * @return The index of the terminator of the line starting at the given index, or the end index for the last
+     * unterminated line.
+     */
+    private int scanLine(ByteBuffer buffer, int start, int end) {
+        lineNumber++;
+
+        int colon = DelimiterSearch.indexOfColonOrLineTerminator(buffer, start, end);
+        if (colon == end || buffer.get(colon) != ':' || colon == start) {
+            handler.onInvalidLine(lineNumber);
+            return skipLine(buffer, colon, end);
+        }
+
+        if (!onCategory(buffer, start, colon)) {
+            return skipLine(buffer, colon, end);
+        }
+
+        return scanItems(buffer, colon + 1, end);
+    }
+
+    private int scanItems(ByteBuffer buffer, int start, int end) {
+        // Empty items are only reported once followed by a non-empty one, as String.split drops the trailing ones.
+        int pendingEmptyItems = 0;
+        boolean hasDelimiter = false;
+
+        int itemStart = start;
+        while (true) {
+            int i = DelimiterSearch.indexOfItemTerminatorOrDigit(buffer, itemStart, end);
+            int nameEnd = i;
+
+            int rating = 0;
+            boolean overflow = false;
+            byte b;
+            while (i < end && LineScanner.isDigit((char) (b = buffer.get(i)))) {
+                int digit = b - '0';
+                overflow |= rating > (Integer.MAX_VALUE - digit) / 10;
+                rating = rating * 10 + digit;
+                i++;
+            }
+            int ratingEnd = i;
+
+            i = DelimiterSearch.indexOfItemTerminator(buffer, i, end);
+            int itemEnd = i;
+
+            if (itemEnd == itemStart) {
+                pendingEmptyItems++;
+            } else {
+                for (; pendingEmptyItems > 0; pendingEmptyItems--) {
+                    handler.onInvalidItem(lineNumber, "");
+                }
+                if (nameEnd == itemStart || ratingEnd == nameEnd || ratingEnd != itemEnd) {
+                    handler.onInvalidItem(lineNumber, thingNames.decode(buffer, itemStart, itemEnd));
+                } else if (overflow) {
+                    throw LineScanner.ratingOverflow(thingNames.decode(buffer, nameEnd, ratingEnd));
+                } else {
+                    handler.onFavoriteThing(lineNumber, thingNames.intern(buffer, itemStart, nameEnd), rating);
+                }
+            }
+
+            if (i < end && buffer.get(i) == ',') {
+                hasDelimiter = true;
+                itemStart = i + 1;
+            } else {
+                if (!hasDelimiter && pendingEmptyItems > 0) {
+                    handler.onInvalidItem(lineNumber, "");
+                }
+                return i;
+            }
+        }
+    }
+
+    /**
+     * Trims the category name and looks it up, a {@link String} being only needed for the unknown ones.
+     */
+    private boolean onCategory(ByteBuffer buffer, int start, int end) {
+        while (start < end && (buffer.get(start) & 0xFF) <= ' ') {
+            start++;
+        }
+        while (end > start && (buffer.get(end - 1) & 0xFF) <= ' ') {
+            end--;
+        }
+        int categoryId = categoryTable.idOf(buffer, start, end);
+        return handler.onCategory(lineNumber, categoryId, categoryId == CategoryTable.UNKNOWN
+                ? unknownCategoryNames.intern(buffer, start, end) : categoryTable.nameOf(categoryId));
+    }
+
+    private static int skipLine(ByteBuffer buffer, int position, int end) {
+        return DelimiterSearch.indexOfLineTerminator(buffer, position, end);
+    }
+}
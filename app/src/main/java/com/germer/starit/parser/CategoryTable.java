@@ -0,0 +1,386 @@
+package com.germer.starit.parser;
+
+import java.nio.ByteBuffer;
+import java.util.*;
+
+/**
+ * An immutable table of the valid category names, which tells the id of a category straight from the UTF-8 bytes or
+ * the chars of a line, without creating any {@link String}. The ids go from 0 to {@link #size()} - 1, so that the
+ * categories found can be kept on an array indexed by them rather than looked up by name on every line.
+ * <p>
+ * The table is a minimal perfect hash: the names are hashed into as many buckets as names, and the names of every
+ * bucket are placed into distinct slots of a table of the same size by the displacement found for the bucket, or
+ * straight into a free slot for the buckets of a single name. A lookup hashes the name once, reads the displacement
+ * of its bucket and compares the name to the single candidate of its slot, whatever the amount of names.
+ * <p>
+ * Names can also be matched ignoring case, code point by code point as {@link String#equalsIgnoreCase(String)} does
+ * char by char, folding them while they are hashed and compared instead of making lowercased copies. Malformed UTF-8
+ * bytes never match any name.
+ */
+public final class CategoryTable {
+
+    public static final int UNKNOWN = -1;
+
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+    private static final long GOLDEN_RATIO = 0x9e3779b97f4a7c15L;
+    private static final int MAX_DISPLACEMENT = 1 << 20;
+    private static final int MAX_SEEDS = 16;
+    private static final int MALFORMED = -1;
+
+    private final String[] names;
+    private final int[] displacements;
+    private final long seed;
+    private final boolean ignoreCase;
+    private final Set<String> nameSet;
+
+    private CategoryTable(String[] names, int[] displacements, long seed, boolean ignoreCase, Set<String> nameSet) {
+        this.names = names;
+        this.displacements = displacements;
+        this.seed = seed;
+        this.ignoreCase = ignoreCase;
+        this.nameSet = nameSet;
+    }
+
+    /**
+     * @param names      The valid category names.
+     * @param ignoreCase Whether the names should be matched ignoring case, each match giving the name as it was given
+     *                   here.
+     * @throws IllegalArgumentException in case two names are the same ignoring case, while ignoring it.
+     */
+    public static CategoryTable of(Collection<String> names, boolean ignoreCase) {
+        List<String> distinctNames = new ArrayList<>(new LinkedHashSet<>(names));
+        if (ignoreCase) {
+            Map<String, String> nameByFoldedName = new HashMap<>();
+            for (String name : distinctNames) {
+                String otherName = nameByFoldedName.putIfAbsent(fold(name), name);
+                if (otherName != null) {
+                    throw new IllegalArgumentException(String.format("The categories '%s' and '%s' can't be told " +
+                            "apart ignoring case.", otherName, name));
+                }
+            }
+        }
+
+        Set<String> nameSet = Collections.unmodifiableSet(new HashSet<>(distinctNames));
+        long seed = FNV_OFFSET_BASIS;
+        for (int attempt = 0; attempt < MAX_SEEDS; attempt++, seed += GOLDEN_RATIO) {
+            CategoryTable table = build(distinctNames, seed, ignoreCase, nameSet);
+            if (table != null) {
+                return table;
+            }
+        }
+        throw new IllegalStateException(String.format("Failed to build the table of the %d categories.",
+                distinctNames.size()));
+    }
+
+    /**
+     * @return The id of the category named by the UTF-8 bytes of the buffer between start (inclusive) and end
+     * (exclusive), or {@value UNKNOWN} in case it's not a valid one.
+     */
+    public int idOf(ByteBuffer buffer, int start, int end) {
+        if (names.length == 0) {
+            return UNKNOWN;
+        }
+        long hash = seed;
+        for (int i = start; i < end; ) {
+            byte b = buffer.get(i);
+            if (b >= 0) {
+                hash = mix(hash, foldAscii(b));
+                i++;
+            } else {
+                int decoded = decode(buffer, i, end);
+                if (decoded == MALFORMED) {
+                    return UNKNOWN;
+                }
+                hash = mix(hash, fold(decoded & 0xFFFFFF));
+                i += decoded >>> 24;
+            }
+        }
+
+        int id = candidateOf(finish(hash));
+        return id != UNKNOWN && matches(names[id], buffer, start, end) ? id : UNKNOWN;
+    }
+
+    /**
+     * @return The id of the category named by the chars of the sequence between start (inclusive) and end
+     * (exclusive), or {@value UNKNOWN} in case it's not a valid one.
+     */
+    public int idOf(CharSequence chars, int start, int end) {
+        if (names.length == 0) {
+            return UNKNOWN;
+        }
+        long hash = seed;
+        for (int i = start; i < end; ) {
+            int codePoint = codePointAt(chars, i, end);
+            hash = mix(hash, fold(codePoint));
+            i += Character.charCount(codePoint);
+        }
+
+        int id = candidateOf(finish(hash));
+        return id != UNKNOWN && matches(names[id], chars, start, end) ? id : UNKNOWN;
+    }
+
+    public int idOf(String name) {
+        return idOf(name, 0, name.length());
+    }
+
+    /**
+     * @param id An id between 0 and {@link #size()} - 1.
+     * @return The name of the category as it was given to the table.
+     */
+    public String nameOf(int id) {
+        return names[id];
+    }
+
+    public int size() {
+        return names.length;
+    }
+
+    public boolean isIgnoreCase() {
+        return ignoreCase;
+    }
+
+    /**
+     * @return The names of the categories as they were given to the table.
+     */
+    public Set<String> getNames() {
+        return nameSet;
+    }
+
+    /**
+     * @return The only id the given hash may be of, or {@value UNKNOWN} in case its bucket is empty.
+     */
+    private int candidateOf(long hash) {
+        int displacement = displacements[bucketOf(hash, names.length)];
+        if (displacement == 0) {
+            return UNKNOWN;
+        }
+        return displacement < 0 ? -displacement - 1 : slotOf(hash, displacement, names.length);
+    }
+
+    /**
+     * Places the names of the largest buckets first, while most slots are still free, trying the displacements of
+     * each bucket in order until its names land on distinct free slots.
+     *
+     * @return The table, or null in case a bucket couldn't be placed with the given seed.
+     */
+    private static CategoryTable build(List<String> distinctNames, long seed, boolean ignoreCase,
+                                       Set<String> nameSet) {
+        int size = distinctNames.size();
+        long[] hashes = new long[size];
+        int[] bucketStarts = new int[size + 1];
+        for (int i = 0; i < size; i++) {
+            hashes[i] = hash(distinctNames.get(i), seed, ignoreCase);
+            bucketStarts[bucketOf(hashes[i], size) + 1]++;
+        }
+        for (int bucket = 0; bucket < size; bucket++) {
+            bucketStarts[bucket + 1] += bucketStarts[bucket];
+        }
+        int[] namesByBucket = new int[size];
+        int[] filled = Arrays.copyOf(bucketStarts, size);
+        for (int i = 0; i < size; i++) {
+            namesByBucket[filled[bucketOf(hashes[i], size)]++] = i;
+        }
+
+        Integer[] bucketsBySize = new Integer[size];
+        for (int bucket = 0; bucket < size; bucket++) {
+            bucketsBySize[bucket] = bucket;
+        }
+        Arrays.sort(bucketsBySize, Comparator.comparingInt((Integer bucket) ->
+                bucketStarts[bucket + 1] - bucketStarts[bucket]).reversed());
+
+        String[] names = new String[size];
+        int[] displacements = new int[size];
+        int[] slots = new int[size];
+        int nextFreeSlot = 0;
+        for (int bucket : bucketsBySize) {
+            int start = bucketStarts[bucket];
+            int end = bucketStarts[bucket + 1];
+            if (end - start == 1) {
+                while (names[nextFreeSlot] != null) {
+                    nextFreeSlot++;
+                }
+                names[nextFreeSlot] = distinctNames.get(namesByBucket[start]);
+                displacements[bucket] = -nextFreeSlot - 1;
+            } else if (end - start > 1) {
+                int displacement = placeBucket(hashes, namesByBucket, start, end, names, slots);
+                if (displacement == 0) {
+                    return null;
+                }
+                for (int i = start; i < end; i++) {
+                    names[slots[i - start]] = distinctNames.get(namesByBucket[i]);
+                }
+                displacements[bucket] = displacement;
+            }
+        }
+        return new CategoryTable(names, displacements, seed, ignoreCase, nameSet);
+    }
+
+    /**
+     * @return The first displacement placing all the names of the bucket on distinct free slots, which are left on
+     * the given slots array, or 0 in case there's none.
+     */
+    private static int placeBucket(long[] hashes, int[] namesByBucket, int start, int end, String[] names,
+                                   int[] slots) {
+        for (int displacement = 1; displacement < MAX_DISPLACEMENT; displacement++) {
+            boolean placed = true;
+            for (int i = start; i < end && placed; i++) {
+                int slot = slotOf(hashes[namesByBucket[i]], displacement, names.length);
+                placed = names[slot] == null;
+                for (int j = 0; j < i - start && placed; j++) {
+                    placed = slots[j] != slot;
+                }
+                slots[i - start] = slot;
+            }
+            if (placed) {
+                return displacement;
+            }
+        }
+        return 0;
+    }
+
+    private static int bucketOf(long hash, int size) {
+        return (int) ((hash >>> 1) % size);
+    }
+
+    private static int slotOf(long hash, int displacement, int size) {
+        return (int) ((finish(hash ^ displacement * GOLDEN_RATIO) >>> 1) % size);
+    }
+
+    private static long hash(String name, long seed, boolean ignoreCase) {
+        long hash = seed;
+        for (int i = 0; i < name.length(); ) {
+            int codePoint = name.codePointAt(i);
+            hash = mix(hash, ignoreCase ? foldCase(codePoint) : codePoint);
+            i += Character.charCount(codePoint);
+        }
+        return finish(hash);
+    }
+
+    private static long mix(long hash, int codePoint) {
+        return (hash ^ codePoint) * FNV_PRIME;
+    }
+
+    /**
+     * The finalizer of MurmurHash3, so that the low bits of the hash depend on all of its bits.
+     */
+    private static long finish(long hash) {
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+
+    private boolean matches(String name, ByteBuffer buffer, int start, int end) {
+        int index = 0;
+        for (int i = start; i < end; ) {
+            byte b = buffer.get(i);
+            int codePoint;
+            if (b >= 0) {
+                codePoint = b;
+                i++;
+            } else {
+                int decoded = decode(buffer, i, end);
+                codePoint = decoded & 0xFFFFFF;
+                i += decoded >>> 24;
+            }
+            if (index >= name.length() || !same(name.codePointAt(index), codePoint)) {
+                return false;
+            }
+            index += Character.charCount(name.codePointAt(index));
+        }
+        return index == name.length();
+    }
+
+    private boolean matches(String name, CharSequence chars, int start, int end) {
+        int index = 0;
+        for (int i = start; i < end; ) {
+            int codePoint = codePointAt(chars, i, end);
+            if (index >= name.length() || !same(name.codePointAt(index), codePoint)) {
+                return false;
+            }
+            index += Character.charCount(name.codePointAt(index));
+            i += Character.charCount(codePoint);
+        }
+        return index == name.length();
+    }
+
+    private boolean same(int codePoint, int otherCodePoint) {
+        return codePoint == otherCodePoint || ignoreCase && fold(codePoint) == fold(otherCodePoint);
+    }
+
+    private int foldAscii(byte b) {
+        return ignoreCase && b >= 'A' && b <= 'Z' ? b + ('a' - 'A') : b;
+    }
+
+    private int fold(int codePoint) {
+        return ignoreCase ? foldCase(codePoint) : codePoint;
+    }
+
+    private static int foldCase(int codePoint) {
+        return Character.toLowerCase(Character.toUpperCase(codePoint));
+    }
+
+    private static String fold(String name) {
+        StringBuilder folded = new StringBuilder(name.length());
+        name.codePoints().forEach(codePoint -> folded.appendCodePoint(foldCase(codePoint)));
+        return folded.toString();
+    }
+
+    /**
+     * @return The code point at the given index, a lone surrogate being taken as it is.
+     */
+    private static int codePointAt(CharSequence chars, int index, int end) {
+        char c = chars.charAt(index);
+        if (Character.isHighSurrogate(c) && index + 1 < end && Character.isLowSurrogate(chars.charAt(index + 1))) {
+            return Character.toCodePoint(c, chars.charAt(index + 1));
+        }
+        return c;
+    }
+
+    /**
+     * Decodes the multi-byte UTF-8 sequence starting at the given index, rejecting the overlong ones, the surrogates
+     * and the code points beyond U+10FFFF as {@link java.nio.charset.CharsetDecoder} does.
+     *
+     * @return The code point on the lower 24 bits and the length of the sequence on the upper 8 bits, or
+     * {@value MALFORMED} in case the sequence is malformed.
+     */
+    private static int decode(ByteBuffer buffer, int index, int end) {
+        int lead = buffer.get(index) & 0xFF;
+        int length;
+        int codePoint;
+        int minCodePoint;
+        if ((lead & 0xE0) == 0xC0) {
+            length = 2;
+            codePoint = lead & 0x1F;
+            minCodePoint = 0x80;
+        } else if ((lead & 0xF0) == 0xE0) {
+            length = 3;
+            codePoint = lead & 0x0F;
+            minCodePoint = 0x800;
+        } else if ((lead & 0xF8) == 0xF0) {
+            length = 4;
+            codePoint = lead & 0x07;
+            minCodePoint = 0x10000;
+        } else {
+            return MALFORMED;
+        }
+        if (index + length > end) {
+            return MALFORMED;
+        }
+        for (int i = index + 1; i < index + length; i++) {
+            int continuation = buffer.get(i) & 0xFF;
+            if ((continuation & 0xC0) != 0x80) {
+                return MALFORMED;
+            }
+            codePoint = codePoint << 6 | continuation & 0x3F;
+        }
+        if (codePoint < minCodePoint || codePoint > Character.MAX_CODE_POINT
+                || codePoint >= Character.MIN_SURROGATE && codePoint <= Character.MAX_SURROGATE) {
+            return MALFORMED;
+        }
+        return length << 24 | codePoint;
+    }
+}
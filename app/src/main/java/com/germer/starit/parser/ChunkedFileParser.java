@@ -0,0 +1,409 @@
+package com.germer.starit.parser;
+
+import com.germer.starit.model.Category;
+import com.google.common.io.CountingInputStream;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+
+/**
+ * Parses files in parallel: each file is split into byte ranges aligned on line boundaries and each chunk is
+ * memory-mapped and tokenized on a {@link ForkJoinPool} into its own partial result. The partial results are then
+ * merged category by category, also in parallel, following the chunks order so that the first occurrence of a
+ * favorite thing in the files, taken in the given order, still prevails over its duplicates. Errors are renumbered to
+ * their line numbers within their file and sorted back in file order once all the chunks line counts are known.
+ * <p>
+ * A compressed file can't be split, so it makes a single chunk, decompressed on its own thread while being tokenized.
+ */
+final class ChunkedFileParser {
+
+    private static final long MIN_CHUNK_SIZE = 1 << 20;
+    private static final long MAX_CHUNK_SIZE = 1 << 28;
+    private static final int CHUNKS_PER_THREAD = 4;
+    private static final int ALIGNMENT_BUFFER_SIZE = 1 << 12;
+
+    private final CategoryTable categoryTable;
+    private final Shard shard;
+    private final Function<String, Category> categoryFactory;
+    private final int parallelism;
+
+    ChunkedFileParser(CategoryTable categoryTable, Shard shard, Function<String, Category> categoryFactory,
+                      int parallelism) {
+        this.categoryTable = categoryTable;
+        this.shard = shard;
+        this.categoryFactory = categoryFactory;
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * @return A chunk size giving a few chunks per thread, so that uneven chunks don't leave threads idle.
+     */
+    static long defaultChunkSize(long fileSize, int parallelism) {
+        long chunkSize = fileSize / ((long) parallelism * CHUNKS_PER_THREAD) + 1;
+        return Math.max(MIN_CHUNK_SIZE, Math.min(MAX_CHUNK_SIZE, chunkSize));
+    }
+
+    /**
+     * Parses the file populating the given categories and appending the errors found, in file order.
+     */
+    void parse(Path path, long chunkSize, Map<String, Category> categoryByName, ParsingErrorLog errors,
+               ParsingStatistics statistics) throws IOException {
+        parse(Collections.singletonList(path), null, chunkSize, categoryByName, errors, statistics);
+    }
+
+    /**
+     * Parses the files as if they were a single one made of all of them in the given order, populating the given
+     * categories and appending the errors found, in file order.
+     *
+     * @param sourceNames The names the errors of each file are reported with, or null to report them without one.
+     */
+    void parse(List<Path> paths, List<String> sourceNames, long chunkSize, Map<String, Category> categoryByName,
+               ParsingErrorLog errors, ParsingStatistics statistics) throws IOException {
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            List<Range> ranges = new ArrayList<>();
+            for (int fileIndex = 0; fileIndex < paths.size(); fileIndex++) {
+                ranges.addAll(split(paths.get(fileIndex), fileIndex, chunkSize));
+            }
+
+            List<Future<Chunk>> chunkTasks = new ArrayList<>(ranges.size());
+            for (int i = 0; i < ranges.size(); i++) {
+                int index = i;
+                chunkTasks.add(pool.submit(() -> parseChunk(index, ranges.get(index))));
+            }
+            List<Chunk> chunks = getAll(chunkTasks);
+            for (Chunk chunk : chunks) {
+                statistics.add(chunk.byteCount, chunk.lineCount, chunk.itemCount);
+            }
+
+            merge(chunks, sourceNames, pool, categoryByName, errors);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private Chunk parseChunk(int index, Range range) throws IOException {
+        Chunk chunk = new Chunk(index, range.fileIndex);
+        ByteScanner scanner = new ByteScanner(chunk, categoryTable);
+        if (range.compression != Compression.NONE) {
+            try (CountingInputStream inputStream = new CountingInputStream(
+                    DecompressingInputStream.open(range.path, range.compression, 1))) {
+                scanner.scan(inputStream);
+                chunk.byteCount = inputStream.getCount();
+            }
+            chunk.lineCount = scanner.getLineNumber();
+            return chunk;
+        }
+
+        long length = range.end - range.start;
+        if (length > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException(String.format(
+                    "The line at byte offset %d is longer than the maximum supported length of %d bytes.",
+                    range.start, Integer.MAX_VALUE));
+        }
+
+        MappedByteBuffer buffer;
+        // The mapping stays valid once the channel is closed.
+        try (FileChannel channel = FileChannel.open(range.path, StandardOpenOption.READ)) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, range.start, length);
+        }
+        scanner.scan(buffer, true);
+        chunk.byteCount = length;
+        chunk.lineCount = scanner.getLineNumber();
+        return chunk;
+    }
+
+    private void merge(List<Chunk> chunks, List<String> sourceNames, ForkJoinPool pool,
+                       Map<String, Category> categoryByName, ParsingErrorLog errors) {
+        int[] lineOffsets = new int[chunks.size()];
+        List<OrderedError> orderedErrors = new ArrayList<>();
+        Map<String, List<PartialCategory>> partialsByCategory = new LinkedHashMap<>();
+
+        int lineOffset = 0;
+        int fileIndex = 0;
+        for (Chunk chunk : chunks) {
+            if (chunk.fileIndex != fileIndex) {
+                lineOffset = 0;
+                fileIndex = chunk.fileIndex;
+            }
+            lineOffsets[chunk.index] = lineOffset;
+            lineOffset += chunk.lineCount;
+            orderedErrors.addAll(chunk.errors);
+            for (PartialCategory partial : chunk.categories.values()) {
+                partialsByCategory.computeIfAbsent(partial.name, name -> new ArrayList<>()).add(partial);
+                categoryByName.computeIfAbsent(partial.name, categoryFactory);
+            }
+        }
+
+        List<Future<List<OrderedError>>> mergeTasks = new ArrayList<>(partialsByCategory.size());
+        for (Map.Entry<String, List<PartialCategory>> entry : partialsByCategory.entrySet()) {
+            Category category = categoryByName.get(entry.getKey());
+            Callable<List<OrderedError>> mergeTask = () -> mergeCategory(category, entry.getValue());
+            mergeTasks.add(pool.submit(mergeTask));
+        }
+        getAll(mergeTasks).forEach(orderedErrors::addAll);
+
+        orderedErrors.sort(Comparator.comparingLong(orderedError -> orderedError.order));
+        for (OrderedError orderedError : orderedErrors) {
+            Chunk chunk = chunks.get(orderedError.chunkIndex());
+            errors.add(orderedError.error.withLocation(sourceNames == null ? null : sourceNames.get(chunk.fileIndex),
+                    lineOffsets[chunk.index]));
+        }
+    }
+
+    /**
+     * Adds the favorite things of all partials, which must be sorted in file order, to the category. The duplicates
+     * within a chunk are offered to the category as well, in file order, so that a store which doesn't detect
+     * duplicates counts every mention, as when parsing sequentially.
+     *
+     * @return The errors for the duplicated favorite things, still numbered by their chunk's lines.
+     */
+    private static List<OrderedError> mergeCategory(Category category, List<PartialCategory> partials) {
+        List<OrderedError> duplicatedItemErrors = new ArrayList<>();
+        for (PartialCategory partial : partials) {
+            Iterator<PartialItem> duplicatedItems = partial.duplicatedItems.iterator();
+            PartialItem duplicatedItem = duplicatedItems.hasNext() ? duplicatedItems.next() : null;
+            for (PartialItem item : partial.firstItems.values()) {
+                while (duplicatedItem != null && duplicatedItem.order < item.order) {
+                    addItem(category, duplicatedItem, duplicatedItemErrors);
+                    duplicatedItem = duplicatedItems.hasNext() ? duplicatedItems.next() : null;
+                }
+                addItem(category, item, duplicatedItemErrors);
+            }
+            while (duplicatedItem != null) {
+                addItem(category, duplicatedItem, duplicatedItemErrors);
+                duplicatedItem = duplicatedItems.hasNext() ? duplicatedItems.next() : null;
+            }
+        }
+        return duplicatedItemErrors;
+    }
+
+    /**
+     * The previous score of a duplicate within the chunk may come from an earlier chunk.
+     */
+    private static void addItem(Category category, PartialItem item, List<OrderedError> duplicatedItemErrors) {
+        if (!category.addFavoriteThingIfAbsent(item.name, item.rating)) {
+            duplicatedItemErrors.add(item.toDuplicatedItemError(category));
+        }
+    }
+
+    /**
+     * @return The byte ranges of the chunks of the file, each one starting at the beginning of a line, or the whole
+     * file in case it's compressed.
+     */
+    private static List<Range> split(Path path, int fileIndex, long chunkSize) throws IOException {
+        Compression compression = Compression.of(path);
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (compression != Compression.NONE) {
+                return Collections.singletonList(new Range(path, compression, fileIndex, 0, size));
+            }
+            List<Range> ranges = new ArrayList<>();
+            long start = 0;
+            while (start < size) {
+                long end = size - start <= chunkSize ? size : alignToLineStart(channel, start + chunkSize, size);
+                ranges.add(new Range(path, Compression.NONE, fileIndex, start, end));
+                start = end;
+            }
+            return ranges;
+        }
+    }
+
+    /**
+     * @return The first position at or after the given one (which must be greater than 0) where a line starts, in
+     * the same terms of {@link ByteScanner}: after a '\n', or after a '\r' not followed by a '\n'.
+     */
+    private static long alignToLineStart(FileChannel channel, long position, long size) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(ALIGNMENT_BUFFER_SIZE);
+        long offset = position - 1;
+        while (offset < size) {
+            buffer.clear();
+            int read = channel.read(buffer, offset);
+            for (int i = 0; i < read; i++) {
+                byte b = buffer.get(i);
+                if (b == '\n') {
+                    return offset + i + 1;
+                }
+                if (b == '\r') {
+                    boolean followedByLineFeed = i + 1 < read
+                            ? buffer.get(i + 1) == '\n'
+                            : byteAt(channel, offset + i + 1, size) == '\n';
+                    return offset + i + (followedByLineFeed ? 2 : 1);
+                }
+            }
+            offset += Math.max(read, 1);
+        }
+        return size;
+    }
+
+    private static byte byteAt(FileChannel channel, long position, long size) throws IOException {
+        if (position >= size) {
+            return 0;
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(1);
+        channel.read(buffer, position);
+        return buffer.get(0);
+    }
+
+    private static <T> List<T> getAll(List<Future<T>> futures) {
+        List<T> results = new ArrayList<>(futures.size());
+        try {
+            for (Future<T> future : futures) {
+                results.add(future.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while parsing the favorite things source.", e);
+        } catch (ExecutionException e) {
+            // Keeps the very same failures of the sequential parsing, such as ratings overflowing an int.
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException("Failed to parse a chunk of the favorite things source.", e.getCause());
+        }
+        return results;
+    }
+
+    /**
+     * The tokens found within one chunk. Every item and error is given an order, made of the chunk index followed by
+     * a sequence number within the chunk, so that errors found while merging can be sorted back in file order.
+     */
+    private final class Chunk implements FavoriteThingsHandler {
+
+        private final int index;
+        private final int fileIndex;
+        private final Map<String, PartialCategory> categories = new LinkedHashMap<>();
+        private final PartialCategory[] categoryById = new PartialCategory[categoryTable.size()];
+        private final List<OrderedError> errors = new ArrayList<>();
+        private long byteCount;
+        private int lineCount;
+        private long itemCount;
+        private int sequence;
+        private PartialCategory category;
+
+        private Chunk(int index, int fileIndex) {
+            this.index = index;
+            this.fileIndex = fileIndex;
+        }
+
+        @Override
+        public boolean onCategory(int lineNumber, int categoryId, String categoryName) {
+            if (!shard.owns(categoryName)) {
+                return false;
+            }
+            if (categoryId != CategoryTable.UNKNOWN) {
+                category = categoryById[categoryId];
+                if (category == null) {
+                    category = new PartialCategory(categoryName);
+                    categoryById[categoryId] = category;
+                    categories.put(categoryName, category);
+                }
+                return true;
+            }
+
+            errors.add(new OrderedError(nextOrder(), ParsingError.unknownCategory(lineNumber, categoryName)));
+            return false;
+        }
+
+        @Override
+        public void onFavoriteThing(int lineNumber, String name, int rating) {
+            itemCount++;
+            PartialItem item = new PartialItem(nextOrder(), lineNumber, name, rating);
+            if (category.firstItems.putIfAbsent(name, item) != null) {
+                category.duplicatedItems.add(item);
+            }
+        }
+
+        @Override
+        public void onInvalidItem(int lineNumber, String item) {
+            itemCount++;
+            errors.add(new OrderedError(nextOrder(), ParsingError.invalidItem(lineNumber, category.name, item)));
+        }
+
+        @Override
+        public void onInvalidLine(int lineNumber) {
+            if (shard.ownsInvalidLines()) {
+                errors.add(new OrderedError(nextOrder(), ParsingError.invalidLine(lineNumber)));
+            }
+        }
+
+        private long nextOrder() {
+            return ((long) index << 32) | (sequence++ & 0xFFFFFFFFL);
+        }
+    }
+
+    /**
+     * The byte range [start, end) of a chunk of a file.
+     */
+    private static final class Range {
+
+        private final Path path;
+        private final Compression compression;
+        private final int fileIndex;
+        private final long start;
+        private final long end;
+
+        private Range(Path path, Compression compression, int fileIndex, long start, long end) {
+            this.path = path;
+            this.compression = compression;
+            this.fileIndex = fileIndex;
+            this.start = start;
+            this.end = end;
+        }
+    }
+
+    private static final class PartialCategory {
+
+        private final String name;
+        private final Map<String, PartialItem> firstItems = new LinkedHashMap<>();
+        private final List<PartialItem> duplicatedItems = new ArrayList<>();
+
+        private PartialCategory(String name) {
+            this.name = name;
+        }
+    }
+
+    private static final class PartialItem {
+
+        private final long order;
+        private final int lineNumber;
+        private final String name;
+        private final int rating;
+
+        private PartialItem(long order, int lineNumber, String name, int rating) {
+            this.order = order;
+            this.lineNumber = lineNumber;
+            this.name = name;
+            this.rating = rating;
+        }
+
+        private OrderedError toDuplicatedItemError(Category category) {
+            return new OrderedError(order, ParsingError.duplicatedItem(lineNumber, category, name, rating));
+        }
+    }
+
+    private static final class OrderedError {
+
+        private final long order;
+        private final ParsingError error;
+
+        private OrderedError(long order, ParsingError error) {
+            this.order = order;
+            this.error = error;
+        }
+
+        private int chunkIndex() {
+            return (int) (order >>> 32);
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.germer.starit.parser;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * The compression of a Favorite-Things source, told by its first bytes rather than by its file name.
+ */
+public enum Compression {
+
+    NONE,
+    /**
+     * The gzip format (RFC 1952), made of one or more members, starting with the magic bytes 1f 8b.
+     */
+    GZIP,
+    /**
+     * The zlib format (RFC 1950), served as "deflate" over HTTP, with a 32K window and no preset dictionary, which
+     * is how every zlib stream starts in practice: a first byte 78 followed by a byte making the pair a multiple of 31.
+     */
+    DEFLATE;
+
+    static final int HEADER_LENGTH = 2;
+
+    /**
+     * @param path The path to a readable file.
+     * @return The compression of the file, told by its first bytes.
+     * @throws IllegalArgumentException in case the file can't be read.
+     */
+    public static Compression of(Path path) {
+        try (InputStream inputStream = Files.newInputStream(path)) {
+            byte[] header = new byte[HEADER_LENGTH];
+            int length = 0;
+            int read;
+            while (length < header.length && (read = inputStream.read(header, length, header.length - length)) > 0) {
+                length += read;
+            }
+            return of(header, length);
+        } catch (IOException e) {
+            throw new IllegalArgumentException(String.format("Failed to read the specified file %s: %s", path,
+                    e.getMessage()), e);
+        }
+    }
+
+    /**
+     * @param header The first bytes of a source.
+     * @param length The amount of bytes available, which may be less than {@value HEADER_LENGTH} for short sources.
+     */
+    static Compression of(byte[] header, int length) {
+        if (length < HEADER_LENGTH) {
+            return NONE;
+        }
+        int first = header[0] & 0xFF;
+        int second = header[1] & 0xFF;
+        if (first == 0x1F && second == 0x8B) {
+            return GZIP;
+        }
+        boolean presetDictionary = (second & 0x20) != 0;
+        if (first == 0x78 && (first << 8 | second) % 31 == 0 && !presetDictionary) {
+            return DEFLATE;
+        }
+        return NONE;
+    }
+}
@@ -0,0 +1,453 @@
+package com.germer.starit.parser;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.zip.*;
+
+/**
+ * The decompressed contents of a gzip or zlib source, see {@link Compression}. The decompression runs on other
+ * threads, which hand the decompressed blocks over through bounded queues, so that inflating the contents overlaps
+ * with parsing them while only a few blocks are held in memory.
+ * <p>
+ * The members of a gzip file, as when gzip shards are concatenated, are inflated in parallel: every position where
+ * a member header may start is inflated on its own, and the members are read in order, each one followed by the one
+ * starting right where it ended. Positions which merely look like a header within the compressed data of a member are
+ * never reached that way, and their inflation is cancelled once the member holding them has been read.
+ */
+final class DecompressingInputStream extends InputStream {
+
+    private static final int BLOCK_SIZE = 1 << 16;
+    private static final int QUEUED_BLOCKS = 16;
+    private static final int READ_BUFFER_SIZE = 1 << 16;
+    private static final byte[] END_OF_SEGMENT = new byte[0];
+    // The gzip header flags, see RFC 1952.
+    private static final int HEADER_CRC = 0x02;
+    private static final int EXTRA_FIELD = 0x04;
+    private static final int FILE_NAME = 0x08;
+    private static final int COMMENT = 0x10;
+    private static final int RESERVED_FLAGS = 0xE0;
+
+    private final ExecutorService executor;
+    /**
+     * The compressed stream being inflated, or null when the members of a file are read on their own.
+     */
+    private final Closeable source;
+    /**
+     * The segments of the gzip members by their start, or null when the contents are a single segment.
+     */
+    private final NavigableMap<Long, Segment> segmentByStart;
+    private Segment segment;
+    private byte[] block = new byte[0];
+    private int blockPosition;
+
+    private DecompressingInputStream(ExecutorService executor, Closeable source,
+                                     NavigableMap<Long, Segment> segmentByStart, Segment segment) {
+        this.executor = executor;
+        this.source = source;
+        this.segmentByStart = segmentByStart;
+        this.segment = segment;
+    }
+
+    /**
+     * @return The decompressed contents of the stream in case it's compressed, otherwise the contents as they are.
+     * The returned stream owns the given one, which is closed along with it.
+     */
+    static InputStream decompress(InputStream inputStream) throws IOException {
+        InputStream bufferedStream = inputStream.markSupported()
+                ? inputStream : new BufferedInputStream(inputStream, READ_BUFFER_SIZE);
+        byte[] header = new byte[Compression.HEADER_LENGTH];
+        bufferedStream.mark(header.length);
+        int length = 0;
+        int read;
+        while (length < header.length && (read = bufferedStream.read(header, length, header.length - length)) > 0) {
+            length += read;
+        }
+        bufferedStream.reset();
+
+        Compression compression = Compression.of(header, length);
+        if (compression == Compression.NONE) {
+            return bufferedStream;
+        }
+        ExecutorService executor = Executors.newSingleThreadExecutor(DecompressingInputStream::newInflaterThread);
+        Segment segment = new Segment(0);
+        segment.future = executor.submit(() -> inflateStream(bufferedStream, compression, segment));
+        return new DecompressingInputStream(executor, bufferedStream, null, segment);
+    }
+
+    /**
+     * @param parallelism The maximum amount of gzip members inflated at the same time.
+     * @return The decompressed contents of the file, which must be compressed.
+     */
+    static InputStream open(Path path, Compression compression, int parallelism) throws IOException {
+        if (compression != Compression.GZIP) {
+            return decompress(Files.newInputStream(path));
+        }
+
+        NavigableMap<Long, Segment> segmentByStart = new TreeMap<>();
+        for (long start : findMemberStarts(path)) {
+            segmentByStart.put(start, new Segment(start));
+        }
+        if (!segmentByStart.containsKey(0L)) {
+            // Not a valid gzip header, reported by reading it as a stream.
+            return decompress(Files.newInputStream(path));
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(parallelism, segmentByStart.size()),
+                DecompressingInputStream::newInflaterThread);
+        // Members are submitted in file order, so the one being read is always inflating or done.
+        for (Segment segment : segmentByStart.values()) {
+            segment.future = executor.submit(() -> inflateMember(path, segment));
+        }
+        return new DecompressingInputStream(executor, null, segmentByStart, segmentByStart.get(0L));
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (!fillBlock()) {
+            return -1;
+        }
+        return block[blockPosition++] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] bytes, int offset, int length) throws IOException {
+        if (length == 0) {
+            return 0;
+        }
+        if (!fillBlock()) {
+            return -1;
+        }
+        int count = Math.min(length, block.length - blockPosition);
+        System.arraycopy(block, blockPosition, bytes, offset, count);
+        blockPosition += count;
+        return count;
+    }
+
+    @Override
+    public int available() {
+        return block.length - blockPosition;
+    }
+
+    @Override
+    public void close() throws IOException {
+        segment = null;
+        executor.shutdownNow();
+        if (source != null) {
+            source.close();
+        }
+    }
+
+    /**
+     * @return Whether there are bytes left to be read from the current block, waiting for the next one if needed.
+     */
+    private boolean fillBlock() throws IOException {
+        while (blockPosition == block.length) {
+            if (segment == null) {
+                return false;
+            }
+            byte[] next;
+            try {
+                next = segment.blocks.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for the decompressed contents.");
+            }
+            if (next == END_OF_SEGMENT) {
+                if (segment.failure != null) {
+                    throw new IOException("Failed to decompress the favorite things source: " +
+                            segment.failure.getMessage(), segment.failure);
+                }
+                segment = nextSegment(segment);
+            } else {
+                block = next;
+                blockPosition = 0;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return The segment of the member starting where the given one ended, cancelling the inflation of the
+     * positions passed over, or null in case it was the last one.
+     */
+    private Segment nextSegment(Segment completed) {
+        if (segmentByStart == null) {
+            return null;
+        }
+        NavigableMap<Long, Segment> passedSegments = segmentByStart.headMap(completed.end, false);
+        passedSegments.values().forEach(passedSegment -> passedSegment.future.cancel(true));
+        passedSegments.clear();
+        // Anything after the last member is ignored, as gzip itself does.
+        return segmentByStart.get(completed.end);
+    }
+
+    /**
+     * @return The positions where a gzip member header may start: the magic bytes, the deflate compression method and
+     * flags without any reserved bit, which includes all the actual members.
+     */
+    private static List<Long> findMemberStarts(Path path) throws IOException {
+        List<Long> starts = new ArrayList<>();
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocate(READ_BUFFER_SIZE);
+            long position = 0;
+            int window = 0;
+            while (channel.read(buffer) > 0) {
+                buffer.flip();
+                while (buffer.hasRemaining()) {
+                    window = window << 8 | buffer.get() & 0xFF;
+                    position++;
+                    if ((window & 0xFFFFFF00) == 0x1F8B0800 && (window & RESERVED_FLAGS) == 0 && position >= 4) {
+                        starts.add(position - 4);
+                    }
+                }
+                buffer.clear();
+            }
+        }
+        return starts;
+    }
+
+    private static void inflateStream(InputStream compressedStream, Compression compression, Segment segment) {
+        // Unlike the one of GZIPInputStream, an inflater given to InflaterInputStream isn't released on closing it.
+        Inflater inflater = compression == Compression.DEFLATE ? new Inflater() : null;
+        try (InputStream inflaterStream = inflater == null
+                ? new GZIPInputStream(compressedStream, READ_BUFFER_SIZE)
+                : new InflaterInputStream(compressedStream, inflater, READ_BUFFER_SIZE)) {
+            BlockWriter writer = new BlockWriter(segment);
+            while (writer.readFrom(inflaterStream)) {
+                // read
+            }
+            writer.finish();
+        } catch (IOException e) {
+            segment.fail(e);
+        } catch (InterruptedException e) {
+            // Cancelled by closing the stream.
+        } finally {
+            if (inflater != null) {
+                inflater.end();
+            }
+        }
+    }
+
+    private static void inflateMember(Path path, Segment segment) {
+        Inflater inflater = new Inflater(true);
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ChannelReader reader = new ChannelReader(channel, segment.start);
+            skipMemberHeader(reader);
+
+            BlockWriter writer = new BlockWriter(segment);
+            CRC32 crc = new CRC32();
+            long size = 0;
+            while (!inflater.finished()) {
+                if (inflater.needsInput()) {
+                    reader.feed(inflater);
+                }
+                int inflated = writer.inflate(inflater, crc);
+                if (inflated == 0 && inflater.needsDictionary()) {
+                    throw new ZipException("Unexpected preset dictionary in a gzip member.");
+                }
+                size += inflated;
+            }
+            reader.unread(inflater.getRemaining());
+
+            if (reader.readInt() != (int) crc.getValue() || reader.readInt() != (int) size) {
+                throw new ZipException("Corrupt gzip trailer.");
+            }
+            segment.end = reader.position();
+            writer.finish();
+        } catch (IOException e) {
+            segment.fail(e);
+        } catch (DataFormatException e) {
+            segment.fail(new ZipException(e.getMessage()));
+        } catch (InterruptedException e) {
+            // Cancelled as a false member start, or by closing the stream.
+        } finally {
+            inflater.end();
+        }
+    }
+
+    private static void skipMemberHeader(ChannelReader reader) throws IOException {
+        if (reader.readUnsignedByte() != 0x1F || reader.readUnsignedByte() != 0x8B
+                || reader.readUnsignedByte() != 8) {
+            throw new ZipException("Not in gzip format.");
+        }
+        int flags = reader.readUnsignedByte();
+        // Modification time, extra flags and operating system.
+        reader.skip(6);
+        if ((flags & EXTRA_FIELD) != 0) {
+            reader.skip(reader.readUnsignedByte() | reader.readUnsignedByte() << 8);
+        }
+        if ((flags & FILE_NAME) != 0) {
+            reader.skipZeroTerminated();
+        }
+        if ((flags & COMMENT) != 0) {
+            reader.skipZeroTerminated();
+        }
+        if ((flags & HEADER_CRC) != 0) {
+            reader.skip(2);
+        }
+    }
+
+    private static Thread newInflaterThread(Runnable runnable) {
+        Thread thread = new Thread(runnable, "favorite-things-inflater");
+        thread.setDaemon(true);
+        return thread;
+    }
+
+    /**
+     * The decompressed blocks of a gzip member, or of the whole contents, followed by {@link #END_OF_SEGMENT}.
+     */
+    private static final class Segment {
+
+        private final long start;
+        private final BlockingQueue<byte[]> blocks = new ArrayBlockingQueue<>(QUEUED_BLOCKS);
+        private Future<?> future;
+        /**
+         * The position right after the end of the member, set before the end of the segment is queued.
+         */
+        private volatile long end;
+        private volatile IOException failure;
+
+        private Segment(long start) {
+            this.start = start;
+        }
+
+        private void fail(IOException failure) {
+            this.failure = failure;
+            try {
+                blocks.put(END_OF_SEGMENT);
+            } catch (InterruptedException e) {
+                // Cancelled, so nobody waits for the segment anymore.
+            }
+        }
+    }
+
+    /**
+     * Decompresses straight into blocks, queueing each one once it's full.
+     */
+    private static final class BlockWriter {
+
+        private final Segment segment;
+        private byte[] block = new byte[BLOCK_SIZE];
+        private int filled;
+
+        private BlockWriter(Segment segment) {
+            this.segment = segment;
+        }
+
+        /**
+         * @return Whether the stream may have more bytes to read.
+         */
+        private boolean readFrom(InputStream inputStream) throws IOException, InterruptedException {
+            int read = inputStream.read(block, filled, block.length - filled);
+            if (read < 0) {
+                return false;
+            }
+            advance(read);
+            return true;
+        }
+
+        /**
+         * @return The amount of bytes inflated, which are also added to the checksum.
+         */
+        private int inflate(Inflater inflater, CRC32 crc) throws DataFormatException, InterruptedException {
+            int inflated = inflater.inflate(block, filled, block.length - filled);
+            crc.update(block, filled, inflated);
+            advance(inflated);
+            return inflated;
+        }
+
+        private void advance(int count) throws InterruptedException {
+            filled += count;
+            if (filled == block.length) {
+                segment.blocks.put(block);
+                block = new byte[BLOCK_SIZE];
+                filled = 0;
+            }
+        }
+
+        private void finish() throws InterruptedException {
+            if (filled > 0) {
+                segment.blocks.put(Arrays.copyOf(block, filled));
+            }
+            segment.blocks.put(END_OF_SEGMENT);
+        }
+    }
+
+    /**
+     * Reads a file through a buffer from a given position, keeping track of the position of the next byte.
+     */
+    private static final class ChannelReader {
+
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocate(READ_BUFFER_SIZE);
+        private long bufferStart;
+
+        private ChannelReader(FileChannel channel, long position) {
+            this.channel = channel;
+            this.bufferStart = position;
+            buffer.limit(0);
+        }
+
+        private long position() {
+            return bufferStart + buffer.position();
+        }
+
+        private int readUnsignedByte() throws IOException {
+            fill();
+            return buffer.get() & 0xFF;
+        }
+
+        private int readInt() throws IOException {
+            return readUnsignedByte() | readUnsignedByte() << 8 | readUnsignedByte() << 16 | readUnsignedByte() << 24;
+        }
+
+        private void skip(int count) throws IOException {
+            for (int i = 0; i < count; i++) {
+                readUnsignedByte();
+            }
+        }
+
+        private void skipZeroTerminated() throws IOException {
+            while (readUnsignedByte() != 0) {
+                // skipped
+            }
+        }
+
+        /**
+         * Hands all the buffered bytes over to the inflater.
+         */
+        private void feed(Inflater inflater) throws IOException {
+            fill();
+            inflater.setInput(buffer.array(), buffer.position(), buffer.remaining());
+            buffer.position(buffer.limit());
+        }
+
+        /**
+         * Takes back the given amount of bytes handed over to the inflater but left unused.
+         */
+        private void unread(int count) {
+            buffer.position(buffer.position() - count);
+        }
+
+        private void fill() throws IOException {
+            if (buffer.hasRemaining()) {
+                return;
+            }
+            bufferStart += buffer.limit();
+            buffer.clear();
+            int read;
+            do {
+                read = channel.read(buffer, bufferStart + buffer.position());
+            } while (read == 0);
+            buffer.flip();
+            if (read < 0) {
+                throw new EOFException("Unexpected end of the gzip member.");
+            }
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.germer.starit.parser;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Finds the delimiters of the Favorite-Things syntax on the bytes scanned by {@link ByteScanner}, which spends most
+ * of its time in these searches on long lines. This version looks at a byte at a time.
+ * <p>
+ * The multi-release jar holds another version of this class, under <code>src/main/java21</code>, which JVMs from 21
+ * on load instead and which looks at eight bytes at a time. Both versions must return exactly the same indexes, and
+ * the tests are run against both of them.
+ */
+final class DelimiterSearch {
+
+    private DelimiterSearch() {
+    }
+
+    /**
+     * @return The index of the first ':' or line terminator from the given index, or the end index in case there's
+     * none.
+     */
+    static int indexOfColonOrLineTerminator(ByteBuffer buffer, int from, int end) {
+        int i = from;
+        byte b;
+        while (i < end && (b = buffer.get(i)) != ':' && b != '\n' && b != '\r') {
+            i++;
+        }
+        return i;
+    }
+
+    /**
+     * @return The index of the first ',', digit or line terminator from the given index, which is where the name of
+     * an item ends, or the end index in case there's none.
+     */
+    static int indexOfItemTerminatorOrDigit(ByteBuffer buffer, int from, int end) {
+        int i = from;
+        byte b;
+        while (i < end && (b = buffer.get(i)) != ',' && b != '\n' && b != '\r' && (b < '0' || b > '9')) {
+            i++;
+        }
+        return i;
+    }
+
+    /**
+     * @return The index of the first ',' or line terminator from the given index, or the end index in case there's
+     * none.
+     */
+    static int indexOfItemTerminator(ByteBuffer buffer, int from, int end) {
+        int i = from;
+        byte b;
+        while (i < end && (b = buffer.get(i)) != ',' && b != '\n' && b != '\r') {
+            i++;
+        }
+        return i;
+    }
+
+    /**
+     * @return The index of the first line terminator from the given index, or the end index in case there's none.
+     */
+    static int indexOfLineTerminator(ByteBuffer buffer, int from, int end) {
+        int i = from;
+        byte b;
+        while (i < end && (b = buffer.get(i)) != '\n' && b != '\r') {
+            i++;
+        }
+        return i;
+    }
+}
@@ -0,0 +1,34 @@
+package com.germer.starit.parser;
+
+/**
+ * Receives the tokens found by the Favorite-Things tokenizers, in the order they appear on each line. This is what
+ * allows the different tokenizers to share a single implementation of validation, de-duplication and error reporting.
+ */
+interface FavoriteThingsHandler {
+
+    /**
+     * @param lineNumber   The 1-based number of the line being tokenized.
+     * @param categoryId   The id of the category on the {@link CategoryTable}, or {@link CategoryTable#UNKNOWN} in case
+     *                     it's not a valid one.
+     * @param categoryName The name of the category as given to the {@link CategoryTable}, or the trimmed name found at
+     *                     the beginning of the line in case it's not a valid one.
+     * @return <code>true</code> if the items of this line should be tokenized, <code>false</code> in case the line
+     * should be skipped.
+     */
+    boolean onCategory(int lineNumber, int categoryId, String categoryName);
+
+    /**
+     * Called for each well-formed item of the last accepted category.
+     */
+    void onFavoriteThing(int lineNumber, String name, int rating);
+
+    /**
+     * Called for each malformed item of the last accepted category.
+     */
+    void onInvalidItem(int lineNumber, String item);
+
+    /**
+     * Called when the line doesn't respect the <code>&lt;CategoryName&gt;:&lt;Items&gt;</code> syntax at all.
+     */
+    void onInvalidLine(int lineNumber);
+}
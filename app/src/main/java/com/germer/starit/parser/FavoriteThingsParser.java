@@ -1,16 +1,26 @@
 package com.germer.starit.parser;
 
 import com.germer.starit.model.Category;
+import com.germer.starit.model.ConcurrentFavoriteThingStore;
 import com.germer.starit.model.FavoriteThing;
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.io.CountingInputStream;
 
 import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.*;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Function;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
+import java.util.stream.Collectors;
 
 /**
  * <p>
@@ -32,35 +42,385 @@ import java.util.regex.Pattern;
  * Any errors or duplicate entries will yield error messages which will be available through {@link #getParsingErrors()}
  * after the processing.
  * </p>
+ * <p>The lines can be tokenized either through regular expressions or through a hand-written single pass scanner,
+ * see {@link TokenizerMode}. Both accept the same syntax and yield the same results and error messages. Files can
+ * also be parsed through {@link #parse(Path)}, which memory-maps them and scans their bytes directly, and
+ * append-only files through {@link #parseIncrementally(Path, Path)}, which only parses what was appended since the
+ * previous run. Several files can be parsed at once into the same categories through {@link #parse(List)}.
+ * </p>
+ * <p>Gzip and zlib compressed sources are detected by their first bytes and decompressed on other threads while
+ * being parsed, see {@link Compression}.
+ * </p>
  */
 public class FavoriteThingsParser {
 
     private static final Pattern CATEGORY_TITLE_AND_ITEMS = Pattern.compile("^([^:]+):(.*)$", Pattern.DOTALL);
     private static final Pattern CATEGORY_ITEM_AND_SCORE = Pattern.compile("^([^\\d]+)(\\d+)$");
+    private static final int MAPPED_WINDOW_SIZE = 1 << 30;
 
-    private final Set<String> validCategoryNames;
-    private final List<String> errors = new ArrayList<>();
-    private final Map<String, Category> categoryByName = new HashMap<>();
+    private final CategoryTable categoryTable;
+    private final TokenizerMode tokenizerMode;
+    private final Map<String, Category> categoryByName;
+    private final boolean sharedCategories;
+    private final CategoryPopulator categoryPopulator;
+    private int parallelism = 1;
+    private Shard shard = Shard.ALL;
+    private Function<String, Category> categoryFactory;
+    private ParsingErrorLog errors = new ParsingErrorLog();
+    private ParsingStatistics statistics = new ParsingStatistics();
 
     public FavoriteThingsParser(Set<String> validCategoryNames) {
-        this.validCategoryNames = validCategoryNames;
+        this(validCategoryNames, TokenizerMode.REGEX);
+    }
+
+    public FavoriteThingsParser(Set<String> validCategoryNames, TokenizerMode tokenizerMode) {
+        this(CategoryTable.of(validCategoryNames, false), tokenizerMode);
+    }
+
+    /**
+     * @param categoryTable The valid categories, which may be matched ignoring case.
+     */
+    public FavoriteThingsParser(CategoryTable categoryTable, TokenizerMode tokenizerMode) {
+        this.categoryTable = categoryTable;
+        this.tokenizerMode = tokenizerMode;
+        this.categoryPopulator = new CategoryPopulator();
+        this.categoryByName = new HashMap<>();
+        this.sharedCategories = false;
+        this.categoryFactory = Category::new;
+    }
+
+    /**
+     * Creates a parser populating categories shared with other parsers, so that several sources can be parsed into
+     * one result at the same time, each parser on its own thread. The categories are created backed by a
+     * {@link ConcurrentFavoriteThingStore} unless another thread-safe factory is set, and among the same favorite
+     * thing found on several sources, the first one added is kept. Each parser still collects the errors of its own
+     * sources, the duplicates being reported by the parsers whose favorite thing wasn't kept.
+     * <p>
+     * Shared categories can't be parsed incrementally, see {@link #parseIncrementally(Path, Path)}.
+     *
+     * @param categoryByName The categories shared by the parsers, by name.
+     */
+    public FavoriteThingsParser(Set<String> validCategoryNames, TokenizerMode tokenizerMode,
+                                ConcurrentMap<String, Category> categoryByName) {
+        this(CategoryTable.of(validCategoryNames, false), tokenizerMode, categoryByName);
+    }
+
+    /**
+     * @param categoryTable  The valid categories, which may be matched ignoring case.
+     * @param categoryByName The categories shared by the parsers, by name.
+     * @see #FavoriteThingsParser(Set, TokenizerMode, ConcurrentMap)
+     */
+    public FavoriteThingsParser(CategoryTable categoryTable, TokenizerMode tokenizerMode,
+                                ConcurrentMap<String, Category> categoryByName) {
+        this.categoryTable = categoryTable;
+        this.tokenizerMode = tokenizerMode;
+        this.categoryPopulator = new CategoryPopulator();
+        this.categoryByName = categoryByName;
+        this.sharedCategories = true;
+        this.categoryFactory = name -> new Category(name, new ConcurrentFavoriteThingStore());
     }
 
     /**
      * Parses the contents of the given {@link InputStream} according to the Favorite-Things schema, the parsed
      * {@link Category} instances containing the {@link FavoriteThing} will be later available through the
      * {@link #getParsedCategories()} and any non-critical parsing errors can be verified through the
-     * {@link #getParsingErrors()}.
+     * {@link #getParsingErrors()}. Compressed contents are decompressed on another thread.
      *
      * @param inputStream The {@link InputStream} to the source Favorite-Things contents.
      */
     public void parse(InputStream inputStream) {
-        try (BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream))) {
+        try (CountingInputStream countingStream = new CountingInputStream(
+                DecompressingInputStream.decompress(inputStream));
+             BufferedReader reader = new BufferedReader(new InputStreamReader(countingStream))) {
             int lineNumber = 0;
-            while (reader.ready()) {
-                String line = reader.readLine();
-                parseCategoryFromLine(++lineNumber, line);
+            String line;
+            // Unlike ready(), reading up to the end doesn't stop early when the contents come from another thread.
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (tokenizerMode == TokenizerMode.SCANNER) {
+                    LineScanner.scan(lineNumber, line, categoryTable, categoryPopulator);
+                } else {
+                    parseCategoryFromLine(lineNumber, line);
+                }
             }
+            categoryPopulator.onEndOfLines();
+            statistics.add(countingStream.getCount(), lineNumber, 0);
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Failed to process the provided favorite things source!", e);
+        }
+    }
+
+    /**
+     * Parses the contents of the given {@link InputStream} with the same results and errors of
+     * {@link #parse(InputStream)}, through a pipeline where a reader thread fills batches of lines, a pool of
+     * tokenizer threads scans them and the calling thread populates the categories, all at the same time. The
+     * batches are scanned as in {@link TokenizerMode#SCANNER}, which yields the same results of any other tokenizer.
+     *
+     * @param tokenizerThreads The amount of threads scanning the batches.
+     * @param batchSize        The size in bytes of each batch, which grows for lines longer than it. At most two
+     *                         batches per tokenizer thread are held in memory at once.
+     */
+    public void parsePipelined(InputStream inputStream, int tokenizerThreads, int batchSize) {
+        if (tokenizerThreads < 1 || batchSize < 1) {
+            throw new IllegalArgumentException(String.format("Invalid pipeline of %d tokenizer threads and batches " +
+                    "of %d bytes, both must be at least 1.", tokenizerThreads, batchSize));
+        }
+        PipelinedParser pipelinedParser = new PipelinedParser(categoryTable, shard, categoryPopulator,
+                tokenizerThreads, batchSize);
+        try (InputStream decompressedStream = DecompressingInputStream.decompress(inputStream)) {
+            pipelinedParser.parse(decompressedStream);
+            categoryPopulator.onEndOfLines();
+            statistics.add(pipelinedParser.getByteCount(), pipelinedParser.getLineCount(), 0);
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Failed to process the provided favorite things source!", e);
+        }
+    }
+
+    /**
+     * @param categoryFactory Creates each new {@link Category} given its name, which allows choosing the
+     *                        {@link com.germer.starit.model.FavoriteThingStore} backing it. Defaults to
+     *                        {@link Category#Category(String)}.
+     */
+    public void setCategoryFactory(Function<String, Category> categoryFactory) {
+        this.categoryFactory = categoryFactory;
+    }
+
+    /**
+     * @param shard The only categories to be kept, the lines of the other ones being skipped without any error.
+     *              Defaults to {@link Shard#ALL}. The lines without any category are only reported as errors by the
+     *              first shard.
+     */
+    public void setShard(Shard shard) {
+        this.shard = shard;
+    }
+
+    /**
+     * @param errorLog Collects the errors found from now on, which allows bounding the amount of errors kept and
+     *                 writing them while parsing. Defaults to a {@link ParsingErrorLog} keeping all of them.
+     */
+    public void setErrorLog(ParsingErrorLog errorLog) {
+        this.errors = errorLog;
+    }
+
+    /**
+     * @return The errors found so far, along with their counters.
+     */
+    public ParsingErrorLog getErrorLog() {
+        return errors;
+    }
+
+    /**
+     * @param statistics Counts what is parsed from now on, and may track the slow lines. Defaults to
+     *                   {@link ParsingStatistics} without any slow line tracking.
+     */
+    public void setStatistics(ParsingStatistics statistics) {
+        this.statistics = statistics;
+    }
+
+    public ParsingStatistics getStatistics() {
+        return statistics;
+    }
+
+    /**
+     * @param parallelism The amount of threads used by {@link #parse(Path)}, which parses the file in chunks when
+     *                    greater than 1.
+     */
+    public void setParallelism(int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException(String.format("Invalid parallelism %d, it must be at least 1.",
+                    parallelism));
+        }
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Parses the contents of the given UTF-8 encoded file according to the Favorite-Things schema, with the same
+     * results of {@link #parse(InputStream)}. The file is memory-mapped and its bytes are scanned directly, only
+     * creating Strings for the category and favorite thing names the first time they appear.
+     * <p>
+     * In case the parallelism is greater than 1, the file is split into chunks aligned on line boundaries which are
+     * parsed in parallel and then merged, still yielding the same results and errors of a sequential parsing.
+     * <p>
+     * A compressed file is rather decompressed on other threads while its bytes are scanned, the members of a gzip
+     * file being inflated on as many threads as the parallelism.
+     *
+     * @param path The path to the source Favorite-Things file.
+     * @see #setParallelism(int)
+     */
+    public void parse(Path path) {
+        checkReadableFile(path);
+        Compression compression = Compression.of(path);
+        if (compression != Compression.NONE) {
+            parseCompressed(path, compression);
+        } else if (parallelism > 1) {
+            parseInParallel(path, ChunkedFileParser.defaultChunkSize(sizeOf(path), parallelism));
+        } else {
+            parse(path, MAPPED_WINDOW_SIZE);
+        }
+    }
+
+    /**
+     * Parses several UTF-8 encoded files with the same results of parsing a single file made of all of them in the
+     * given order, so that among duplicated favorite things the one found first in that order is kept. The files are
+     * split into chunks parsed on as many threads as the parallelism, each file yielding at least one chunk, and the
+     * errors are reported with the name of their file and their line number within it. Compressed files can't be
+     * split, so each one is a single chunk, which allows decompressing several of them in parallel.
+     *
+     * @param paths The paths to the source Favorite-Things files.
+     * @see #setParallelism(int)
+     */
+    public void parse(List<Path> paths) {
+        long totalSize = 0;
+        List<String> sourceNames = new ArrayList<>(paths.size());
+        for (Path path : paths) {
+            totalSize += sizeOf(path);
+            sourceNames.add(path.toString());
+        }
+        try {
+            new ChunkedFileParser(categoryTable, shard, categoryFactory, parallelism).parse(paths, sourceNames,
+                    ChunkedFileParser.defaultChunkSize(totalSize, parallelism), categoryByName, errors, statistics);
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Failed to process the provided favorite things sources!", e);
+        }
+    }
+
+    private void parseCompressed(Path path, Compression compression) {
+        try (CountingInputStream inputStream = new CountingInputStream(
+                DecompressingInputStream.open(path, compression, parallelism))) {
+            ByteScanner scanner = new ByteScanner(categoryPopulator, categoryTable);
+            scanner.scan(inputStream);
+            categoryPopulator.onEndOfLines();
+            statistics.add(inputStream.getCount(), scanner.getLineNumber(), 0);
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Failed to process the provided favorite things source!", e);
+        }
+    }
+
+    /**
+     * @param chunkSize The approximate size in bytes of each chunk parsed in parallel.
+     */
+    @VisibleForTesting
+    protected void parseInParallel(Path path, long chunkSize) {
+        checkReadableFile(path);
+        try {
+            new ChunkedFileParser(categoryTable, shard, categoryFactory, parallelism)
+                    .parse(path, chunkSize, categoryByName, errors, statistics);
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Failed to process the provided favorite things source!", e);
+        }
+    }
+
+    /**
+     * @param windowSize The maximum amount of bytes mapped at once, which limits the length of a single line.
+     */
+    @VisibleForTesting
+    protected void parse(Path path, int windowSize) {
+        checkReadableFile(path);
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteScanner scanner = new ByteScanner(categoryPopulator, categoryTable);
+            long size = scanMapped(channel, scanner, 0, windowSize, true);
+            categoryPopulator.onEndOfLines();
+            statistics.add(size, scanner.getLineNumber(), 0);
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Failed to process the provided favorite things source!", e);
+        }
+    }
+
+    /**
+     * Parses an append-only file resuming from the checkpoint saved on a previous run, so that only the lines
+     * appended since are parsed, and saves a new checkpoint afterwards. The results are the same of
+     * {@link #parse(Path)} over the whole file. The whole file is parsed in case there's no checkpoint yet, or in
+     * case it was taken with other valid category names or the file was truncated or rewritten since.
+     * <p>
+     * The checkpoint is taken right after the last complete line, so a trailing line still being written is parsed
+     * on this run but parsed again on the next one. The new lines are always parsed by a single thread, and the
+     * categories must keep all their favorite things to be saved. Compressed files can't be parsed incrementally,
+     * and neither can shared categories nor a {@link Shard} of the categories.
+     *
+     * @param path           The path to the source Favorite-Things file.
+     * @param checkpointPath The path to the checkpoint file, which is created in case it doesn't exist.
+     * @return <code>true</code> in case the file was parsed from the checkpoint, <code>false</code> in case it was
+     * parsed from its beginning.
+     */
+    public boolean parseIncrementally(Path path, Path checkpointPath) {
+        return parseIncrementally(path, checkpointPath, MAPPED_WINDOW_SIZE);
+    }
+
+    @VisibleForTesting
+    protected boolean parseIncrementally(Path path, Path checkpointPath, int windowSize) {
+        if (sharedCategories) {
+            throw new IllegalStateException("Shared categories can't be parsed incrementally.");
+        }
+        if (shard != Shard.ALL) {
+            throw new IllegalStateException("A shard of the categories can't be parsed incrementally.");
+        }
+        checkReadableFile(path);
+        if (Compression.of(path) != Compression.NONE) {
+            throw new IllegalArgumentException(String.format("The compressed file %s can't be parsed incrementally.",
+                    path));
+        }
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            Optional<ParserCheckpoint> checkpoint = ParserCheckpoint.restore(checkpointPath, channel,
+                    categoryTable, categoryFactory, categoryByName, errors);
+            long startOffset = checkpoint.map(ParserCheckpoint::getOffset).orElse(0L);
+            int startLineNumber = checkpoint.map(ParserCheckpoint::getLineNumber).orElse(0);
+            ByteScanner scanner = new ByteScanner(categoryPopulator, categoryTable, startLineNumber);
+
+            long offset = scanMapped(channel, scanner, startOffset, windowSize, false);
+            ParserCheckpoint.of(channel, offset, scanner.getLineNumber())
+                    .save(checkpointPath, categoryTable, categoryByName.values(), errors);
+            long endOffset = scanMapped(channel, scanner, offset, windowSize, true);
+            categoryPopulator.onEndOfLines();
+            statistics.add(endOffset - startOffset, scanner.getLineNumber() - startLineNumber, 0);
+            return checkpoint.isPresent();
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Failed to process the provided favorite things source!", e);
+        }
+    }
+
+    /**
+     * Scans the file from the given offset through windows of up to the given size.
+     *
+     * @param toEndOfInput Whether a trailing unterminated line should be scanned too, otherwise scanning stops right
+     *                     after the last complete line.
+     * @return The offset where scanning stopped.
+     */
+    private static long scanMapped(FileChannel channel, ByteScanner scanner, long position, int windowSize,
+                                   boolean toEndOfInput) throws IOException {
+        long size = channel.size();
+        while (position < size) {
+            long remaining = size - position;
+            MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, position,
+                    Math.min(remaining, windowSize));
+            boolean lastWindow = window.limit() == remaining;
+            int consumed = scanner.scan(window, toEndOfInput && lastWindow);
+            if (consumed == 0) {
+                if (lastWindow) {
+                    break;
+                }
+                throw new IllegalArgumentException(String.format(
+                        "Line %d is longer than the maximum supported length of %d bytes.",
+                        scanner.getLineNumber() + 1, windowSize));
+            }
+            position += consumed;
+        }
+        return position;
+    }
+
+    private static void checkReadableFile(Path path) {
+        if (!Files.isRegularFile(path) || !Files.isReadable(path)) {
+            throw new IllegalArgumentException(
+                    String.format("The specified file %s is not a valid file or cannot be read.", path)
+            );
+        }
+    }
+
+    private static long sizeOf(Path path) {
+        checkReadableFile(path);
+        try {
+            return Files.size(path);
         } catch (IOException e) {
             throw new IllegalArgumentException("Failed to process the provided favorite things source!", e);
         }
@@ -70,47 +430,35 @@ public class FavoriteThingsParser {
         Matcher matcher = CATEGORY_TITLE_AND_ITEMS.matcher(line);
 
         if (matcher.matches()) {
-            String categoryName = matcher.group(1).trim();
-            String items = matcher.group(2);
-
-            if (validCategoryNames.contains(categoryName)) {
-                Category category = categoryByName.computeIfAbsent(categoryName, Category::new);
-                parseAndPopulateFavoriteItems(lineNumber, category, items);
-            } else {
-                addError("Unknown category '%s' on line %d, this line was skipped.", categoryName, lineNumber);
+            // The category is looked up straight from the line, as trimming a copy of it would.
+            if (LineScanner.onCategory(lineNumber, line, matcher.start(1), matcher.end(1), categoryTable,
+                    categoryPopulator)) {
+                parseAndPopulateFavoriteItems(lineNumber, matcher.group(2));
             }
 
         } else {
-            addError("Invalid syntax in line %d, this line was skipped.", lineNumber);
+            categoryPopulator.onInvalidLine(lineNumber);
         }
     }
 
-    private void parseAndPopulateFavoriteItems(int lineNumber, Category category, String items) {
+    private void parseAndPopulateFavoriteItems(int lineNumber, String items) {
         Arrays.stream(items.split(","))
-                .forEach(item -> parseAndAddFavoriteItem(lineNumber, category, item));
+                .forEach(item -> parseAndAddFavoriteItem(lineNumber, item));
     }
 
-    private void parseAndAddFavoriteItem(int lineNumber, Category category, String item) {
+    private void parseAndAddFavoriteItem(int lineNumber, String item) {
         Matcher matcher = CATEGORY_ITEM_AND_SCORE.matcher(item);
         if (matcher.matches()) {
             String name = matcher.group(1);
             int score = Integer.parseInt(matcher.group(2));
-
-            Optional<FavoriteThing> existingItem = category.getFavoriteThingByName(name);
-            if (existingItem.isPresent()) {
-                addError("The score %d present on line %d for the item '%s' in the category '%s' " +
-                                "was ignored because there is already a previous score of %s set.",
-                        score, lineNumber, name, category.getName(), existingItem.get().getRating());
-            } else {
-                category.addFavoriteThing(name, score);
-            }
+            categoryPopulator.onFavoriteThing(lineNumber, name, score);
         } else {
-            addError("Invalid syntax for item '%s' of category '%s' on line %d.", item, category.getName(), lineNumber);
+            categoryPopulator.onInvalidItem(lineNumber, item);
         }
     }
 
-    private void addError(String format, Object... params) {
-        errors.add(String.format(format, params));
+    private void addError(ParsingError error) {
+        errors.add(error);
     }
 
     /**
@@ -118,14 +466,18 @@ public class FavoriteThingsParser {
      * parsing errors.
      */
     public boolean hasErrors() {
-        return !errors.isEmpty();
+        return errors.getErrorCount() > 0;
     }
 
     /**
-     * @return All non-critical errors raised so far through the {@link #parse(InputStream)} executions.
+     * @return All non-critical errors raised so far through the {@link #parse(InputStream)} executions, or only the
+     * first ones in case the {@link ParsingErrorLog} keeps a maximum of them, or none in case it hands them over to a
+     * sink.
      */
     public List<String> getParsingErrors() {
-        return Collections.unmodifiableList(errors);
+        return Collections.unmodifiableList(errors.getKeptErrors().stream()
+                .map(ParsingError::getMessage)
+                .collect(Collectors.toList()));
     }
 
     /**
@@ -140,4 +492,81 @@ public class FavoriteThingsParser {
         return categoryByName.get(name);
     }
 
+    /**
+     * Validates the tokens found by either tokenizer and populates the {@link Category} instances with them, keeping
+     * track of the category of the line being parsed.
+     */
+    private class CategoryPopulator implements FavoriteThingsHandler {
+
+        /**
+         * The categories already found by their id, so that the map of categories is only looked up once for each.
+         */
+        private final Category[] categoryById = new Category[categoryTable.size()];
+        private Category category;
+        private int timedLineNumber;
+        private long timedLineStart;
+
+        @Override
+        public boolean onCategory(int lineNumber, int categoryId, String categoryName) {
+            onLineStart(lineNumber);
+            if (!shard.owns(categoryName)) {
+                return false;
+            }
+            if (categoryId != CategoryTable.UNKNOWN) {
+                category = categoryById[categoryId];
+                if (category == null) {
+                    category = categoryByName.computeIfAbsent(categoryName, categoryFactory);
+                    categoryById[categoryId] = category;
+                }
+                return true;
+            }
+
+            addError(ParsingError.unknownCategory(lineNumber, categoryName));
+            return false;
+        }
+
+        @Override
+        public void onFavoriteThing(int lineNumber, String name, int rating) {
+            statistics.addItem();
+            if (!category.addFavoriteThingIfAbsent(name, rating)) {
+                addError(ParsingError.duplicatedItem(lineNumber, category, name, rating));
+            }
+        }
+
+        @Override
+        public void onInvalidItem(int lineNumber, String item) {
+            statistics.addItem();
+            addError(ParsingError.invalidItem(lineNumber, category.getName(), item));
+        }
+
+        @Override
+        public void onInvalidLine(int lineNumber) {
+            onLineStart(lineNumber);
+            if (shard.ownsInvalidLines()) {
+                addError(ParsingError.invalidLine(lineNumber));
+            }
+        }
+
+        /**
+         * Every line starts with either a category or an invalid line, which also ends the time of the previous one.
+         */
+        private void onLineStart(int lineNumber) {
+            if (statistics.isTrackingSlowLines()) {
+                long now = System.nanoTime();
+                if (timedLineNumber > 0) {
+                    statistics.onLineParsed(timedLineNumber, now - timedLineStart);
+                }
+                timedLineNumber = lineNumber;
+                timedLineStart = now;
+            }
+        }
+
+        private void onEndOfLines() {
+            if (statistics.isTrackingSlowLines() && timedLineNumber > 0) {
+                statistics.onLineParsed(timedLineNumber, System.nanoTime() - timedLineStart);
+                timedLineNumber = 0;
+            }
+        }
+    }
+
 }
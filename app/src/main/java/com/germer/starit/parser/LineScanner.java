@@ -0,0 +1,108 @@
+package com.germer.starit.parser;
+
+/**
+ * Hand-written, regex-free tokenizer for a single line of the Favorite-Things schema. It makes a single pass over the
+ * line looking for the ':' and ',' delimiters and reads the ratings straight into an int.
+ * <p>
+ * The accepted syntax mirrors exactly what the regex based tokenizer of {@link FavoriteThingsParser} accepts,
+ * including the {@link String#split(String)} quirks: trailing empty items are dropped, while leading or middle empty
+ * items are reported as invalid items. Ratings too big for an int fail with the same {@link NumberFormatException}
+ * {@link Integer#parseInt(String)} would throw.
+ */
+final class LineScanner {
+
+    private LineScanner() {
+    }
+
+    static void scan(int lineNumber, String line, CategoryTable categoryTable, FavoriteThingsHandler handler) {
+        int colon = line.indexOf(':');
+        if (colon <= 0) {
+            handler.onInvalidLine(lineNumber);
+            return;
+        }
+
+        if (!onCategory(lineNumber, line, 0, colon, categoryTable, handler)) {
+            return;
+        }
+
+        int start = colon + 1;
+        int end = line.length();
+        if (start == end) {
+            handler.onInvalidItem(lineNumber, "");
+            return;
+        }
+
+        while (end > start && line.charAt(end - 1) == ',') {
+            end--;
+        }
+        if (end == start) {
+            return;
+        }
+
+        int itemStart = start;
+        for (int i = start; i <= end; i++) {
+            if (i == end || line.charAt(i) == ',') {
+                scanItem(lineNumber, line, itemStart, i, handler);
+                itemStart = i + 1;
+            }
+        }
+    }
+
+    private static void scanItem(int lineNumber, String line, int start, int end, FavoriteThingsHandler handler) {
+        int nameEnd = start;
+        while (nameEnd < end && !isDigit(line.charAt(nameEnd))) {
+            nameEnd++;
+        }
+
+        if (nameEnd == start || nameEnd == end) {
+            handler.onInvalidItem(lineNumber, line.substring(start, end));
+            return;
+        }
+
+        int rating = 0;
+        for (int i = nameEnd; i < end; i++) {
+            char c = line.charAt(i);
+            if (!isDigit(c)) {
+                handler.onInvalidItem(lineNumber, line.substring(start, end));
+                return;
+            }
+            int digit = c - '0';
+            if (rating > (Integer.MAX_VALUE - digit) / 10) {
+                throw ratingOverflow(line.substring(nameEnd, end));
+            }
+            rating = rating * 10 + digit;
+        }
+
+        handler.onFavoriteThing(lineNumber, line.substring(start, nameEnd), rating);
+    }
+
+    /**
+     * @return The same exception {@link Integer#parseInt(String)} throws for a run of digits which overflows an int.
+     */
+    static NumberFormatException ratingOverflow(String digits) {
+        return new NumberFormatException("For input string: \"" + digits + "\"");
+    }
+
+    static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    /**
+     * Trims the category name between start and end as {@link String#trim()} does and looks it up, only creating a
+     * substring for the unknown ones.
+     *
+     * @return What the handler returned.
+     */
+    static boolean onCategory(int lineNumber, String line, int start, int end, CategoryTable categoryTable,
+                              FavoriteThingsHandler handler) {
+        while (start < end && line.charAt(start) <= ' ') {
+            start++;
+        }
+        while (end > start && line.charAt(end - 1) <= ' ') {
+            end--;
+        }
+        int categoryId = categoryTable.idOf(line, start, end);
+        return handler.onCategory(lineNumber, categoryId, categoryId == CategoryTable.UNKNOWN
+                ? line.substring(start, end) : categoryTable.nameOf(categoryId));
+    }
+}
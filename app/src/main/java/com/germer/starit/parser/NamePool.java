@@ -0,0 +1,118 @@
+package com.germer.starit.parser;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Open-addressing pool of the names found in UTF-8 encoded bytes, so that a {@link String} is only created the first
+ * time a given name appears. Pure ASCII names are compared straight against the bytes, while any other name falls
+ * back to be decoded before being compared.
+ */
+final class NamePool {
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    private String[] names = new String[INITIAL_CAPACITY];
+    private int[] hashes = new int[INITIAL_CAPACITY];
+    private int size;
+    private byte[] decodeBuffer = new byte[INITIAL_CAPACITY];
+
+    /**
+     * @return The pooled {@link String} for the UTF-8 bytes of the buffer between start (inclusive) and end
+     * (exclusive), creating it in case it's the first time these bytes are seen.
+     */
+    String intern(ByteBuffer buffer, int start, int end) {
+        int hash = 1;
+        int allBytes = 0;
+        for (int i = start; i < end; i++) {
+            byte b = buffer.get(i);
+            hash = 31 * hash + b;
+            allBytes |= b;
+        }
+        boolean ascii = allBytes >= 0;
+
+        String decoded = null;
+        int mask = names.length - 1;
+        int slot = spread(hash) & mask;
+        String name;
+        while ((name = names[slot]) != null) {
+            if (hashes[slot] == hash) {
+                if (ascii) {
+                    if (asciiEquals(name, buffer, start, end)) {
+                        return name;
+                    }
+                } else {
+                    if (decoded == null) {
+                        decoded = decode(buffer, start, end);
+                    }
+                    if (decoded.equals(name)) {
+                        return name;
+                    }
+                }
+            }
+            slot = (slot + 1) & mask;
+        }
+
+        if (decoded == null) {
+            decoded = decode(buffer, start, end);
+        }
+        names[slot] = decoded;
+        hashes[slot] = hash;
+        if (++size > names.length / 2) {
+            grow();
+        }
+        return decoded;
+    }
+
+    /**
+     * @return A new {@link String} decoded from the UTF-8 bytes of the buffer between start and end, without pooling.
+     */
+    String decode(ByteBuffer buffer, int start, int end) {
+        int length = end - start;
+        if (decodeBuffer.length < length) {
+            decodeBuffer = new byte[Math.max(length, decodeBuffer.length * 2)];
+        }
+        for (int i = 0; i < length; i++) {
+            decodeBuffer[i] = buffer.get(start + i);
+        }
+        return new String(decodeBuffer, 0, length, StandardCharsets.UTF_8);
+    }
+
+    int size() {
+        return size;
+    }
+
+    private static boolean asciiEquals(String name, ByteBuffer buffer, int start, int end) {
+        if (name.length() != end - start) {
+            return false;
+        }
+        for (int i = start; i < end; i++) {
+            if (name.charAt(i - start) != buffer.get(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void grow() {
+        String[] oldNames = names;
+        int[] oldHashes = hashes;
+        names = new String[oldNames.length * 2];
+        hashes = new int[oldNames.length * 2];
+        int mask = names.length - 1;
+        for (int i = 0; i < oldNames.length; i++) {
+            if (oldNames[i] != null) {
+                int slot = spread(oldHashes[i]) & mask;
+                while (names[slot] != null) {
+                    slot = (slot + 1) & mask;
+                }
+                names[slot] = oldNames[i];
+                hashes[slot] = oldHashes[i];
+            }
+        }
+    }
+
+    private static int spread(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+}
@@ -0,0 +1,262 @@
+package com.germer.starit.parser;
+
+import com.germer.starit.model.Category;
+import com.germer.starit.model.FavoriteThing;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.function.Function;
+import java.util.zip.CRC32;
+
+/**
+ * The state of a {@link FavoriteThingsParser} after parsing the complete lines of an append-only file, saved so that a
+ * later run only needs to parse what was appended since. Besides the parsed categories and errors, it keeps the byte
+ * offset and the number of the last parsed line, and a fingerprint of the file made of its size and the checksums of
+ * its first and last bytes before that offset. A file that got shorter or whose fingerprinted bytes changed was
+ * truncated or rewritten, and the checkpoint doesn't apply to it anymore.
+ * <p>
+ * Only the errors kept by the {@link ParsingErrorLog} are saved, along with the counters of all of them, so a
+ * checkpoint only applies to a log keeping the same maximum of errors. The errors it handed over to a sink aren't
+ * saved, only counted as reported, so they aren't reported again once the checkpoint is restored.
+ * <p>
+ * The checkpoint is a versioned binary file, written to a temporary file first and then moved over the previous one.
+ * The favorite things of each category are written in rating order, which is also the order they are added back, so
+ * that the restored categories keep the same order among equally rated favorite things.
+ */
+final class ParserCheckpoint {
+
+    private static final int MAGIC = 0x53544350;
+    private static final int FORMAT_VERSION = 4;
+    private static final int FINGERPRINT_WINDOW_SIZE = 1 << 12;
+
+    private final long offset;
+    private final int lineNumber;
+    private final long headChecksum;
+    private final long tailChecksum;
+
+    private ParserCheckpoint(long offset, int lineNumber, long headChecksum, long tailChecksum) {
+        this.offset = offset;
+        this.lineNumber = lineNumber;
+        this.headChecksum = headChecksum;
+        this.tailChecksum = tailChecksum;
+    }
+
+    /**
+     * @param source     The parsed file.
+     * @param offset     The offset right after the last parsed line.
+     * @param lineNumber The number of the last parsed line.
+     */
+    static ParserCheckpoint of(FileChannel source, long offset, int lineNumber) throws IOException {
+        return new ParserCheckpoint(offset, lineNumber, headChecksum(source, offset), tailChecksum(source, offset));
+    }
+
+    long getOffset() {
+        return offset;
+    }
+
+    int getLineNumber() {
+        return lineNumber;
+    }
+
+    /**
+     * Restores the checkpoint saved on the given path, in case there's one taken with the same valid category names,
+     * matched with the same case sensitivity, and maximum of kept errors, and still matching the fingerprint of the
+     * source file. The given categories and errors are only populated when the checkpoint is restored, an unreadable
+     * checkpoint being handled as a missing one.
+     *
+     * @return The restored checkpoint, or empty in case the file should be parsed from its beginning.
+     */
+    static Optional<ParserCheckpoint> restore(Path checkpointPath, FileChannel source, CategoryTable categoryTable,
+                                              Function<String, Category> categoryFactory,
+                                              Map<String, Category> categoryByName, ParsingErrorLog errors) {
+        if (!Files.isRegularFile(checkpointPath)) {
+            return Optional.empty();
+        }
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(checkpointPath)))) {
+            if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION) {
+                return Optional.empty();
+            }
+            ParserCheckpoint checkpoint = new ParserCheckpoint(in.readLong(), in.readInt(), in.readLong(),
+                    in.readLong());
+            if (!checkpoint.matches(source) || !readCategoryNames(in).equals(categoryTable.getNames())
+                    || in.readBoolean() != categoryTable.isIgnoreCase() || in.readInt() != errors.getMaxKeptErrors()) {
+                return Optional.empty();
+            }
+
+            Map<String, Category> restoredCategories = new LinkedHashMap<>();
+            for (int categories = in.readInt(); categories > 0; categories--) {
+                Category category = categoryFactory.apply(readString(in));
+                for (int favoriteThings = in.readInt(); favoriteThings > 0; favoriteThings--) {
+                    category.addFavoriteThing(readString(in), in.readInt());
+                }
+                restoredCategories.put(category.getName(), category);
+            }
+            List<ParsingError> restoredErrors = new ArrayList<>();
+            for (int errorCount = in.readInt(); errorCount > 0; errorCount--) {
+                restoredErrors.add(readError(in));
+            }
+            long[] restoredCounts = new long[ParsingError.Type.values().length];
+            for (int type = 0; type < restoredCounts.length; type++) {
+                restoredCounts[type] = in.readLong();
+            }
+            long restoredReportedCount = in.readLong();
+
+            categoryByName.putAll(restoredCategories);
+            errors.restore(restoredErrors, restoredCounts, restoredReportedCount);
+            return Optional.of(checkpoint);
+        } catch (IOException | RuntimeException e) {
+            // A corrupted checkpoint only costs parsing the file from its beginning again.
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Saves this checkpoint along with the given parser state, replacing any previous one.
+     *
+     * @throws IllegalStateException in case a category doesn't keep all its favorite things, so it can't be saved.
+     */
+    void save(Path checkpointPath, CategoryTable categoryTable, Collection<Category> categories,
+              ParsingErrorLog errors) throws IOException {
+        Path absolutePath = checkpointPath.toAbsolutePath();
+        Path temporaryPath = Files.createTempFile(absolutePath.getParent(), absolutePath.getFileName().toString(),
+                ".tmp");
+        try {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                    Files.newOutputStream(temporaryPath)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(FORMAT_VERSION);
+                out.writeLong(offset);
+                out.writeInt(lineNumber);
+                out.writeLong(headChecksum);
+                out.writeLong(tailChecksum);
+                writeCategoryNames(out, categoryTable.getNames());
+                out.writeBoolean(categoryTable.isIgnoreCase());
+                out.writeInt(errors.getMaxKeptErrors());
+                out.writeInt(categories.size());
+                for (Category category : categories) {
+                    writeCategory(out, category);
+                }
+                out.writeInt(errors.getKeptErrors().size());
+                for (ParsingError error : errors.getKeptErrors()) {
+                    writeError(out, error);
+                }
+                for (long count : errors.getCounts()) {
+                    out.writeLong(count);
+                }
+                out.writeLong(errors.getReportedCount());
+            }
+            try {
+                Files.move(temporaryPath, absolutePath, StandardCopyOption.REPLACE_EXISTING,
+                        StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temporaryPath, absolutePath, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temporaryPath);
+        }
+    }
+
+    private boolean matches(FileChannel source) throws IOException {
+        return source.size() >= offset
+                && headChecksum(source, offset) == headChecksum
+                && tailChecksum(source, offset) == tailChecksum;
+    }
+
+    private static long headChecksum(FileChannel source, long offset) throws IOException {
+        return checksum(source, 0, Math.min(offset, FINGERPRINT_WINDOW_SIZE));
+    }
+
+    private static long tailChecksum(FileChannel source, long offset) throws IOException {
+        long start = Math.max(0, offset - FINGERPRINT_WINDOW_SIZE);
+        return checksum(source, start, offset - start);
+    }
+
+    private static long checksum(FileChannel source, long position, long length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate((int) length);
+        while (buffer.hasRemaining()) {
+            if (source.read(buffer, position + buffer.position()) < 0) {
+                break;
+            }
+        }
+        CRC32 crc = new CRC32();
+        crc.update(buffer.array(), 0, buffer.position());
+        return crc.getValue();
+    }
+
+    private static void writeCategory(DataOutputStream out, Category category) throws IOException {
+        writeString(out, category.getName());
+        out.writeInt(category.size());
+        int written = 0;
+        // Not ordered by rating, which would freeze a bulk-loaded category before the lines after the checkpoint.
+        for (FavoriteThing favoriteThing : category.getFavoriteThings()) {
+            writeString(out, favoriteThing.getName());
+            out.writeInt(favoriteThing.getRating());
+            written++;
+        }
+        if (written != category.size()) {
+            throw new IllegalStateException(String.format("The category '%s' doesn't keep all its favorite " +
+                    "things, so it can't be checkpointed.", category.getName()));
+        }
+    }
+
+    static void writeError(DataOutputStream out, ParsingError error) throws IOException {
+        out.writeByte(error.getType().ordinal());
+        out.writeInt(error.getLineNumber());
+        writeNullableString(out, error.getCategoryName());
+        writeNullableString(out, error.getItem());
+        out.writeInt(error.getRating());
+        out.writeInt(error.getPreviousRating());
+    }
+
+    static ParsingError readError(DataInputStream in) throws IOException {
+        return ParsingError.of(ParsingError.Type.values()[in.readByte()], in.readInt(), readNullableString(in),
+                readNullableString(in), in.readInt(), in.readInt());
+    }
+
+    private static void writeCategoryNames(DataOutputStream out, Set<String> categoryNames) throws IOException {
+        out.writeInt(categoryNames.size());
+        for (String categoryName : categoryNames) {
+            writeString(out, categoryName);
+        }
+    }
+
+    private static Set<String> readCategoryNames(DataInputStream in) throws IOException {
+        Set<String> categoryNames = new HashSet<>();
+        for (int count = in.readInt(); count > 0; count--) {
+            categoryNames.add(readString(in));
+        }
+        return categoryNames;
+    }
+
+    static void writeNullableString(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            writeString(out, value);
+        }
+    }
+
+    static String readNullableString(DataInputStream in) throws IOException {
+        return in.readBoolean() ? readString(in) : null;
+    }
+
+    /**
+     * Strings are written as their UTF-8 length and bytes, since {@link DataOutputStream#writeUTF(String)} is limited
+     * to 64KB.
+     */
+    static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    static String readString(DataInputStream in) throws IOException {
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,112 @@
+package com.germer.starit.parser;
+
+import com.germer.starit.model.Category;
+import com.germer.starit.model.FavoriteThing;
+import lombok.Getter;
+
+import java.util.Optional;
+
+/**
+ * A non-critical problem found while parsing, kept as plain data so that it can be renumbered when it's found on a
+ * chunk of the source whose first line number is not yet known, and only formatted when its message is needed. When
+ * several sources are parsed together, the error also holds the name of its source, which prefixes its message.
+ */
+@Getter
+public final class ParsingError {
+
+    public enum Type {
+        INVALID_LINE, UNKNOWN_CATEGORY, INVALID_ITEM, DUPLICATED_ITEM, PROBABLY_DUPLICATED_ITEM
+    }
+
+    private final String sourceName;
+    private final Type type;
+    private final int lineNumber;
+    private final String categoryName;
+    private final String item;
+    private final int rating;
+    private final int previousRating;
+
+    private ParsingError(Type type, int lineNumber, String categoryName, String item, int rating, int previousRating) {
+        this(null, type, lineNumber, categoryName, item, rating, previousRating);
+    }
+
+    private ParsingError(String sourceName, Type type, int lineNumber, String categoryName, String item, int rating,
+                         int previousRating) {
+        this.sourceName = sourceName;
+        this.type = type;
+        this.lineNumber = lineNumber;
+        this.categoryName = categoryName;
+        this.item = item;
+        this.rating = rating;
+        this.previousRating = previousRating;
+    }
+
+    static ParsingError of(Type type, int lineNumber, String categoryName, String item, int rating,
+                           int previousRating) {
+        return new ParsingError(type, lineNumber, categoryName, item, rating, previousRating);
+    }
+
+    static ParsingError invalidLine(int lineNumber) {
+        return new ParsingError(Type.INVALID_LINE, lineNumber, null, null, 0, 0);
+    }
+
+    static ParsingError unknownCategory(int lineNumber, String categoryName) {
+        return new ParsingError(Type.UNKNOWN_CATEGORY, lineNumber, categoryName, null, 0, 0);
+    }
+
+    static ParsingError invalidItem(int lineNumber, String categoryName, String item) {
+        return new ParsingError(Type.INVALID_ITEM, lineNumber, categoryName, item, 0, 0);
+    }
+
+    /**
+     * @return The error for a favorite thing rejected by the given {@link Category} for being a duplicate, which may
+     * only be probable in case the category can't tell the previous rating.
+     */
+    static ParsingError duplicatedItem(int lineNumber, Category category, String name, int rating) {
+        Optional<FavoriteThing> existingItem = category.getFavoriteThingByName(name);
+        if (existingItem.isPresent()) {
+            return new ParsingError(Type.DUPLICATED_ITEM, lineNumber, category.getName(), name, rating,
+                    existingItem.get().getRating());
+        }
+        return new ParsingError(Type.PROBABLY_DUPLICATED_ITEM, lineNumber, category.getName(), name, rating, 0);
+    }
+
+    /**
+     * @param sourceName The name of the source the error was found on, or null.
+     * @param lineOffset The amount of lines its line number is shifted by.
+     * @return A copy of this error located on the given source.
+     */
+    ParsingError withLocation(String sourceName, int lineOffset) {
+        if (sourceName == null && lineOffset == 0) {
+            return this;
+        }
+        return new ParsingError(sourceName, type, lineNumber + lineOffset, categoryName, item, rating,
+                previousRating);
+    }
+
+    public String getMessage() {
+        return sourceName == null ? getMessageWithinSource() : sourceName + ": " + getMessageWithinSource();
+    }
+
+    private String getMessageWithinSource() {
+        switch (type) {
+            case INVALID_LINE:
+                return String.format("Invalid syntax in line %d, this line was skipped.", lineNumber);
+            case UNKNOWN_CATEGORY:
+                return String.format("Unknown category '%s' on line %d, this line was skipped.",
+                        categoryName, lineNumber);
+            case INVALID_ITEM:
+                return String.format("Invalid syntax for item '%s' of category '%s' on line %d.",
+                        item, categoryName, lineNumber);
+            case DUPLICATED_ITEM:
+                return String.format("The score %d present on line %d for the item '%s' in the category '%s' " +
+                                "was ignored because there is already a previous score of %s set.",
+                        rating, lineNumber, item, categoryName, previousRating);
+            case PROBABLY_DUPLICATED_ITEM:
+                return String.format("The score %d present on line %d for the item '%s' in the category '%s' " +
+                        "was ignored because it's probably a duplicate.", rating, lineNumber, item, categoryName);
+            default:
+                throw new IllegalStateException("Unexpected parsing error type: " + type);
+        }
+    }
+}
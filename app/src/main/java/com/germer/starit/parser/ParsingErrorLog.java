@@ -0,0 +1,107 @@
+package com.germer.starit.parser;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Collects the {@link ParsingError}s of a {@link FavoriteThingsParser}: every error is counted by its type, but only
+ * the first ones up to a maximum are reported, the next ones being suppressed. The reported errors are either kept,
+ * or handed over to a sink as they are found, so that they can be written while parsing instead of once it's over,
+ * in which case only their counters are kept and the memory taken by the log doesn't grow with the errors.
+ * <p>
+ * Errors are only formatted when their message is read, so suppressed errors cost no more than a counter.
+ */
+public final class ParsingErrorLog {
+
+    public static final int UNLIMITED = Integer.MAX_VALUE;
+
+    private final int maxKeptErrors;
+    private final Consumer<ParsingError> sink;
+    private final List<ParsingError> keptErrors = new ArrayList<>();
+    private final long[] countByType = new long[ParsingError.Type.values().length];
+    private long reportedCount;
+
+    /**
+     * Creates a log keeping all the errors, without any sink.
+     */
+    public ParsingErrorLog() {
+        this(UNLIMITED, null);
+    }
+
+    /**
+     * @param maxKeptErrors The maximum amount of errors reported, kept or handed over to the sink.
+     * @param sink          Receives each reported error as soon as it's found, in file order, instead of keeping it,
+     *                      or null to keep the reported errors.
+     */
+    public ParsingErrorLog(int maxKeptErrors, Consumer<ParsingError> sink) {
+        if (maxKeptErrors < 0) {
+            throw new IllegalArgumentException(String.format("Invalid maximum of kept errors %d, it can't be " +
+                    "negative.", maxKeptErrors));
+        }
+        this.maxKeptErrors = maxKeptErrors;
+        this.sink = sink;
+    }
+
+    void add(ParsingError error) {
+        countByType[error.getType().ordinal()]++;
+        if (reportedCount < maxKeptErrors) {
+            reportedCount++;
+            if (sink != null) {
+                sink.accept(error);
+            } else {
+                keptErrors.add(error);
+            }
+        }
+    }
+
+    /**
+     * Adds back the errors kept by a previous parsing and replaces the counters with its ones, as if the same errors
+     * were found again. The errors it handed over to a sink aren't found again, but still count as reported.
+     */
+    void restore(List<ParsingError> errors, long[] counts, long reportedCount) {
+        errors.forEach(this::add);
+        System.arraycopy(counts, 0, countByType, 0, countByType.length);
+        this.reportedCount = Math.max(this.reportedCount, Math.min(reportedCount, maxKeptErrors));
+    }
+
+    public int getMaxKeptErrors() {
+        return maxKeptErrors;
+    }
+
+    /**
+     * @return The first errors found, up to the maximum, in file order, or none in case they were handed over to a
+     * sink.
+     */
+    public List<ParsingError> getKeptErrors() {
+        return Collections.unmodifiableList(keptErrors);
+    }
+
+    /**
+     * @return The amount of errors found, including the suppressed ones.
+     */
+    public long getErrorCount() {
+        return Arrays.stream(countByType).sum();
+    }
+
+    public long getErrorCount(ParsingError.Type type) {
+        return countByType[type.ordinal()];
+    }
+
+    /**
+     * @return The amount of errors found but neither kept nor handed over to the sink.
+     */
+    public long getSuppressedCount() {
+        return getErrorCount() - reportedCount;
+    }
+
+    long getReportedCount() {
+        return reportedCount;
+    }
+
+    long[] getCounts() {
+        return countByType.clone();
+    }
+}
@@ -0,0 +1,38 @@
+package com.germer.starit.parser;
+
+import java.io.*;
+import java.util.function.Consumer;
+
+/**
+ * A sink for a {@link ParsingErrorLog} writing the message of each error on its own line as soon as it's found,
+ * through a buffer, so that errors don't pile up in memory nor cost a flush each. The writer must be flushed once the
+ * parsing is over.
+ */
+public final class ParsingErrorWriter implements Consumer<ParsingError>, Flushable {
+
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final Writer writer;
+
+    /**
+     * @param out The stream the errors are written to, in the default charset, which is flushed but never closed.
+     */
+    public ParsingErrorWriter(OutputStream out) {
+        this.writer = new BufferedWriter(new OutputStreamWriter(out), BUFFER_SIZE);
+    }
+
+    @Override
+    public void accept(ParsingError error) {
+        try {
+            writer.write(error.getMessage());
+            writer.write(System.lineSeparator());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to write a parsing error.", e);
+        }
+    }
+
+    @Override
+    public void flush() throws IOException {
+        writer.flush();
+    }
+}
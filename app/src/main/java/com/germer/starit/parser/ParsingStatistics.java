@@ -0,0 +1,95 @@
+package com.germer.starit.parser;
+
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Counts what a {@link FavoriteThingsParser} went through: the bytes of the (decompressed) contents, the lines and the
+ * favorite things found on them, valid or not. These are plain counters, which cost next to nothing.
+ * <p>
+ * Lines taking longer than a threshold to be parsed can also be tracked, in which case the time of each line is taken
+ * from the start of the line to the start of the next one. Slow lines are only tracked by the sequential parsing, as
+ * lines parsed in parallel chunks don't know their line numbers yet. Each slow line is also recorded as a
+ * {@link SlowLineEvent} by the Flight Recorder, when it's recording with this event enabled.
+ */
+@Getter
+public final class ParsingStatistics {
+
+    public static final int MAX_KEPT_SLOW_LINES = 10;
+
+    private final long slowLineThresholdNanos;
+    private final List<SlowLine> slowLines = new ArrayList<>();
+    private long byteCount;
+    private long lineCount;
+    private long itemCount;
+    private long slowLineCount;
+
+    /**
+     * Creates statistics which don't track slow lines.
+     */
+    public ParsingStatistics() {
+        this(0);
+    }
+
+    /**
+     * @param slowLineThresholdNanos The time from which a line is reported as slow, or 0 not to track slow lines.
+     */
+    public ParsingStatistics(long slowLineThresholdNanos) {
+        if (slowLineThresholdNanos < 0) {
+            throw new IllegalArgumentException(String.format("Invalid slow line threshold %d, it can't be " +
+                    "negative.", slowLineThresholdNanos));
+        }
+        this.slowLineThresholdNanos = slowLineThresholdNanos;
+    }
+
+    void add(long bytes, long lines, long items) {
+        byteCount += bytes;
+        lineCount += lines;
+        itemCount += items;
+    }
+
+    void addItem() {
+        itemCount++;
+    }
+
+    public boolean isTrackingSlowLines() {
+        return slowLineThresholdNanos > 0;
+    }
+
+    void onLineParsed(int lineNumber, long nanos) {
+        if (nanos >= slowLineThresholdNanos) {
+            slowLineCount++;
+            if (slowLines.size() < MAX_KEPT_SLOW_LINES) {
+                slowLines.add(new SlowLine(lineNumber, nanos));
+            }
+            SlowLineEvent event = new SlowLineEvent();
+            if (event.shouldCommit()) {
+                event.lineNumber = lineNumber;
+                event.nanos = nanos;
+                event.commit();
+            }
+        }
+    }
+
+    /**
+     * @return The first slow lines found, up to {@value MAX_KEPT_SLOW_LINES}, in file order.
+     */
+    public List<SlowLine> getSlowLines() {
+        return Collections.unmodifiableList(slowLines);
+    }
+
+    @Getter
+    public static final class SlowLine {
+
+        private final int lineNumber;
+        private final long nanos;
+
+        private SlowLine(int lineNumber, long nanos) {
+            this.lineNumber = lineNumber;
+            this.nanos = nanos;
+        }
+    }
+}
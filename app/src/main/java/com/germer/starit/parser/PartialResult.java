@@ -0,0 +1,213 @@
+package com.germer.starit.parser;
+
+import com.germer.starit.model.Category;
+import com.germer.starit.model.FavoriteThing;
+import lombok.Getter;
+
+import java.io.*;
+import java.util.*;
+
+/**
+ * The results of parsing a {@link Shard} of the categories, small enough to be handed over to another process: a
+ * summary of each category, made of its size, total score and highest rated favorite thing, along with the errors
+ * found. The partial results of all the shards are merged into the results of a single parsing, see
+ * {@link #merge(List, List)}, without ever holding the favorite things of more than one shard in one process.
+ * <p>
+ * A partial result is written as a binary, big-endian stream made of a magic number, the format version, the amount
+ * of categories followed by their summaries and the amount of errors followed by them, in source order.
+ */
+public final class PartialResult {
+
+    private static final int MAGIC = 0x53545052;
+    private static final int FORMAT_VERSION = 1;
+
+    /**
+     * Iterated as the categories of a {@link FavoriteThingsParser}, so that ties are settled the same way.
+     */
+    private final Map<String, CategorySummary> categoryByName = new HashMap<>();
+    private final List<ParsingError> errors;
+
+    private PartialResult(List<ParsingError> errors) {
+        this.errors = errors;
+    }
+
+    /**
+     * @param categories The categories parsed for a shard.
+     * @param errorLog   The errors found while parsing them, which must all have been kept.
+     * @throws IllegalArgumentException in case some errors were suppressed, as they couldn't be merged back in order.
+     */
+    public static PartialResult of(Collection<Category> categories, ParsingErrorLog errorLog) {
+        if (errorLog.getSuppressedCount() > 0) {
+            throw new IllegalArgumentException("A partial result must keep all the errors, but some were suppressed.");
+        }
+        PartialResult result = new PartialResult(new ArrayList<>(errorLog.getKeptErrors()));
+        for (Category category : categories) {
+            result.add(new CategorySummary(category.getName(), category.size(), category.getTotalScore(),
+                    category.getHighestRatingFavoriteItem().orElse(null)));
+        }
+        return result;
+    }
+
+    /**
+     * Merges the partial results of disjoint shards, the errors being sorted back in source order.
+     *
+     * @param partialResults The partial results, in the order of their shards.
+     * @param sourceNames    The names of the sources the errors were reported with, in the order they were parsed,
+     *                       or null in case a single source was parsed.
+     * @throws IllegalArgumentException in case a category is found on more than one partial result.
+     */
+    public static PartialResult merge(List<PartialResult> partialResults, List<String> sourceNames) {
+        List<ParsingError> errors = new ArrayList<>();
+        for (PartialResult partialResult : partialResults) {
+            errors.addAll(partialResult.errors);
+        }
+        // Every line belongs to a single shard, so the stable sort keeps the errors of a line in their order.
+        Map<String, Integer> sourceIndexByName = new HashMap<>();
+        if (sourceNames != null) {
+            for (int index = sourceNames.size() - 1; index >= 0; index--) {
+                sourceIndexByName.put(sourceNames.get(index), index);
+            }
+        }
+        errors.sort(Comparator.<ParsingError>comparingInt(error -> error.getSourceName() == null ? 0
+                : sourceIndexByName.getOrDefault(error.getSourceName(), 0))
+                .thenComparingInt(ParsingError::getLineNumber));
+
+        PartialResult merged = new PartialResult(errors);
+        for (PartialResult partialResult : partialResults) {
+            partialResult.categoryByName.values().forEach(merged::add);
+        }
+        return merged;
+    }
+
+    /**
+     * @throws IllegalArgumentException in case the stream isn't a partial result of the supported version.
+     */
+    public static PartialResult readFrom(InputStream inputStream) throws IOException {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(inputStream));
+        if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION) {
+            throw new IllegalArgumentException(String.format("The stream is not a partial result of version %d.",
+                    FORMAT_VERSION));
+        }
+        int categoryCount = in.readInt();
+        List<CategorySummary> categories = new ArrayList<>(Math.min(categoryCount, 1024));
+        for (int category = 0; category < categoryCount; category++) {
+            String name = ParserCheckpoint.readString(in);
+            int size = in.readInt();
+            int totalScore = in.readInt();
+            FavoriteThing highestRatingFavoriteThing = in.readBoolean()
+                    ? FavoriteThing.of(name, ParserCheckpoint.readString(in), in.readInt()) : null;
+            categories.add(new CategorySummary(name, size, totalScore, highestRatingFavoriteThing));
+        }
+        int errorCount = in.readInt();
+        List<ParsingError> errors = new ArrayList<>(Math.min(errorCount, 1024));
+        for (int error = 0; error < errorCount; error++) {
+            String sourceName = ParserCheckpoint.readNullableString(in);
+            errors.add(ParserCheckpoint.readError(in).withLocation(sourceName, 0));
+        }
+
+        PartialResult result = new PartialResult(errors);
+        categories.forEach(result::add);
+        return result;
+    }
+
+    /**
+     * Writes this partial result, flushing but not closing the stream.
+     */
+    public void writeTo(OutputStream outputStream) throws IOException {
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(outputStream, 1 << 16));
+        out.writeInt(MAGIC);
+        out.writeInt(FORMAT_VERSION);
+        out.writeInt(categoryByName.size());
+        for (CategorySummary category : categoryByName.values()) {
+            ParserCheckpoint.writeString(out, category.name);
+            out.writeInt(category.size);
+            out.writeInt(category.totalScore);
+            out.writeBoolean(category.highestRatingFavoriteThing != null);
+            if (category.highestRatingFavoriteThing != null) {
+                ParserCheckpoint.writeString(out, category.highestRatingFavoriteThing.getName());
+                out.writeInt(category.highestRatingFavoriteThing.getRating());
+            }
+        }
+        out.writeInt(errors.size());
+        for (ParsingError error : errors) {
+            ParserCheckpoint.writeNullableString(out, error.getSourceName());
+            ParserCheckpoint.writeError(out, error);
+        }
+        out.flush();
+    }
+
+    public int getCategoryCount() {
+        return categoryByName.size();
+    }
+
+    public Collection<CategorySummary> getCategories() {
+        return Collections.unmodifiableCollection(categoryByName.values());
+    }
+
+    /**
+     * @return The errors, in source order.
+     */
+    public List<ParsingError> getErrors() {
+        return Collections.unmodifiableList(errors);
+    }
+
+    /**
+     * @return The highest rated {@link FavoriteThing} among all categories, or empty in case there's none.
+     */
+    public Optional<FavoriteThing> getHighestRatingFavoriteThing() {
+        FavoriteThing highest = null;
+        for (CategorySummary category : categoryByName.values()) {
+            FavoriteThing favoriteThing = category.highestRatingFavoriteThing;
+            if (favoriteThing != null && (highest == null || favoriteThing.getRating() > highest.getRating())) {
+                highest = favoriteThing;
+            }
+        }
+        return Optional.ofNullable(highest);
+    }
+
+    /**
+     * @return The category with the highest total score, or empty in case there are no categories.
+     */
+    public Optional<CategorySummary> getHighestTotalScoreCategory() {
+        CategorySummary highest = null;
+        for (CategorySummary category : categoryByName.values()) {
+            if (highest == null || category.totalScore > highest.totalScore) {
+                highest = category;
+            }
+        }
+        return Optional.ofNullable(highest);
+    }
+
+    private void add(CategorySummary category) {
+        if (categoryByName.putIfAbsent(category.name, category) != null) {
+            throw new IllegalArgumentException(String.format("The category '%s' is found on more than one partial " +
+                    "result, which must be of disjoint shards.", category.name));
+        }
+    }
+
+    /**
+     * What the results need from a category, without any of its favorite things but the highest rated one.
+     */
+    @Getter
+    public static final class CategorySummary {
+
+        private final String name;
+        private final int size;
+        private final int totalScore;
+        private final FavoriteThing highestRatingFavoriteThing;
+
+        private CategorySummary(String name, int size, int totalScore, FavoriteThing highestRatingFavoriteThing) {
+            this.name = name;
+            this.size = size;
+            this.totalScore = totalScore;
+            this.highestRatingFavoriteThing = highestRatingFavoriteThing;
+        }
+
+        /**
+         * @return The highest rated {@link FavoriteThing}, or empty in case the category has none.
+         */
+        public Optional<FavoriteThing> getHighestRatingFavoriteThing() {
+            return Optional.ofNullable(highestRatingFavoriteThing);
+        }
+    }
+}
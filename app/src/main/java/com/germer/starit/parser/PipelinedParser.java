@@ -0,0 +1,242 @@
+package com.germer.starit.parser;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.concurrent.*;
+import java.util.function.Function;
+
+/**
+ * Parses a stream through three stages running at the same time, so that reading, tokenizing and populating the
+ * categories overlap:
+ * <ol>
+ *     <li>a reader thread fills batches of bytes from the stream, each one ending on a line boundary;</li>
+ *     <li>a pool of tokenizer threads scans the batches into lists of tokens, one batch per thread at a time;</li>
+ *     <li>the calling thread, as the single writer, replays the tokens of each batch in stream order to the handler
+ *     populating the categories, shifting their line numbers by the lines of the previous batches.</li>
+ * </ol>
+ * The batches are handed over through a bounded queue, in stream order, which holds the reader back once as many
+ * batches as its capacity are waiting to be replayed, so that no more than a few batches are ever held in memory.
+ * As the tokens reach the handler in the same order of a sequential parsing, duplicates and errors are the same too.
+ */
+final class PipelinedParser {
+
+    private static final int QUEUED_BATCHES_PER_THREAD = 2;
+    private static final Future<Batch> END_OF_STREAM = CompletableFuture.completedFuture(null);
+
+    private final CategoryTable categoryTable;
+    private final Shard shard;
+    private final FavoriteThingsHandler writer;
+    private final int tokenizerThreads;
+    private final int batchSize;
+    private long byteCount;
+    private int lineCount;
+
+    /**
+     * @param shard     The categories whose items are tokenized, the lines of the other ones only yielding their
+     *                  category token.
+     * @param writer    Receives all the tokens in stream order, on the calling thread.
+     * @param batchSize The size in bytes of each batch, which grows for lines longer than it.
+     */
+    PipelinedParser(CategoryTable categoryTable, Shard shard, FavoriteThingsHandler writer, int tokenizerThreads,
+                    int batchSize) {
+        this.categoryTable = categoryTable;
+        this.shard = shard;
+        this.writer = writer;
+        this.tokenizerThreads = tokenizerThreads;
+        this.batchSize = batchSize;
+    }
+
+    void parse(InputStream inputStream) throws IOException {
+        BlockingQueue<Future<Batch>> batches = new ArrayBlockingQueue<>(tokenizerThreads * QUEUED_BATCHES_PER_THREAD);
+        ExecutorService tokenizers = Executors.newFixedThreadPool(tokenizerThreads,
+                runnable -> newStageThread(runnable, "favorite-things-tokenizer"));
+        ThreadLocal<Tokenizer> tokenizer = ThreadLocal.withInitial(Tokenizer::new);
+        ExecutorService reader = Executors.newSingleThreadExecutor(
+                runnable -> newStageThread(runnable, "favorite-things-reader"));
+        try {
+            reader.submit(() -> {
+                read(inputStream, batches, bytes -> tokenizers.submit(() -> tokenizer.get().tokenize(bytes)));
+                return null;
+            });
+
+            Future<Batch> batch;
+            while ((batch = batches.take()) != END_OF_STREAM) {
+                replay(batch.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while parsing the favorite things source.", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof UncheckedIOException) {
+                throw ((UncheckedIOException) e.getCause()).getCause();
+            }
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException("Failed to parse a batch of the favorite things source.", e.getCause());
+        } finally {
+            reader.shutdownNow();
+            tokenizers.shutdownNow();
+        }
+    }
+
+    long getByteCount() {
+        return byteCount;
+    }
+
+    int getLineCount() {
+        return lineCount;
+    }
+
+    /**
+     * Reads the stream into batches of complete lines, queueing the tokenizing of each batch followed by
+     * {@link #END_OF_STREAM}, or by a failed batch in case the stream can't be read.
+     */
+    private void read(InputStream inputStream, BlockingQueue<Future<Batch>> batches,
+                      Function<byte[], Future<Batch>> tokenizing) throws InterruptedException {
+        try {
+            ByteBuffer buffer = ByteBuffer.allocate(batchSize);
+            int read = 0;
+            while (read >= 0) {
+                read = inputStream.read(buffer.array(), buffer.position(), buffer.remaining());
+                if (read > 0) {
+                    buffer.position(buffer.position() + read);
+                }
+                if (buffer.hasRemaining() && read >= 0) {
+                    continue;
+                }
+
+                buffer.flip();
+                int end = read < 0 ? buffer.limit() : ByteScanner.endOfLastLine(buffer);
+                if (end == 0 && read >= 0) {
+                    // A single line longer than the batch.
+                    buffer = ByteBuffer.allocate(buffer.capacity() * 2).put(buffer);
+                    continue;
+                }
+                if (end > 0) {
+                    byteCount += end;
+                    batches.put(tokenizing.apply(Arrays.copyOf(buffer.array(), end)));
+                }
+                buffer.position(end);
+                buffer.compact();
+            }
+            batches.put(END_OF_STREAM);
+        } catch (IOException e) {
+            CompletableFuture<Batch> failure = new CompletableFuture<>();
+            failure.completeExceptionally(new UncheckedIOException(e));
+            batches.put(failure);
+        }
+    }
+
+    private void replay(Batch batch) {
+        for (int i = 0; i < batch.size; i++) {
+            int lineNumber = lineCount + batch.lineNumbers[i];
+            switch (batch.types[i]) {
+                case Batch.CATEGORY:
+                    writer.onCategory(lineNumber, batch.ratings[i], batch.values[i]);
+                    break;
+                case Batch.FAVORITE_THING:
+                    writer.onFavoriteThing(lineNumber, batch.values[i], batch.ratings[i]);
+                    break;
+                case Batch.INVALID_ITEM:
+                    writer.onInvalidItem(lineNumber, batch.values[i]);
+                    break;
+                default:
+                    writer.onInvalidLine(lineNumber);
+            }
+        }
+        // Fails only once the tokens found before the failure were replayed, as a sequential parsing would.
+        if (batch.failure != null) {
+            throw batch.failure;
+        }
+        lineCount += batch.lineCount;
+    }
+
+    private static Thread newStageThread(Runnable runnable, String name) {
+        Thread thread = new Thread(runnable, name);
+        thread.setDaemon(true);
+        return thread;
+    }
+
+    /**
+     * Scans batches into tokens on one of the tokenizer threads, pooling the names across all its batches.
+     */
+    private final class Tokenizer implements FavoriteThingsHandler {
+
+        private final ByteScanner scanner = new ByteScanner(this, categoryTable);
+        private Batch batch;
+        private int lineOffset;
+
+        private Batch tokenize(byte[] bytes) {
+            batch = new Batch();
+            lineOffset = scanner.getLineNumber();
+            try {
+                scanner.scan(ByteBuffer.wrap(bytes), true);
+            } catch (RuntimeException e) {
+                batch.failure = e;
+            }
+            batch.lineCount = scanner.getLineNumber() - lineOffset;
+            return batch;
+        }
+
+        @Override
+        public boolean onCategory(int lineNumber, int categoryId, String categoryName) {
+            batch.add(Batch.CATEGORY, lineNumber - lineOffset, categoryName, categoryId);
+            return categoryId != CategoryTable.UNKNOWN && shard.owns(categoryName);
+        }
+
+        @Override
+        public void onFavoriteThing(int lineNumber, String name, int rating) {
+            batch.add(Batch.FAVORITE_THING, lineNumber - lineOffset, name, rating);
+        }
+
+        @Override
+        public void onInvalidItem(int lineNumber, String item) {
+            batch.add(Batch.INVALID_ITEM, lineNumber - lineOffset, item, 0);
+        }
+
+        @Override
+        public void onInvalidLine(int lineNumber) {
+            batch.add(Batch.INVALID_LINE, lineNumber - lineOffset, null, 0);
+        }
+    }
+
+    /**
+     * The tokens of a batch as parallel arrays, numbered by their line within the batch. The ratings of the category
+     * tokens are their ids.
+     */
+    private static final class Batch {
+
+        private static final byte CATEGORY = 0;
+        private static final byte FAVORITE_THING = 1;
+        private static final byte INVALID_ITEM = 2;
+        private static final byte INVALID_LINE = 3;
+        private static final int INITIAL_CAPACITY = 1 << 10;
+
+        private byte[] types = new byte[INITIAL_CAPACITY];
+        private int[] lineNumbers = new int[INITIAL_CAPACITY];
+        private String[] values = new String[INITIAL_CAPACITY];
+        private int[] ratings = new int[INITIAL_CAPACITY];
+        private int size;
+        private int lineCount;
+        private RuntimeException failure;
+
+        private void add(byte type, int lineNumber, String value, int rating) {
+            if (size == types.length) {
+                int capacity = size * 2;
+                types = Arrays.copyOf(types, capacity);
+                lineNumbers = Arrays.copyOf(lineNumbers, capacity);
+                values = Arrays.copyOf(values, capacity);
+                ratings = Arrays.copyOf(ratings, capacity);
+            }
+            types[size] = type;
+            lineNumbers[size] = lineNumber;
+            values[size] = value;
+            ratings[size] = rating;
+            size++;
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.germer.starit.parser;
+
+import lombok.Getter;
+
+/**
+ * One of the partitions of the categories, so that several processes can parse the same sources, each one keeping
+ * only the categories of its own shard. Every category belongs to exactly one shard, chosen by the hash of its name,
+ * and the lines without any category belong to the first shard, so that every favorite thing is kept and every error
+ * is reported by exactly one shard.
+ * <p>
+ * As a category is never split across shards, the favorite things of a shard are de-duplicated on their own, and the
+ * partial results of all the shards add up to the results of a single parsing, see {@link PartialResult}.
+ */
+@Getter
+public final class Shard {
+
+    /**
+     * The single shard holding all the categories.
+     */
+    public static final Shard ALL = new Shard(0, 1);
+
+    private final int index;
+    private final int count;
+
+    private Shard(int index, int count) {
+        this.index = index;
+        this.count = count;
+    }
+
+    /**
+     * @param index The zero-based index of the shard.
+     * @param count The amount of shards the categories are split into.
+     * @throws IllegalArgumentException in case the index isn't one of the shards.
+     */
+    public static Shard of(int index, int count) {
+        if (count < 1 || index < 0 || index >= count) {
+            throw new IllegalArgumentException(String.format("Invalid shard %d of %d, the index must be at least 0 " +
+                    "and lower than the amount of shards.", index, count));
+        }
+        return count == 1 ? ALL : new Shard(index, count);
+    }
+
+    /**
+     * @param categoryName The name of a category as configured, or as found on the line in case it's unknown.
+     */
+    public boolean owns(String categoryName) {
+        return count == 1 || Math.floorMod(categoryName.hashCode(), count) == index;
+    }
+
+    boolean ownsInvalidLines() {
+        return index == 0;
+    }
+
+    /**
+     * @return The shard as <code>index/count</code>, as it's given on the command line.
+     */
+    @Override
+    public String toString() {
+        return index + "/" + count;
+    }
+}
@@ -0,0 +1,21 @@
+package com.germer.starit.parser;
+
+import jdk.jfr.*;
+
+/**
+ * The Flight Recorder event of a line which took longer than the slow line threshold to be parsed.
+ */
+@Name("com.germer.starit.SlowLine")
+@Label("Slow Line")
+@Category("Starit")
+@Description("A line which took longer than the slow line threshold to be parsed")
+@StackTrace(false)
+final class SlowLineEvent extends Event {
+
+    @Label("Line Number")
+    int lineNumber;
+
+    @Label("Parsing Time")
+    @Timespan(Timespan.NANOSECONDS)
+    long nanos;
+}
@@ -0,0 +1,20 @@
+package com.germer.starit.parser;
+
+/**
+ * The strategies available to {@link FavoriteThingsParser} for breaking each line into its category name and
+ * favorite-things tokens. Both strategies accept exactly the same syntax and report exactly the same errors.
+ */
+public enum TokenizerMode {
+
+    /**
+     * The original regular-expression based tokenizer, matching each line and each item with a {@link
+     * java.util.regex.Pattern}.
+     */
+    REGEX,
+
+    /**
+     * A hand-written tokenizer which makes a single pass over each line looking for the ':' and ',' delimiters and
+     * reads the ratings straight into an int, without intermediate Strings or regular expressions.
+     */
+    SCANNER
+}
@@ -0,0 +1,68 @@
+package com.germer.starit.server;
+
+import com.germer.starit.model.Category;
+import com.germer.starit.model.FavoriteThing;
+import com.germer.starit.model.GlobalRanking;
+
+import java.util.*;
+
+/**
+ * A read-only view of the parsed categories served by {@link FavoriteThingsServer}, with the results of the whole
+ * dataset queries computed upfront. The categories must not be changed once indexed, so that they can be read by
+ * any amount of threads at once; changes are folded in by indexing a new set of categories instead.
+ */
+final class FavoriteThingsIndex {
+
+    private final Map<String, Category> categoryByName;
+    private final FavoriteThing highestRatingFavoriteThing;
+    private final Category highestTotalScoreCategory;
+    private final GlobalRanking ranking;
+
+    FavoriteThingsIndex(Collection<Category> categories) {
+        Map<String, Category> categoryByName = new HashMap<>();
+        FavoriteThing highestRatingFavoriteThing = null;
+        Category highestTotalScoreCategory = null;
+        for (Category category : categories) {
+            categoryByName.put(category.getName(), category);
+            // Also builds the ordering of the stores which only build it lazily, before the index is published.
+            category.getTopRatedFavoriteThings(1);
+            Optional<FavoriteThing> highestRatingItem = category.getHighestRatingFavoriteItem();
+            if (highestRatingItem.isPresent() && (highestRatingFavoriteThing == null
+                    || highestRatingItem.get().getRating() > highestRatingFavoriteThing.getRating())) {
+                highestRatingFavoriteThing = highestRatingItem.get();
+            }
+            if (highestTotalScoreCategory == null
+                    || category.getTotalScore() > highestTotalScoreCategory.getTotalScore()) {
+                highestTotalScoreCategory = category;
+            }
+        }
+        this.categoryByName = Collections.unmodifiableMap(categoryByName);
+        this.highestRatingFavoriteThing = highestRatingFavoriteThing;
+        this.highestTotalScoreCategory = highestTotalScoreCategory;
+        this.ranking = new GlobalRanking(categories);
+    }
+
+    Optional<FavoriteThing> getHighestRatingFavoriteThing() {
+        return Optional.ofNullable(highestRatingFavoriteThing);
+    }
+
+    Optional<Category> getHighestTotalScoreCategory() {
+        return Optional.ofNullable(highestTotalScoreCategory);
+    }
+
+    /**
+     * @return The ranking among all categories, in the order they were indexed, so that its cursors stay valid for as
+     * long as this index is served.
+     */
+    GlobalRanking getRanking() {
+        return ranking;
+    }
+
+    Optional<Category> getCategory(String name) {
+        return Optional.ofNullable(categoryByName.get(name));
+    }
+
+    int getCategoryCount() {
+        return categoryByName.size();
+    }
+}
@@ -0,0 +1,373 @@
+package com.germer.starit.server;
+
+import com.germer.starit.Json;
+import com.germer.starit.model.Category;
+import com.germer.starit.model.FavoriteThing;
+import com.germer.starit.model.GlobalRanking;
+import com.google.common.annotations.VisibleForTesting;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.Supplier;
+
+/**
+ * Serves queries over the favorite things through an HTTP endpoint bound to the loopback address, keeping the parsed
+ * categories in memory between queries. All responses are JSON:
+ * <ul>
+ *     <li><code>GET /highest-thing</code>: the highest rated favorite thing among all categories;</li>
+ *     <li><code>GET /highest-sum</code>: the category with the highest total score;</li>
+ *     <li><code>GET /categories/{category}/top?k=N</code>: the N (10 by default, up to 1000) highest rated
+ *     favorite things of a category;</li>
+ *     <li><code>GET /ranking/top?k=N&amp;cursor=C</code> and <code>GET /ranking/bottom?k=N&amp;cursor=C</code>: a page
+ *     of N (10 by default, up to 1000) favorite things among all categories, from the highest or the lowest rating,
+ *     along with the cursor of the next page;</li>
+ *     <li><code>GET /categories/{category}/things/{name}</code>: a favorite thing of a category by its name;</li>
+ *     <li><code>GET /categories/{category}/ratings?min=X&amp;max=Y</code>: the amount of favorite things of a category
+ *     rated from X to Y, both included and unbounded by default, and the sum of their ratings;</li>
+ *     <li><code>GET /categories/{category}/percentiles?p=50,95</code>: the ratings of a category at the given
+ *     percentiles (50, 95 and 99 by default);</li>
+ *     <li><code>GET /categories/{category}/histogram?min=X&amp;width=W&amp;buckets=N</code>: the amount of favorite
+ *     things of a category rated within each of N (10 by default, up to 1000) buckets of W ratings (10 by default)
+ *     from X (0 by default).</li>
+ * </ul>
+ * Requests are served by a fixed pool of threads with a bounded queue, the thread accepting the connections serving
+ * them itself once the queue is full. The categories are only read while serving, and an optional source file is
+ * polled for changes, which are folded in by loading a new set of categories and swapping them in once indexed.
+ */
+public final class FavoriteThingsServer implements Closeable {
+
+    private static final int DEFAULT_TOP_K = 10;
+    private static final int MAX_TOP_K = 1000;
+    private static final String DEFAULT_PERCENTILES = "50,95,99";
+    private static final int DEFAULT_BUCKET_WIDTH = 10;
+    private static final int DEFAULT_BUCKETS = 10;
+    private static final int MAX_BUCKETS = 1000;
+    private static final int REQUEST_QUEUE_CAPACITY = 1024;
+    private static final long WATCH_INTERVAL_MILLIS = 1000;
+
+    private final Supplier<Collection<Category>> loader;
+    private final Path watchedFile;
+    private volatile FavoriteThingsIndex index;
+    private List<Object> watchedFileStamp;
+
+    private HttpServer httpServer;
+    private ExecutorService requestExecutor;
+    private ScheduledExecutorService watchExecutor;
+
+    /**
+     * @param loader      Loads the categories to be served, each time the watched file changes. The categories it
+     *                    returns must not be changed afterwards.
+     * @param watchedFile The file polled for changes, or null in case the categories should be loaded only once.
+     */
+    public FavoriteThingsServer(Supplier<Collection<Category>> loader, Path watchedFile) {
+        this.loader = loader;
+        this.watchedFile = watchedFile;
+    }
+
+    /**
+     * Loads the categories and starts serving them.
+     *
+     * @param port    The port to listen on, or 0 for any free one.
+     * @param threads The amount of threads serving the requests.
+     * @return The port the server listens on.
+     */
+    public int start(int port, int threads) throws IOException {
+        watchedFileStamp = stampOf(watchedFile);
+        index = new FavoriteThingsIndex(loader.get());
+
+        requestExecutor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(REQUEST_QUEUE_CAPACITY), new ThreadPoolExecutor.CallerRunsPolicy());
+        httpServer = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        httpServer.setExecutor(requestExecutor);
+        httpServer.createContext("/", this::handle);
+        httpServer.start();
+
+        if (watchedFile != null) {
+            watchExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "favorite-things-watcher");
+                thread.setDaemon(true);
+                return thread;
+            });
+            watchExecutor.scheduleWithFixedDelay(this::reloadIfChanged, WATCH_INTERVAL_MILLIS,
+                    WATCH_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+        }
+        return httpServer.getAddress().getPort();
+    }
+
+    @Override
+    public void close() {
+        if (watchExecutor != null) {
+            watchExecutor.shutdownNow();
+        }
+        if (httpServer != null) {
+            httpServer.stop(0);
+        }
+        if (requestExecutor != null) {
+            requestExecutor.shutdown();
+        }
+    }
+
+    int getCategoryCount() {
+        return index.getCategoryCount();
+    }
+
+    /**
+     * Loads and swaps in the categories again in case the watched file changed since they were last loaded, keeping
+     * the current ones in case loading fails.
+     *
+     * @return Whether the categories were reloaded.
+     */
+    @VisibleForTesting
+    synchronized boolean reloadIfChanged() {
+        List<Object> stamp = stampOf(watchedFile);
+        if (stamp.equals(watchedFileStamp)) {
+            return false;
+        }
+
+        try {
+            index = new FavoriteThingsIndex(loader.get());
+            watchedFileStamp = stamp;
+            return true;
+        } catch (RuntimeException e) {
+            System.err.printf("Failed to reload the favorite things, still serving the previous ones:%n%s%n",
+                    e.getMessage());
+            return false;
+        }
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            if (!"GET".equals(exchange.getRequestMethod())) {
+                respond(exchange, 405, error("Only GET requests are supported."));
+                return;
+            }
+            // The categories are read from the same index through the whole request, even if swapped meanwhile.
+            FavoriteThingsIndex index = this.index;
+            String[] path = exchange.getRequestURI().getPath().substring(1).split("/", -1);
+            if (path.length == 1 && "highest-thing".equals(path[0])) {
+                respond(exchange, 200, index.getHighestRatingFavoriteThing()
+                        .map(FavoriteThingsServer::favoriteThingToJson).orElse("null"));
+            } else if (path.length == 1 && "highest-sum".equals(path[0])) {
+                respond(exchange, 200, index.getHighestTotalScoreCategory()
+                        .map(category -> String.format("{\"category\":%s,\"sum\":%d}", Json.quote(category.getName()),
+                                category.getTotalScore()))
+                        .orElse("null"));
+            } else if (path.length == 2 && "ranking".equals(path[0])
+                    && ("top".equals(path[1]) || "bottom".equals(path[1]))) {
+                handleRanking(exchange, index.getRanking(), "bottom".equals(path[1]));
+            } else if (path.length >= 3 && "categories".equals(path[0])) {
+                handleCategory(exchange, index, path);
+            } else {
+                respond(exchange, 404, error("Unknown query."));
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void handleCategory(HttpExchange exchange, FavoriteThingsIndex index, String[] path) throws IOException {
+        Optional<Category> category = index.getCategory(path[1]);
+        if (!category.isPresent()) {
+            respond(exchange, 404, error(String.format("Unknown category '%s'.", path[1])));
+        } else if (path.length == 3 && "top".equals(path[2])) {
+            OptionalInt topK = parseTopK(exchange.getRequestURI().getQuery());
+            if (!topK.isPresent()) {
+                respond(exchange, 400, error(String.format("Invalid top-K, a positive integer up to %d is expected.",
+                        MAX_TOP_K)));
+                return;
+            }
+            StringJoiner favoriteThings = new StringJoiner(",", "[", "]");
+            for (FavoriteThing favoriteThing : category.get().getTopRatedFavoriteThings(topK.getAsInt())) {
+                favoriteThings.add(favoriteThingToJson(favoriteThing));
+            }
+            respond(exchange, 200, favoriteThings.toString());
+        } else if (path.length == 3 && ("ratings".equals(path[2]) || "percentiles".equals(path[2])
+                || "histogram".equals(path[2]))) {
+            String json;
+            try {
+                json = ratingsToJson(category.get(), path[2], exchange.getRequestURI().getQuery());
+            } catch (IllegalArgumentException | UnsupportedOperationException e) {
+                respond(exchange, 400, error(e.getMessage()));
+                return;
+            }
+            respond(exchange, 200, json);
+        } else if (path.length == 4 && "things".equals(path[2])) {
+            Optional<FavoriteThing> favoriteThing = category.get().getFavoriteThingByName(path[3]);
+            if (favoriteThing.isPresent()) {
+                respond(exchange, 200, favoriteThingToJson(favoriteThing.get()));
+            } else {
+                respond(exchange, 404, error(String.format("Unknown favorite thing '%s'.", path[3])));
+            }
+        } else {
+            respond(exchange, 404, error("Unknown query."));
+        }
+    }
+
+    private void handleRanking(HttpExchange exchange, GlobalRanking ranking, boolean lowestFirst) throws IOException {
+        String query = exchange.getRequestURI().getQuery();
+        OptionalInt topK = parseTopK(query);
+        if (!topK.isPresent()) {
+            respond(exchange, 400, error(String.format("Invalid top-K, a positive integer up to %d is expected.",
+                    MAX_TOP_K)));
+            return;
+        }
+        GlobalRanking.Page page;
+        try {
+            GlobalRanking.Cursor cursor = parseCursor(query, ranking, lowestFirst);
+            page = ranking.getPage(cursor, topK.getAsInt());
+        } catch (IllegalArgumentException | UnsupportedOperationException e) {
+            respond(exchange, 400, error(e.getMessage()));
+            return;
+        }
+        StringJoiner favoriteThings = new StringJoiner(",", "[", "]");
+        for (FavoriteThing favoriteThing : page.getFavoriteThings()) {
+            favoriteThings.add(favoriteThingToJson(favoriteThing));
+        }
+        respond(exchange, 200, String.format("{\"things\":%s,\"next\":%s}", favoriteThings,
+                page.getNext() == null ? "null" : Json.quote(page.getNext().toString())));
+    }
+
+    /**
+     * Answers the rating range, percentile and histogram queries, which take O(log n) time per range on the stores
+     * keeping all the ratings.
+     */
+    private static String ratingsToJson(Category category, String query, String parameters) {
+        if ("ratings".equals(query)) {
+            int minRating = intParameter(parameters, "min", Integer.MIN_VALUE);
+            int maxRating = intParameter(parameters, "max", Integer.MAX_VALUE);
+            return String.format("{\"count\":%d,\"sum\":%d}", category.countFavoriteThingsByRating(minRating,
+                    maxRating), category.getTotalScoreByRating(minRating, maxRating));
+        }
+        if ("percentiles".equals(query)) {
+            StringJoiner percentiles = new StringJoiner(",", "{", "}");
+            for (String percentile : parameter(parameters, "p", DEFAULT_PERCENTILES).split(",")) {
+                OptionalInt rating;
+                try {
+                    rating = category.getRatingPercentile(Double.parseDouble(percentile));
+                } catch (NumberFormatException e) {
+                    throw new IllegalArgumentException(String.format("Invalid percentile '%s'.", percentile), e);
+                }
+                percentiles.add(Json.quote(percentile) + ":" + (rating.isPresent() ? rating.getAsInt() : "null"));
+            }
+            return percentiles.toString();
+        }
+        int minRating = intParameter(parameters, "min", 0);
+        int bucketWidth = intParameter(parameters, "width", DEFAULT_BUCKET_WIDTH);
+        int buckets = intParameter(parameters, "buckets", DEFAULT_BUCKETS);
+        if (buckets < 1 || buckets > MAX_BUCKETS) {
+            throw new IllegalArgumentException(String.format("Invalid amount of buckets, a positive integer up to %d " +
+                    "is expected.", MAX_BUCKETS));
+        }
+        StringJoiner counts = new StringJoiner(",", "[", "]");
+        for (int count : category.getRatingHistogram(minRating, bucketWidth, buckets)) {
+            counts.add(Integer.toString(count));
+        }
+        return String.format("{\"min\":%d,\"width\":%d,\"counts\":%s}", minRating, bucketWidth, counts);
+    }
+
+    /**
+     * @return The value of the parameter on the query, or the default value in case it's not given.
+     */
+    private static String parameter(String query, String name, String defaultValue) {
+        if (query != null) {
+            for (String parameter : query.split("&")) {
+                if (parameter.startsWith(name + "=")) {
+                    return parameter.substring(name.length() + 1);
+                }
+            }
+        }
+        return defaultValue;
+    }
+
+    private static int intParameter(String query, String name, int defaultValue) {
+        String value = parameter(query, name, null);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(String.format("Invalid value '%s' for '%s', an integer is expected.",
+                    value, name), e);
+        }
+    }
+
+    /**
+     * @return The cursor given by the query, which must be of the requested order, or the first page of the order.
+     */
+    private static GlobalRanking.Cursor parseCursor(String query, GlobalRanking ranking, boolean lowestFirst) {
+        if (query != null) {
+            for (String parameter : query.split("&")) {
+                if (parameter.startsWith("cursor=")) {
+                    GlobalRanking.Cursor cursor = ranking.parseCursor(parameter.substring(7));
+                    if (cursor.isLowestFirst() != lowestFirst) {
+                        throw new IllegalArgumentException("The cursor is of the other ranking order.");
+                    }
+                    return cursor;
+                }
+            }
+        }
+        return lowestFirst ? GlobalRanking.Cursor.lowestFirst() : GlobalRanking.Cursor.highestFirst();
+    }
+
+    private static OptionalInt parseTopK(String query) {
+        if (query == null) {
+            return OptionalInt.of(DEFAULT_TOP_K);
+        }
+        for (String parameter : query.split("&")) {
+            if (parameter.startsWith("k=")) {
+                try {
+                    int topK = Integer.parseInt(parameter.substring(2));
+                    return topK > 0 && topK <= MAX_TOP_K ? OptionalInt.of(topK) : OptionalInt.empty();
+                } catch (NumberFormatException e) {
+                    return OptionalInt.empty();
+                }
+            }
+        }
+        return OptionalInt.of(DEFAULT_TOP_K);
+    }
+
+    private static void respond(HttpExchange exchange, int status, String json) throws IOException {
+        byte[] body = json.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream responseBody = exchange.getResponseBody()) {
+            responseBody.write(body);
+        }
+    }
+
+    /**
+     * @return The size and the last modification time of the file, which tell it changed, or an empty stamp in case
+     * there's no file to be watched or it can't be read.
+     */
+    private static List<Object> stampOf(Path file) {
+        if (file == null) {
+            return Collections.emptyList();
+        }
+        try {
+            return Arrays.asList(Files.size(file), Files.getLastModifiedTime(file));
+        } catch (IOException e) {
+            return Collections.emptyList();
+        }
+    }
+
+    private static String favoriteThingToJson(FavoriteThing favoriteThing) {
+        return String.format("{\"category\":%s,\"thing\":%s,\"rating\":%d}",
+                Json.quote(favoriteThing.getCategoryName()), Json.quote(favoriteThing.getName()),
+                favoriteThing.getRating());
+    }
+
+    private static String error(String message) {
+        return String.format("{\"error\":%s}", Json.quote(message));
+    }
+}
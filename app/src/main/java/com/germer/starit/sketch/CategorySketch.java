@@ -0,0 +1,213 @@
+package com.germer.starit.sketch;
+
+import com.germer.starit.model.FavoriteThing;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+
+/**
+ * What an exploratory run keeps of a category, in a fixed amount of memory no matter how many favorite things are
+ * mentioned: the amount of distinct names, see {@link HyperLogLog}, the most mentioned names, see
+ * {@link FrequentItems}, and the quantiles of the ratings, see {@link RatingQuantiles}, along with the exact amount of
+ * mentions, total score and highest rated favorite thing. Duplicated names aren't detected, every mention counts.
+ * <p>
+ * Sketches of the same category are merged as if all their mentions had been added to one of them, so that partial
+ * runs can be combined through a sketch file, see {@link #readAll(Path)} and {@link #writeAll(Collection, Path)}.
+ */
+public final class CategorySketch {
+
+    private static final int MAGIC = 0x5354534b;
+    private static final int FORMAT_VERSION = 1;
+
+    private final String name;
+    private final HyperLogLog distinctNames;
+    private final FrequentItems mentionedNames;
+    private final RatingQuantiles ratings;
+    private long totalScore;
+    private FavoriteThing highestRated;
+
+    public CategorySketch(String name) {
+        this(name, new HyperLogLog(), new FrequentItems(), new RatingQuantiles(), 0, null);
+    }
+
+    private CategorySketch(String name, HyperLogLog distinctNames, FrequentItems mentionedNames,
+                           RatingQuantiles ratings, long totalScore, FavoriteThing highestRated) {
+        this.name = name;
+        this.distinctNames = distinctNames;
+        this.mentionedNames = mentionedNames;
+        this.ratings = ratings;
+        this.totalScore = totalScore;
+        this.highestRated = highestRated;
+    }
+
+    public void add(String favoriteThingName, int rating) {
+        distinctNames.add(favoriteThingName);
+        mentionedNames.add(favoriteThingName);
+        ratings.add(rating);
+        totalScore += rating;
+        if (highestRated == null || rating > highestRated.getRating()) {
+            highestRated = FavoriteThing.of(name, favoriteThingName, rating);
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return The sum of the ratings of every mention.
+     */
+    public long getTotalScore() {
+        return totalScore;
+    }
+
+    /**
+     * @return The amount of favorite things mentioned, duplicates included.
+     */
+    public long getMentionCount() {
+        return ratings.getCount();
+    }
+
+    /**
+     * @return The estimated amount of distinct favorite thing names, see {@link HyperLogLog#estimate()}.
+     */
+    public long getDistinctCount() {
+        return distinctNames.estimate();
+    }
+
+    public double getDistinctCountRelativeError() {
+        return distinctNames.getRelativeStandardError();
+    }
+
+    /**
+     * @return Up to <code>count</code> of the most mentioned names along with their counts, each one a lower bound of
+     * the mentions which may be up to {@link #getMentionCountMaxError()} lower than the exact amount.
+     */
+    public List<Map.Entry<String, Long>> getMostMentioned(int count) {
+        return mentionedNames.getMostFrequent(count);
+    }
+
+    public long getMentionCountMaxError() {
+        return mentionedNames.getMaxError();
+    }
+
+    /**
+     * @return The estimated rating at the given quantile, see {@link RatingQuantiles#getQuantile(double)}.
+     */
+    public double getRatingQuantile(double quantile) {
+        return ratings.getQuantile(quantile);
+    }
+
+    /**
+     * @return The highest rated favorite thing, the first mentioned among equally rated ones, or empty in case there
+     * was no mention.
+     */
+    public Optional<FavoriteThing> getHighestRatingFavoriteThing() {
+        return Optional.ofNullable(highestRated);
+    }
+
+    /**
+     * Adds the mentions of another sketch of the same category to this one. Among equally rated favorite things, the
+     * highest rated one of this sketch is kept.
+     *
+     * @throws IllegalArgumentException in case the sketches are of different categories or sizes.
+     */
+    public void merge(CategorySketch other) {
+        if (!name.equals(other.name)) {
+            throw new IllegalArgumentException(String.format("The sketches of the categories '%s' and '%s' can't be " +
+                    "merged.", name, other.name));
+        }
+        distinctNames.merge(other.distinctNames);
+        mentionedNames.merge(other.mentionedNames);
+        ratings.merge(other.ratings);
+        totalScore += other.totalScore;
+        if (other.highestRated != null && (highestRated == null
+                || other.highestRated.getRating() > highestRated.getRating())) {
+            highestRated = other.highestRated;
+        }
+    }
+
+    /**
+     * @return The sketches of the categories saved on the given file, by name, or none in case it doesn't exist.
+     * @throws IOException in case the file can't be read or isn't a sketch file of the supported version.
+     */
+    public static Map<String, CategorySketch> readAll(Path path) throws IOException {
+        Map<String, CategorySketch> sketchByName = new HashMap<>();
+        if (!Files.exists(path)) {
+            return sketchByName;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+            if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION) {
+                throw new IOException(String.format("The file %s is not a sketch file of version %d.", path,
+                        FORMAT_VERSION));
+            }
+            for (int sketches = in.readInt(); sketches > 0; sketches--) {
+                String name = readString(in);
+                long totalScore = in.readLong();
+                FavoriteThing highestRated = in.readBoolean() ? FavoriteThing.of(name, readString(in), in.readInt())
+                        : null;
+                CategorySketch sketch = new CategorySketch(name, HyperLogLog.readFrom(in), FrequentItems.readFrom(in),
+                        RatingQuantiles.readFrom(in), totalScore, highestRated);
+                sketchByName.put(name, sketch);
+            }
+        } catch (IllegalArgumentException e) {
+            throw new IOException(String.format("The sketch file %s is corrupted: %s", path, e.getMessage()), e);
+        }
+        return sketchByName;
+    }
+
+    /**
+     * Writes the given sketches to a temporary file first, which is then moved over the given one.
+     */
+    public static void writeAll(Collection<CategorySketch> sketches, Path path) throws IOException {
+        Path absolutePath = path.toAbsolutePath();
+        Path temporaryPath = Files.createTempFile(absolutePath.getParent(), absolutePath.getFileName().toString(),
+                ".tmp");
+        try {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                    Files.newOutputStream(temporaryPath)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(FORMAT_VERSION);
+                out.writeInt(sketches.size());
+                for (CategorySketch sketch : sketches) {
+                    writeString(out, sketch.name);
+                    out.writeLong(sketch.totalScore);
+                    out.writeBoolean(sketch.highestRated != null);
+                    if (sketch.highestRated != null) {
+                        writeString(out, sketch.highestRated.getName());
+                        out.writeInt(sketch.highestRated.getRating());
+                    }
+                    sketch.distinctNames.writeTo(out);
+                    sketch.mentionedNames.writeTo(out);
+                    sketch.ratings.writeTo(out);
+                }
+            }
+            try {
+                Files.move(temporaryPath, absolutePath, StandardCopyOption.REPLACE_EXISTING,
+                        StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temporaryPath, absolutePath, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temporaryPath);
+        }
+    }
+
+    /**
+     * Strings are written as their UTF-8 length and bytes, since {@link DataOutput#writeUTF(String)} is limited to
+     * 64KB.
+     */
+    static void writeString(DataOutput out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    static String readString(DataInput in) throws IOException {
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,143 @@
+package com.germer.starit.sketch;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.*;
+
+/**
+ * Finds the most frequent values added, in a fixed amount of memory, through the Misra-Gries summary, which is the
+ * mergeable form of SpaceSaving: at most <code>capacity</code> counters are kept, and whenever there are more, the
+ * count of the one ranked right after the capacity is subtracted from all of them, dropping those left at zero.
+ * <p>
+ * The count kept for a value is a lower bound of its frequency, which is at most {@link #getMaxError()} higher. That
+ * error is the sum of all the counts subtracted, bounded by <code>total / (capacity + 1)</code> even after any amount
+ * of merges, so every value more frequent than that is always kept. Subtracting the counts takes O(capacity log
+ * capacity) time, but as it removes at least <code>capacity + 1</code> from the total count, adding a value takes
+ * amortized O(log capacity) time.
+ */
+public final class FrequentItems {
+
+    public static final int DEFAULT_CAPACITY = 1024;
+
+    private final int capacity;
+    private final Map<String, Long> countByItem = new HashMap<>();
+    private long total;
+    private long maxError;
+
+    public FrequentItems() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param capacity The maximum amount of values counted at once.
+     */
+    public FrequentItems(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException(String.format("Invalid capacity %d, it must be at least 1.",
+                    capacity));
+        }
+        this.capacity = capacity;
+    }
+
+    public void add(String item) {
+        total++;
+        countByItem.merge(item, 1L, Long::sum);
+        if (countByItem.size() > capacity) {
+            purge();
+        }
+    }
+
+    /**
+     * @param count The maximum amount of values to be returned.
+     * @return Up to <code>count</code> of the values counted, from the most to the least frequent, along with their
+     * counts. Equal counts are ordered by value.
+     */
+    public List<Map.Entry<String, Long>> getMostFrequent(int count) {
+        List<Map.Entry<String, Long>> entries = new ArrayList<>(countByItem.entrySet());
+        entries.sort(Map.Entry.<String, Long>comparingByValue().reversed()
+                .thenComparing(Map.Entry.comparingByKey()));
+        List<Map.Entry<String, Long>> mostFrequent = new ArrayList<>(Math.min(Math.max(count, 0), entries.size()));
+        for (Map.Entry<String, Long> entry : entries) {
+            if (mostFrequent.size() >= count) {
+                break;
+            }
+            mostFrequent.add(new AbstractMap.SimpleImmutableEntry<>(entry.getKey(), entry.getValue()));
+        }
+        return mostFrequent;
+    }
+
+    /**
+     * @return The amount of values added.
+     */
+    public long getTotal() {
+        return total;
+    }
+
+    /**
+     * @return The sum of the counts subtracted so far, that is the most a frequency may exceed its count.
+     */
+    public long getMaxError() {
+        return maxError;
+    }
+
+    /**
+     * @return The lower bound of the frequency of the value, which is 0 in case it isn't counted.
+     */
+    public long getCount(String item) {
+        return countByItem.getOrDefault(item, 0L);
+    }
+
+    /**
+     * Adds the values of another summary to this one, keeping the same error bound over the total of both.
+     *
+     * @throws IllegalArgumentException in case the summaries are of different capacities.
+     */
+    public void merge(FrequentItems other) {
+        if (other.capacity != capacity) {
+            throw new IllegalArgumentException(String.format("Summaries of capacity %d and %d can't be merged.",
+                    capacity, other.capacity));
+        }
+        total += other.total;
+        maxError += other.maxError;
+        other.countByItem.forEach((item, count) -> countByItem.merge(item, count, Long::sum));
+        if (countByItem.size() > capacity) {
+            purge();
+        }
+    }
+
+    private void purge() {
+        long[] counts = new long[countByItem.size()];
+        int index = 0;
+        for (long count : countByItem.values()) {
+            counts[index++] = count;
+        }
+        Arrays.sort(counts);
+        long subtracted = counts[counts.length - capacity - 1];
+        countByItem.replaceAll((item, count) -> count - subtracted);
+        countByItem.values().removeIf(count -> count <= 0);
+        maxError += subtracted;
+    }
+
+    void writeTo(DataOutput out) throws IOException {
+        out.writeInt(capacity);
+        out.writeLong(total);
+        out.writeLong(maxError);
+        out.writeInt(countByItem.size());
+        for (Map.Entry<String, Long> entry : countByItem.entrySet()) {
+            CategorySketch.writeString(out, entry.getKey());
+            out.writeLong(entry.getValue());
+        }
+    }
+
+    static FrequentItems readFrom(DataInput in) throws IOException {
+        FrequentItems summary = new FrequentItems(in.readInt());
+        summary.total = in.readLong();
+        summary.maxError = in.readLong();
+        int itemCount = in.readInt();
+        for (int item = 0; item < itemCount; item++) {
+            summary.countByItem.put(CategorySketch.readString(in), in.readLong());
+        }
+        return summary;
+    }
+}
@@ -0,0 +1,139 @@
+package com.germer.starit.sketch;
+
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Estimates the amount of distinct values added, in a fixed amount of memory: <code>2^precision</code> one-byte
+ * registers, 16 KiB for the default precision of 14. Each value is hashed into 64 bits, the first
+ * <code>precision</code> bits choosing a register which keeps the longest run of leading zeros seen among the rest.
+ * <p>
+ * The estimate is computed from the histogram of the registers through the improved estimator of Ertl, which has
+ * no bias to correct from small to large cardinalities, unlike switching from linear counting to the raw estimate.
+ * Its relative standard error is <code>1.04 / sqrt(2^precision)</code>, 0.81% for the default precision. The hash
+ * is seeded with a constant, so that sketches of the same precision built by different runs can be merged.
+ */
+public final class HyperLogLog {
+
+    public static final int DEFAULT_PRECISION = 14;
+    private static final int MIN_PRECISION = 4;
+    private static final int MAX_PRECISION = 18;
+    private static final HashFunction HASH = Hashing.murmur3_128();
+
+    private final int precision;
+    private final byte[] registers;
+
+    public HyperLogLog() {
+        this(DEFAULT_PRECISION);
+    }
+
+    /**
+     * @param precision The amount of bits choosing the register, from 4 to 18.
+     */
+    public HyperLogLog(int precision) {
+        if (precision < MIN_PRECISION || precision > MAX_PRECISION) {
+            throw new IllegalArgumentException(String.format("Invalid precision %d, it must be from %d to %d.",
+                    precision, MIN_PRECISION, MAX_PRECISION));
+        }
+        this.precision = precision;
+        this.registers = new byte[1 << precision];
+    }
+
+    public void add(String value) {
+        long hash = HASH.hashString(value, StandardCharsets.UTF_8).asLong();
+        int register = (int) (hash >>> (Long.SIZE - precision));
+        // The guard bit bounds the run of zeros by the bits left after the register index.
+        int rank = Long.numberOfLeadingZeros((hash << precision) | (1L << (precision - 1))) + 1;
+        if (rank > registers[register]) {
+            registers[register] = (byte) rank;
+        }
+    }
+
+    /**
+     * @return The estimated amount of distinct values added to this sketch or to any sketch merged into it.
+     */
+    public long estimate() {
+        int maxRank = Long.SIZE - precision + 1;
+        int[] registersByRank = new int[maxRank + 1];
+        for (byte register : registers) {
+            registersByRank[register]++;
+        }
+        double registerCount = registers.length;
+        if (registersByRank[0] == registerCount) {
+            return 0;
+        }
+        double z = registerCount * tau(1 - registersByRank[maxRank] / registerCount);
+        for (int rank = maxRank - 1; rank >= 1; rank--) {
+            z = 0.5 * (z + registersByRank[rank]);
+        }
+        z += registerCount * sigma(registersByRank[0] / registerCount);
+        return Math.round(registerCount * registerCount / (2 * Math.log(2)) / z);
+    }
+
+    private static double sigma(double x) {
+        double y = 1;
+        double z = x;
+        double previousZ;
+        do {
+            x *= x;
+            previousZ = z;
+            z += x * y;
+            y += y;
+        } while (z != previousZ);
+        return z;
+    }
+
+    private static double tau(double x) {
+        if (x == 0 || x == 1) {
+            return 0;
+        }
+        double y = 1;
+        double z = 1 - x;
+        double previousZ;
+        do {
+            x = Math.sqrt(x);
+            previousZ = z;
+            y *= 0.5;
+            z -= (1 - x) * (1 - x) * y;
+        } while (z != previousZ);
+        return z / 3;
+    }
+
+    /**
+     * @return The relative standard error of {@link #estimate()}.
+     */
+    public double getRelativeStandardError() {
+        return 1.04 / Math.sqrt(registers.length);
+    }
+
+    /**
+     * Adds the values of another sketch to this one, as if they had been added to it.
+     *
+     * @throws IllegalArgumentException in case the sketches are of different precisions.
+     */
+    public void merge(HyperLogLog other) {
+        if (other.precision != precision) {
+            throw new IllegalArgumentException(String.format("Sketches of precision %d and %d can't be merged.",
+                    precision, other.precision));
+        }
+        for (int register = 0; register < registers.length; register++) {
+            registers[register] = (byte) Math.max(registers[register], other.registers[register]);
+        }
+    }
+
+    void writeTo(DataOutput out) throws IOException {
+        out.writeByte(precision);
+        out.write(registers);
+    }
+
+    static HyperLogLog readFrom(DataInput in) throws IOException {
+        HyperLogLog sketch = new HyperLogLog(in.readUnsignedByte());
+        in.readFully(sketch.registers);
+        return sketch;
+    }
+}
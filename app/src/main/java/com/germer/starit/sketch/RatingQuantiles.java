@@ -0,0 +1,149 @@
+package com.germer.starit.sketch;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Estimates the quantiles of the ratings added, in a fixed amount of memory, through logarithmic buckets as in
+ * DDSketch: the bucket <code>i</code> counts the ratings from <code>gamma^(i-1)</code>, excluded, to
+ * <code>gamma^i</code>, with <code>gamma = (1 + a) / (1 - a)</code> for a relative accuracy <code>a</code> of 1%.
+ * Negative ratings are counted on mirrored buckets, so about 2,150 counters cover every int.
+ * <p>
+ * Every quantile is estimated with a relative error of at most 1% of the exact rating at that rank, following the
+ * nearest-rank method as {@link com.germer.starit.model.Category#getRatingPercentile(double)}. Sketches are merged
+ * by adding their counters, which keeps the same error bound.
+ */
+public final class RatingQuantiles {
+
+    public static final double RELATIVE_ACCURACY = 0.01;
+    private static final double GAMMA = (1 + RELATIVE_ACCURACY) / (1 - RELATIVE_ACCURACY);
+    private static final double LOG_GAMMA = Math.log(GAMMA);
+    private static final int BUCKETS = bucketOf(-(double) Integer.MIN_VALUE) + 1;
+
+    private final long[] positiveCounts = new long[BUCKETS];
+    private final long[] negativeCounts = new long[BUCKETS];
+    private long zeroCount;
+    private long count;
+
+    public void add(int rating) {
+        if (rating > 0) {
+            positiveCounts[bucketOf(rating)]++;
+        } else if (rating < 0) {
+            negativeCounts[bucketOf(-(double) rating)]++;
+        } else {
+            zeroCount++;
+        }
+        count++;
+    }
+
+    /**
+     * @return The amount of ratings added.
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * @param quantile The share of the ratings at most the returned one, greater than 0 and up to 1, such as 0.5 for
+     *                 the median.
+     * @return The estimated rating at the given quantile, or NaN in case no rating was added.
+     */
+    public double getQuantile(double quantile) {
+        if (!(quantile > 0 && quantile <= 1)) {
+            throw new IllegalArgumentException(String.format("Invalid quantile %s, it must be greater than 0 and up " +
+                    "to 1.", quantile));
+        }
+        if (count == 0) {
+            return Double.NaN;
+        }
+        long rank = Math.max(1, (long) Math.ceil(quantile * count));
+        for (int bucket = BUCKETS - 1; bucket >= 0; bucket--) {
+            rank -= negativeCounts[bucket];
+            if (rank <= 0) {
+                return -valueOf(bucket);
+            }
+        }
+        rank -= zeroCount;
+        if (rank <= 0) {
+            return 0;
+        }
+        for (int bucket = 0; bucket < BUCKETS; bucket++) {
+            rank -= positiveCounts[bucket];
+            if (rank <= 0) {
+                return valueOf(bucket);
+            }
+        }
+        throw new IllegalStateException("The counters don't add up to the amount of ratings.");
+    }
+
+    /**
+     * Adds the ratings of another sketch to this one, as if they had been added to it.
+     */
+    public void merge(RatingQuantiles other) {
+        for (int bucket = 0; bucket < BUCKETS; bucket++) {
+            positiveCounts[bucket] += other.positiveCounts[bucket];
+            negativeCounts[bucket] += other.negativeCounts[bucket];
+        }
+        zeroCount += other.zeroCount;
+        count += other.count;
+    }
+
+    private static int bucketOf(double magnitude) {
+        return (int) Math.ceil(Math.log(magnitude) / LOG_GAMMA);
+    }
+
+    /**
+     * @return The value within the bucket closest, relatively, to both of its bounds.
+     */
+    private static double valueOf(int bucket) {
+        return 2 * Math.pow(GAMMA, bucket) / (GAMMA + 1);
+    }
+
+    void writeTo(DataOutput out) throws IOException {
+        out.writeLong(zeroCount);
+        writeCounts(out, positiveCounts);
+        writeCounts(out, negativeCounts);
+    }
+
+    static RatingQuantiles readFrom(DataInput in) throws IOException {
+        RatingQuantiles sketch = new RatingQuantiles();
+        sketch.zeroCount = in.readLong();
+        sketch.count = sketch.zeroCount + readCounts(in, sketch.positiveCounts)
+                + readCounts(in, sketch.negativeCounts);
+        return sketch;
+    }
+
+    /**
+     * Writes only the buckets in use, as bucket and count pairs.
+     */
+    private static void writeCounts(DataOutput out, long[] counts) throws IOException {
+        int usedBuckets = 0;
+        for (long count : counts) {
+            if (count > 0) {
+                usedBuckets++;
+            }
+        }
+        out.writeShort(usedBuckets);
+        for (int bucket = 0; bucket < counts.length; bucket++) {
+            if (counts[bucket] > 0) {
+                out.writeShort(bucket);
+                out.writeLong(counts[bucket]);
+            }
+        }
+    }
+
+    private static long readCounts(DataInput in, long[] counts) throws IOException {
+        long total = 0;
+        int usedBuckets = in.readUnsignedShort();
+        for (int usedBucket = 0; usedBucket < usedBuckets; usedBucket++) {
+            int bucket = in.readUnsignedShort();
+            if (bucket >= counts.length) {
+                throw new IOException(String.format("Invalid bucket %d of the rating quantiles.", bucket));
+            }
+            counts[bucket] = in.readLong();
+            total += counts[bucket];
+        }
+        return total;
+    }
+}
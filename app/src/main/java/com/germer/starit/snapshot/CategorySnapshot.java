@@ -0,0 +1,230 @@
+package com.germer.starit.snapshot;
+
+import com.germer.starit.model.Category;
+import com.germer.starit.model.FavoriteThing;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+
+/**
+ * A memory-mapped snapshot of parsed {@link Category} instances, written by {@link CategorySnapshotWriter}, which
+ * answers the highest rated favorite thing and the highest total score queries straight from the mapped bytes, only
+ * reading the fixed size entry of each category. The categories can still be loaded back as objects when needed.
+ * <p>
+ * The snapshot is a binary, big-endian file made of:
+ * <ul>
+ *     <li>a header with a magic number, the format version, the amount of categories and the offsets of the string
+ *     table and of the category directory;</li>
+ *     <li>the favorite things of each category in rating order, as pairs of varints: the string id of the name and the
+ *     rating, the first one zigzag encoded and the next ones as the drop from the previous rating;</li>
+ *     <li>a string table with every category and favorite thing name once, as the amount of strings, the offsets
+ *     delimiting each one and their UTF-8 bytes;</li>
+ *     <li>a directory with an entry per category, holding the string id of its name, its size, the amount of favorite
+ *     things stored, its total score, the name id and rating of its highest rated favorite thing and the offset of
+ *     its favorite things.</li>
+ * </ul>
+ * A snapshot is mapped at once, so it can't be larger than 2GB.
+ */
+public final class CategorySnapshot {
+
+    static final int MAGIC = 0x5354534E;
+    static final int FORMAT_VERSION = 1;
+    static final int HEADER_SIZE = 28;
+    static final int NO_STRING = -1;
+    private static final int DIRECTORY_ENTRY_SIZE = 32;
+
+    private final ByteBuffer buffer;
+    private final int categoryCount;
+    private final int stringOffsetsOffset;
+    private final int stringBytesOffset;
+    private final int directoryOffset;
+
+    private CategorySnapshot(ByteBuffer buffer) {
+        this.buffer = buffer;
+        this.categoryCount = buffer.getInt(8);
+        int stringTableOffset = toIntExact(buffer.getLong(12));
+        this.stringOffsetsOffset = stringTableOffset + 4;
+        this.stringBytesOffset = stringOffsetsOffset + (buffer.getInt(stringTableOffset) + 1) * 4;
+        this.directoryOffset = toIntExact(buffer.getLong(20));
+    }
+
+    /**
+     * @return Whether the file starts as a snapshot, whatever its version.
+     */
+    public static boolean isSnapshot(Path path) {
+        if (!Files.isRegularFile(path)) {
+            return false;
+        }
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer magic = ByteBuffer.allocate(4);
+            while (magic.hasRemaining() && channel.read(magic) >= 0) {
+                // reads up to the 4 bytes of the magic number
+            }
+            return !magic.hasRemaining() && magic.getInt(0) == MAGIC;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * @param path The snapshot file, which is memory-mapped.
+     * @throws IllegalArgumentException in case the file isn't a snapshot of a supported version or can't be read.
+     */
+    public static CategorySnapshot open(Path path) {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException(String.format("The snapshot %s is larger than the maximum " +
+                        "supported size of 2GB.", path));
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.limit() < HEADER_SIZE || buffer.getInt(0) != MAGIC || buffer.getInt(4) != FORMAT_VERSION) {
+                throw new IllegalArgumentException(String.format("The file %s is not a favorite things snapshot " +
+                        "of version %d.", path, FORMAT_VERSION));
+            }
+            return new CategorySnapshot(buffer);
+        } catch (IOException e) {
+            throw new IllegalArgumentException(String.format("Failed to read the snapshot %s: %s", path,
+                    e.getMessage()), e);
+        }
+    }
+
+    public int getCategoryCount() {
+        return categoryCount;
+    }
+
+    public String getCategoryName(int category) {
+        return getString(buffer.getInt(entryOffset(category)));
+    }
+
+    /**
+     * @return The amount of {@link FavoriteThing}s of the category when it was written.
+     */
+    public int getCategorySize(int category) {
+        return buffer.getInt(entryOffset(category) + 4);
+    }
+
+    public int getTotalScore(int category) {
+        return buffer.getInt(entryOffset(category) + 12);
+    }
+
+    /**
+     * @return The highest rated {@link FavoriteThing} of the category, or empty in case it has none.
+     */
+    public Optional<FavoriteThing> getHighestRatingFavoriteThing(int category) {
+        int entryOffset = entryOffset(category);
+        int nameId = buffer.getInt(entryOffset + 16);
+        if (nameId == NO_STRING) {
+            return Optional.empty();
+        }
+        return Optional.of(FavoriteThing.of(getCategoryName(category), getString(nameId),
+                buffer.getInt(entryOffset + 20)));
+    }
+
+    /**
+     * @return The highest rated {@link FavoriteThing} among all categories, the first category prevailing on ties.
+     */
+    public Optional<FavoriteThing> getHighestRatingFavoriteThing() {
+        int highestCategory = NO_STRING;
+        for (int category = 0; category < categoryCount; category++) {
+            int entryOffset = entryOffset(category);
+            if (buffer.getInt(entryOffset + 16) != NO_STRING && (highestCategory == NO_STRING
+                    || buffer.getInt(entryOffset + 20) > buffer.getInt(entryOffset(highestCategory) + 20))) {
+                highestCategory = category;
+            }
+        }
+        return highestCategory == NO_STRING ? Optional.empty() : getHighestRatingFavoriteThing(highestCategory);
+    }
+
+    /**
+     * @return The index of the category with the highest total score, the first one prevailing on ties, or empty in
+     * case there are no categories.
+     */
+    public OptionalInt getHighestTotalScoreCategory() {
+        if (categoryCount == 0) {
+            return OptionalInt.empty();
+        }
+        int highestCategory = 0;
+        for (int category = 1; category < categoryCount; category++) {
+            if (getTotalScore(category) > getTotalScore(highestCategory)) {
+                highestCategory = category;
+            }
+        }
+        return OptionalInt.of(highestCategory);
+    }
+
+    /**
+     * Rebuilds a category as a {@link Category} object with the favorite things stored for it, which are all of them
+     * unless it was kept by a store retaining only some.
+     */
+    public Category loadCategory(int category) {
+        int entryOffset = entryOffset(category);
+        Category loadedCategory = new Category(getCategoryName(category));
+        int storedThings = buffer.getInt(entryOffset + 8);
+
+        ByteBuffer things = buffer.duplicate();
+        things.position(toIntExact(buffer.getLong(entryOffset + 24)));
+        long rating = 0;
+        for (int thing = 0; thing < storedThings; thing++) {
+            int nameId = (int) readVarint(things);
+            long encodedRating = readVarint(things);
+            rating = thing == 0 ? (encodedRating >>> 1) ^ -(encodedRating & 1) : rating - encodedRating;
+            loadedCategory.addFavoriteThing(getString(nameId), (int) rating);
+        }
+        return loadedCategory;
+    }
+
+    /**
+     * @return All the categories rebuilt as {@link Category} objects, see {@link #loadCategory(int)}.
+     */
+    public List<Category> loadCategories() {
+        List<Category> categories = new ArrayList<>(categoryCount);
+        for (int category = 0; category < categoryCount; category++) {
+            categories.add(loadCategory(category));
+        }
+        return categories;
+    }
+
+    private int entryOffset(int category) {
+        if (category < 0 || category >= categoryCount) {
+            throw new IndexOutOfBoundsException(String.format("Category: %d, Categories: %d", category,
+                    categoryCount));
+        }
+        return directoryOffset + category * DIRECTORY_ENTRY_SIZE;
+    }
+
+    private String getString(int id) {
+        int start = buffer.getInt(stringOffsetsOffset + id * 4);
+        int end = buffer.getInt(stringOffsetsOffset + (id + 1) * 4);
+        byte[] bytes = new byte[end - start];
+        ByteBuffer string = buffer.duplicate();
+        string.position(stringBytesOffset + start);
+        string.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static long readVarint(ByteBuffer buffer) {
+        long value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = buffer.get();
+            value |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        } while (b < 0);
+        return value;
+    }
+
+    private static int toIntExact(long offset) {
+        if (offset < 0 || offset > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Corrupted snapshot, invalid offset " + offset);
+        }
+        return (int) offset;
+    }
+}
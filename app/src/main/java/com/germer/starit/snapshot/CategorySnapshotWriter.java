@@ -0,0 +1,150 @@
+package com.germer.starit.snapshot;
+
+import com.germer.starit.model.Category;
+import com.germer.starit.model.FavoriteThing;
+import com.google.common.io.CountingOutputStream;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+
+/**
+ * Writes parsed {@link Category} instances to a snapshot file, see {@link CategorySnapshot} for its format.
+ */
+public final class CategorySnapshotWriter {
+
+    private CategorySnapshotWriter() {
+    }
+
+    /**
+     * @param categories The categories to be written, in the order they are read back.
+     * @param path       The snapshot file, replaced in case it exists.
+     */
+    public static void write(Collection<Category> categories, Path path) {
+        Map<String, Integer> stringIds = new HashMap<>();
+        List<String> strings = new ArrayList<>();
+        long[] thingsOffsets = new long[categories.size()];
+        int[] storedThings = new int[categories.size()];
+        long stringTableOffset;
+        long directoryOffset;
+
+        // Counting before buffering gives the exact offsets without flushing.
+        try (CountingOutputStream counter = new CountingOutputStream(new BufferedOutputStream(
+                Files.newOutputStream(path), 1 << 16));
+             DataOutputStream out = new DataOutputStream(counter)) {
+            out.write(new byte[CategorySnapshot.HEADER_SIZE]);
+
+            int index = 0;
+            for (Category category : categories) {
+                idOf(category.getName(), stringIds, strings);
+                thingsOffsets[index] = counter.getCount();
+                storedThings[index++] = writeFavoriteThings(out, category, stringIds, strings);
+            }
+
+            stringTableOffset = counter.getCount();
+            writeStringTable(out, strings);
+
+            directoryOffset = counter.getCount();
+            index = 0;
+            for (Category category : categories) {
+                writeDirectoryEntry(out, category, storedThings[index], thingsOffsets[index], stringIds);
+                index++;
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException(String.format("Failed to write the snapshot %s: %s", path,
+                    e.getMessage()), e);
+        }
+
+        writeHeader(path, categories.size(), stringTableOffset, directoryOffset);
+    }
+
+    /**
+     * @return The amount of favorite things written.
+     */
+    private static int writeFavoriteThings(DataOutputStream out, Category category, Map<String, Integer> stringIds,
+                                           List<String> strings) throws IOException {
+        int written = 0;
+        long previousRating = 0;
+        for (FavoriteThing favoriteThing : category.getFavoriteThingsOrderedByRating()) {
+            writeVarint(out, idOf(favoriteThing.getName(), stringIds, strings));
+            long rating = favoriteThing.getRating();
+            // The first rating is zigzag encoded, the next ones as their (never negative) drop from the previous one.
+            writeVarint(out, written == 0 ? (rating << 1) ^ (rating >> 63) : previousRating - rating);
+            previousRating = rating;
+            written++;
+        }
+        // The highest rated favorite thing may not be stored in case the category doesn't keep all of them.
+        category.getHighestRatingFavoriteItem()
+                .ifPresent(favoriteThing -> idOf(favoriteThing.getName(), stringIds, strings));
+        return written;
+    }
+
+    private static void writeStringTable(DataOutputStream out, List<String> strings) throws IOException {
+        List<byte[]> encodedStrings = new ArrayList<>(strings.size());
+        out.writeInt(strings.size());
+        int offset = 0;
+        out.writeInt(offset);
+        for (String string : strings) {
+            byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+            encodedStrings.add(bytes);
+            offset = Math.addExact(offset, bytes.length);
+            out.writeInt(offset);
+        }
+        for (byte[] bytes : encodedStrings) {
+            out.write(bytes);
+        }
+    }
+
+    private static void writeDirectoryEntry(DataOutputStream out, Category category, int storedThings,
+                                            long thingsOffset, Map<String, Integer> stringIds) throws IOException {
+        Optional<FavoriteThing> highestRatingFavoriteThing = category.getHighestRatingFavoriteItem();
+        out.writeInt(stringIds.get(category.getName()));
+        out.writeInt(category.size());
+        out.writeInt(storedThings);
+        out.writeInt(category.getTotalScore());
+        out.writeInt(highestRatingFavoriteThing.map(favoriteThing -> stringIds.get(favoriteThing.getName()))
+                .orElse(CategorySnapshot.NO_STRING));
+        out.writeInt(highestRatingFavoriteThing.map(FavoriteThing::getRating).orElse(0));
+        out.writeLong(thingsOffset);
+    }
+
+    private static void writeHeader(Path path, int categoryCount, long stringTableOffset, long directoryOffset) {
+        ByteBuffer header = ByteBuffer.allocate(CategorySnapshot.HEADER_SIZE);
+        header.putInt(CategorySnapshot.MAGIC)
+                .putInt(CategorySnapshot.FORMAT_VERSION)
+                .putInt(categoryCount)
+                .putLong(stringTableOffset)
+                .putLong(directoryOffset)
+                .flip();
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+            while (header.hasRemaining()) {
+                channel.write(header, header.position());
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException(String.format("Failed to write the snapshot %s: %s", path,
+                    e.getMessage()), e);
+        }
+    }
+
+    private static int idOf(String string, Map<String, Integer> stringIds, List<String> strings) {
+        return stringIds.computeIfAbsent(string, newString -> {
+            strings.add(newString);
+            return strings.size() - 1;
+        });
+    }
+
+    private static void writeVarint(DataOutputStream out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.writeByte((int) (value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+}
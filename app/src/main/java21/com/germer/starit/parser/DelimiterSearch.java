@@ -0,0 +1,144 @@
+package com.germer.starit.parser;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Finds the delimiters of the Favorite-Things syntax on the bytes scanned by {@link ByteScanner}, eight bytes at a
+ * time (SWAR, SIMD within a register). This is the version of the multi-release jar for JVMs from 21 on, the Java 8
+ * one under <code>src/main/java</code> looking at a byte at a time, and both must return exactly the same indexes.
+ * <p>
+ * Each long word read from the buffer is turned into a mask with the high bit set on every byte which is one of the
+ * searched delimiters, through arithmetic that never carries from a byte into the next one, so that the mask is exact
+ * and the first delimiter is found by counting the zeros before its bit, whatever the byte order of the buffer. The
+ * bytes of multi-byte UTF-8 sequences, which have their high bit set, never match. The words are read through
+ * {@link ByteBuffer#getLong(int)}, which these JVMs compile into a single unaligned load on heap and direct buffers
+ * alike, whereas Java 8 assembles the long a byte at a time from a heap buffer.
+ */
+final class DelimiterSearch {
+
+    private static final long ONES = 0x0101010101010101L;
+    private static final long LOW_BITS = 0x7F7F7F7F7F7F7F7FL;
+    private static final long HIGH_BITS = ~LOW_BITS;
+    private static final long COLONS = ':' * ONES;
+    private static final long COMMAS = ',' * ONES;
+    private static final long LINE_FEEDS = '\n' * ONES;
+    private static final long CARRIAGE_RETURNS = '\r' * ONES;
+    /**
+     * Added to the low bits of a byte, these set its high bit when the byte is at least '0', respectively '9' + 1.
+     */
+    private static final long FROM_ZERO = (0x80 - '0') * ONES;
+    private static final long ABOVE_NINE = (0x80 - '9' - 1) * ONES;
+
+    private DelimiterSearch() {
+    }
+
+    /**
+     * @return The index of the first ':' or line terminator from the given index, or the end index in case there's
+     * none.
+     */
+    static int indexOfColonOrLineTerminator(ByteBuffer buffer, int from, int end) {
+        int i = from;
+        for (; i <= end - Long.BYTES; i += Long.BYTES) {
+            long word = buffer.getLong(i);
+            long matches = bytesEqual(word, COLONS) | lineTerminators(word);
+            if (matches != 0) {
+                return i + firstMatch(buffer, matches);
+            }
+        }
+        byte b;
+        while (i < end && (b = buffer.get(i)) != ':' && b != '\n' && b != '\r') {
+            i++;
+        }
+        return i;
+    }
+
+    /**
+     * @return The index of the first ',', digit or line terminator from the given index, which is where the name of
+     * an item ends, or the end index in case there's none.
+     */
+    static int indexOfItemTerminatorOrDigit(ByteBuffer buffer, int from, int end) {
+        int i = from;
+        for (; i <= end - Long.BYTES; i += Long.BYTES) {
+            long word = buffer.getLong(i);
+            long matches = bytesEqual(word, COMMAS) | lineTerminators(word) | digits(word);
+            if (matches != 0) {
+                return i + firstMatch(buffer, matches);
+            }
+        }
+        byte b;
+        while (i < end && (b = buffer.get(i)) != ',' && b != '\n' && b != '\r' && (b < '0' || b > '9')) {
+            i++;
+        }
+        return i;
+    }
+
+    /**
+     * @return The index of the first ',' or line terminator from the given index, or the end index in case there's
+     * none.
+     */
+    static int indexOfItemTerminator(ByteBuffer buffer, int from, int end) {
+        int i = from;
+        for (; i <= end - Long.BYTES; i += Long.BYTES) {
+            long word = buffer.getLong(i);
+            long matches = bytesEqual(word, COMMAS) | lineTerminators(word);
+            if (matches != 0) {
+                return i + firstMatch(buffer, matches);
+            }
+        }
+        byte b;
+        while (i < end && (b = buffer.get(i)) != ',' && b != '\n' && b != '\r') {
+            i++;
+        }
+        return i;
+    }
+
+    /**
+     * @return The index of the first line terminator from the given index, or the end index in case there's none.
+     */
+    static int indexOfLineTerminator(ByteBuffer buffer, int from, int end) {
+        int i = from;
+        for (; i <= end - Long.BYTES; i += Long.BYTES) {
+            long word = buffer.getLong(i);
+            long matches = lineTerminators(word);
+            if (matches != 0) {
+                return i + firstMatch(buffer, matches);
+            }
+        }
+        byte b;
+        while (i < end && (b = buffer.get(i)) != '\n' && b != '\r') {
+            i++;
+        }
+        return i;
+    }
+
+    private static long lineTerminators(long word) {
+        return bytesEqual(word, LINE_FEEDS) | bytesEqual(word, CARRIAGE_RETURNS);
+    }
+
+    /**
+     * @return The high bit of every byte of the word equal to the same byte of the pattern.
+     */
+    private static long bytesEqual(long word, long pattern) {
+        long difference = word ^ pattern;
+        // Only a zero byte neither has its high bit set nor gets it from adding 0x7F to its low bits.
+        return ~(((difference & LOW_BITS) + LOW_BITS) | difference | LOW_BITS);
+    }
+
+    /**
+     * @return The high bit of every byte of the word which is an ASCII digit.
+     */
+    private static long digits(long word) {
+        long lowBits = word & LOW_BITS;
+        return (lowBits + FROM_ZERO) & ~(lowBits + ABOVE_NINE) & ~word & HIGH_BITS;
+    }
+
+    /**
+     * @return The position within the word of the first byte in buffer order whose high bit is set on the mask.
+     */
+    private static int firstMatch(ByteBuffer buffer, long matches) {
+        return buffer.order() == ByteOrder.BIG_ENDIAN
+                ? Long.numberOfLeadingZeros(matches) >>> 3
+                : Long.numberOfTrailingZeros(matches) >>> 3;
+    }
+}
@@ -0,0 +1,149 @@
+package com.germer.starit;
+
+import com.germer.starit.parser.TokenizerMode;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CommandLineOptionsTest {
+
+    @Test
+    @DisplayName("It should use the sample resource and the regex tokenizer by default")
+    public void parse_noArguments() {
+        // WHEN
+        CommandLineOptions options = CommandLineOptions.parse();
+
+        // THEN
+        assertNull(options.getSourceFile());
+        assertEquals(TokenizerMode.REGEX, options.getTokenizerMode());
+        assertFalse(options.isMemoryMapped());
+        assertEquals(1, options.getThreads());
+        assertFalse(options.isIgnoreCategoryCase());
+    }
+
+    @Test
+    @DisplayName("It should accept options before or after the source file")
+    public void parse_optionsAndSourceFile() {
+        // WHEN
+        CommandLineOptions options = CommandLineOptions.parse("--mmap", "things.txt", "--tokenizer=scanner",
+                "shards/*.txt", "--ignore-category-case");
+
+        // THEN
+        assertEquals("things.txt", options.getSourceFile());
+        assertEquals(Arrays.asList("things.txt", "shards/*.txt"), options.getSourceFiles());
+        assertEquals(TokenizerMode.SCANNER, options.getTokenizerMode());
+        assertTrue(options.isMemoryMapped());
+        assertTrue(options.isIgnoreCategoryCase());
+    }
+
+    @Test
+    @DisplayName("It should parse files through the memory-mapped path when using more than one thread")
+    public void parse_threads() {
+        // WHEN
+        CommandLineOptions options = CommandLineOptions.parse("--threads=8", "things.txt");
+
+        // THEN
+        assertEquals(8, options.getThreads());
+        assertTrue(options.isMemoryMapped());
+        assertEquals("Invalid value '0' for option '--threads', a positive integer is expected.",
+                assertThrows(IllegalArgumentException.class, () -> CommandLineOptions.parse("--threads=0"))
+                        .getMessage());
+    }
+
+    @Test
+    @DisplayName("It should parse the shards of a coordinator and of its workers, keeping the arguments as given")
+    public void parse_shards() {
+        // WHEN
+        CommandLineOptions coordinator = CommandLineOptions.parse("--shards=4", "things.txt");
+        CommandLineOptions worker = CommandLineOptions.parse("things.txt", "--shard=3/4");
+
+        // THEN
+        assertEquals(4, coordinator.getShards());
+        assertNull(coordinator.getShard());
+        assertEquals(Arrays.asList("--shards=4", "things.txt"), coordinator.getArguments());
+        assertEquals(3, worker.getShard().getIndex());
+        assertEquals(4, worker.getShard().getCount());
+        assertEquals("Invalid value '4/4' for option '--shard', a shard index lower than the amount of shards is " +
+                        "expected, such as 0/4.",
+                assertThrows(IllegalArgumentException.class, () -> CommandLineOptions.parse("--shard=4/4"))
+                        .getMessage());
+        assertThrows(IllegalArgumentException.class, () -> CommandLineOptions.parse("--shard=four"));
+        assertThrows(IllegalArgumentException.class, () -> CommandLineOptions.parse("--shards=4", "--metrics"));
+        assertThrows(IllegalArgumentException.class, () -> CommandLineOptions.parse("--shards=4", "--shard=0/4"));
+    }
+
+    @Test
+    @DisplayName("It should parse the sketch storage along with its sketch file")
+    public void parse_sketches() {
+        // WHEN
+        CommandLineOptions options = CommandLineOptions.parse("--storage=sketch", "--sketch-file=all.sketch",
+                "things.txt");
+
+        // THEN
+        assertEquals(CommandLineOptions.Storage.SKETCH, options.getStorage());
+        assertEquals("all.sketch", options.getSketchFile());
+        assertEquals("The option '--sketch-file' requires '--storage=sketch'.",
+                assertThrows(IllegalArgumentException.class, () -> CommandLineOptions.parse("--sketch-file=a"))
+                        .getMessage());
+        assertThrows(IllegalArgumentException.class, () -> CommandLineOptions.parse("--storage=sketch",
+                "--serve=8080", "things.txt"));
+        assertThrows(IllegalArgumentException.class, () -> CommandLineOptions.parse("--storage=sketch",
+                "--shards=2"));
+    }
+
+    @Test
+    @DisplayName("It should parse the off-heap storage along with its spill directory")
+    public void parse_offHeap() {
+        // WHEN
+        CommandLineOptions options = CommandLineOptions.parse("--storage=offheap", "--spill-dir=/tmp", "things.txt");
+
+        // THEN
+        assertEquals(CommandLineOptions.Storage.OFFHEAP, options.getStorage());
+        assertEquals("/tmp", options.getSpillDirectory());
+        assertEquals("The option '--spill-dir' requires '--storage=offheap'.",
+                assertThrows(IllegalArgumentException.class, () -> CommandLineOptions.parse("--spill-dir=/tmp"))
+                        .getMessage());
+    }
+
+    @Test
+    @DisplayName("It fails on unknown options and invalid values")
+    public void parse_invalidArguments() {
+        // WHEN
+        IllegalArgumentException unknownOption = assertThrows(IllegalArgumentException.class,
+                () -> CommandLineOptions.parse("--fast"));
+        IllegalArgumentException invalidValue = assertThrows(IllegalArgumentException.class,
+                () -> CommandLineOptions.parse("--tokenizer=magic"));
+        IllegalArgumentException missingValue = assertThrows(IllegalArgumentException.class,
+                () -> CommandLineOptions.parse("--tokenizer"));
+        IllegalArgumentException unexpectedValue = assertThrows(IllegalArgumentException.class,
+                () -> CommandLineOptions.parse("--mmap=yes"));
+        IllegalArgumentException checkpointWithoutFile = assertThrows(IllegalArgumentException.class,
+                () -> CommandLineOptions.parse("--checkpoint=things.checkpoint"));
+        IllegalArgumentException checkpointWithSeveralFiles = assertThrows(IllegalArgumentException.class,
+                () -> CommandLineOptions.parse("--checkpoint=things.checkpoint", "things.txt", "more-things.txt"));
+        IllegalArgumentException slowLinesWithoutMetrics = assertThrows(IllegalArgumentException.class,
+                () -> CommandLineOptions.parse("--slow-line-millis=5", "things.txt"));
+        IllegalArgumentException pipelineWithThreads = assertThrows(IllegalArgumentException.class,
+                () -> CommandLineOptions.parse("--pipeline=4", "--threads=4", "things.txt"));
+
+        // THEN
+        assertEquals("Unknown option '--fast'.", unknownOption.getMessage());
+        assertEquals("Invalid value 'magic' for option '--tokenizer'.", invalidValue.getMessage());
+        assertEquals("The option '--tokenizer' requires a value.", missingValue.getMessage());
+        assertEquals("The option '--mmap' doesn't accept a value.", unexpectedValue.getMessage());
+        assertEquals("The option '--checkpoint' requires a source file.", checkpointWithoutFile.getMessage());
+        assertEquals("The option '--checkpoint' requires a single source file.",
+                checkpointWithSeveralFiles.getMessage());
+        assertEquals("The option '--slow-line-millis' requires '--metrics' or '--metrics-json'.",
+                slowLinesWithoutMetrics.getMessage());
+        assertEquals("The option '--pipeline' can't be used along with '--mmap', '--threads' or '--checkpoint', " +
+                "which parse the file through other paths.", pipelineWithThreads.getMessage());
+    }
+}
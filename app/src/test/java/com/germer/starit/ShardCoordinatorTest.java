@@ -0,0 +1,75 @@
+package com.germer.starit;
+
+import com.germer.starit.parser.ParsingError;
+import com.germer.starit.parser.PartialResult;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ShardCoordinatorTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    @DisplayName("It should merge the partial results of the worker processes, one per shard")
+    public void run() throws IOException {
+        // GIVEN
+        Path favoriteThingsFile = Files.write(tempDir.resolve("favorite-things.txt"),
+                ("Colors:blue1,red2\nFoods:pizza5\nMammals:cow1\nDogs:rex4\nColors:red3,green9\n")
+                        .getBytes(StandardCharsets.UTF_8));
+        ShardCoordinator coordinator = new ShardCoordinator(Arrays.asList("--shards=2", "--tokenizer=scanner",
+                favoriteThingsFile.toString()), 2);
+
+        // WHEN
+        PartialResult result = coordinator.run(null);
+
+        // THEN
+        assertEquals(3, result.getCategoryCount());
+        assertEquals("green", result.getHighestRatingFavoriteThing().get().getName());
+        assertEquals("Colors", result.getHighestTotalScoreCategory().get().getName());
+        assertEquals(Arrays.asList(
+                "Unknown category 'Mammals' on line 3, this line was skipped.",
+                "The score 3 present on line 5 for the item 'red' in the category 'Colors' was ignored because " +
+                        "there is already a previous score of 2 set."
+        ), result.getErrors().stream().map(ParsingError::getMessage).collect(Collectors.toList()));
+    }
+
+    @Test
+    @DisplayName("It should fail when a worker fails")
+    public void run_failingWorker() {
+        // GIVEN
+        ShardCoordinator coordinator = new ShardCoordinator(Collections.singletonList(
+                tempDir.resolve("missing.txt").toString()), 2);
+
+        // WHEN
+        IllegalStateException error = assertThrows(IllegalStateException.class, () -> coordinator.run(null));
+
+        // THEN
+        assertEquals("The worker of shard 0/2 failed with exit code 1.", error.getMessage());
+    }
+
+    @Test
+    @DisplayName("It should refuse to start the workers without a Java runtime and a classpath")
+    public void checkJvmLauncher() {
+        // WHEN
+        IllegalStateException error = assertThrows(IllegalStateException.class,
+                () -> ShardCoordinator.checkJvmLauncher(null, null));
+
+        // THEN
+        assertEquals("The option '--shards' requires running the application on a JVM, the native executable " +
+                "can't start the shard workers.", error.getMessage());
+        ShardCoordinator.checkJvmLauncher(System.getProperty("java.home"), System.getProperty("java.class.path"));
+    }
+}
@@ -0,0 +1,54 @@
+package com.germer.starit;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SourcePathsTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    @DisplayName("It should resolve files, directories and globs in argument order, then path order")
+    public void resolve() throws IOException {
+        // GIVEN
+        Path shards = Files.createDirectories(tempDir.resolve("shards"));
+        Path nested = Files.createDirectories(shards.resolve("nested"));
+        Path shardB = Files.createFile(shards.resolve("b.txt"));
+        Path shardA = Files.createFile(shards.resolve("a.txt"));
+        Path shardC = Files.createFile(nested.resolve("c.txt"));
+        Path notes = Files.createFile(shards.resolve("notes.md"));
+        Path single = Files.createFile(tempDir.resolve("single.txt"));
+
+        // WHEN
+        List<Path> paths = SourcePaths.resolve(Arrays.asList(single.toString(), shards + "/*.txt",
+                shards.toString()));
+
+        // THEN
+        assertEquals(Arrays.asList(single, shardA, shardB, shardC, notes), paths);
+        assertTrue(SourcePaths.isMultiple(shards.toString()));
+        assertTrue(SourcePaths.isMultiple(shards + "/**.txt"));
+        assertFalse(SourcePaths.isMultiple(single.toString()));
+    }
+
+    @Test
+    @DisplayName("It should fail on a glob matching no file")
+    public void resolve_noMatch() {
+        // WHEN
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
+                () -> SourcePaths.resolve(Collections.singletonList(tempDir + "/*.txt")));
+
+        // THEN
+        assertEquals(String.format("No favorite things file matches %s/*.txt.", tempDir), exception.getMessage());
+    }
+}
@@ -0,0 +1,111 @@
+package com.germer.starit.metrics;
+
+import com.germer.starit.model.Category;
+import com.germer.starit.parser.FavoriteThingsParser;
+import com.germer.starit.parser.ParsingStatistics;
+import com.google.common.collect.Sets;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.startsWith;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class RunMetricsTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    @DisplayName("It should report the stages in order along with the parsing counters, errors and largest categories")
+    public void enabledMetrics() {
+        // GIVEN
+        FavoriteThingsParser parser = new FavoriteThingsParser(Sets.newHashSet("Colors", "Foods"));
+        RunMetrics metrics = RunMetrics.enabled();
+
+        // WHEN
+        try (RunMetrics.Stage stage = metrics.startStage("parse")) {
+            parser.parse(new ByteArrayInputStream("Colors:blue1,red2\nFoods:pizza5\nMammals:cow1\nColors:blue3\n"
+                    .getBytes(StandardCharsets.UTF_8)));
+        }
+        try (RunMetrics.Stage stage = metrics.startStage("compute-results")) {
+            parser.getParsedCategories().forEach(Category::getTotalScore);
+        }
+        metrics.recordParsing("parse", parser.getStatistics(), parser.getErrorLog(), parser.getParsedCategories());
+        ByteArrayOutputStream summary = new ByteArrayOutputStream();
+        metrics.printSummary(new PrintStream(summary, true));
+
+        // THEN
+        String json = metrics.toJson();
+        assertThat(json, startsWith("{\"stageNanos\":{\"parse\":"));
+        assertThat(json, containsString(",\"compute-results\":"));
+        assertThat(json, containsString("\"bytes\":57,\"lines\":4,\"things\":4,"));
+        assertThat(json, containsString("\"errors\":{\"INVALID_LINE\":0,\"UNKNOWN_CATEGORY\":1,\"INVALID_ITEM\":0," +
+                "\"DUPLICATED_ITEM\":1,\"PROBABLY_DUPLICATED_ITEM\":0}"));
+        assertThat(json, containsString("\"largestCategories\":{\"Colors\":2,\"Foods\":1}"));
+        assertThat(summary.toString(), containsString("Parsed 57 bytes, 4 lines and 4 favorite things"));
+    }
+
+    @Test
+    @DisplayName("Disabled metrics should measure nothing")
+    public void disabledMetrics() {
+        // GIVEN
+        FavoriteThingsParser parser = new FavoriteThingsParser(Sets.newHashSet("Colors"));
+        RunMetrics metrics = RunMetrics.disabled();
+
+        // WHEN
+        try (RunMetrics.Stage stage = metrics.startStage("parse")) {
+            parser.parse(new ByteArrayInputStream("Colors:blue1\n".getBytes(StandardCharsets.UTF_8)));
+        }
+        metrics.recordParsing("parse", parser.getStatistics(), parser.getErrorLog(), parser.getParsedCategories());
+
+        // THEN
+        assertEquals("{\"stageNanos\":{}}", metrics.toJson());
+    }
+
+    @Test
+    @DisplayName("It should record the stages and the slow lines as Flight Recorder events, even with metrics disabled")
+    public void flightRecorderEvents() throws IOException {
+        // GIVEN
+        FavoriteThingsParser parser = new FavoriteThingsParser(Sets.newHashSet("Colors"));
+        parser.setStatistics(new ParsingStatistics(1));
+        Path recordingFile = tempDir.resolve("run.jfr");
+
+        // WHEN
+        try (Recording recording = new Recording()) {
+            recording.enable("com.germer.starit.Stage");
+            recording.enable("com.germer.starit.SlowLine");
+            recording.start();
+            try (RunMetrics.Stage stage = RunMetrics.disabled().startStage("parse")) {
+                parser.parse(new ByteArrayInputStream("Colors:blue1\nColors:red2\n".getBytes(StandardCharsets.UTF_8)));
+            }
+            recording.stop();
+            recording.dump(recordingFile);
+        }
+
+        // THEN
+        List<RecordedEvent> events = RecordingFile.readAllEvents(recordingFile);
+        assertEquals(Sets.newHashSet("parse"), events.stream()
+                .filter(event -> event.getEventType().getName().equals("com.germer.starit.Stage"))
+                .map(event -> event.getString("stage"))
+                .collect(Collectors.toSet()));
+        assertEquals(Sets.newHashSet(1, 2), events.stream()
+                .filter(event -> event.getEventType().getName().equals("com.germer.starit.SlowLine"))
+                .map(event -> event.getInt("lineNumber"))
+                .collect(Collectors.toSet()));
+    }
+}
@@ -0,0 +1,74 @@
+package com.germer.starit.model;
+
+import com.google.common.collect.Lists;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.OptionalInt;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BulkLoadFavoriteThingStoreTest {
+
+    @Test
+    @DisplayName("It should answer the same queries of the sorted store once frozen")
+    public void freeze() {
+        // GIVEN
+        Random random = new Random(42);
+        Category sorted = new Category("Things");
+        Category bulk = new Category("Things", new BulkLoadFavoriteThingStore());
+        for (int index = 0; index < 20_000; index++) {
+            String name = "thing" + random.nextInt(15_000);
+            int rating = random.nextInt(500) - 100;
+            assertEquals(sorted.addFavoriteThingIfAbsent(name, rating), bulk.addFavoriteThingIfAbsent(name, rating));
+        }
+        assertEquals(sorted.getFavoriteThingByName("thing7"), bulk.getFavoriteThingByName("thing7"));
+        assertEquals(sorted.getHighestRatingFavoriteItem(), bulk.getHighestRatingFavoriteItem());
+
+        // WHEN
+        Category.freezeAll(Arrays.asList(sorted, bulk));
+
+        // THEN
+        assertEquals(Lists.newArrayList(sorted.getFavoriteThingsOrderedByRating()),
+                Lists.newArrayList(bulk.getFavoriteThingsOrderedByRating()));
+        assertEquals(Lists.newArrayList(sorted.iterateFavoriteThingsByRating(100, true)),
+                Lists.newArrayList(bulk.iterateFavoriteThingsByRating(100, true)));
+        assertEquals(sorted.getTopRatedFavoriteThings(25), bulk.getTopRatedFavoriteThings(25));
+        for (int index = 0; index < 15_000; index += 7) {
+            assertEquals(sorted.getRankByName("thing" + index), bulk.getRankByName("thing" + index));
+        }
+        for (int minRating = -150; minRating < 450; minRating += 50) {
+            assertEquals(sorted.countFavoriteThingsByRating(minRating, minRating + 120),
+                    bulk.countFavoriteThingsByRating(minRating, minRating + 120));
+            assertEquals(sorted.getTotalScoreByRating(minRating, Integer.MAX_VALUE),
+                    bulk.getTotalScoreByRating(minRating, Integer.MAX_VALUE));
+        }
+        assertEquals(sorted.getRatingPercentile(90), bulk.getRatingPercentile(90));
+        assertEquals(sorted.getTotalScore(), bulk.getTotalScore());
+        assertEquals(sorted.size(), bulk.size());
+    }
+
+    @Test
+    @DisplayName("It should be read-only once frozen and never allow removals")
+    public void freeze_readOnly() {
+        // GIVEN
+        BulkLoadFavoriteThingStore store = new BulkLoadFavoriteThingStore();
+        Category animals = new Category("Animals", store);
+        animals.addFavoriteThing("owl", 5);
+        animals.addFavoriteThing("bear", 7);
+
+        // WHEN
+        assertFalse(animals.addFavoriteThingIfAbsent("owl", 9));
+        OptionalInt bearRank = animals.getRankByName("bear");
+
+        // THEN
+        assertTrue(store.isFrozen());
+        assertEquals(OptionalInt.of(1), bearRank);
+        assertEquals(Optional.of(FavoriteThing.of("Animals", "owl", 5)), animals.getFavoriteThingByName("owl"));
+        assertThrows(IllegalStateException.class, () -> animals.addFavoriteThing("wolf", 4));
+        assertThrows(UnsupportedOperationException.class, () -> animals.removeFavoriteThingByName("owl"));
+    }
+}
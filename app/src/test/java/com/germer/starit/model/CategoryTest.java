@@ -1,11 +1,17 @@
 package com.germer.starit.model;
 
+import com.google.common.collect.Lists;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 
+import java.util.List;
 import java.util.Optional;
+import java.util.OptionalInt;
 
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 
@@ -46,4 +52,146 @@ class CategoryTest {
         assertEquals(FavoriteThing.of("Animals", "bear", 7), highestRatingFavoriteItem.get());
     }
 
-}
\ No newline at end of file
+    @Test
+    @DisplayName("It should keep equally rated favorite things ordered as they were added")
+    public void getFavoriteThingsOrderedByRating_keepsTies() {
+        // GIVEN
+        Category animals = new Category("Animals");
+        animals.addFavoriteThing("owl", 5);
+        animals.addFavoriteThing("bear", 7);
+        animals.addFavoriteThing("wolf", 5);
+        animals.addFavoriteThing("deer", 7);
+        animals.addFavoriteThing("fox", 5);
+
+        // WHEN
+        FavoriteThing removedWolf = animals.removeFavoriteThingByName("wolf");
+
+        // THEN
+        assertEquals(FavoriteThing.of("Animals", "wolf", 5), removedWolf);
+        assertEquals(4, animals.size());
+        assertEquals(24, animals.getTotalScore());
+        assertEquals(Optional.of(FavoriteThing.of("Animals", "bear", 7)), animals.getHighestRatingFavoriteItem());
+        assertThat(animals.getFavoriteThingsOrderedByRating(), contains(
+                FavoriteThing.of("Animals", "bear", 7),
+                FavoriteThing.of("Animals", "deer", 7),
+                FavoriteThing.of("Animals", "owl", 5),
+                FavoriteThing.of("Animals", "fox", 5)));
+    }
+
+    @Test
+    @DisplayName("It should rank favorite things and return the top rated ones")
+    public void getRankByName() {
+        // GIVEN
+        Category animals = new Category("Animals");
+        for (int rating = 0; rating < 1000; rating++) {
+            animals.addFavoriteThing("thing" + rating, rating % 100);
+        }
+
+        // WHEN
+        animals.removeFavoriteThingByName("thing99");
+
+        // THEN
+        assertEquals(OptionalInt.of(1), animals.getRankByName("thing199"));
+        assertEquals(OptionalInt.of(10), animals.getRankByName("thing98"));
+        assertEquals(OptionalInt.of(19), animals.getRankByName("thing998"));
+        assertEquals(OptionalInt.of(999), animals.getRankByName("thing900"));
+        assertEquals(OptionalInt.empty(), animals.getRankByName("thing99"));
+        assertThat(animals.getTopRatedFavoriteThings(3), contains(
+                FavoriteThing.of("Animals", "thing199", 99),
+                FavoriteThing.of("Animals", "thing299", 99),
+                FavoriteThing.of("Animals", "thing399", 99)));
+        assertEquals(999, animals.getTopRatedFavoriteThings(2000).size());
+    }
+
+    @Test
+    @DisplayName("It should iterate by rating from any position, in both orders")
+    public void iterateFavoriteThingsByRating() {
+        // GIVEN
+        Category animals = new Category("Animals");
+        for (int rating = 0; rating < 300; rating++) {
+            animals.addFavoriteThing("thing" + rating, rating % 7);
+        }
+        animals.removeFavoriteThingByName("thing13");
+        List<FavoriteThing> highestFirst = Lists.newArrayList(animals.getFavoriteThingsOrderedByRating());
+        List<FavoriteThing> lowestFirst = Lists.reverse(highestFirst);
+
+        for (int from = 0; from <= highestFirst.size(); from++) {
+            // WHEN
+            List<FavoriteThing> fromHighest = Lists.newArrayList(animals.iterateFavoriteThingsByRating(from, false));
+            List<FavoriteThing> fromLowest = Lists.newArrayList(animals.iterateFavoriteThingsByRating(from, true));
+
+            // THEN
+            assertEquals(highestFirst.subList(from, highestFirst.size()), fromHighest);
+            assertEquals(lowestFirst.subList(from, lowestFirst.size()), fromLowest);
+        }
+    }
+
+    @Test
+    @DisplayName("It should count, sum and select favorite things by rating on every store keeping all of them")
+    public void queriesByRating() {
+        List<Category> categories = Lists.newArrayList(new Category("Animals"),
+                new Category("Animals", new ColumnarFavoriteThingStore("Animals")),
+                new Category("Animals", new ConcurrentFavoriteThingStore()));
+        for (Category animals : categories) {
+            // GIVEN
+            for (int index = 0; index < 500; index++) {
+                animals.addFavoriteThing("thing" + index, index % 37 - 10);
+            }
+
+            // WHEN
+            for (int index = 0; index < 500; index += 3) {
+                animals.removeFavoriteThingByName("thing" + index);
+            }
+
+            // THEN
+            List<FavoriteThing> highestFirst = Lists.newArrayList(animals.getFavoriteThingsOrderedByRating());
+            for (int minRating = -12; minRating <= 28; minRating += 4) {
+                for (int maxRating = minRating - 1; maxRating <= 28; maxRating += 3) {
+                    int min = minRating;
+                    int max = maxRating;
+                    assertEquals(highestFirst.stream().filter(thing -> thing.getRating() >= min
+                            && thing.getRating() <= max).count(), animals.countFavoriteThingsByRating(min, max));
+                    assertEquals(highestFirst.stream().filter(thing -> thing.getRating() >= min
+                                    && thing.getRating() <= max).mapToLong(FavoriteThing::getRating).sum(),
+                            animals.getTotalScoreByRating(min, max));
+                }
+            }
+            assertEquals(highestFirst.size(), animals.countFavoriteThingsByRating(Integer.MIN_VALUE,
+                    Integer.MAX_VALUE));
+            assertEquals(animals.getTotalScore(), animals.getTotalScoreByRating(Integer.MIN_VALUE,
+                    Integer.MAX_VALUE));
+            for (int rank = 1; rank <= highestFirst.size(); rank++) {
+                assertEquals(Optional.of(highestFirst.get(rank - 1)), animals.getFavoriteThingByRank(rank));
+            }
+            assertEquals(Optional.empty(), animals.getFavoriteThingByRank(0));
+            assertEquals(Optional.empty(), animals.getFavoriteThingByRank(highestFirst.size() + 1));
+            assertEquals(OptionalInt.of(-10), animals.getRatingPercentile(0.1));
+            assertEquals(OptionalInt.of(highestFirst.get(highestFirst.size() / 2).getRating()),
+                    animals.getRatingPercentile(50));
+            assertEquals(OptionalInt.of(26), animals.getRatingPercentile(100));
+        }
+    }
+
+    @Test
+    @DisplayName("It should count favorite things by rating buckets, ignoring those out of all the buckets")
+    public void getRatingHistogram() {
+        // GIVEN
+        Category colors = new Category("Colors");
+        colors.addFavoriteThing("blue", 5);
+        colors.addFavoriteThing("red", 12);
+        colors.addFavoriteThing("green", 19);
+        colors.addFavoriteThing("pink", 20);
+        colors.addFavoriteThing("black", Integer.MAX_VALUE);
+
+        // WHEN
+        int[] histogram = colors.getRatingHistogram(10, 5, 3);
+
+        // THEN
+        assertArrayEquals(new int[]{1, 1, 1}, histogram);
+        assertArrayEquals(new int[]{1, 0}, colors.getRatingHistogram(Integer.MAX_VALUE, 10, 2));
+        assertEquals(OptionalInt.empty(), new Category("Empty").getRatingPercentile(50));
+        assertThrows(IllegalArgumentException.class, () -> colors.getRatingPercentile(0));
+        assertThrows(IllegalArgumentException.class, () -> colors.getRatingHistogram(0, 0, 1));
+    }
+
+}
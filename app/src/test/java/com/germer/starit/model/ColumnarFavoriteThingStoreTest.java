@@ -0,0 +1,73 @@
+package com.germer.starit.model;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Optional;
+import java.util.OptionalInt;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.junit.jupiter.api.Assertions.*;
+
+class ColumnarFavoriteThingStoreTest {
+
+    @Test
+    @DisplayName("It should keep the Category API working on top of the columns")
+    public void categoryApi() {
+        // GIVEN
+        Category foods = new Category("Foods", new ColumnarFavoriteThingStore("Foods"));
+        foods.addFavoriteThing("pizza", 5);
+        foods.addFavoriteThing("cr\u00e8me br\u00fbl\u00e9e", 7);
+        foods.addFavoriteThing("sushi", 5);
+        foods.addFavoriteThing("tacos", 7);
+
+        // WHEN
+        FavoriteThing removedTacos = foods.removeFavoriteThingByName("tacos");
+
+        // THEN
+        assertEquals(FavoriteThing.of("Foods", "tacos", 7), removedTacos);
+        assertNull(foods.removeFavoriteThingByName("tacos"));
+        assertThrows(IllegalArgumentException.class, () -> foods.addFavoriteThing("pizza", 1));
+        assertEquals(3, foods.size());
+        assertEquals(17, foods.getTotalScore());
+        assertEquals(Optional.of(FavoriteThing.of("Foods", "cr\u00e8me br\u00fbl\u00e9e", 7)),
+                foods.getFavoriteThingByName("cr\u00e8me br\u00fbl\u00e9e"));
+        assertEquals(Optional.empty(), foods.getFavoriteThingByName("cr\u00e8me"));
+        assertEquals(Optional.of(FavoriteThing.of("Foods", "cr\u00e8me br\u00fbl\u00e9e", 7)),
+                foods.getHighestRatingFavoriteItem());
+        assertThat(foods.getFavoriteThingsOrderedByRating(), contains(
+                FavoriteThing.of("Foods", "cr\u00e8me br\u00fbl\u00e9e", 7),
+                FavoriteThing.of("Foods", "pizza", 5),
+                FavoriteThing.of("Foods", "sushi", 5)));
+        assertEquals(OptionalInt.of(3), foods.getRankByName("sushi"));
+    }
+
+    @Test
+    @DisplayName("It should keep the order and the ranks after growing and compacting the columns")
+    public void addAndRemove_manyFavoriteThings() {
+        // GIVEN
+        Category things = new Category("Things", new ColumnarFavoriteThingStore("Things"));
+        for (int index = 0; index < 10_000; index++) {
+            things.addFavoriteThing("thing" + index, index % 100 - 50);
+        }
+
+        // WHEN
+        for (int index = 0; index < 10_000; index++) {
+            if (index % 10 != 0) {
+                things.removeFavoriteThingByName("thing" + index);
+            }
+        }
+
+        // THEN
+        assertEquals(1000, things.size());
+        assertEquals(-5000, things.getTotalScore());
+        assertEquals(Optional.of(FavoriteThing.of("Things", "thing90", 40)), things.getHighestRatingFavoriteItem());
+        assertThat(things.getTopRatedFavoriteThings(2), contains(
+                FavoriteThing.of("Things", "thing90", 40), FavoriteThing.of("Things", "thing190", 40)));
+        assertEquals(OptionalInt.of(1000), things.getRankByName("thing9900"));
+        assertEquals(Optional.empty(), things.getFavoriteThingByName("thing9901"));
+        assertTrue(things.addFavoriteThingIfAbsent("thing9901", 41));
+        assertEquals(Optional.of(FavoriteThing.of("Things", "thing9901", 41)), things.getHighestRatingFavoriteItem());
+    }
+}
@@ -0,0 +1,150 @@
+package com.germer.starit.model;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.RepeatedTest;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.OptionalInt;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConcurrentFavoriteThingStoreTest {
+
+    private static final int THREADS = 8;
+    private static final int NAMES = 2_000;
+
+    @Test
+    @DisplayName("It should keep the Category API working on a single thread")
+    public void categoryApi() {
+        // GIVEN
+        Category foods = new Category("Foods", new ConcurrentFavoriteThingStore());
+        foods.addFavoriteThing("pizza", 5);
+        foods.addFavoriteThing("sushi", 7);
+        foods.addFavoriteThing("tacos", 5);
+        foods.addFavoriteThing("pasta", 7);
+
+        // WHEN
+        FavoriteThing removedSushi = foods.removeFavoriteThingByName("sushi");
+
+        // THEN
+        assertEquals(FavoriteThing.of("Foods", "sushi", 7), removedSushi);
+        assertNull(foods.removeFavoriteThingByName("sushi"));
+        assertThrows(IllegalArgumentException.class, () -> foods.addFavoriteThing("pizza", 1));
+        assertEquals(3, foods.size());
+        assertEquals(17, foods.getTotalScore());
+        assertEquals(Optional.of(FavoriteThing.of("Foods", "pasta", 7)), foods.getHighestRatingFavoriteItem());
+        assertThat(foods.getFavoriteThingsOrderedByRating(), contains(
+                FavoriteThing.of("Foods", "pasta", 7),
+                FavoriteThing.of("Foods", "pizza", 5),
+                FavoriteThing.of("Foods", "tacos", 5)));
+        assertEquals(OptionalInt.of(3), foods.getRankByName("tacos"));
+        assertEquals(OptionalInt.empty(), foods.getRankByName("sushi"));
+    }
+
+    @RepeatedTest(5)
+    @DisplayName("Threads adding the same names at once should keep exactly one favorite thing per name")
+    public void add_contended() throws Exception {
+        // GIVEN
+        Category things = new Category("Things", new ConcurrentFavoriteThingStore());
+        AtomicIntegerArray winners = new AtomicIntegerArray(NAMES);
+
+        // WHEN
+        runAtOnce(thread -> {
+            // Every thread adds every name, each one with its own rating and in its own order.
+            for (int index = 0; index < NAMES; index++) {
+                int name = (index * 7 + thread * 131) % NAMES;
+                if (things.addFavoriteThingIfAbsent("thing" + name, name % 50 + thread * 100)) {
+                    winners.incrementAndGet(name);
+                }
+            }
+        });
+
+        // THEN
+        long expectedTotalScore = 0;
+        for (int name = 0; name < NAMES; name++) {
+            assertEquals(1, winners.get(name), "thing" + name);
+            expectedTotalScore += things.getFavoriteThingByName("thing" + name).get().getRating();
+        }
+        assertEquals(NAMES, things.size());
+        assertEquals(expectedTotalScore, things.getTotalScore());
+        assertOrderedByRating(things);
+    }
+
+    @RepeatedTest(5)
+    @DisplayName("Threads adding and removing at once should leave consistent totals and ordering")
+    public void addAndRemove_contended() throws Exception {
+        // GIVEN
+        Category things = new Category("Things", new ConcurrentFavoriteThingStore());
+
+        // WHEN
+        runAtOnce(thread -> {
+            for (int index = 0; index < NAMES; index++) {
+                String name = "thing" + (index * 13 + thread) % NAMES;
+                if (thread % 2 == 0) {
+                    things.addFavoriteThingIfAbsent(name, index % 97);
+                } else {
+                    things.removeFavoriteThingByName(name);
+                }
+            }
+        });
+
+        // THEN
+        int expectedSize = 0;
+        int expectedTotalScore = 0;
+        for (FavoriteThing favoriteThing : things.getFavoriteThingsOrderedByRating()) {
+            assertEquals(Optional.of(favoriteThing), things.getFavoriteThingByName(favoriteThing.getName()));
+            expectedSize++;
+            expectedTotalScore += favoriteThing.getRating();
+        }
+        for (int name = 0; name < NAMES; name++) {
+            things.getFavoriteThingByName("thing" + name)
+                    .ifPresent(favoriteThing -> assertTrue(things.getRankByName(favoriteThing.getName()).isPresent()));
+        }
+        assertEquals(expectedSize, things.size());
+        assertEquals(expectedTotalScore, things.getTotalScore());
+        assertOrderedByRating(things);
+    }
+
+    private static void assertOrderedByRating(Category category) {
+        int previousRating = Integer.MAX_VALUE;
+        for (FavoriteThing favoriteThing : category.getFavoriteThingsOrderedByRating()) {
+            assertTrue(favoriteThing.getRating() <= previousRating);
+            previousRating = favoriteThing.getRating();
+        }
+    }
+
+    /**
+     * Runs the task on {@value THREADS} threads released at the same time, and waits for all of them.
+     */
+    private static void runAtOnce(IntConsumerTask task) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CyclicBarrier start = new CyclicBarrier(THREADS);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int thread = 0; thread < THREADS; thread++) {
+                int threadIndex = thread;
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    task.run(threadIndex);
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private interface IntConsumerTask {
+        void run(int thread) throws Exception;
+    }
+}
@@ -0,0 +1,97 @@
+package com.germer.starit.model;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class GlobalRankingTest {
+
+    @Test
+    @DisplayName("It should merge the categories from the highest and from the lowest rating")
+    public void topAndBottom() {
+        // GIVEN
+        Category colors = new Category("Colors");
+        colors.addFavoriteThing("blue", 5);
+        colors.addFavoriteThing("red", 9);
+        colors.addFavoriteThing("green", 7);
+        Category foods = new Category("Foods", new ColumnarFavoriteThingStore("Foods"));
+        foods.addFavoriteThing("pizza", 8);
+        foods.addFavoriteThing("pasta", 7);
+        foods.addFavoriteThing("sushi", 9);
+        Category empty = new Category("Empty", new ConcurrentFavoriteThingStore());
+        GlobalRanking ranking = new GlobalRanking(Arrays.asList(colors, empty, foods));
+
+        // WHEN
+        List<FavoriteThing> top = ranking.getTop(4);
+        List<FavoriteThing> bottom = ranking.getBottom(100);
+
+        // THEN
+        assertThat(top, contains(FavoriteThing.of("Colors", "red", 9), FavoriteThing.of("Foods", "sushi", 9),
+                FavoriteThing.of("Foods", "pizza", 8), FavoriteThing.of("Colors", "green", 7)));
+        assertThat(bottom, contains(FavoriteThing.of("Colors", "blue", 5), FavoriteThing.of("Foods", "pasta", 7),
+                FavoriteThing.of("Colors", "green", 7), FavoriteThing.of("Foods", "pizza", 8),
+                FavoriteThing.of("Foods", "sushi", 9), FavoriteThing.of("Colors", "red", 9)));
+        assertThat(new GlobalRanking(new ArrayList<>()).getTop(1), empty());
+    }
+
+    @Test
+    @DisplayName("It should page through the ranking with cursors, also when exchanged as text")
+    public void getPage() {
+        // GIVEN
+        Category colors = new Category("Colors");
+        colors.addFavoriteThing("blue", 5);
+        colors.addFavoriteThing("red", 9);
+        colors.addFavoriteThing("green", 7);
+        Category foods = new Category("Foods");
+        foods.addFavoriteThing("pizza", 8);
+        foods.addFavoriteThing("pasta", 7);
+        GlobalRanking ranking = new GlobalRanking(Arrays.asList(colors, foods));
+
+        // WHEN
+        List<FavoriteThing> pagedThings = new ArrayList<>();
+        GlobalRanking.Cursor cursor = GlobalRanking.Cursor.highestFirst();
+        List<String> cursors = new ArrayList<>();
+        while (cursor != null) {
+            GlobalRanking.Page page = ranking.getPage(ranking.parseCursor(cursor.toString()), 2);
+            pagedThings.addAll(page.getFavoriteThings());
+            cursor = page.getNext();
+            cursors.add(String.valueOf(cursor));
+        }
+
+        // THEN
+        List<FavoriteThing> allThings = new ArrayList<>();
+        Iterator<FavoriteThing> iterator = ranking.iterateHighestFirst();
+        iterator.forEachRemaining(allThings::add);
+        assertEquals(allThings, pagedThings);
+        assertThat(cursors, contains("h.0-1.1-1", "h.0-2.1-2", "null"));
+        assertNull(ranking.getPage(GlobalRanking.Cursor.lowestFirst(), 5).getNext());
+    }
+
+    @Test
+    @DisplayName("It should reject cursors which aren't of the ranking")
+    public void parseCursor_invalid() {
+        // GIVEN
+        GlobalRanking ranking = new GlobalRanking(Arrays.asList(new Category("Colors"), new Category("Foods")));
+
+        // WHEN
+        IllegalArgumentException unknownCategory = assertThrows(IllegalArgumentException.class,
+                () -> ranking.parseCursor("h.2-1"));
+        IllegalArgumentException malformed = assertThrows(IllegalArgumentException.class,
+                () -> ranking.parseCursor("x.0-1"));
+
+        // THEN
+        assertEquals("Invalid cursor 'h.2-1'.", unknownCategory.getMessage());
+        assertEquals("Invalid cursor 'x.0-1'.", malformed.getMessage());
+    }
+}
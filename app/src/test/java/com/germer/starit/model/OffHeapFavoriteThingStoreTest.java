@@ -0,0 +1,140 @@
+package com.germer.starit.model;
+
+import com.germer.starit.offheap.OffHeapArena;
+import com.google.common.collect.Lists;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.OptionalInt;
+import java.util.Random;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.junit.jupiter.api.Assertions.*;
+
+class OffHeapFavoriteThingStoreTest {
+
+    private static final int SEGMENT_SIZE = 1 << 10;
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    @DisplayName("It should keep the Category API working on top of the off-heap regions")
+    public void categoryApi() {
+        // GIVEN
+        Category foods = new Category("Foods", new OffHeapFavoriteThingStore("Foods",
+                OffHeapArena.direct(SEGMENT_SIZE)));
+        foods.addFavoriteThing("pizza", 5);
+        foods.addFavoriteThing("cr\u00e8me br\u00fbl\u00e9e", 7);
+        foods.addFavoriteThing("sushi", 5);
+        foods.addFavoriteThing("tacos", 7);
+
+        // WHEN
+        FavoriteThing removedTacos = foods.removeFavoriteThingByName("tacos");
+
+        // THEN
+        assertEquals(FavoriteThing.of("Foods", "tacos", 7), removedTacos);
+        assertNull(foods.removeFavoriteThingByName("tacos"));
+        assertThrows(IllegalArgumentException.class, () -> foods.addFavoriteThing("pizza", 1));
+        assertEquals(3, foods.size());
+        assertEquals(17, foods.getTotalScore());
+        assertEquals(Optional.of(FavoriteThing.of("Foods", "cr\u00e8me br\u00fbl\u00e9e", 7)),
+                foods.getFavoriteThingByName("cr\u00e8me br\u00fbl\u00e9e"));
+        assertEquals(Optional.empty(), foods.getFavoriteThingByName("cr\u00e8me"));
+        assertEquals(Optional.of(FavoriteThing.of("Foods", "cr\u00e8me br\u00fbl\u00e9e", 7)),
+                foods.getHighestRatingFavoriteItem());
+        assertThat(foods.getFavoriteThingsOrderedByRating(), contains(
+                FavoriteThing.of("Foods", "cr\u00e8me br\u00fbl\u00e9e", 7),
+                FavoriteThing.of("Foods", "pizza", 5),
+                FavoriteThing.of("Foods", "sushi", 5)));
+        assertEquals(OptionalInt.of(3), foods.getRankByName("sushi"));
+        assertThrows(IllegalArgumentException.class, () -> foods.addFavoriteThing(
+                new String(new char[SEGMENT_SIZE + 1]).replace('\0', 'a'), 1));
+    }
+
+    @Test
+    @DisplayName("It should answer the same queries of the sorted store from segments mapped from a scratch file")
+    public void mappedArena() throws IOException {
+        // GIVEN
+        Random random = new Random(42);
+        Category sorted = new Category("Things");
+        try (OffHeapArena arena = OffHeapArena.mapped(tempDir, SEGMENT_SIZE)) {
+            Category offHeap = new Category("Things", new OffHeapFavoriteThingStore("Things", arena));
+
+            // WHEN
+            for (int index = 0; index < 30_000; index++) {
+                String name = "thing" + random.nextInt(20_000);
+                int rating = index % 3 == 0 ? random.nextInt() : random.nextInt(500) - 100;
+                if (index % 5 == 0) {
+                    assertEquals(sorted.removeFavoriteThingByName(name), offHeap.removeFavoriteThingByName(name));
+                } else {
+                    assertEquals(sorted.addFavoriteThingIfAbsent(name, rating),
+                            offHeap.addFavoriteThingIfAbsent(name, rating));
+                }
+                if (index % 10_000 == 0) {
+                    assertEquals(sorted.getTopRatedFavoriteThings(10), offHeap.getTopRatedFavoriteThings(10));
+                }
+            }
+            Category.freezeAll(Lists.newArrayList(sorted, offHeap));
+
+            // THEN
+            assertTrue(arena.isMapped());
+            assertEquals(Lists.newArrayList(sorted.getFavoriteThingsOrderedByRating()),
+                    Lists.newArrayList(offHeap.getFavoriteThingsOrderedByRating()));
+            assertEquals(Lists.newArrayList(sorted.iterateFavoriteThingsByRating(100, true)),
+                    Lists.newArrayList(offHeap.iterateFavoriteThingsByRating(100, true)));
+            for (int index = 0; index < 20_000; index += 7) {
+                assertEquals(sorted.getRankByName("thing" + index), offHeap.getRankByName("thing" + index));
+                assertEquals(sorted.getFavoriteThingByName("thing" + index),
+                        offHeap.getFavoriteThingByName("thing" + index));
+            }
+            for (int minRating = -150; minRating < 450; minRating += 50) {
+                assertEquals(sorted.countFavoriteThingsByRating(minRating, minRating + 120),
+                        offHeap.countFavoriteThingsByRating(minRating, minRating + 120));
+                assertEquals(sorted.getTotalScoreByRating(minRating, Integer.MAX_VALUE),
+                        offHeap.getTotalScoreByRating(minRating, Integer.MAX_VALUE));
+            }
+            assertEquals(sorted.getHighestRatingFavoriteItem(), offHeap.getHighestRatingFavoriteItem());
+            assertEquals(sorted.getTotalScore(), offHeap.getTotalScore());
+            assertEquals(sorted.size(), offHeap.size());
+        }
+    }
+
+    @Test
+    @DisplayName("Small categories should share the segments of the arena instead of taking several each")
+    public void smallCategories() {
+        // GIVEN
+        OffHeapArena arena = OffHeapArena.direct();
+        List<Category> categories = new ArrayList<>();
+
+        // WHEN
+        for (int index = 0; index < 2_000; index++) {
+            Category category = new Category("Category" + index, new OffHeapFavoriteThingStore("Category" + index,
+                    arena));
+            for (int thing = 0; thing < index % 20; thing++) {
+                category.addFavoriteThing("thing" + thing, thing % 7);
+            }
+            categories.add(category);
+        }
+        Category.freezeAll(categories);
+
+        // THEN
+        assertTrue(arena.getAllocatedBytes() <= 4L * OffHeapArena.DEFAULT_DIRECT_SEGMENT_SIZE,
+                "Allocated " + arena.getAllocatedBytes() + " bytes");
+        for (int index = 0; index < categories.size(); index++) {
+            Category category = categories.get(index);
+            assertEquals(index % 20, category.size());
+            for (int thing = 0; thing < index % 20; thing++) {
+                assertEquals(Optional.of(FavoriteThing.of("Category" + index, "thing" + thing, thing % 7)),
+                        category.getFavoriteThingByName("thing" + thing));
+            }
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.germer.starit.model;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Optional;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.junit.jupiter.api.Assertions.*;
+
+class StreamingFavoriteThingStoreTest {
+
+    @Test
+    @DisplayName("It should keep totals of all favorite things but only retain the top-K ones")
+    public void add_retainsTopK() {
+        // GIVEN
+        Category animals = new Category("Animals", new StreamingFavoriteThingStore("Animals", 2));
+
+        // WHEN
+        animals.addFavoriteThing("owl", 5);
+        animals.addFavoriteThing("bear", 7);
+        animals.addFavoriteThing("wolf", 4);
+        animals.addFavoriteThing("deer", 7);
+        animals.addFavoriteThing("fox", 6);
+
+        // THEN
+        assertEquals(5, animals.size());
+        assertEquals(29, animals.getTotalScore());
+        assertEquals(Optional.of(FavoriteThing.of("Animals", "bear", 7)), animals.getHighestRatingFavoriteItem());
+        assertThat(animals.getFavoriteThingsOrderedByRating(), contains(
+                FavoriteThing.of("Animals", "bear", 7), FavoriteThing.of("Animals", "deer", 7)));
+        assertEquals(Optional.of(FavoriteThing.of("Animals", "wolf", 4)), animals.getFavoriteThingByName("wolf"));
+    }
+
+    @Test
+    @DisplayName("It should detect duplicates exactly and refuse removals")
+    public void add_exactDuplicates() {
+        // GIVEN
+        Category animals = new Category("Animals", new StreamingFavoriteThingStore("Animals", 1));
+        animals.addFavoriteThing("owl", 1);
+
+        // WHEN
+        boolean added = animals.addFavoriteThingIfAbsent("owl", 2);
+
+        // THEN
+        assertFalse(added);
+        assertEquals(1, animals.size());
+        assertEquals(1, animals.getTotalScore());
+        assertThrows(UnsupportedOperationException.class, () -> animals.removeFavoriteThingByName("owl"));
+    }
+
+    @Test
+    @DisplayName("It should detect duplicates approximately without remembering the names")
+    public void add_approximateDuplicates() {
+        // GIVEN
+        Category animals = new Category("Animals", new StreamingFavoriteThingStore("Animals", 1, 1000));
+        animals.addFavoriteThing("owl", 1);
+
+        // WHEN
+        boolean added = animals.addFavoriteThingIfAbsent("owl", 2);
+
+        // THEN
+        assertFalse(added);
+        assertTrue(animals.addFavoriteThingIfAbsent("bear", 3));
+        assertEquals(2, animals.size());
+        assertEquals(4, animals.getTotalScore());
+        assertEquals(Optional.empty(), animals.getFavoriteThingByName("owl"));
+        assertEquals(Optional.of(FavoriteThing.of("Animals", "bear", 3)), animals.getHighestRatingFavoriteItem());
+    }
+}
@@ -0,0 +1,70 @@
+package com.germer.starit.parser;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class CategoryTableTest {
+
+    @Test
+    @DisplayName("It should give every category a distinct id, found from its bytes and from its chars")
+    public void idOf() {
+        // GIVEN
+        List<String> names = new ArrayList<>();
+        for (int i = 0; i < 20000; i++) {
+            names.add("Category " + i);
+        }
+        names.add("Caf\u00e9s");
+        names.add("\ud83c\udf55 Pizzas");
+
+        // WHEN
+        CategoryTable table = CategoryTable.of(names, false);
+
+        // THEN
+        assertEquals(names.size(), table.size());
+        Set<Integer> ids = new HashSet<>();
+        for (String name : names) {
+            int id = table.idOf(name);
+            ids.add(id);
+            assertEquals(name, table.nameOf(id));
+            ByteBuffer bytes = ByteBuffer.wrap((":" + name + ",").getBytes(StandardCharsets.UTF_8));
+            assertEquals(id, table.idOf(bytes, 1, bytes.limit() - 1));
+            assertEquals(id, table.idOf("  " + name, 2, name.length() + 2));
+        }
+        assertEquals(names.size(), ids.size());
+        assertEquals(CategoryTable.UNKNOWN, table.idOf("Category 20000"));
+        assertEquals(CategoryTable.UNKNOWN, table.idOf("category 1"));
+        assertEquals(CategoryTable.UNKNOWN, table.idOf("Category 1 "));
+        assertEquals(CategoryTable.UNKNOWN, table.idOf(""));
+        assertEquals(CategoryTable.UNKNOWN, table.idOf(ByteBuffer.wrap(new byte[]{'C', (byte) 0xC3}), 0, 2));
+        assertEquals(CategoryTable.UNKNOWN, CategoryTable.of(Collections.emptySet(), false).idOf("Colors"));
+    }
+
+    @Test
+    @DisplayName("It should match the categories ignoring case, giving back their names as configured")
+    public void idOf_ignoreCase() {
+        // GIVEN
+        CategoryTable table = CategoryTable.of(Arrays.asList("Colors", "Caf\u00e9s", "Stra\u00dfen"), true);
+        ByteBuffer bytes = ByteBuffer.wrap("CAF\u00c9S".getBytes(StandardCharsets.UTF_8));
+
+        // WHEN
+        int colorsId = table.idOf("cOLORS");
+        int cafesId = table.idOf(bytes, 0, bytes.limit());
+
+        // THEN
+        assertEquals("Colors", table.nameOf(colorsId));
+        assertEquals("Caf\u00e9s", table.nameOf(cafesId));
+        assertEquals(table.idOf("Stra\u00dfen"), table.idOf("STRA\u00dfEN"));
+        assertEquals(CategoryTable.UNKNOWN, table.idOf("Colours"));
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
+                () -> CategoryTable.of(Arrays.asList("Colors", "COLORS"), true));
+        assertEquals("The categories 'Colors' and 'COLORS' can't be told apart ignoring case.",
+                exception.getMessage());
+    }
+}
@@ -0,0 +1,66 @@
+package com.germer.starit.parser;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class DelimiterSearchTest {
+
+    /**
+     * Mostly name bytes, with delimiters, digits, their neighbours and multi-byte UTF-8 sequences here and there.
+     */
+    private static final byte[] ALPHABET = ("abcdefghij abcdefghij abcdefghij:,\n\r0123456789/;+-\u00e9\u20ac")
+            .getBytes(StandardCharsets.UTF_8);
+
+    @Test
+    @DisplayName("It should find the same delimiters as a byte by byte search, whatever the buffer and its order")
+    public void indexOf() {
+        // GIVEN
+        Random random = new Random(42);
+        byte[] bytes = new byte[4096];
+        for (int index = 0; index < bytes.length; index++) {
+            // Runs without any delimiter, longer than a word, are more likely at the beginning.
+            bytes[index] = index < 64 && index % 3 != 0 ? (byte) 'x' : ALPHABET[random.nextInt(ALPHABET.length)];
+        }
+        ByteBuffer directBuffer = ByteBuffer.allocateDirect(bytes.length);
+        directBuffer.put(bytes);
+        List<ByteBuffer> buffers = Arrays.asList(ByteBuffer.wrap(bytes),
+                ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN), directBuffer,
+                directBuffer.duplicate().order(ByteOrder.LITTLE_ENDIAN));
+
+        for (ByteBuffer buffer : buffers) {
+            for (int from = 0; from < 200; from++) {
+                for (int end = from; end < from + 120; end += 3) {
+                    // WHEN
+                    int colon = DelimiterSearch.indexOfColonOrLineTerminator(buffer, from, end);
+                    int nameEnd = DelimiterSearch.indexOfItemTerminatorOrDigit(buffer, from, end);
+                    int itemEnd = DelimiterSearch.indexOfItemTerminator(buffer, from, end);
+                    int lineEnd = DelimiterSearch.indexOfLineTerminator(buffer, from, end);
+
+                    // THEN
+                    assertEquals(indexOf(bytes, from, end, ":\n\r"), colon);
+                    assertEquals(indexOf(bytes, from, end, ",\n\r0123456789"), nameEnd);
+                    assertEquals(indexOf(bytes, from, end, ",\n\r"), itemEnd);
+                    assertEquals(indexOf(bytes, from, end, "\n\r"), lineEnd);
+                }
+            }
+        }
+    }
+
+    private static int indexOf(byte[] bytes, int from, int end, String delimiters) {
+        for (int index = from; index < end; index++) {
+            if (delimiters.indexOf(bytes[index]) >= 0) {
+                return index;
+            }
+        }
+        return end;
+    }
+}
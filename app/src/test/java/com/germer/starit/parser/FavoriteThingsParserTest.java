@@ -1,23 +1,57 @@
 package com.germer.starit.parser;
 
+import com.germer.starit.model.BulkLoadFavoriteThingStore;
 import com.germer.starit.model.Category;
+import com.google.common.collect.Lists;
 import com.google.common.collect.Sets;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
 import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.hasItems;
 import static org.hamcrest.Matchers.hasSize;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 
 class FavoriteThingsParserTest {
 
+    private static final String TRICKY_FAVORITE_THINGS = "Colors:blue1,red2,,pink3,,\n" +
+            ":nothing1\n" +
+            "Colors\n" +
+            "Colors:\n" +
+            "Colors:,,,\n" +
+            ",Colors:cyan3\n" +
+            "\n" +
+            "  Colors\t: green7,a1b2,12,yellow,blue5\n" +
+            "Mammals:cow1\n" +
+            "Foods:pizza05,fondue:45,shepherd pie10\r\n" +
+            "Colors:,orange8";
+
+    @TempDir
+    Path tempDir;
+
     @Test
     @DisplayName("It should skip unexpected category and error should be available")
     public void parse_unexpectedCategory() {
@@ -153,9 +187,615 @@ class FavoriteThingsParserTest {
         assertEquals(5, countriesCategory.getFavoriteThingByName("New Zealand").get().getRating());
     }
 
+    @Test
+    @DisplayName("The scanner tokenizer should yield the same categories and errors as the regex one")
+    public void parse_scannerMatchesRegex() {
+        // GIVEN
+        Set<String> validCategoryNames = Sets.newHashSet("Colors", "Foods");
+        FavoriteThingsParser regexParser = new FavoriteThingsParser(validCategoryNames, TokenizerMode.REGEX);
+        FavoriteThingsParser scannerParser = new FavoriteThingsParser(validCategoryNames, TokenizerMode.SCANNER);
+        // WHEN
+        regexParser.parse(stringToInputStream(TRICKY_FAVORITE_THINGS));
+        scannerParser.parse(stringToInputStream(TRICKY_FAVORITE_THINGS));
+        // THEN
+        assertThat(scannerParser.getParsingErrors(), hasSize(12));
+        assertEquals(regexParser.getParsingErrors(), scannerParser.getParsingErrors());
+        assertThat(scannerParser.getParsedCategories(), hasSize(2));
+        assertEquals(regexParser.getParsedCategoryByName("Colors"), scannerParser.getParsedCategoryByName("Colors"));
+        assertEquals(regexParser.getParsedCategoryByName("Foods"), scannerParser.getParsedCategoryByName("Foods"));
+
+        Category colorsCategory = scannerParser.getParsedCategoryByName("Colors");
+        assertEquals(5, colorsCategory.size());
+        assertEquals(7, colorsCategory.getFavoriteThingByName(" green").get().getRating());
+        assertEquals(8, colorsCategory.getFavoriteThingByName("orange").get().getRating());
+
+        Category foodsCategory = scannerParser.getParsedCategoryByName("Foods");
+        assertEquals(3, foodsCategory.size());
+        assertEquals(5, foodsCategory.getFavoriteThingByName("pizza").get().getRating());
+        assertEquals(45, foodsCategory.getFavoriteThingByName("fondue:").get().getRating());
+        assertEquals(10, foodsCategory.getFavoriteThingByName("shepherd pie").get().getRating());
+    }
+
+    @Test
+    @DisplayName("The scanner tokenizer should fail like the regex one on ratings overflowing an int")
+    public void parse_scannerRatingOverflow() {
+        // GIVEN
+        String favoriteThings = "Colors:blue1,red2147483648";
+        FavoriteThingsParser regexParser = new FavoriteThingsParser(Sets.newHashSet("Colors"), TokenizerMode.REGEX);
+        FavoriteThingsParser scannerParser = new FavoriteThingsParser(Sets.newHashSet("Colors"), TokenizerMode.SCANNER);
+        // WHEN
+        NumberFormatException regexException = assertThrows(NumberFormatException.class,
+                () -> regexParser.parse(stringToInputStream(favoriteThings)));
+        NumberFormatException scannerException = assertThrows(NumberFormatException.class,
+                () -> scannerParser.parse(stringToInputStream(favoriteThings)));
+        // THEN
+        assertEquals(regexException.getMessage(), scannerException.getMessage());
+    }
+
+    @Test
+    @DisplayName("Categories matched ignoring case should be populated under their configured names by every path")
+    public void parse_ignoringCategoryCase() throws IOException {
+        // GIVEN
+        CategoryTable categoryTable = CategoryTable.of(Arrays.asList("Colors", "Foods"), true);
+        byte[] favoriteThings = ("COLORS:blue1\n colors :red2\nFOODS:pizza5\nMammals:cow1\ncoLors:blue3\n")
+                .getBytes(StandardCharsets.UTF_8);
+        Path favoriteThingsFile = Files.write(tempDir.resolve("favorite-things.txt"), favoriteThings);
+        List<FavoriteThingsParser> parsers = new ArrayList<>();
+        for (TokenizerMode tokenizerMode : TokenizerMode.values()) {
+            FavoriteThingsParser streamParser = new FavoriteThingsParser(categoryTable, tokenizerMode);
+            streamParser.parse(new ByteArrayInputStream(favoriteThings));
+            parsers.add(streamParser);
+        }
+        FavoriteThingsParser mappedParser = new FavoriteThingsParser(categoryTable, TokenizerMode.SCANNER);
+        mappedParser.parse(favoriteThingsFile);
+        parsers.add(mappedParser);
+        FavoriteThingsParser parallelParser = new FavoriteThingsParser(categoryTable, TokenizerMode.SCANNER);
+        parallelParser.setParallelism(2);
+        parallelParser.parseInParallel(favoriteThingsFile, 16);
+        parsers.add(parallelParser);
+        FavoriteThingsParser pipelinedParser = new FavoriteThingsParser(categoryTable, TokenizerMode.SCANNER);
+        pipelinedParser.parsePipelined(new ByteArrayInputStream(favoriteThings), 2, 16);
+        parsers.add(pipelinedParser);
+
+        for (FavoriteThingsParser parser : parsers) {
+            // WHEN
+            Category colors = parser.getParsedCategoryByName("Colors");
+
+            // THEN
+            assertThat(parser.getParsedCategories(), hasSize(2));
+            assertEquals(2, colors.size());
+            assertEquals(1, parser.getParsedCategoryByName("Foods").size());
+            assertEquals(Arrays.asList("Unknown category 'Mammals' on line 4, this line was skipped.",
+                    "The score 3 present on line 5 for the item 'blue' in the category 'Colors' was ignored because " +
+                            "there is already a previous score of 1 set."), parser.getParsingErrors());
+        }
+    }
+
+    @Test
+    @DisplayName("Parsing a memory-mapped file should yield the same categories and errors as an input stream")
+    public void parse_memoryMappedFile() throws IOException {
+        // GIVEN
+        Set<String> validCategoryNames = Sets.newHashSet("Colors", "Foods");
+        Path favoriteThingsFile = Files.write(tempDir.resolve("favorite-things.txt"),
+                (TRICKY_FAVORITE_THINGS + "\r\nFoods:noodles4\r").getBytes(StandardCharsets.UTF_8));
+        FavoriteThingsParser streamParser = new FavoriteThingsParser(validCategoryNames);
+        streamParser.parse(Files.newInputStream(favoriteThingsFile));
+
+        for (int windowSize : new int[]{42, 53, 64, 1 << 20}) {
+            FavoriteThingsParser mappedParser = new FavoriteThingsParser(validCategoryNames);
+            // WHEN
+            mappedParser.parse(favoriteThingsFile, windowSize);
+            // THEN
+            assertEquals(streamParser.getParsingErrors(), mappedParser.getParsingErrors());
+            assertEquals(streamParser.getParsedCategoryByName("Colors"), mappedParser.getParsedCategoryByName("Colors"));
+            assertEquals(streamParser.getParsedCategoryByName("Foods"), mappedParser.getParsedCategoryByName("Foods"));
+            assertEquals(4, mappedParser.getParsedCategoryByName("Foods").getFavoriteThingByName("noodles").get()
+                    .getRating());
+        }
+    }
+
+    @Test
+    @DisplayName("Parsing a gzip or deflate compressed source should yield the same results as the plain one")
+    public void parse_compressedSource() throws IOException {
+        // GIVEN
+        Set<String> validCategoryNames = Sets.newHashSet("Colors", "Foods");
+        byte[] favoriteThings = (TRICKY_FAVORITE_THINGS + "\r\nFoods:noodles4\r").getBytes(StandardCharsets.UTF_8);
+        FavoriteThingsParser plainParser = new FavoriteThingsParser(validCategoryNames);
+        plainParser.parse(new ByteArrayInputStream(favoriteThings));
+        ByteArrayOutputStream gzipBytes = new ByteArrayOutputStream();
+        try (OutputStream out = new GZIPOutputStream(gzipBytes)) {
+            out.write(favoriteThings);
+        }
+        ByteArrayOutputStream deflateBytes = new ByteArrayOutputStream();
+        try (OutputStream out = new DeflaterOutputStream(deflateBytes)) {
+            out.write(favoriteThings);
+        }
+
+        for (byte[] compressed : Arrays.asList(gzipBytes.toByteArray(), deflateBytes.toByteArray())) {
+            Path compressedFile = Files.write(tempDir.resolve("favorite-things.txt.z"), compressed);
+            FavoriteThingsParser streamParser = new FavoriteThingsParser(validCategoryNames);
+            FavoriteThingsParser fileParser = new FavoriteThingsParser(validCategoryNames);
+            // WHEN
+            streamParser.parse(new ByteArrayInputStream(compressed));
+            fileParser.parse(compressedFile);
+            // THEN
+            for (FavoriteThingsParser parser : Arrays.asList(streamParser, fileParser)) {
+                assertEquals(plainParser.getParsingErrors(), parser.getParsingErrors());
+                assertEquals(plainParser.getParsedCategoryByName("Colors"), parser.getParsedCategoryByName("Colors"));
+                assertEquals(plainParser.getParsedCategoryByName("Foods"), parser.getParsedCategoryByName("Foods"));
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Parsing concatenated gzip members in parallel should yield the results of the plain concatenation")
+    public void parse_multiMemberGzip() throws IOException {
+        // GIVEN
+        Set<String> validCategoryNames = Sets.newHashSet("Colors", "Foods");
+        ByteArrayOutputStream plainBytes = new ByteArrayOutputStream();
+        ByteArrayOutputStream gzipBytes = new ByteArrayOutputStream();
+        for (int member = 0; member < 5; member++) {
+            StringBuilder favoriteThings = new StringBuilder();
+            for (int line = 0; line < 2000; line++) {
+                favoriteThings.append(line % 2 == 0 ? "Colors:" : "Foods:")
+                        .append(lettersOf(line)).append(member).append(',')
+                        .append(lettersOf(line % 100)).append(line).append('\n');
+            }
+            // A member split in the middle of a line, and stored bytes looking like a member header.
+            favoriteThings.append(member == 2 ? "Colors:\u001f\u0000bad1" : "Colors:white1\n");
+            byte[] memberBytes = favoriteThings.toString().getBytes(StandardCharsets.ISO_8859_1);
+            if (member == 3) {
+                memberBytes[memberBytes.length - 8] = (byte) 0x1F;
+                memberBytes[memberBytes.length - 7] = (byte) 0x8B;
+                memberBytes[memberBytes.length - 6] = 8;
+                memberBytes[memberBytes.length - 5] = 0;
+            }
+            plainBytes.write(memberBytes);
+            boolean stored = member == 3;
+            try (OutputStream out = new GZIPOutputStream(gzipBytes) {
+                {
+                    def.setLevel(stored ? Deflater.NO_COMPRESSION : Deflater.DEFAULT_COMPRESSION);
+                }
+
+                @Override
+                public void close() throws IOException {
+                    // Keeps the underlying stream open for the next members.
+                    finish();
+                }
+            }) {
+                out.write(memberBytes);
+            }
+        }
+        Path plainFile = Files.write(tempDir.resolve("favorite-things.txt"), plainBytes.toByteArray());
+        Path gzipFile = Files.write(tempDir.resolve("favorite-things.txt.gz"), gzipBytes.toByteArray());
+        FavoriteThingsParser plainParser = new FavoriteThingsParser(validCategoryNames);
+        plainParser.parse(plainFile);
+        FavoriteThingsParser gzipParser = new FavoriteThingsParser(validCategoryNames);
+        gzipParser.setParallelism(3);
+        FavoriteThingsParser shardsParser = new FavoriteThingsParser(validCategoryNames);
+        shardsParser.setParallelism(3);
+
+        // WHEN
+        gzipParser.parse(gzipFile);
+        shardsParser.parse(Arrays.asList(gzipFile, plainFile));
+
+        // THEN
+        assertEquals(plainParser.getParsingErrors(), gzipParser.getParsingErrors());
+        assertEquals(plainParser.getParsedCategoryByName("Colors"), gzipParser.getParsedCategoryByName("Colors"));
+        assertEquals(plainParser.getParsedCategoryByName("Foods"), gzipParser.getParsedCategoryByName("Foods"));
+        assertEquals(plainParser.getParsedCategoryByName("Colors"), shardsParser.getParsedCategoryByName("Colors"));
+        assertEquals(2 * plainParser.getErrorLog().getErrorCount() + plainParser.getParsedCategoryByName("Colors")
+                .size() + plainParser.getParsedCategoryByName("Foods").size(), shardsParser.getErrorLog()
+                .getErrorCount());
+    }
+
+    @Test
+    @DisplayName("Parsing a memory-mapped file should fail on lines longer than the mapped window")
+    public void parse_memoryMappedFileLineTooLong() throws IOException {
+        // GIVEN
+        Path favoriteThingsFile = Files.write(tempDir.resolve("favorite-things.txt"),
+                "Colors:blue1\nColors:red2,green3,yellow4\nColors:pink5\n".getBytes(StandardCharsets.UTF_8));
+        FavoriteThingsParser parser = new FavoriteThingsParser(Sets.newHashSet("Colors"));
+        // WHEN
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
+                () -> parser.parse(favoriteThingsFile, 16));
+        // THEN
+        assertEquals("Line 2 is longer than the maximum supported length of 16 bytes.", exception.getMessage());
+    }
+
+    @Test
+    @DisplayName("Parsing a file in parallel chunks should keep the first occurrences and the global line numbers")
+    public void parse_parallelChunks() throws IOException {
+        // GIVEN
+        Set<String> validCategoryNames = Sets.newHashSet("Colors", "Foods");
+        String favoriteThings = TRICKY_FAVORITE_THINGS + "\nColors:orange1,red9,orange2\r\nFoods:pizza7\n";
+        Path favoriteThingsFile = Files.write(tempDir.resolve("favorite-things.txt"),
+                favoriteThings.getBytes(StandardCharsets.UTF_8));
+        FavoriteThingsParser sequentialParser = new FavoriteThingsParser(validCategoryNames);
+        sequentialParser.parse(favoriteThingsFile);
+
+        for (long chunkSize = 1; chunkSize <= 64; chunkSize++) {
+            FavoriteThingsParser parallelParser = new FavoriteThingsParser(validCategoryNames);
+            parallelParser.setParallelism(3);
+            // WHEN
+            parallelParser.parseInParallel(favoriteThingsFile, chunkSize);
+            // THEN
+            assertEquals(sequentialParser.getParsingErrors(), parallelParser.getParsingErrors());
+            assertEquals(sequentialParser.getParsedCategoryByName("Colors"),
+                    parallelParser.getParsedCategoryByName("Colors"));
+            assertEquals(sequentialParser.getParsedCategoryByName("Foods"),
+                    parallelParser.getParsedCategoryByName("Foods"));
+        }
+        assertThat(sequentialParser.getParsingErrors(), hasItems(
+                "The score 1 present on line 12 for the item 'orange' in the category 'Colors' " +
+                        "was ignored because there is already a previous score of 8 set.",
+                "The score 2 present on line 12 for the item 'orange' in the category 'Colors' " +
+                        "was ignored because there is already a previous score of 8 set.",
+                "The score 7 present on line 13 for the item 'pizza' in the category 'Foods' " +
+                        "was ignored because there is already a previous score of 5 set."
+        ));
+    }
+
+    @Test
+    @DisplayName("Parsing through the pipeline should yield the same results and errors for any batch size")
+    public void parsePipelined() {
+        // GIVEN
+        Set<String> validCategoryNames = Sets.newHashSet("Colors", "Foods");
+        StringBuilder favoriteThings = new StringBuilder(TRICKY_FAVORITE_THINGS).append("\r\n");
+        for (int line = 0; line < 500; line++) {
+            favoriteThings.append(line % 3 == 0 ? "Foods:" : "Colors:").append(lettersOf(line % 150))
+                    .append(line).append(line % 7 == 0 ? ",,\r" : "\n");
+        }
+        favoriteThings.append(TRICKY_FAVORITE_THINGS);
+        FavoriteThingsParser streamParser = new FavoriteThingsParser(validCategoryNames);
+        streamParser.parse(stringToInputStream(favoriteThings.toString()));
+
+        for (int batchSize : new int[]{1, 7, 64, 1 << 20}) {
+            FavoriteThingsParser pipelinedParser = new FavoriteThingsParser(validCategoryNames);
+            // WHEN
+            pipelinedParser.parsePipelined(stringToInputStream(favoriteThings.toString()), 3, batchSize);
+            // THEN
+            assertEquals(streamParser.getParsingErrors(), pipelinedParser.getParsingErrors());
+            assertEquals(streamParser.getParsedCategoryByName("Colors"),
+                    pipelinedParser.getParsedCategoryByName("Colors"));
+            assertEquals(streamParser.getParsedCategoryByName("Foods"),
+                    pipelinedParser.getParsedCategoryByName("Foods"));
+            assertEquals(streamParser.getStatistics().getLineCount(),
+                    pipelinedParser.getStatistics().getLineCount());
+        }
+    }
+
+    @Test
+    @DisplayName("Parsing through the pipeline should fail like a sequential parsing on ratings overflowing an int")
+    public void parsePipelined_ratingOverflow() {
+        // GIVEN
+        FavoriteThingsParser parser = new FavoriteThingsParser(Sets.newHashSet("Colors"));
+        // WHEN
+        assertThrows(NumberFormatException.class, () -> parser.parsePipelined(
+                stringToInputStream("Colors:blue1\nColors:red2,green99999999999\nColors:pink3\n"), 2, 8));
+        // THEN
+        assertEquals(2, parser.getParsedCategoryByName("Colors").size());
+    }
+
+    @Test
+    @DisplayName("Parsing several files at once into shared categories should keep the first occurrence of each thing")
+    public void parse_sharedCategories() throws Exception {
+        // GIVEN
+        Set<String> validCategoryNames = Sets.newHashSet("Colors", "Foods");
+        ConcurrentMap<String, Category> categoryByName = new ConcurrentHashMap<>();
+        List<FavoriteThingsParser> parsers = new ArrayList<>();
+        List<Callable<Void>> parsings = new ArrayList<>();
+        for (int file = 0; file < 4; file++) {
+            StringBuilder favoriteThings = new StringBuilder();
+            for (int line = 0; line < 500; line++) {
+                // Every file has the same colors, each one along with colors of its own and its own foods.
+                favoriteThings.append("Colors:").append(lettersOf(line)).append(file == 0 ? 100 : file).append(',')
+                        .append(lettersOf(file)).append('-').append(lettersOf(line)).append(1).append('\n');
+                favoriteThings.append("Foods:").append(lettersOf(file * 500 + line)).append(line % 10).append('\n');
+            }
+            Path favoriteThingsFile = Files.write(tempDir.resolve("favorite-things-" + file + ".txt"),
+                    favoriteThings.toString().getBytes(StandardCharsets.UTF_8));
+            FavoriteThingsParser parser = new FavoriteThingsParser(validCategoryNames, TokenizerMode.SCANNER,
+                    categoryByName);
+            parsers.add(parser);
+            parsings.add(() -> {
+                parser.parse(favoriteThingsFile);
+                return null;
+            });
+        }
+
+        // WHEN
+        ExecutorService executor = Executors.newFixedThreadPool(parsings.size());
+        try {
+            for (Future<Void> parsing : executor.invokeAll(parsings)) {
+                parsing.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        // THEN
+        Category colors = categoryByName.get("Colors");
+        Category foods = categoryByName.get("Foods");
+        assertEquals(500 + 4 * 500, colors.size());
+        assertEquals(4 * 500, foods.size());
+        assertEquals(4 * 50 * 45, foods.getTotalScore());
+        int duplicatedErrors = 0;
+        for (FavoriteThingsParser parser : parsers) {
+            duplicatedErrors += parser.getParsingErrors().size();
+        }
+        assertEquals(3 * 500, duplicatedErrors);
+        int colorsTotalScore = 4 * 500;
+        for (int line = 0; line < 500; line++) {
+            colorsTotalScore += colors.getFavoriteThingByName(lettersOf(line)).get().getRating();
+        }
+        assertEquals(colorsTotalScore, colors.getTotalScore());
+        assertThrows(IllegalStateException.class, () -> parsers.get(0).parseIncrementally(
+                tempDir.resolve("favorite-things-0.txt"), tempDir.resolve("favorite-things.checkpoint")));
+    }
+
+    @Test
+    @DisplayName("Parsing several files should yield the results of their concatenation and locate errors by file")
+    public void parse_multipleFiles() throws IOException {
+        // GIVEN
+        Set<String> validCategoryNames = Sets.newHashSet("Colors", "Foods");
+        String[] favoriteThings = {TRICKY_FAVORITE_THINGS + "\n", "", "Colors:orange1,red9\nFoods:pizza7,pasta4\n",
+                "Mammals:cow1\nColors:pink2,azure6\n"};
+        List<Path> favoriteThingsFiles = new ArrayList<>();
+        for (int file = 0; file < favoriteThings.length; file++) {
+            favoriteThingsFiles.add(Files.write(tempDir.resolve("favorite-things-" + file + ".txt"),
+                    favoriteThings[file].getBytes(StandardCharsets.UTF_8)));
+        }
+        Path concatenatedFile = Files.write(tempDir.resolve("favorite-things.txt"),
+                String.join("", favoriteThings).getBytes(StandardCharsets.UTF_8));
+        FavoriteThingsParser concatenatedParser = new FavoriteThingsParser(validCategoryNames);
+        concatenatedParser.parse(concatenatedFile);
+        FavoriteThingsParser multipleFilesParser = new FavoriteThingsParser(validCategoryNames);
+        multipleFilesParser.setParallelism(3);
+
+        // WHEN
+        multipleFilesParser.parse(favoriteThingsFiles);
+
+        // THEN
+        assertEquals(concatenatedParser.getParsedCategoryByName("Colors"),
+                multipleFilesParser.getParsedCategoryByName("Colors"));
+        assertEquals(concatenatedParser.getParsedCategoryByName("Foods"),
+                multipleFilesParser.getParsedCategoryByName("Foods"));
+        assertEquals(concatenatedParser.getParsingErrors().size(), multipleFilesParser.getParsingErrors().size());
+        assertThat(multipleFilesParser.getParsingErrors(), hasItems(
+                favoriteThingsFiles.get(0) + ": Invalid syntax in line 3, this line was skipped.",
+                favoriteThingsFiles.get(2) + ": The score 1 present on line 1 for the item 'orange' in the category " +
+                        "'Colors' was ignored because there is already a previous score of 8 set.",
+                favoriteThingsFiles.get(2) + ": The score 7 present on line 2 for the item 'pizza' in the category " +
+                        "'Foods' was ignored because there is already a previous score of 5 set.",
+                favoriteThingsFiles.get(3) + ": Unknown category 'Mammals' on line 1, this line was skipped."
+        ));
+    }
+
+    @Test
+    @DisplayName("A bounded error log should count every error but only keep or stream the first ones")
+    public void parse_boundedErrorLog() throws IOException {
+        // GIVEN
+        Set<String> validCategoryNames = Sets.newHashSet("Colors", "Foods");
+        byte[] favoriteThings = (TRICKY_FAVORITE_THINGS + "\nColors:orange1\n").getBytes(StandardCharsets.UTF_8);
+        Path favoriteThingsFile = Files.write(tempDir.resolve("favorite-things.txt"), favoriteThings);
+        FavoriteThingsParser unboundedParser = new FavoriteThingsParser(validCategoryNames);
+        unboundedParser.parse(favoriteThingsFile);
+        List<String> streamedErrors = new ArrayList<>();
+        FavoriteThingsParser boundedParser = new FavoriteThingsParser(validCategoryNames);
+        boundedParser.setErrorLog(new ParsingErrorLog(3, error -> streamedErrors.add(error.getMessage())));
+
+        // WHEN
+        boundedParser.parse(favoriteThingsFile);
+
+        // THEN
+        List<String> allErrors = unboundedParser.getParsingErrors();
+        ParsingErrorLog errorLog = boundedParser.getErrorLog();
+        assertEquals(Collections.emptyList(), boundedParser.getParsingErrors());
+        assertEquals(allErrors.subList(0, 3), streamedErrors);
+        assertEquals(allErrors.size(), errorLog.getErrorCount());
+        assertEquals(allErrors.size() - 3, errorLog.getSuppressedCount());
+        for (ParsingError.Type type : ParsingError.Type.values()) {
+            assertEquals(unboundedParser.getErrorLog().getErrorCount(type), errorLog.getErrorCount(type));
+        }
+        assertEquals(2, errorLog.getErrorCount(ParsingError.Type.DUPLICATED_ITEM));
+        assertEquals(2, errorLog.getErrorCount(ParsingError.Type.UNKNOWN_CATEGORY));
+
+        // WHEN
+        Path checkpointFile = tempDir.resolve("favorite-things.checkpoint");
+        FavoriteThingsParser firstParser = new FavoriteThingsParser(validCategoryNames);
+        firstParser.setErrorLog(new ParsingErrorLog(3, null));
+        firstParser.parseIncrementally(favoriteThingsFile, checkpointFile);
+        FavoriteThingsParser resumedParser = new FavoriteThingsParser(validCategoryNames);
+        resumedParser.setErrorLog(new ParsingErrorLog(3, null));
+        boolean resumed = resumedParser.parseIncrementally(favoriteThingsFile, checkpointFile);
+        FavoriteThingsParser otherBoundParser = new FavoriteThingsParser(validCategoryNames);
+        otherBoundParser.setErrorLog(new ParsingErrorLog(4, null));
+        boolean resumedOtherBound = otherBoundParser.parseIncrementally(favoriteThingsFile, checkpointFile);
+
+        // THEN
+        Assertions.assertTrue(resumed);
+        assertEquals(allErrors.subList(0, 3), resumedParser.getParsingErrors());
+        assertEquals(allErrors.size(), resumedParser.getErrorLog().getErrorCount());
+        Assertions.assertFalse(resumedOtherBound);
+        assertEquals(allErrors.subList(0, 4), otherBoundParser.getParsingErrors());
+    }
+
+    @Test
+    @DisplayName("A streaming error log should not stream again the errors found before its checkpoint")
+    public void parseIncrementally_streamedErrors() throws IOException {
+        // GIVEN
+        Set<String> validCategoryNames = Sets.newHashSet("Colors", "Foods");
+        Path favoriteThingsFile = Files.write(tempDir.resolve("favorite-things.txt"),
+                (TRICKY_FAVORITE_THINGS + "\n").getBytes(StandardCharsets.UTF_8));
+        Path checkpointFile = tempDir.resolve("favorite-things.checkpoint");
+        List<String> firstErrors = new ArrayList<>();
+        FavoriteThingsParser firstParser = new FavoriteThingsParser(validCategoryNames);
+        firstParser.setErrorLog(new ParsingErrorLog(ParsingErrorLog.UNLIMITED,
+                error -> firstErrors.add(error.getMessage())));
+        firstParser.parseIncrementally(favoriteThingsFile, checkpointFile);
+        Files.write(favoriteThingsFile, "Mammals:cow1\n".getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+        List<String> resumedErrors = new ArrayList<>();
+        FavoriteThingsParser resumedParser = new FavoriteThingsParser(validCategoryNames);
+        resumedParser.setErrorLog(new ParsingErrorLog(ParsingErrorLog.UNLIMITED,
+                error -> resumedErrors.add(error.getMessage())));
+
+        // WHEN
+        boolean resumed = resumedParser.parseIncrementally(favoriteThingsFile, checkpointFile);
+
+        // THEN
+        Assertions.assertTrue(resumed);
+        Assertions.assertFalse(firstErrors.isEmpty());
+        assertEquals(Collections.singletonList("Unknown category 'Mammals' on line 12, this line was skipped."),
+                resumedErrors);
+        assertEquals(firstErrors.size() + 1, resumedParser.getErrorLog().getErrorCount());
+        assertEquals(0, resumedParser.getErrorLog().getSuppressedCount());
+        assertEquals(Collections.emptyList(), resumedParser.getParsingErrors());
+    }
+
+    @Test
+    @DisplayName("Every way of parsing should count the same bytes, lines and favorite things")
+    public void parse_statistics() throws IOException {
+        // GIVEN
+        Set<String> validCategoryNames = Sets.newHashSet("Colors", "Foods");
+        byte[] favoriteThings = (TRICKY_FAVORITE_THINGS + "\n").getBytes(StandardCharsets.UTF_8);
+        Path favoriteThingsFile = Files.write(tempDir.resolve("favorite-things.txt"), favoriteThings);
+        FavoriteThingsParser streamParser = new FavoriteThingsParser(validCategoryNames);
+        streamParser.setStatistics(new ParsingStatistics(1));
+        FavoriteThingsParser mappedParser = new FavoriteThingsParser(validCategoryNames);
+        FavoriteThingsParser parallelParser = new FavoriteThingsParser(validCategoryNames);
+        parallelParser.setParallelism(2);
+
+        // WHEN
+        streamParser.parse(new ByteArrayInputStream(favoriteThings));
+        mappedParser.parse(favoriteThingsFile);
+        parallelParser.parseInParallel(favoriteThingsFile, 16);
+
+        // THEN
+        for (FavoriteThingsParser parser : Arrays.asList(streamParser, mappedParser, parallelParser)) {
+            ParsingStatistics statistics = parser.getStatistics();
+            assertEquals(favoriteThings.length, statistics.getByteCount());
+            assertEquals(11, statistics.getLineCount());
+            assertEquals(15, statistics.getItemCount());
+        }
+        // Every line takes at least a nanosecond.
+        assertEquals(11, streamParser.getStatistics().getSlowLineCount());
+        assertEquals(ParsingStatistics.MAX_KEPT_SLOW_LINES, streamParser.getStatistics().getSlowLines().size());
+        assertEquals(1, streamParser.getStatistics().getSlowLines().get(0).getLineNumber());
+    }
+
+    @Test
+    @DisplayName("Parsing a file incrementally should only parse the appended lines and yield the same results")
+    public void parseIncrementally() throws IOException {
+        // GIVEN
+        Set<String> validCategoryNames = Sets.newHashSet("Colors", "Foods");
+        byte[] favoriteThings = (TRICKY_FAVORITE_THINGS + "\r\nColors:orange1,red9\r\nFoods:pizza7\n")
+                .getBytes(StandardCharsets.UTF_8);
+        Path favoriteThingsFile = tempDir.resolve("favorite-things.txt");
+        Path checkpointFile = tempDir.resolve("favorite-things.checkpoint");
+
+        for (int appendedOffset = 0; appendedOffset <= favoriteThings.length; appendedOffset += 7) {
+            Files.deleteIfExists(checkpointFile);
+            Files.write(favoriteThingsFile, Arrays.copyOf(favoriteThings, appendedOffset));
+            FavoriteThingsParser firstParser = new FavoriteThingsParser(validCategoryNames);
+            firstParser.parseIncrementally(favoriteThingsFile, checkpointFile, 64);
+            assertSameResults(favoriteThingsFile, validCategoryNames, firstParser);
+
+            // WHEN
+            Files.write(favoriteThingsFile, favoriteThings);
+            FavoriteThingsParser nextParser = new FavoriteThingsParser(validCategoryNames);
+            boolean resumed = nextParser.parseIncrementally(favoriteThingsFile, checkpointFile, 64);
+
+            // THEN
+            Assertions.assertTrue(resumed);
+            assertSameResults(favoriteThingsFile, validCategoryNames, nextParser);
+        }
+    }
+
+    @Test
+    @DisplayName("Parsing a file incrementally should parse it again from the beginning when it was rewritten")
+    public void parseIncrementally_rewrittenFile() throws IOException {
+        // GIVEN
+        Set<String> validCategoryNames = Sets.newHashSet("Colors");
+        Path favoriteThingsFile = Files.write(tempDir.resolve("favorite-things.txt"),
+                "Colors:blue1\nColors:red2\n".getBytes(StandardCharsets.UTF_8));
+        Path checkpointFile = tempDir.resolve("favorite-things.checkpoint");
+        new FavoriteThingsParser(validCategoryNames).parseIncrementally(favoriteThingsFile, checkpointFile);
+
+        // WHEN
+        Files.write(favoriteThingsFile, "Colors:pink1\nColors:red2\nColors:blue3\n".getBytes(StandardCharsets.UTF_8));
+        FavoriteThingsParser rewrittenParser = new FavoriteThingsParser(validCategoryNames);
+        boolean resumedRewritten = rewrittenParser.parseIncrementally(favoriteThingsFile, checkpointFile);
+        Files.write(favoriteThingsFile, "Colors:pink1\n".getBytes(StandardCharsets.UTF_8));
+        FavoriteThingsParser truncatedParser = new FavoriteThingsParser(validCategoryNames);
+        boolean resumedTruncated = truncatedParser.parseIncrementally(favoriteThingsFile, checkpointFile);
+
+        // THEN
+        Assertions.assertFalse(resumedRewritten);
+        assertEquals(3, rewrittenParser.getParsedCategoryByName("Colors").size());
+        assertEquals(3, rewrittenParser.getParsedCategoryByName("Colors").getFavoriteThingByName("blue").get()
+                .getRating());
+        Assertions.assertFalse(resumedTruncated);
+        assertEquals(1, truncatedParser.getParsedCategoryByName("Colors").size());
+    }
+
+    @Test
+    @DisplayName("Parsing a file incrementally into bulk-loaded categories should scan its unterminated last line")
+    public void parseIncrementally_bulkLoad() throws IOException {
+        // GIVEN
+        Set<String> validCategoryNames = Sets.newHashSet("Colors", "Foods");
+        Path favoriteThingsFile = Files.write(tempDir.resolve("favorite-things.txt"),
+                "Colors:blue1,red2\nFoods:pizza5\nColors:pink2".getBytes(StandardCharsets.UTF_8));
+        Path checkpointFile = tempDir.resolve("favorite-things.checkpoint");
+        FavoriteThingsParser firstParser = new FavoriteThingsParser(validCategoryNames);
+        firstParser.setCategoryFactory(name -> new Category(name, new BulkLoadFavoriteThingStore()));
+        firstParser.parseIncrementally(favoriteThingsFile, checkpointFile);
+
+        // WHEN
+        Files.write(favoriteThingsFile, "Colors:blue1,red2\nFoods:pizza5\nColors:pink2,cyan2\nFoods:sushi7"
+                .getBytes(StandardCharsets.UTF_8));
+        FavoriteThingsParser nextParser = new FavoriteThingsParser(validCategoryNames);
+        nextParser.setCategoryFactory(name -> new Category(name, new BulkLoadFavoriteThingStore()));
+        boolean resumed = nextParser.parseIncrementally(favoriteThingsFile, checkpointFile);
+        Category.freezeAll(nextParser.getParsedCategories());
+
+        // THEN
+        assertEquals(3, firstParser.getParsedCategoryByName("Colors").size());
+        Assertions.assertTrue(resumed);
+        FavoriteThingsParser wholeFileParser = new FavoriteThingsParser(validCategoryNames);
+        wholeFileParser.parse(favoriteThingsFile);
+        for (String categoryName : validCategoryNames) {
+            assertEquals(Lists.newArrayList(wholeFileParser.getParsedCategoryByName(categoryName)
+                            .getFavoriteThingsOrderedByRating()),
+                    Lists.newArrayList(nextParser.getParsedCategoryByName(categoryName)
+                            .getFavoriteThingsOrderedByRating()));
+        }
+        assertEquals(wholeFileParser.getParsingErrors(), nextParser.getParsingErrors());
+    }
+
+    private static void assertSameResults(Path favoriteThingsFile, Set<String> validCategoryNames,
+                                          FavoriteThingsParser parser) {
+        FavoriteThingsParser wholeFileParser = new FavoriteThingsParser(validCategoryNames);
+        wholeFileParser.parse(favoriteThingsFile);
+        assertEquals(wholeFileParser.getParsingErrors(), parser.getParsingErrors());
+        assertEquals(wholeFileParser.getParsedCategoryByName("Colors"), parser.getParsedCategoryByName("Colors"));
+        assertEquals(wholeFileParser.getParsedCategoryByName("Foods"), parser.getParsedCategoryByName("Foods"));
+    }
+
     private InputStream stringToInputStream(String str) {
         return new ByteArrayInputStream(str.getBytes(StandardCharsets.UTF_8));
     }
 
 
-}
\ No newline at end of file
+
+    /**
+     * @return A name made of the letters standing for the digits of the number, as names can't hold digits.
+     */
+    private static String lettersOf(int number) {
+        StringBuilder letters = new StringBuilder();
+        for (char digit : Integer.toString(number).toCharArray()) {
+            letters.append((char) ('a' + digit - '0'));
+        }
+        return letters.toString();
+    }
+}
@@ -0,0 +1,110 @@
+package com.germer.starit.parser;
+
+import com.germer.starit.model.Category;
+import com.google.common.collect.Sets;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class PartialResultTest {
+
+    private static final Set<String> VALID_CATEGORY_NAMES = Sets.newHashSet("Colors", "Foods", "Dogs", "Cities",
+            "Books");
+    private static final String FAVORITE_THINGS = "Colors:blue1,red2,,pink3,,\n" +
+            ":nothing1\n" +
+            "Dogs:rex4,fido9\n" +
+            "Mammals:cow1\n" +
+            "Cities:paris7,rome7,oslo2\n" +
+            "Colors:red5,green6\n" +
+            "Books:dune8,it,emma3\n" +
+            "Birds:owl2\n" +
+            "no category here\n" +
+            "Foods:pizza5,fondue45,rome1\n" +
+            "Dogs:fido1,lassie9\n" +
+            "Cities:oslo3\n";
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    @DisplayName("The partial results of all the shards should merge into the results of a single parsing")
+    public void merge_shards() throws IOException {
+        // GIVEN
+        Path favoriteThingsFile = Files.write(tempDir.resolve("favorite-things.txt"),
+                FAVORITE_THINGS.getBytes(StandardCharsets.UTF_8));
+        FavoriteThingsParser singleParser = new FavoriteThingsParser(VALID_CATEGORY_NAMES);
+        singleParser.parse(favoriteThingsFile);
+        List<Consumer<FavoriteThingsParser>> parsings = Arrays.asList(
+                parser -> parser.parse(new ByteArrayInputStream(FAVORITE_THINGS.getBytes(StandardCharsets.UTF_8))),
+                parser -> parser.parsePipelined(new ByteArrayInputStream(
+                        FAVORITE_THINGS.getBytes(StandardCharsets.UTF_8)), 2, 16),
+                parser -> {
+                    parser.setParallelism(3);
+                    parser.parseInParallel(favoriteThingsFile, 20);
+                });
+
+        for (Consumer<FavoriteThingsParser> parsing : parsings) {
+            for (int shardCount = 1; shardCount <= 4; shardCount++) {
+                List<PartialResult> partialResults = new ArrayList<>();
+                for (int index = 0; index < shardCount; index++) {
+                    FavoriteThingsParser shardParser = new FavoriteThingsParser(VALID_CATEGORY_NAMES);
+                    shardParser.setShard(Shard.of(index, shardCount));
+                    parsing.accept(shardParser);
+                    ByteArrayOutputStream pipe = new ByteArrayOutputStream();
+                    PartialResult.of(shardParser.getParsedCategories(), shardParser.getErrorLog()).writeTo(pipe);
+                    partialResults.add(PartialResult.readFrom(new ByteArrayInputStream(pipe.toByteArray())));
+                }
+
+                // WHEN
+                PartialResult merged = PartialResult.merge(partialResults, null);
+
+                // THEN
+                assertEquals(singleParser.getParsingErrors(), merged.getErrors().stream()
+                        .map(ParsingError::getMessage)
+                        .collect(Collectors.toList()));
+                assertEquals(singleParser.getParsedCategories().size(), merged.getCategoryCount());
+                for (PartialResult.CategorySummary summary : merged.getCategories()) {
+                    Category category = singleParser.getParsedCategoryByName(summary.getName());
+                    assertEquals(category.size(), summary.getSize());
+                    assertEquals(category.getTotalScore(), summary.getTotalScore());
+                    assertEquals(category.getHighestRatingFavoriteItem(), summary.getHighestRatingFavoriteThing());
+                }
+                assertEquals("fondue", merged.getHighestRatingFavoriteThing().get().getName());
+                assertEquals("Foods", merged.getHighestTotalScoreCategory().get().getName());
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Merging should fail for partial results sharing a category")
+    public void merge_overlappingShards() {
+        // GIVEN
+        FavoriteThingsParser parser = new FavoriteThingsParser(VALID_CATEGORY_NAMES);
+        parser.parse(new ByteArrayInputStream("Colors:blue1\n".getBytes(StandardCharsets.UTF_8)));
+        PartialResult partialResult = PartialResult.of(parser.getParsedCategories(), parser.getErrorLog());
+
+        // WHEN
+        IllegalArgumentException error = assertThrows(IllegalArgumentException.class,
+                () -> PartialResult.merge(Arrays.asList(partialResult, partialResult), null));
+
+        // THEN
+        assertEquals("The category 'Colors' is found on more than one partial result, which must be of disjoint " +
+                "shards.", error.getMessage());
+    }
+}
@@ -0,0 +1,123 @@
+package com.germer.starit.server;
+
+import com.germer.starit.model.Category;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FavoriteThingsServerTest {
+
+    @TempDir
+    Path tempDir;
+
+    private FavoriteThingsServer server;
+
+    @AfterEach
+    public void stopServer() {
+        if (server != null) {
+            server.close();
+        }
+    }
+
+    @Test
+    @DisplayName("It should answer the queries over the loaded categories")
+    public void queries() throws IOException {
+        // GIVEN
+        Category colors = new Category("Colors");
+        colors.addFavoriteThing("blue", 50);
+        colors.addFavoriteThing("red", 90);
+        colors.addFavoriteThing("green", 70);
+        Category foods = new Category("Foods");
+        foods.addFavoriteThing("pizza", 80);
+        foods.addFavoriteThing("pasta", 80);
+        foods.addFavoriteThing("sushi", 75);
+        server = new FavoriteThingsServer(() -> Arrays.asList(colors, foods), null);
+
+        // WHEN
+        int port = server.start(0, 2);
+
+        // THEN
+        assertEquals("{\"category\":\"Colors\",\"thing\":\"red\",\"rating\":90}", get(port, "/highest-thing"));
+        assertEquals("{\"category\":\"Foods\",\"sum\":235}", get(port, "/highest-sum"));
+        assertEquals("[{\"category\":\"Foods\",\"thing\":\"pizza\",\"rating\":80}," +
+                "{\"category\":\"Foods\",\"thing\":\"pasta\",\"rating\":80}]", get(port, "/categories/Foods/top?k=2"));
+        assertEquals("{\"category\":\"Colors\",\"thing\":\"green\",\"rating\":70}",
+                get(port, "/categories/Colors/things/green"));
+        assertEquals("{\"error\":\"Unknown category 'Dogs'.\"}", get(port, "/categories/Dogs/top"));
+        assertEquals("{\"error\":\"Unknown favorite thing 'pink'.\"}", get(port, "/categories/Colors/things/pink"));
+        assertEquals("{\"error\":\"Invalid top-K, a positive integer up to 1000 is expected.\"}",
+                get(port, "/categories/Colors/top?k=0"));
+        assertEquals("{\"things\":[{\"category\":\"Colors\",\"thing\":\"red\",\"rating\":90}," +
+                "{\"category\":\"Foods\",\"thing\":\"pizza\",\"rating\":80}],\"next\":\"h.0-1.1-1\"}",
+                get(port, "/ranking/top?k=2"));
+        assertEquals("{\"things\":[{\"category\":\"Foods\",\"thing\":\"pasta\",\"rating\":80}],\"next\":" +
+                "\"h.0-1.1-2\"}", get(port, "/ranking/top?k=1&cursor=h.0-1.1-1"));
+        assertEquals("{\"things\":[{\"category\":\"Colors\",\"thing\":\"blue\",\"rating\":50}],\"next\":" +
+                "\"l.0-1\"}", get(port, "/ranking/bottom?k=1"));
+        assertEquals("{\"error\":\"The cursor is of the other ranking order.\"}",
+                get(port, "/ranking/bottom?cursor=h.0-1"));
+        assertEquals("{\"count\":2,\"sum\":160}", get(port, "/categories/Colors/ratings?min=60&max=90"));
+        assertEquals("{\"count\":3,\"sum\":235}", get(port, "/categories/Foods/ratings"));
+        assertEquals("{\"50\":70,\"100\":90}", get(port, "/categories/Colors/percentiles?p=50,100"));
+        assertEquals("{\"min\":50,\"width\":20,\"counts\":[1,1,1]}",
+                get(port, "/categories/Colors/histogram?min=50&width=20&buckets=3"));
+        assertEquals("{\"error\":\"Invalid value 'x' for 'min', an integer is expected.\"}",
+                get(port, "/categories/Colors/ratings?min=x"));
+    }
+
+    @Test
+    @DisplayName("It should reload the categories once the watched file changes")
+    public void reloadIfChanged() throws IOException {
+        // GIVEN
+        Path watchedFile = Files.write(tempDir.resolve("favorite-things.txt"),
+                "Colors:blue1\n".getBytes(StandardCharsets.UTF_8));
+        AtomicInteger loads = new AtomicInteger();
+        server = new FavoriteThingsServer(() -> {
+            loads.incrementAndGet();
+            return Collections.nCopies(loads.get(), new Category("Colors"));
+        }, watchedFile);
+        server.start(0, 1);
+
+        // WHEN
+        boolean reloadedUnchanged = server.reloadIfChanged();
+        Files.write(watchedFile, "Colors:blue1\nColors:red2\n".getBytes(StandardCharsets.UTF_8));
+        Files.setLastModifiedTime(watchedFile, FileTime.fromMillis(0));
+        boolean reloadedChanged = server.reloadIfChanged();
+
+        // THEN
+        assertFalse(reloadedUnchanged);
+        assertTrue(reloadedChanged);
+        assertEquals(2, loads.get());
+    }
+
+    private static String get(int port, String path) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL("http://localhost:" + port + path)
+                .openConnection();
+        try (InputStream body = connection.getResponseCode() < 400 ? connection.getInputStream()
+                : connection.getErrorStream()) {
+            byte[] bytes = new byte[8192];
+            int length = 0;
+            for (int read; (read = body.read(bytes, length, bytes.length - length)) > 0; ) {
+                length += read;
+            }
+            return new String(bytes, 0, length, StandardCharsets.UTF_8);
+        } finally {
+            connection.disconnect();
+        }
+    }
+}
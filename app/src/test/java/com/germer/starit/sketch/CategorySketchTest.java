@@ -0,0 +1,149 @@
+package com.germer.starit.sketch;
+
+import com.germer.starit.model.Category;
+import com.germer.starit.model.FavoriteThing;
+import com.germer.starit.model.SketchFavoriteThingStore;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CategorySketchTest {
+
+    private static final int PARTIAL_RUNS = 4;
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    @DisplayName("The distinct counts of merged sketches should be within three standard errors")
+    public void getDistinctCount() {
+        for (int distinctCount : new int[]{10, 1_000, 20_000, 60_000, 300_000}) {
+            // GIVEN
+            List<CategorySketch> partialSketches = newPartialSketches();
+            for (int index = 0; index < 2 * distinctCount; index++) {
+                partialSketches.get(index % PARTIAL_RUNS).add("thing" + index % distinctCount, 1);
+            }
+
+            // WHEN
+            CategorySketch sketch = merge(partialSketches);
+
+            // THEN
+            double maxError = 3 * sketch.getDistinctCountRelativeError() * distinctCount;
+            assertTrue(Math.abs(sketch.getDistinctCount() - distinctCount) <= maxError,
+                    String.format("%d distinct things estimated as %d", distinctCount, sketch.getDistinctCount()));
+            assertEquals(2L * distinctCount, sketch.getMentionCount());
+        }
+    }
+
+    @Test
+    @DisplayName("The counts of the most mentioned names of merged sketches should be within their error bound")
+    public void getMostMentioned() {
+        // GIVEN
+        Random random = new Random(42);
+        Map<String, Long> exactCounts = new HashMap<>();
+        List<CategorySketch> partialSketches = newPartialSketches();
+        for (int index = 0; index < 500_000; index++) {
+            // Skewed towards the first names, with a long tail of rare ones.
+            String name = "thing" + (int) (100_000 * Math.pow(random.nextDouble(), 4));
+            exactCounts.merge(name, 1L, Long::sum);
+            partialSketches.get(index % PARTIAL_RUNS).add(name, 1);
+        }
+
+        // WHEN
+        CategorySketch sketch = merge(partialSketches);
+
+        // THEN
+        long maxError = sketch.getMentionCountMaxError();
+        assertTrue(maxError <= 500_000 / (FrequentItems.DEFAULT_CAPACITY + 1));
+        Map<String, Long> mostMentioned = new HashMap<>();
+        for (Map.Entry<String, Long> mentions : sketch.getMostMentioned(Integer.MAX_VALUE)) {
+            long exactCount = exactCounts.get(mentions.getKey());
+            assertTrue(mentions.getValue() <= exactCount && exactCount <= mentions.getValue() + maxError);
+            mostMentioned.put(mentions.getKey(), mentions.getValue());
+        }
+        exactCounts.forEach((name, exactCount) -> assertTrue(exactCount <= maxError
+                || mostMentioned.containsKey(name), name));
+        assertEquals("thing0", sketch.getMostMentioned(1).get(0).getKey());
+    }
+
+    @Test
+    @DisplayName("The rating quantiles of merged sketches should be within 1% of the exact ones")
+    public void getRatingQuantile() {
+        // GIVEN
+        Random random = new Random(7);
+        int[] ratings = new int[200_000];
+        List<CategorySketch> partialSketches = newPartialSketches();
+        for (int index = 0; index < ratings.length; index++) {
+            ratings[index] = index % 10 == 0 ? random.nextInt() : (int) (random.nextGaussian() * 100);
+            partialSketches.get(index % PARTIAL_RUNS).add("thing" + index, ratings[index]);
+        }
+        Arrays.sort(ratings);
+
+        // WHEN
+        CategorySketch sketch = merge(partialSketches);
+
+        // THEN
+        for (int percentile = 1; percentile <= 1000; percentile++) {
+            double quantile = percentile / 1000.0;
+            int exactRating = ratings[Math.max(1, (int) Math.ceil(quantile * ratings.length)) - 1];
+            double estimatedRating = sketch.getRatingQuantile(quantile);
+            assertTrue(Math.abs(estimatedRating - exactRating) <= RatingQuantiles.RELATIVE_ACCURACY
+                            * Math.abs(exactRating) * (1 + 1e-9),
+                    String.format("Quantile %s estimated as %s instead of %d", quantile, estimatedRating,
+                            exactRating));
+        }
+        assertTrue(Double.isNaN(new CategorySketch("Empty").getRatingQuantile(0.5)));
+    }
+
+    @Test
+    @DisplayName("Sketches written by a run should be read back and combined with those of the next run")
+    public void readAll_writeAll() throws IOException {
+        // GIVEN
+        Path sketchFile = tempDir.resolve("all.sketch");
+        SketchFavoriteThingStore firstRunStore = new SketchFavoriteThingStore("Colors");
+        Category firstRun = new Category("Colors", firstRunStore);
+        firstRun.addFavoriteThing("blue", 5);
+        firstRun.addFavoriteThing("red", 9);
+        firstRun.addFavoriteThing("blue", 2);
+        CategorySketch.writeAll(Collections.singletonList(firstRunStore.getSketch()), sketchFile);
+        SketchFavoriteThingStore secondRunStore = new SketchFavoriteThingStore("Colors");
+        Category secondRun = new Category("Colors", secondRunStore);
+        secondRun.addFavoriteThing("green", 9);
+        secondRun.addFavoriteThing("blue", 1);
+
+        // WHEN
+        CategorySketch combined = CategorySketch.readAll(sketchFile).get("Colors");
+        combined.merge(secondRunStore.getSketch());
+
+        // THEN
+        assertEquals(3, firstRun.size());
+        assertEquals(16, firstRun.getTotalScore());
+        assertEquals(5, combined.getMentionCount());
+        assertEquals(3, combined.getDistinctCount());
+        assertEquals(26, combined.getTotalScore());
+        assertEquals(Optional.of(FavoriteThing.of("Colors", "red", 9)), combined.getHighestRatingFavoriteThing());
+        assertEquals(new AbstractMap.SimpleImmutableEntry<>("blue", 3L), combined.getMostMentioned(1).get(0));
+        assertEquals(Collections.emptyMap(), CategorySketch.readAll(tempDir.resolve("missing.sketch")));
+        assertThrows(IllegalArgumentException.class, () -> combined.merge(new CategorySketch("Foods")));
+    }
+
+    private static List<CategorySketch> newPartialSketches() {
+        List<CategorySketch> partialSketches = new ArrayList<>(PARTIAL_RUNS);
+        for (int run = 0; run < PARTIAL_RUNS; run++) {
+            partialSketches.add(new CategorySketch("Things"));
+        }
+        return partialSketches;
+    }
+
+    private static CategorySketch merge(List<CategorySketch> partialSketches) {
+        CategorySketch merged = new CategorySketch("Things");
+        partialSketches.forEach(merged::merge);
+        return merged;
+    }
+}
@@ -0,0 +1,100 @@
+package com.germer.starit.snapshot;
+
+import com.germer.starit.model.Category;
+import com.germer.starit.model.FavoriteThing;
+import com.germer.starit.model.StreamingFavoriteThingStore;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.OptionalInt;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.junit.jupiter.api.Assertions.*;
+
+class CategorySnapshotTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    @DisplayName("It should answer the queries from the snapshot and load the same categories back")
+    public void writeAndOpen() {
+        // GIVEN
+        Category colors = new Category("Colors");
+        colors.addFavoriteThing("blue", 50);
+        colors.addFavoriteThing("red", Integer.MAX_VALUE);
+        colors.addFavoriteThing("green", Integer.MIN_VALUE + 1);
+        colors.addFavoriteThing("cr\u00e8me", 50);
+        Category foods = new Category("Foods");
+        foods.addFavoriteThing("blue", 60);
+        foods.addFavoriteThing("pizza", 70);
+        Category dogs = new Category("Dogs");
+        Path snapshotFile = tempDir.resolve("favorite-things.snapshot");
+
+        // WHEN
+        CategorySnapshotWriter.write(Arrays.asList(colors, foods, dogs), snapshotFile);
+        CategorySnapshot snapshot = CategorySnapshot.open(snapshotFile);
+
+        // THEN
+        assertTrue(CategorySnapshot.isSnapshot(snapshotFile));
+        assertEquals(3, snapshot.getCategoryCount());
+        assertEquals(Optional.of(FavoriteThing.of("Colors", "red", Integer.MAX_VALUE)),
+                snapshot.getHighestRatingFavoriteThing());
+        assertEquals(OptionalInt.of(1), snapshot.getHighestTotalScoreCategory());
+        assertEquals("Foods", snapshot.getCategoryName(1));
+        assertEquals(foods.getTotalScore(), snapshot.getTotalScore(1));
+        assertEquals(Optional.empty(), snapshot.getHighestRatingFavoriteThing(2));
+        assertEquals(Arrays.asList(colors, foods, dogs), snapshot.loadCategories());
+    }
+
+    @Test
+    @DisplayName("It should keep the totals of the categories which don't keep all their favorite things")
+    public void writeAndOpen_streamingCategory() {
+        // GIVEN
+        Category animals = new Category("Animals", new StreamingFavoriteThingStore("Animals", 2));
+        for (int rating = 1; rating <= 100; rating++) {
+            animals.addFavoriteThing("animal" + rating, rating);
+        }
+        Path snapshotFile = tempDir.resolve("favorite-things.snapshot");
+
+        // WHEN
+        CategorySnapshotWriter.write(Collections.singletonList(animals), snapshotFile);
+        CategorySnapshot snapshot = CategorySnapshot.open(snapshotFile);
+
+        // THEN
+        assertEquals(100, snapshot.getCategorySize(0));
+        assertEquals(5050, snapshot.getTotalScore(0));
+        assertEquals(Optional.of(FavoriteThing.of("Animals", "animal100", 100)),
+                snapshot.getHighestRatingFavoriteThing(0));
+        List<FavoriteThing> loadedThings = snapshot.loadCategory(0).getTopRatedFavoriteThings(10);
+        assertThat(loadedThings, contains(FavoriteThing.of("Animals", "animal100", 100),
+                FavoriteThing.of("Animals", "animal99", 99)));
+    }
+
+    @Test
+    @DisplayName("It fails on files which aren't snapshots")
+    public void open_notASnapshot() throws IOException {
+        // GIVEN
+        Path textFile = Files.write(tempDir.resolve("favorite-things.txt"),
+                "Colors:blue1\n".getBytes(StandardCharsets.UTF_8));
+
+        // WHEN
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
+                () -> CategorySnapshot.open(textFile));
+
+        // THEN
+        assertFalse(CategorySnapshot.isSnapshot(textFile));
+        assertEquals(String.format("The file %s is not a favorite things snapshot of version 1.", textFile),
+                exception.getMessage());
+    }
+}
@@ -0,0 +1,85 @@
+package com.germer.starit;
+
+import com.germer.starit.benchmarks.FavoriteThingsGenerator;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link FavoriteThingsRunner#run()} end to end, from reading the source file to printing the results, for
+ * each storage and through the InputStream or the memory-mapped path. The output is discarded while measuring.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FavoriteThingsRunnerBenchmark {
+
+    @Param({"sorted", "columnar", "bulk", "offheap", "streaming"})
+    private String storage;
+
+    @Param({"false", "true"})
+    private boolean mmap;
+
+    @Param({"0.01"})
+    private double duplicateRate;
+
+    @Param({"0.01"})
+    private double invalidRate;
+
+    private Path favoriteThingsFile;
+    private CommandLineOptions options;
+    private PrintStream standardOut;
+    private PrintStream standardErr;
+
+    @Setup
+    public void writeFavoriteThingsFile() throws IOException {
+        favoriteThingsFile = new FavoriteThingsGenerator()
+                .lines(100_000)
+                .duplicateRate(duplicateRate)
+                .invalidRate(invalidRate)
+                .writeTo(Files.createTempFile("favorite-things", ".txt"));
+        options = mmap
+                ? CommandLineOptions.parse("--storage=" + storage, "--mmap", favoriteThingsFile.toString())
+                : CommandLineOptions.parse("--storage=" + storage, favoriteThingsFile.toString());
+
+        standardOut = System.out;
+        standardErr = System.err;
+        PrintStream discarded = new PrintStream(new OutputStream() {
+            @Override
+            public void write(int b) {
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) {
+            }
+        });
+        System.setOut(discarded);
+        System.setErr(discarded);
+    }
+
+    @TearDown
+    public void deleteFavoriteThingsFile() throws IOException {
+        System.setOut(standardOut);
+        System.setErr(standardErr);
+        Files.deleteIfExists(favoriteThingsFile);
+    }
+
+    @Benchmark
+    public int run() {
+        return new FavoriteThingsRunner(() -> {
+            try {
+                return Files.newInputStream(favoriteThingsFile);
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        }, options).run();
+    }
+}
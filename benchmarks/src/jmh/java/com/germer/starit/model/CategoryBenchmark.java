@@ -0,0 +1,101 @@
+package com.germer.starit.model;
+
+import com.germer.starit.offheap.OffHeapArena;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Measures the {@link Category} API on top of each {@link FavoriteThingStore}: adding favorite things, adding and
+ * then removing them, and reading the highest rated one of a category being changed. Run along with the GC profiler,
+ * as <code>./gradlew jmh</code> does, the allocation rate of each operation is reported too.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CategoryBenchmark {
+
+    private static final int FAVORITE_THINGS = 10_000;
+
+    public enum Storage {
+        SORTED(name -> new Category(name)),
+        COLUMNAR(name -> new Category(name, new ColumnarFavoriteThingStore(name))),
+        CONCURRENT(name -> new Category(name, new ConcurrentFavoriteThingStore())),
+        OFFHEAP(name -> new Category(name, new OffHeapFavoriteThingStore(name, OffHeapArena.direct())));
+
+        private final Function<String, Category> categoryFactory;
+
+        Storage(Function<String, Category> categoryFactory) {
+            this.categoryFactory = categoryFactory;
+        }
+    }
+
+    @Param({"SORTED", "COLUMNAR", "CONCURRENT", "OFFHEAP"})
+    private Storage storage;
+
+    private String[] names;
+    private int[] ratings;
+    private Category category;
+    private int next;
+
+    @Setup
+    public void generateFavoriteThings() {
+        Random random = new Random(42);
+        names = new String[FAVORITE_THINGS];
+        ratings = new int[FAVORITE_THINGS];
+        for (int index = 0; index < FAVORITE_THINGS; index++) {
+            names[index] = "thing" + index;
+            ratings[index] = random.nextInt(1000);
+        }
+        category = storage.categoryFactory.apply("Things");
+        for (int index = 0; index < FAVORITE_THINGS; index += 2) {
+            category.addFavoriteThing(names[index], ratings[index]);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(FAVORITE_THINGS)
+    public Category addFavoriteThing() {
+        Category category = storage.categoryFactory.apply("Things");
+        for (int index = 0; index < FAVORITE_THINGS; index++) {
+            category.addFavoriteThing(names[index], ratings[index]);
+        }
+        return category;
+    }
+
+    /**
+     * Adds one of the odd favorite things missing from a half-full category and removes it back, so the category
+     * stays the same size.
+     */
+    @Benchmark
+    public FavoriteThing addAndRemoveFavoriteThing() {
+        int index = next;
+        next = (next + 2) % FAVORITE_THINGS;
+        category.addFavoriteThing(names[index + 1], ratings[index + 1]);
+        return category.removeFavoriteThingByName(names[index + 1]);
+    }
+
+    /**
+     * Reads the highest rated favorite thing right after each change, which is where the stores ordering lazily
+     * pay for it.
+     */
+    @Benchmark
+    public FavoriteThing addRemoveAndGetHighestRatingFavoriteItem() {
+        int index = next;
+        next = (next + 2) % FAVORITE_THINGS;
+        category.addFavoriteThing(names[index + 1], ratings[index + 1]);
+        category.getHighestRatingFavoriteItem();
+        category.removeFavoriteThingByName(names[index + 1]);
+        return category.getHighestRatingFavoriteItem().orElse(null);
+    }
+
+    @Benchmark
+    public FavoriteThing getHighestRatingFavoriteItem() {
+        return category.getHighestRatingFavoriteItem().orElse(null);
+    }
+}
@@ -0,0 +1,109 @@
+package com.germer.starit.model;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the {@link RatingIndex} backing {@link SortedFavoriteThingStore} with the previous pair of a rating ordered
+ * {@link TreeSet} and a {@link HashMap} by name, on building a category, reading its highest rated favorite thing
+ * and iterating its top ten. Note the previous pair keeps a single favorite thing per rating, so with ratings drawn
+ * from a small range its {@link TreeSet} stays tiny and the comparison favors it. The
+ * {@link BulkLoadFavoriteThingStore} is measured too, on building a category and then freezing it, which orders it
+ * with a single sort.
+ * <p>
+ * Run with <code>./gradlew jmh</code>.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CategoryOrderingBenchmark {
+
+    @Param({"10000", "1000000"})
+    private int favoriteThingsCount;
+
+    @Param({"100", "1000000000"})
+    private int ratingRange;
+
+    private FavoriteThing[] favoriteThings;
+    private SortedFavoriteThingStore store;
+    private PreviousStore previousStore;
+
+    @Setup
+    public void generateFavoriteThings() {
+        Random random = new Random(42);
+        favoriteThings = new FavoriteThing[favoriteThingsCount];
+        for (int index = 0; index < favoriteThingsCount; index++) {
+            favoriteThings[index] = FavoriteThing.of("Things", "thing" + index, random.nextInt(ratingRange));
+        }
+        store = buildStore();
+        previousStore = buildPreviousStore();
+    }
+
+    @Benchmark
+    public SortedFavoriteThingStore buildStore() {
+        SortedFavoriteThingStore store = new SortedFavoriteThingStore();
+        for (FavoriteThing favoriteThing : favoriteThings) {
+            store.add(favoriteThing);
+        }
+        return store;
+    }
+
+    @Benchmark
+    public BulkLoadFavoriteThingStore buildAndFreezeBulkStore() {
+        BulkLoadFavoriteThingStore store = new BulkLoadFavoriteThingStore();
+        for (FavoriteThing favoriteThing : favoriteThings) {
+            store.add(favoriteThing);
+        }
+        store.freeze();
+        return store;
+    }
+
+    @Benchmark
+    public PreviousStore buildPreviousStore() {
+        PreviousStore previousStore = new PreviousStore();
+        for (FavoriteThing favoriteThing : favoriteThings) {
+            previousStore.add(favoriteThing);
+        }
+        return previousStore;
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public void queryStore(Blackhole blackhole) {
+        blackhole.consume(store.getHighestRating());
+        blackhole.consume(store.getTopRated(10));
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public void queryPreviousStore(Blackhole blackhole) {
+        blackhole.consume(previousStore.favoriteThings.stream().findFirst().orElse(null));
+        List<FavoriteThing> topRated = new ArrayList<>(10);
+        for (Iterator<FavoriteThing> iterator = previousStore.favoriteThings.iterator();
+             iterator.hasNext() && topRated.size() < 10; ) {
+            topRated.add(iterator.next());
+        }
+        blackhole.consume(topRated);
+    }
+
+    /**
+     * The previous storage of a {@link Category}, ordering its favorite things only by their rating.
+     */
+    public static class PreviousStore {
+
+        private final Set<FavoriteThing> favoriteThings = new TreeSet<>(Comparator.reverseOrder());
+        private final Map<String, FavoriteThing> favoriteThingByName = new HashMap<>();
+
+        private void add(FavoriteThing favoriteThing) {
+            if (favoriteThingByName.putIfAbsent(favoriteThing.getName(), favoriteThing) == null) {
+                favoriteThings.add(favoriteThing);
+            }
+        }
+    }
+}
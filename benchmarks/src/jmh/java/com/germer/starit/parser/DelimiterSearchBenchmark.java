@@ -0,0 +1,61 @@
+package com.germer.starit.parser;
+
+import com.germer.starit.benchmarks.FavoriteThingsGenerator;
+import com.google.common.collect.Sets;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayInputStream;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the two versions of {@link DelimiterSearch} of the multi-release jar through the scanner tokenizer, over
+ * long lines with many items: the Java 21 one, looking at eight bytes at a time, and the Java 8 one, looking at a
+ * byte at a time, which the same JVM loads when the multi-release jars are disabled. Besides the parses per second,
+ * the <code>bytes</code> secondary result reports the bytes scanned per second.
+ * <p>
+ * Run with <code>./gradlew jmh</code> on Java 21 or later, as both benchmarks measure the Java 8 version otherwise.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DelimiterSearchBenchmark {
+
+    @Param({"20", "200"})
+    private int itemsPerLine;
+
+    private final Set<String> validCategoryNames = Sets.newHashSet(new FavoriteThingsGenerator().categoryNames());
+    private byte[] favoriteThings;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class ScannedBytes {
+        public long bytes;
+    }
+
+    @Setup
+    public void generateFavoriteThings() {
+        favoriteThings = new FavoriteThingsGenerator()
+                .lines(2_000)
+                .thingsPerLine(itemsPerLine)
+                .invalidRate(0.01)
+                .generate();
+    }
+
+    @Benchmark
+    public FavoriteThingsParser parse(ScannedBytes scannedBytes) {
+        scannedBytes.bytes += favoriteThings.length;
+        FavoriteThingsParser parser = new FavoriteThingsParser(validCategoryNames, TokenizerMode.SCANNER);
+        parser.parse(new ByteArrayInputStream(favoriteThings));
+        return parser;
+    }
+
+    @Benchmark
+    @Fork(value = 1, jvmArgsAppend = "-Djdk.util.jar.enableMultiRelease=false")
+    public FavoriteThingsParser parseByteByByte(ScannedBytes scannedBytes) {
+        return parse(scannedBytes);
+    }
+}
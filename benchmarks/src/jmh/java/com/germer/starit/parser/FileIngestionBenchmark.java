@@ -0,0 +1,63 @@
+package com.germer.starit.parser;
+
+import com.germer.starit.benchmarks.FavoriteThingsGenerator;
+import com.google.common.collect.Sets;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares reading a favorite things file through an {@link InputStream} against memory-mapping it with
+ * {@link FavoriteThingsParser#parse(Path)}, sequentially or in parallel chunks. The threads parameter only applies
+ * to the memory-mapped path.
+ * <p>
+ * Run with <code>./gradlew jmh</code>.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FileIngestionBenchmark {
+
+    @Param({"1", "4", "8"})
+    private int threads;
+
+    private final Set<String> validCategoryNames = Sets.newHashSet(new FavoriteThingsGenerator().categoryNames());
+    private Path favoriteThingsFile;
+
+    @Setup
+    public void writeFavoriteThingsFile() throws IOException {
+        favoriteThingsFile = new FavoriteThingsGenerator()
+                .lines(100_000)
+                .thingsPerLine(20)
+                .maxRating(1000)
+                .writeTo(Files.createTempFile("favorite-things", ".txt"));
+    }
+
+    @TearDown
+    public void deleteFavoriteThingsFile() throws IOException {
+        Files.deleteIfExists(favoriteThingsFile);
+    }
+
+    @Benchmark
+    public FavoriteThingsParser inputStreamScanner() throws IOException {
+        FavoriteThingsParser parser = new FavoriteThingsParser(validCategoryNames, TokenizerMode.SCANNER);
+        parser.parse(Files.newInputStream(favoriteThingsFile));
+        return parser;
+    }
+
+    @Benchmark
+    public FavoriteThingsParser memoryMapped() {
+        FavoriteThingsParser parser = new FavoriteThingsParser(validCategoryNames);
+        parser.setParallelism(threads);
+        parser.parse(favoriteThingsFile);
+        return parser;
+    }
+}
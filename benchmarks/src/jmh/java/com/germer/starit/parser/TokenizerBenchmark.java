@@ -0,0 +1,49 @@
+package com.germer.starit.parser;
+
+import com.germer.starit.benchmarks.FavoriteThingsGenerator;
+import com.google.common.collect.Sets;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayInputStream;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the regex and the scanner tokenizers of {@link FavoriteThingsParser} over the same synthetic input, made
+ * of long lines with many items and a small share of malformed ones.
+ * <p>
+ * Run with <code>./gradlew jmh</code>.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TokenizerBenchmark {
+
+    @Param({"REGEX", "SCANNER"})
+    private TokenizerMode tokenizerMode;
+
+    @Param({"20"})
+    private int itemsPerLine;
+
+    private final Set<String> validCategoryNames = Sets.newHashSet(new FavoriteThingsGenerator().categoryNames());
+    private byte[] favoriteThings;
+
+    @Setup
+    public void generateFavoriteThings() {
+        favoriteThings = new FavoriteThingsGenerator()
+                .lines(10_000)
+                .thingsPerLine(itemsPerLine)
+                .invalidRate(0.01)
+                .generate();
+    }
+
+    @Benchmark
+    public FavoriteThingsParser parse() {
+        FavoriteThingsParser parser = new FavoriteThingsParser(validCategoryNames, tokenizerMode);
+        parser.parse(new ByteArrayInputStream(favoriteThings));
+        return parser;
+    }
+}
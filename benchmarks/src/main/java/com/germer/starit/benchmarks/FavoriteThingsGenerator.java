@@ -0,0 +1,226 @@
+package com.germer.starit.benchmarks;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Random;
+
+/**
+ * Generates synthetic favorite things sources for the benchmarks, always the same ones for the same settings and
+ * seed. Every line holds a category and a few favorite things, and can be tuned through:
+ * <ul>
+ *     <li>the amount of lines, of categories and of favorite things per line;</li>
+ *     <li>the share of favorite things repeating a name already used on their category, which are reported as
+ *     duplicates by the parser;</li>
+ *     <li>the share of malformed favorite things (missing their name or rating, or empty) and lines (missing their
+ *     category);</li>
+ *     <li>the distribution of the ratings, see {@link RatingDistribution}.</li>
+ * </ul>
+ * The first categories are the valid ones of the default <code>categories.conf</code>, the next ones are unknown to
+ * it, so any amount of categories above those yields errors for the lines of the unknown ones.
+ * <p>
+ * Can also be run on its own to write a source file:
+ * <code>./gradlew :benchmarks:generateFavoriteThings --args="favorite-things.txt 1000000"</code>.
+ */
+public final class FavoriteThingsGenerator {
+
+    private static final String[] KNOWN_CATEGORIES = {"Colors", "Foods", "Dogs"};
+
+    /**
+     * How the ratings are drawn.
+     */
+    public enum RatingDistribution {
+        /**
+         * Evenly between 0 and the maximum rating.
+         */
+        UNIFORM,
+        /**
+         * Mostly low, only a few favorite things getting close to the maximum rating.
+         */
+        SKEWED,
+        /**
+         * Evenly between 1 and 10 whatever the maximum rating, so that most favorite things are tied.
+         */
+        FEW_DISTINCT
+    }
+
+    private int lines = 100_000;
+    private int categories = KNOWN_CATEGORIES.length;
+    private int thingsPerLine = 20;
+    private double duplicateRate = 0.01;
+    private double invalidRate = 0.01;
+    private RatingDistribution ratingDistribution = RatingDistribution.UNIFORM;
+    private int maxRating = 1000;
+    private long seed = 42;
+
+    public FavoriteThingsGenerator lines(int lines) {
+        this.lines = lines;
+        return this;
+    }
+
+    public FavoriteThingsGenerator categories(int categories) {
+        if (categories < 1) {
+            throw new IllegalArgumentException(String.format("Invalid amount of categories %d, it must be at " +
+                    "least 1.", categories));
+        }
+        this.categories = categories;
+        return this;
+    }
+
+    public FavoriteThingsGenerator thingsPerLine(int thingsPerLine) {
+        this.thingsPerLine = thingsPerLine;
+        return this;
+    }
+
+    /**
+     * @param duplicateRate The share, between 0 and 1, of favorite things repeating a name of their category.
+     */
+    public FavoriteThingsGenerator duplicateRate(double duplicateRate) {
+        this.duplicateRate = duplicateRate;
+        return this;
+    }
+
+    /**
+     * @param invalidRate The share, between 0 and 1, of malformed favorite things, a tenth of it being the share of
+     *                    malformed lines.
+     */
+    public FavoriteThingsGenerator invalidRate(double invalidRate) {
+        this.invalidRate = invalidRate;
+        return this;
+    }
+
+    public FavoriteThingsGenerator ratingDistribution(RatingDistribution ratingDistribution) {
+        this.ratingDistribution = ratingDistribution;
+        return this;
+    }
+
+    public FavoriteThingsGenerator maxRating(int maxRating) {
+        this.maxRating = maxRating;
+        return this;
+    }
+
+    public FavoriteThingsGenerator seed(long seed) {
+        this.seed = seed;
+        return this;
+    }
+
+    /**
+     * @return The names of the generated categories, the known ones first.
+     */
+    public String[] categoryNames() {
+        String[] categoryNames = new String[categories];
+        for (int category = 0; category < categories; category++) {
+            categoryNames[category] = category < KNOWN_CATEGORIES.length ? KNOWN_CATEGORIES[category]
+                    : "Category" + lettersOf(category);
+        }
+        return categoryNames;
+    }
+
+    /**
+     * @return The generated source as UTF-8 bytes.
+     */
+    public byte[] generate() {
+        StringBuilder builder = new StringBuilder(lines * (thingsPerLine * 12 + 10));
+        try {
+            generate(builder);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return builder.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Writes the generated source to the file as UTF-8, replacing it in case it exists.
+     */
+    public Path writeTo(Path path) throws IOException {
+        try (Writer writer = new BufferedWriter(Files.newBufferedWriter(path, StandardCharsets.UTF_8), 1 << 16)) {
+            generate(writer);
+        }
+        return path;
+    }
+
+    private void generate(Appendable out) throws IOException {
+        Random random = new Random(seed);
+        String[] categoryNames = categoryNames();
+        int[] nextThingIds = new int[categories];
+        for (int line = 0; line < lines; line++) {
+            int category = random.nextInt(categories);
+            if (random.nextDouble() >= invalidRate / 10) {
+                out.append(categoryNames[category]).append(':');
+            }
+            for (int item = 0; item < thingsPerLine; item++) {
+                if (item > 0) {
+                    out.append(',');
+                }
+                int thingId = nextThingIds[category] > 0 && random.nextDouble() < duplicateRate
+                        ? random.nextInt(nextThingIds[category]) : nextThingIds[category]++;
+                appendFavoriteThing(out, random, thingId);
+            }
+            out.append('\n');
+        }
+    }
+
+    private void appendFavoriteThing(Appendable out, Random random, int thingId) throws IOException {
+        if (random.nextDouble() < invalidRate) {
+            // Malformed in one of three ways: missing the rating, missing the name or empty.
+            switch (random.nextInt(3)) {
+                case 0:
+                    out.append("thing").append(lettersOf(thingId));
+                    break;
+                case 1:
+                    out.append(Integer.toString(nextRating(random)));
+                    break;
+                default:
+                    break;
+            }
+            return;
+        }
+        out.append("thing").append(lettersOf(thingId)).append(Integer.toString(nextRating(random)));
+    }
+
+    private int nextRating(Random random) {
+        switch (ratingDistribution) {
+            case SKEWED:
+                double uniform = random.nextDouble();
+                return (int) (maxRating * uniform * uniform * uniform * uniform);
+            case FEW_DISTINCT:
+                return 1 + random.nextInt(10);
+            default:
+                return random.nextInt(maxRating + 1);
+        }
+    }
+
+    /**
+     * @return The number in base 26 written with lowercase letters, as the names can't hold digits.
+     */
+    private static String lettersOf(int number) {
+        StringBuilder letters = new StringBuilder();
+        do {
+            letters.append((char) ('a' + number % 26));
+            number /= 26;
+        } while (number > 0);
+        return letters.reverse().toString();
+    }
+
+    /**
+     * Writes a source file with the default settings.
+     *
+     * @param args The path of the file and, optionally, the amount of lines.
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1 || args.length > 2) {
+            System.err.println("Usage: FavoriteThingsGenerator <file> [lines]");
+            System.exit(1);
+        }
+        FavoriteThingsGenerator generator = new FavoriteThingsGenerator();
+        if (args.length == 2) {
+            generator.lines(Integer.parseInt(args[1]));
+        }
+        System.out.println("Generated " + generator.writeTo(Paths.get(args[0])));
+    }
+}
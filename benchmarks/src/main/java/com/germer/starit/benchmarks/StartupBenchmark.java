@@ -0,0 +1,112 @@
+package com.germer.starit.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Measures the startup of the application as a whole, launching it as a new process for the sample run (no arguments,
+ * parsing the bundled <code>favorite-things.txt</code>) over and over, which the JMH micro-benchmarks can't account
+ * for. Each executable is launched a few times to warm up the OS caches first, then its wall time is measured from the
+ * launch to the exit and, when GNU <code>time</code> is installed, its maximum resident set size too.
+ * <p>
+ * Run through <code>./gradlew :benchmarks:startupBenchmark</code>, which measures the launcher script of
+ * <code>:app:installDist</code> and, once built by <code>./gradlew :app:nativeImage</code>, the native executable.
+ * Other executables can be given as arguments instead.
+ */
+public final class StartupBenchmark {
+
+    private static final long TARGET_MILLIS = 50;
+    private static final int WARMUP_RUNS = 3;
+    private static final int MEASURED_RUNS = 20;
+    private static final File GNU_TIME = new File("/usr/bin/time");
+
+    private StartupBenchmark() {
+    }
+
+    /**
+     * @param args The paths of the executables to be measured.
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if (args.length == 0) {
+            System.err.println("Usage: StartupBenchmark <executable>...");
+            System.exit(1);
+        }
+        System.out.printf("%-40s %8s %8s %8s %10s%n", "executable", "min ms", "p50 ms", "p90 ms", "max RSS");
+        for (String executable : args) {
+            if (!new File(executable).canExecute()) {
+                System.out.printf("%-40s not built, skipped%n", executable);
+                continue;
+            }
+            measure(executable);
+        }
+        System.out.printf("Target: under %d ms.%n", TARGET_MILLIS);
+    }
+
+    private static void measure(String executable) throws IOException, InterruptedException {
+        for (int i = 0; i < WARMUP_RUNS; i++) {
+            run(executable, null);
+        }
+        Path rssFile = GNU_TIME.canExecute() ? Files.createTempFile("startup-rss", ".txt") : null;
+        try {
+            List<Long> millis = new ArrayList<>(MEASURED_RUNS);
+            long maxRssKilobytes = 0;
+            for (int i = 0; i < MEASURED_RUNS; i++) {
+                millis.add(run(executable, rssFile));
+                if (rssFile != null) {
+                    maxRssKilobytes = Math.max(maxRssKilobytes, readRssKilobytes(rssFile));
+                }
+            }
+            Collections.sort(millis);
+            System.out.printf("%-40s %8d %8d %8d %10s%s%n", executable, millis.get(0), percentile(millis, 50),
+                    percentile(millis, 90), rssFile == null ? "n/a" : maxRssKilobytes / 1024 + " MB",
+                    percentile(millis, 50) < TARGET_MILLIS ? "" : "  (over target)");
+        } finally {
+            if (rssFile != null) {
+                Files.delete(rssFile);
+            }
+        }
+    }
+
+    /**
+     * @param rssFile Where GNU time writes the maximum resident set size in kilobytes, or null to launch the executable
+     *                directly.
+     * @return The wall time in milliseconds, from the launch to the exit.
+     */
+    private static long run(String executable, Path rssFile) throws IOException, InterruptedException {
+        List<String> command = rssFile == null ? new ArrayList<>()
+                : new ArrayList<>(Arrays.asList(GNU_TIME.getPath(), "-f", "%M", "-o", rssFile.toString()));
+        command.add(executable);
+        ProcessBuilder builder = new ProcessBuilder(command)
+                .redirectOutput(discard())
+                .redirectError(discard());
+        long start = System.nanoTime();
+        int exitCode = builder.start().waitFor();
+        long millis = (System.nanoTime() - start) / 1_000_000;
+        if (exitCode != 0) {
+            throw new IllegalStateException(String.format("'%s' exited with %d.", executable, exitCode));
+        }
+        return millis;
+    }
+
+    private static ProcessBuilder.Redirect discard() {
+        return ProcessBuilder.Redirect.to(new File(File.separatorChar == '\\' ? "NUL" : "/dev/null"));
+    }
+
+    private static long readRssKilobytes(Path rssFile) throws IOException {
+        List<String> lines = Files.readAllLines(rssFile, StandardCharsets.UTF_8);
+        // The last line, after any notice about the exit status.
+        return Long.parseLong(lines.get(lines.size() - 1).trim());
+    }
+
+    private static long percentile(List<Long> sorted, int percentile) {
+        int index = (int) Math.ceil(percentile / 100.0 * sorted.size()) - 1;
+        return sorted.get(Math.max(index, 0));
+    }
+}